@@ -0,0 +1,194 @@
+package com.interview.sample.audit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Binary audit trail of every event produced by the matching workers, written to {@code matching.audit.dir}
+ * instead of logging each event on the matching thread. Disabled unless a directory is configured.
+ *
+ * <p>Every matching thread records its events into its own {@link AuditWriter}, a ring of
+ * {@code matching.audit.ring-size} fixed-size records. A single writer thread drains the rings to an
+ * {@code audit-<epoch millis>.log} file, a new one per start, polling every {@code matching.audit.flush-interval-ms}
+ * when they are empty. Records left in the rings by a process that died are appended to the new file first. The
+ * log file is only forced to disk on close, records drained before a crash of the machine may be lost. The
+ * files are decoded to text with {@link AuditLogReader}.
+ */
+@Log4j2
+@Component
+public class AuditLog {
+
+    private static final String RING_PREFIX = "ring-";
+    private static final String RING_SUFFIX = ".map";
+    private static final String LOG_PREFIX = "audit-";
+    static final String LOG_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int ringSize;
+    private final long flushIntervalNanos;
+    private final List<AuditWriter> writers = new CopyOnWriteArrayList<>();
+
+    private Path file;
+    private FileChannel channel;
+    private Thread drainer;
+    private volatile boolean running;
+
+    public AuditLog(@Value("${matching.audit.dir:}") String directory,
+                    @Value("${matching.audit.ring-size:4096}") int ringSize,
+                    @Value("${matching.audit.flush-interval-ms:5}") long flushIntervalMillis) {
+        if (Integer.bitCount(ringSize) != 1) {
+            throw new IllegalArgumentException("Audit ring size must be a power of two: " + ringSize);
+        }
+        if (flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Flush interval must be greater than zero: " + flushIntervalMillis);
+        }
+        this.directory = directory.isBlank() ? null : Path.of(directory);
+        this.ringSize = ringSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+    }
+
+    @PostConstruct
+    public void open() {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            file = directory.resolve(LOG_PREFIX + System.currentTimeMillis() + LOG_SUFFIX);
+            channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            recoverRings();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open the audit log in " + directory, e);
+        }
+        running = true;
+        drainer = new Thread(this::drain, "matching-audit-writer");
+        // Does not hold the JVM up, closing the audit log drains what is left
+        drainer.setDaemon(true);
+        drainer.start();
+        log.info("Opened audit log {}", file);
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Creates the audit channel of a matching thread.
+     *
+     * @param name name of the matching thread, logged with the ID written in its records
+     * @return the writer of the thread, {@link AuditWriter#NONE} if the audit log is disabled
+     */
+    public synchronized AuditWriter writer(String name) {
+        if (directory == null) {
+            return AuditWriter.NONE;
+        }
+        int id = writers.size();
+        if (id > 0xFF) {
+            throw new IllegalStateException("Too many audit writers: " + id);
+        }
+        Path ring = directory.resolve(RING_PREFIX + id + RING_SUFFIX);
+        try (FileChannel ringChannel = FileChannel.open(ring, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = ringChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    AuditWriter.HEADER_SIZE + (long) ringSize * AuditRecord.RECORD_SIZE);
+            AuditWriter writer = new AuditWriter(id, ring, buffer, drainer);
+            writers.add(writer);
+            log.info("Audit writer {} records the events of {}", id, name);
+            return writer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create the audit ring " + ring, e);
+        }
+    }
+
+    /**
+     * Stops the writer thread and writes the records left in the rings. The matching threads must be stopped.
+     */
+    @PreDestroy
+    public void close() {
+        if (drainer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            drainAll();
+            channel.force(true);
+            channel.close();
+            long stalls = 0;
+            for (AuditWriter writer : writers) {
+                stalls += writer.getStalls();
+                Files.deleteIfExists(writer.getFile());
+            }
+            log.info("Closed audit log {}, matching threads waited {} times for a full ring", file, stalls);
+        } catch (IOException e) {
+            log.error("Failed to close the audit log {}", file, e);
+        }
+        drainer = null;
+    }
+
+    private void drain() {
+        while (running) {
+            try {
+                if (drainAll() == 0) {
+                    LockSupport.parkNanos(flushIntervalNanos);
+                }
+            } catch (IOException e) {
+                // The matching threads wait until the log can be written again
+                log.error("Failed to write the audit log {}", file, e);
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+    }
+
+    private int drainAll() throws IOException {
+        int records = 0;
+        for (AuditWriter writer : writers) {
+            records += writer.drainTo(channel);
+        }
+        return records;
+    }
+
+    private void recoverRings() throws IOException {
+        List<Path> rings;
+        try (Stream<Path> list = Files.list(directory)) {
+            rings = list.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(RING_PREFIX) && name.endsWith(RING_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+        for (Path ring : rings) {
+            long records;
+            try (FileChannel ringChannel = FileChannel.open(ring, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                records = AuditWriter.recover(ringChannel.map(FileChannel.MapMode.READ_WRITE, 0, ringChannel.size()), channel);
+            }
+            Files.delete(ring);
+            if (records > 0) {
+                log.warn("Recovered {} audit records left in {}", records, ring.getFileName());
+            }
+        }
+        channel.force(true);
+    }
+}
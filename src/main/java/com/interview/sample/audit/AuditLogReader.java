@@ -0,0 +1,53 @@
+package com.interview.sample.audit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes audit log files written by the {@link AuditLog} to text, one line per record.
+ *
+ * <p>Run {@link #main} with the files to print, for example
+ * {@code java -cp <classpath> com.interview.sample.audit.AuditLogReader audit/audit-*.log}.
+ */
+public final class AuditLogReader {
+
+    private AuditLogReader() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: AuditLogReader <audit log file>...");
+            System.exit(1);
+        }
+        for (String file : args) {
+            read(Path.of(file)).forEach(System.out::println);
+        }
+    }
+
+    /**
+     * @return the records of the file as text, in the order they were written, up to the last complete one
+     */
+    public static List<String> read(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            List<String> lines = new ArrayList<>();
+            StringBuilder line = new StringBuilder();
+            for (int offset = 0; offset + AuditRecord.RECORD_SIZE <= records.limit(); offset += AuditRecord.RECORD_SIZE) {
+                line.setLength(0);
+                AuditRecord.format(records, offset, line);
+                lines.add(line.toString());
+            }
+            return lines;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the audit log " + file, e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.interview.sample.audit;
+
+import com.interview.sample.domain.event.CommandExpiredEvent;
+import com.interview.sample.domain.event.Event;
+import com.interview.sample.domain.event.EventType;
+import com.interview.sample.domain.event.OrderCancelRejectedEvent;
+import com.interview.sample.domain.event.OrderCancelledEvent;
+import com.interview.sample.domain.event.OrderRejectedEvent;
+import com.interview.sample.domain.event.TradeEvent;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+/**
+ * Fixed-size binary layout of the audit records, one event each.
+ *
+ * <p>Record layout, little-endian, {@value #RECORD_SIZE} bytes:
+ * <pre>
+ *   0  long  time the event was recorded, epoch millis
+ *   8  long  price (scaled), trades
+ *  16  long  trade timestamp, or queued nanos of an expired command
+ *  24  int   quantity, trades
+ *  28  byte  template ID of the event type, see {@link EventType#getTemplateId()}
+ *  29  byte  price scale, trades
+ *  30  byte  ID of the audit writer, one per matching thread
+ *  31  byte  flags, bit i set when identifier i has been truncated
+ *  32  3 identifiers of {@value #ID_SIZE} bytes: byte length, then up to {@value #MAX_ID_LENGTH} ASCII characters.
+ *      Trades: buy order ID, sell order ID, instrument ID, the order IDs as a long after the length byte.
+ *      Cancellations: client order ID, client ID, instrument ID. Rejections: client order ID, client ID, reason.
+ *      Expired commands: client order ID, client ID, security ID.
+ * </pre>
+ */
+final class AuditRecord {
+
+    static final int RECORD_SIZE = 256;
+
+    private static final int TIME = 0;
+    private static final int PRICE = 8;
+    private static final int VALUE = 16;
+    private static final int QUANTITY = 24;
+    private static final int TEMPLATE_ID = 28;
+    private static final int SCALE = 29;
+    private static final int WRITER_ID = 30;
+    private static final int FLAGS = 31;
+    private static final int IDS = 32;
+    private static final int ID_SIZE = 72;
+    private static final int MAX_ID_LENGTH = ID_SIZE - 1;
+
+    private static final String[][] ID_NAMES = new String[6][];
+
+    static {
+        ID_NAMES[EventType.TRADE.getTemplateId()] = new String[]{"buyOrderId", "sellOrderId", "instrumentId"};
+        ID_NAMES[EventType.ORDER_CANCELLED.getTemplateId()] = new String[]{"clientOrderId", "clientId", "instrumentId"};
+        ID_NAMES[EventType.ORDER_REJECTED.getTemplateId()] = new String[]{"clientOrderId", "clientId", "reason"};
+        ID_NAMES[EventType.ORDER_CANCEL_REJECTED.getTemplateId()] = new String[]{"clientOrderId", "clientId", "reason"};
+        ID_NAMES[EventType.COMMAND_EXPIRED.getTemplateId()] = new String[]{"clientOrderId", "clientId", "securityId"};
+    }
+
+    private AuditRecord() {
+    }
+
+    /**
+     * Writes the record of the event at the offset, without allocating.
+     */
+    static void encode(ByteBuffer buffer, int offset, Event event, int writerId, long timeMillis) {
+        long price = 0;
+        long value = 0;
+        int quantity = 0;
+        int scale = 0;
+        int flags;
+        switch (event) {
+            case TradeEvent e -> {
+                price = e.getPrice();
+                scale = e.getPriceScale();
+                quantity = e.getQuantity();
+                value = e.getTimeStamp();
+                flags = putIds(buffer, offset, null, null, e.getInstrumentId());
+                buffer.putLong(offset + IDS + 1, e.getBuyOrderId());
+                buffer.putLong(offset + IDS + ID_SIZE + 1, e.getSellOrderId());
+            }
+            case OrderCancelledEvent e -> flags = putIds(buffer, offset, e.getClientOrderId(), e.getClientId(), e.getInstrumentId());
+            case OrderRejectedEvent e -> flags = putIds(buffer, offset, e.getClientOrderId(), e.getClientId(), e.getReason());
+            case OrderCancelRejectedEvent e -> flags = putIds(buffer, offset, e.getClientOrderId(), e.getClientId(), e.getReason());
+            case CommandExpiredEvent e -> {
+                value = e.getQueuedNanos();
+                flags = putIds(buffer, offset, e.getClientOrderId(), e.getClientId(), e.getSecurityId());
+            }
+            default -> throw new IllegalArgumentException("No audit layout for event: " + event.getClass());
+        }
+        buffer.putLong(offset + TIME, timeMillis);
+        buffer.putLong(offset + PRICE, price);
+        buffer.putLong(offset + VALUE, value);
+        buffer.putInt(offset + QUANTITY, quantity);
+        buffer.put(offset + TEMPLATE_ID, (byte) event.getType().getTemplateId());
+        buffer.put(offset + SCALE, (byte) scale);
+        buffer.put(offset + WRITER_ID, (byte) writerId);
+        buffer.put(offset + FLAGS, (byte) flags);
+    }
+
+    /**
+     * Appends the record at the offset as one line of text, without line separator.
+     */
+    static void format(ByteBuffer buffer, int offset, StringBuilder line) {
+        int templateId = buffer.get(offset + TEMPLATE_ID);
+        EventType type = EventType.ofTemplateId(templateId);
+        line.append(Instant.ofEpochMilli(buffer.getLong(offset + TIME)))
+                .append(" writer=").append(Byte.toUnsignedInt(buffer.get(offset + WRITER_ID)))
+                .append(' ').append(type);
+        int flags = buffer.get(offset + FLAGS);
+        String[] names = ID_NAMES[templateId];
+        for (int field = 0; field < names.length; field++) {
+            int at = offset + IDS + field * ID_SIZE;
+            line.append(' ').append(names[field]).append('=');
+            if (type == EventType.TRADE && field < 2) {
+                line.append(buffer.getLong(at + 1));
+                continue;
+            }
+            int length = buffer.get(at);
+            for (int i = 0; i < length; i++) {
+                line.append((char) buffer.get(at + 1 + i));
+            }
+            if ((flags & (1 << field)) != 0) {
+                line.append("...");
+            }
+        }
+        if (type == EventType.TRADE) {
+            line.append(" price=").append(BigDecimal.valueOf(buffer.getLong(offset + PRICE), buffer.get(offset + SCALE)).toPlainString())
+                    .append(" quantity=").append(buffer.getInt(offset + QUANTITY))
+                    .append(" timestamp=").append(buffer.getLong(offset + VALUE));
+        } else if (type == EventType.COMMAND_EXPIRED) {
+            line.append(" queuedNanos=").append(buffer.getLong(offset + VALUE));
+        }
+    }
+
+    private static int putIds(ByteBuffer buffer, int offset, CharSequence first, CharSequence second, CharSequence third) {
+        return putId(buffer, offset + IDS, first)
+                | putId(buffer, offset + IDS + ID_SIZE, second) << 1
+                | putId(buffer, offset + IDS + 2 * ID_SIZE, third) << 2;
+    }
+
+    // Returns 1 if the identifier has been truncated
+    private static int putId(ByteBuffer buffer, int at, CharSequence value) {
+        int length = value == null ? 0 : Math.min(value.length(), MAX_ID_LENGTH);
+        buffer.put(at, (byte) length);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            buffer.put(at + 1 + i, c < 0x80 ? (byte) c : (byte) '?');
+        }
+        return value != null && value.length() > MAX_ID_LENGTH ? 1 : 0;
+    }
+}
@@ -0,0 +1,164 @@
+package com.interview.sample.audit;
+
+import com.interview.sample.domain.event.Event;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Audit channel of one matching thread: a single-producer single-consumer ring of {@link AuditRecord}s in a
+ * memory-mapped file, drained to the audit log by the writer thread of the {@link AuditLog}.
+ *
+ * <p>Recording an event copies it into the next free slot and publishes it with an ordered store, without
+ * allocating, locking or calling into the OS. When the ring is full the matching thread waits for the writer
+ * thread rather than dropping the record, so the audit trail stays complete. The published and drained positions
+ * are kept in the header of the file, so records still in the ring are recovered if the process dies.
+ *
+ * <p>{@link #record} must only be called from the one matching thread owning the writer.
+ */
+public final class AuditWriter {
+
+    /**
+     * Writer that records nothing.
+     */
+    public static final AuditWriter NONE = new AuditWriter();
+
+    static final int HEADER_SIZE = 64;
+    // Positions in records, the drained one on its own cache line half
+    private static final int PUBLISHED = 0;
+    private static final int DRAINED = 32;
+
+    private static final VarHandle POSITION = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final int id;
+    private final Path file;
+    private final MappedByteBuffer ring;
+    private final int capacity;
+    private final int mask;
+    private final Thread drainer;
+
+    // Matching thread only
+    private long published;
+    private long drainedSeen;
+    private long stalls;
+
+    // Drainer only
+    private long drained;
+
+    private AuditWriter() {
+        this.id = 0;
+        this.file = null;
+        this.ring = null;
+        this.capacity = 0;
+        this.mask = 0;
+        this.drainer = null;
+    }
+
+    AuditWriter(int id, Path file, MappedByteBuffer ring, Thread drainer) {
+        int capacity = (ring.capacity() - HEADER_SIZE) / AuditRecord.RECORD_SIZE;
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Audit ring capacity must be a power of two: " + capacity);
+        }
+        this.id = id;
+        this.file = file;
+        this.ring = ring;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.drainer = drainer;
+        ring.order(ByteOrder.LITTLE_ENDIAN);
+        // Rings are created empty, leftovers are recovered by the audit log before
+        POSITION.setRelease(ring, PUBLISHED, 0L);
+        POSITION.setRelease(ring, DRAINED, 0L);
+    }
+
+    /**
+     * Copies the event into the ring, waiting for room if it is full.
+     */
+    public void record(Event event) {
+        if (ring == null) {
+            return;
+        }
+        if (published - drainedSeen == capacity) {
+            awaitRoom();
+        }
+        int offset = HEADER_SIZE + (int) (published & mask) * AuditRecord.RECORD_SIZE;
+        AuditRecord.encode(ring, offset, event, id, System.currentTimeMillis());
+        POSITION.setRelease(ring, PUBLISHED, ++published);
+    }
+
+    /**
+     * @return number of times the matching thread had to wait for the ring to be drained
+     */
+    public long getStalls() {
+        return stalls;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Writes the records published since the last call to the channel. Drainer thread only.
+     *
+     * @return number of records written
+     */
+    int drainTo(FileChannel channel) throws IOException {
+        long available = (long) POSITION.getAcquire(ring, PUBLISHED);
+        int count = (int) (available - drained);
+        while (drained < available) {
+            int index = (int) (drained & mask);
+            int records = (int) Math.min(available - drained, capacity - index);
+            ByteBuffer slice = ring.slice(HEADER_SIZE + index * AuditRecord.RECORD_SIZE,
+                    records * AuditRecord.RECORD_SIZE);
+            while (slice.hasRemaining()) {
+                channel.write(slice);
+            }
+            drained += records;
+            // Written to the log, the slots can be reused
+            POSITION.setRelease(ring, DRAINED, drained);
+        }
+        return count;
+    }
+
+    private void awaitRoom() {
+        stalls++;
+        LockSupport.unpark(drainer);
+        while (published - (drainedSeen = (long) POSITION.getAcquire(ring, DRAINED)) == capacity) {
+            LockSupport.parkNanos(1_000);
+        }
+    }
+
+    /**
+     * Writes the records of a ring left behind by a previous process and not drained yet to the channel.
+     *
+     * @return number of records recovered
+     */
+    static long recover(MappedByteBuffer ring, FileChannel channel) throws IOException {
+        ring.order(ByteOrder.LITTLE_ENDIAN);
+        int capacity = (ring.capacity() - HEADER_SIZE) / AuditRecord.RECORD_SIZE;
+        long published = (long) POSITION.getAcquire(ring, PUBLISHED);
+        long drained = (long) POSITION.getAcquire(ring, DRAINED);
+        if (capacity <= 0 || drained > published || published - drained > capacity) {
+            throw new IllegalStateException("Corrupt audit ring header, published " + published + ", drained " + drained);
+        }
+        for (long position = drained; position < published; position++) {
+            int offset = HEADER_SIZE + (int) (position % capacity) * AuditRecord.RECORD_SIZE;
+            ByteBuffer record = ring.slice(offset, AuditRecord.RECORD_SIZE);
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        }
+        return published - drained;
+    }
+}
@@ -7,6 +7,18 @@ public interface BookRepository {
 
     Optional<OrderBook> find(String securityId);
 
+    /**
+     * @return dense index of the instrument, assigned on first use and kept for the lifetime of the repository, so
+     * the instrument can be resolved once and its book found with {@link #get(int)} without hashing its ID again
+     */
+    int instrumentIndex(String securityId);
+
+    /**
+     * @param instrument index of the instrument, see {@link #instrumentIndex}
+     * @return the book of the instrument or {@code null} if there is none
+     */
+    OrderBook get(int instrument);
+
     boolean update(String securityId, OrderBook books);
 
     Optional<OrderBook> remove(OrderBook books);
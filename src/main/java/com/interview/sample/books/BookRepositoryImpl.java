@@ -2,38 +2,84 @@ package com.interview.sample.books;
 
 import org.springframework.stereotype.Repository;
 
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Books held in an array indexed by the dense index of their instrument, see {@link SymbolTable}. Lookups by index
+ * are a plain array read, lookups by security ID hash the ID once. Books are added and removed under the lock of
+ * the repository, which replaces the array with a larger copy when an index falls beyond it.
+ */
 @Repository
 public class BookRepositoryImpl implements BookRepository {
 
-    private final Map<String, OrderBook> storage = new ConcurrentHashMap<>();
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final SymbolTable instruments = new SymbolTable();
+    private volatile AtomicReferenceArray<OrderBook> books = new AtomicReferenceArray<>(INITIAL_CAPACITY);
 
     @Override
-    public boolean add(OrderBook book) {
-        return storage.putIfAbsent(book.getInstrument().getSecurityId(), book) == null;
+    public synchronized boolean add(OrderBook book) {
+        int instrument = instruments.intern(book.getInstrument().getSecurityId());
+        if (get(instrument) != null) {
+            return false;
+        }
+        ensureCapacity(instrument).set(instrument, book);
+        return true;
     }
 
     @Override
     public Optional<OrderBook> find(String securityId) {
-        return Optional.ofNullable(storage.get(securityId));
+        return Optional.ofNullable(get(instruments.indexOf(securityId)));
     }
 
     @Override
-    public boolean update(String securityId, OrderBook book) {
-        return storage.replace(securityId, book) != null;
+    public int instrumentIndex(String securityId) {
+        return instruments.intern(securityId);
     }
 
     @Override
-    public Optional<OrderBook> remove(OrderBook books) {
-        boolean removed = storage.remove(books.getInstrument().getSecurityId(), books);
+    public OrderBook get(int instrument) {
+        AtomicReferenceArray<OrderBook> books = this.books;
+        return instrument >= 0 && instrument < books.length() ? books.get(instrument) : null;
+    }
+
+    @Override
+    public synchronized boolean update(String securityId, OrderBook book) {
+        int instrument = instruments.indexOf(securityId);
+        if (get(instrument) == null) {
+            return false;
+        }
+        books.set(instrument, book);
+        return true;
+    }
+
+    @Override
+    public synchronized Optional<OrderBook> remove(OrderBook books) {
+        int instrument = instruments.indexOf(books.getInstrument().getSecurityId());
+        boolean removed = get(instrument) == books;
+        if (removed) {
+            this.books.set(instrument, null);
+        }
         return removed ? Optional.of(books) : Optional.empty();
     }
 
     @Override
-    public void clear() {
-        storage.clear();
+    public synchronized void clear() {
+        // The indexes stay assigned, callers may hold on to them
+        books = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    }
+
+    private AtomicReferenceArray<OrderBook> ensureCapacity(int instrument) {
+        AtomicReferenceArray<OrderBook> current = books;
+        if (instrument < current.length()) {
+            return current;
+        }
+        AtomicReferenceArray<OrderBook> grown = new AtomicReferenceArray<>(Math.max(instrument + 1, current.length() * 2));
+        for (int i = 0; i < current.length(); i++) {
+            grown.set(i, current.get(i));
+        }
+        books = grown;
+        return grown;
     }
-}
\ No newline at end of file
+}
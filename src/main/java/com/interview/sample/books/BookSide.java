@@ -0,0 +1,68 @@
+package com.interview.sample.books;
+
+import com.interview.sample.domain.order.OrderSide;
+
+import java.util.function.Consumer;
+
+/**
+ * One side (bids or asks) of an {@link OrderBook}: the set of non-empty {@link PriceLevel}s
+ * ordered by price priority. For bids the best level is the highest price, for asks the lowest. Prices are the
+ * scaled values at the price scale of the instrument of the book.
+ *
+ * <p>Implementations are confined to the matching thread of the book and are not thread-safe.
+ */
+public interface BookSide {
+
+    OrderSide getSide();
+
+    /**
+     * @return the level at the given price or {@code null} if there is none
+     */
+    PriceLevel get(long price);
+
+    /**
+     * @return the level at the given price, creating an empty one if it does not exist yet
+     */
+    PriceLevel getOrCreate(long price);
+
+    /**
+     * Removes the given level from the side. Called once the level became empty.
+     */
+    void remove(PriceLevel level);
+
+    /**
+     * @return the level with the best price or {@code null} if the side is empty
+     */
+    PriceLevel best();
+
+    /**
+     * Quantity resting at prices at least as good as the limit, i.e. the quantity an order limited at that
+     * price could trade against. Counting may stop as soon as {@code needed} is reached.
+     *
+     * @param limit worst acceptable price, {@link com.interview.sample.domain.order.Price#NO_PRICE} for any price
+     */
+    long availableQuantity(long limit, long needed);
+
+    /**
+     * Called by a level of this side when its total quantity changed.
+     */
+    default void quantityChanged(PriceLevel level, long delta) {
+    }
+
+    /**
+     * Hands every level of the side to the action, in no particular order.
+     */
+    void forEachLevel(Consumer<PriceLevel> action);
+
+    /**
+     * Hands at most {@code count} levels of the side to the action, best price first.
+     */
+    void forEachBestLevel(int count, Consumer<PriceLevel> action);
+
+    boolean isEmpty();
+
+    /**
+     * @return number of price levels on the side
+     */
+    int size();
+}
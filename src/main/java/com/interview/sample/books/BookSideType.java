@@ -0,0 +1,35 @@
+package com.interview.sample.books;
+
+import com.interview.sample.domain.order.OrderSide;
+
+/**
+ * Data structure used for the bid and ask sides of an {@link OrderBook}.
+ */
+public enum BookSideType {
+
+    /**
+     * Red-black tree keyed by price, suitable for any price distribution.
+     */
+    TREE_MAP,
+
+    /**
+     * Tick-indexed array around the top of the book with a sparse fallback for far-away prices,
+     * suitable for liquid instruments where most of the activity is close to the touch.
+     */
+    TICK_LADDER;
+
+    /**
+     * @param tickSize tick size of the instrument, in units of the last decimal of its prices
+     */
+    public BookSide create(OrderSide side, long tickSize, int ladderTicks, LevelPool levelPool) {
+        return create(side, tickSize, ladderTicks, levelPool, DepthTracker.NONE);
+    }
+
+    // The side reports the levels whose quantity changed to the tracker
+    BookSide create(OrderSide side, long tickSize, int ladderTicks, LevelPool levelPool, DepthTracker depth) {
+        return switch (this) {
+            case TREE_MAP -> new TreeMapBookSide(side, levelPool, depth);
+            case TICK_LADDER -> new TickLadderBookSide(side, tickSize, ladderTicks, levelPool, depth);
+        };
+    }
+}
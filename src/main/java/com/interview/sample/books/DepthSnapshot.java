@@ -0,0 +1,23 @@
+package com.interview.sample.books;
+
+import java.util.List;
+
+/**
+ * Best price levels of both sides of an {@link OrderBook}, for subscribers joining the depth updates late. Such a
+ * subscriber applies the updates numbered after {@code sequence} on top of the snapshot, updates carry the quantity
+ * of their level rather than a change of it, so applying one the snapshot already reflects is harmless.
+ *
+ * @param priceScale decimals of the prices of the instrument
+ * @param sequence   sequence of the last depth update published by the book, 0 if there has been none
+ * @param bids       best bids first
+ * @param asks       best asks first
+ */
+public record DepthSnapshot(String instrumentId, int priceScale, long sequence, List<Level> bids, List<Level> asks) {
+
+    /**
+     * @param price    scaled by 10^priceScale
+     * @param quantity remaining quantity of the orders resting at the price
+     */
+    public record Level(long price, long quantity) {
+    }
+}
@@ -0,0 +1,126 @@
+package com.interview.sample.books;
+
+import com.interview.sample.domain.order.OrderSide;
+
+import java.util.Arrays;
+
+/**
+ * Price levels of a book whose quantity changed since its depth was last published, each level once however often
+ * it changed, along with the quantity it had before the first change. Levels are kept by side and price rather
+ * than as {@link PriceLevel}s, which are recycled once emptied.
+ *
+ * <p>An open-addressing table with the levels in the order they were first changed, recording a change neither
+ * allocates, once the table has grown to the busiest batch, nor walks the levels recorded before.
+ *
+ * <p>Not thread-safe, confined to the matching thread of the book.
+ */
+class DepthTracker {
+
+    /**
+     * Tracker of books which do not publish their depth, records nothing.
+     */
+    static final DepthTracker NONE = new DepthTracker(1) {
+        @Override
+        void changed(OrderSide side, long price, long quantityBefore) {
+        }
+    };
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private long[] prices;
+    private OrderSide[] sides;
+    private long[] quantitiesBefore;
+    // Slots of the table in the order the levels were first changed
+    private int[] order;
+    private int size;
+
+    DepthTracker() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    private DepthTracker(int capacity) {
+        allocate(capacity);
+    }
+
+    /**
+     * Records that the quantity of the level changed, only the first change of a level is kept.
+     */
+    void changed(OrderSide side, long price, long quantityBefore) {
+        int slot = slotOf(side, price);
+        if (sides[slot] != null) {
+            return;
+        }
+        if ((size + 1) * 2 > sides.length) {
+            grow();
+            slot = slotOf(side, price);
+        }
+        sides[slot] = side;
+        prices[slot] = price;
+        quantitiesBefore[slot] = quantityBefore;
+        order[size++] = slot;
+    }
+
+    /**
+     * @return number of levels changed
+     */
+    int size() {
+        return size;
+    }
+
+    OrderSide side(int index) {
+        return sides[order[index]];
+    }
+
+    long price(int index) {
+        return prices[order[index]];
+    }
+
+    long quantityBefore(int index) {
+        return quantitiesBefore[order[index]];
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            sides[order[i]] = null;
+        }
+        size = 0;
+    }
+
+    private int slotOf(OrderSide side, long price) {
+        int mask = sides.length - 1;
+        int slot = hash(side, price) & mask;
+        while (sides[slot] != null && (sides[slot] != side || prices[slot] != price)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        OrderSide[] oldSides = sides;
+        long[] oldPrices = prices;
+        long[] oldQuantities = quantitiesBefore;
+        int[] oldOrder = Arrays.copyOf(order, size);
+        allocate(oldSides.length << 1);
+        for (int i = 0; i < oldOrder.length; i++) {
+            int old = oldOrder[i];
+            int slot = slotOf(oldSides[old], oldPrices[old]);
+            sides[slot] = oldSides[old];
+            prices[slot] = oldPrices[old];
+            quantitiesBefore[slot] = oldQuantities[old];
+            order[i] = slot;
+        }
+    }
+
+    private void allocate(int capacity) {
+        prices = new long[capacity];
+        sides = new OrderSide[capacity];
+        quantitiesBefore = new long[capacity];
+        order = new int[capacity / 2 + 1];
+    }
+
+    private static int hash(OrderSide side, long price) {
+        // Prices of coarse ticks share their low bits, the bits are mixed before masking
+        long h = (price ^ (price >>> 33)) * 0xFF51AFD7ED558CCDL;
+        return (int) (h ^ (h >>> 33)) ^ side.ordinal();
+    }
+}
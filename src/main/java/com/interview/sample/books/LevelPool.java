@@ -0,0 +1,42 @@
+package com.interview.sample.books;
+
+/**
+ * Bounded stack of empty {@link PriceLevel}s, recycled by the {@link BookSide}s of a book once a level
+ * gets emptied and removed.
+ *
+ * <p>Not thread-safe, every book owns its own pool confined to the matching thread of the book.
+ */
+public class LevelPool {
+
+    /**
+     * Pool that never keeps released levels, every acquired level is a new one.
+     */
+    public static final LevelPool NONE = new LevelPool(0);
+
+    private final PriceLevel[] free;
+    private int freeCount;
+
+    public LevelPool(int capacity) {
+        this.free = new PriceLevel[capacity];
+    }
+
+    public PriceLevel acquire(long price) {
+        if (freeCount == 0) {
+            return new PriceLevel(price);
+        }
+        PriceLevel level = free[--freeCount];
+        free[freeCount] = null;
+        level.reset(price);
+        return level;
+    }
+
+    public void release(PriceLevel level) {
+        if (freeCount < free.length) {
+            free[freeCount++] = level;
+        }
+    }
+
+    public int getFreeCount() {
+        return freeCount;
+    }
+}
@@ -1,51 +1,114 @@
 package com.interview.sample.books;
 
+import com.interview.sample.domain.event.DepthUpdateEvent;
 import com.interview.sample.domain.event.Event;
+import com.interview.sample.domain.event.EventSink;
 import com.interview.sample.domain.event.OrderCancelledEvent;
 import com.interview.sample.domain.instrument.Instrument;
 import com.interview.sample.domain.order.Order;
+import com.interview.sample.domain.order.OrderPool;
 import com.interview.sample.domain.order.OrderSide;
+import com.interview.sample.domain.order.OrderStatus;
 import com.interview.sample.domain.order.OrderType;
 import com.interview.sample.domain.order.Price;
 import com.interview.sample.matcher.AuctionStrategy;
-import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 
 import java.util.*;
 
 
-@AllArgsConstructor
-@Builder
 public class OrderBook {
     // Price levels for bids (descending) and asks (ascending)
-    private final NavigableMap<Price, PriceLevel> bids = new TreeMap<>(Comparator.reverseOrder());
-    private final NavigableMap<Price, PriceLevel> asks = new TreeMap<>();
+    private final BookSide bids;
+    private final BookSide asks;
 
-    // Active orders by ID
-    private final Map<String, Order> orders = new HashMap<>();
+    // Active orders by client order ID
+    private final OrderIndex orders = new OrderIndex();
     private final AuctionStrategy matcher;
     @Getter
     private final Instrument instrument;
 
-    // Cache top-of-book prices
+    // Recycles orders and levels leaving the book, no-op pools unless the book is pooled
     @Getter
-    private volatile Price bestBidPrice = null;
+    private final OrderPool orderPool;
+
+    // Scale of the prices of the book, its levels and orders keep the bare scaled values
+    @Getter
+    private final int priceScale;
+
+    // Cache top-of-book prices, Price.NO_PRICE while a side is empty
     @Getter
-    private volatile Price bestAskPrice = null;
+    private volatile long bestBid = Price.NO_PRICE;
+    @Getter
+    private volatile long bestAsk = Price.NO_PRICE;
+
+    // Levels changed since the depth was last published, and the sequence of the last depth update published
+    private final DepthTracker depth;
+    private long depthSequence;
+
+    /**
+     * @param poolCapacity number of orders and of price levels the book keeps for reuse,
+     *                     {@code 0} disables pooling
+     * @param depthUpdates whether the book records the levels it changes for {@link #publishDepth}
+     */
+    @Builder
+    public OrderBook(AuctionStrategy matcher, Instrument instrument, BookSideType sideType, int ladderTicks, int poolCapacity,
+                     boolean depthUpdates) {
+        BookSideType type = sideType == null ? BookSideType.TREE_MAP : sideType;
+        int ticks = ladderTicks > 0 ? ladderTicks : TickLadderBookSide.DEFAULT_TICKS;
+        LevelPool levelPool = poolCapacity > 0 ? new LevelPool(poolCapacity) : LevelPool.NONE;
+        long tickSize = instrument == null ? Instrument.DEFAULT_TICK_SIZE : instrument.getTickSize();
+        this.depth = depthUpdates ? new DepthTracker() : DepthTracker.NONE;
+        this.bids = type.create(OrderSide.BUY, tickSize, ticks, levelPool, depth);
+        this.asks = type.create(OrderSide.SELL, tickSize, ticks, levelPool, depth);
+        this.orderPool = poolCapacity > 0 ? new OrderPool(poolCapacity) : OrderPool.NONE;
+        this.matcher = matcher;
+        this.instrument = instrument;
+        this.priceScale = instrument == null ? Instrument.DEFAULT_PRICE_SCALE : instrument.getPriceScale();
+    }
 
     public List<Event> placeOrder(Order order) {
-        orders.put(order.getClientOrderId(), order);
+        List<Event> events = matcher.match(this, order);
+        restOrRelease(order);
+        return events;
+    }
 
-        if (order.getType() == OrderType.LIMIT) {
-            getBookBySide(order.getSide())
-                    .computeIfAbsent(order.getPrice(), p -> new PriceLevel())
-                    .addOrder(order);
+    /**
+     * Places the order, writing the resulting events to the sink instead of returning a new list.
+     */
+    public void placeOrder(Order order, EventSink events) {
+        matcher.match(this, order, events);
+        restOrRelease(order);
+    }
 
-            updateTopOfBook(order.getSide(), order.getPrice());
+    // The order is matched before it enters the book, so only the residual of a LIMIT order rests.
+    // Filled, rejected and non-LIMIT orders never touch their own side.
+    private void restOrRelease(Order order) {
+        if (order.getType() != OrderType.LIMIT
+                || order.getStatus() == OrderStatus.REJECTED
+                || order.getQuantity().isFullyFilled()) {
+            orderPool.release(order);
+            return;
         }
+        rest(order);
+    }
 
-        return matcher.match(this, order);
+    /**
+     * Puts a resting order back into the book as it is, without matching it, e.g. when restoring a snapshot.
+     * The orders of a price level must be restored in time priority.
+     */
+    public void restore(Order order) {
+        rest(order);
+    }
+
+    private void rest(Order order) {
+        orders.put(order);
+        getBookBySide(order.getSide())
+                .getOrCreate(order.getPrice())
+                .addOrder(order);
+
+        updateTopOfBook(order.getSide(), order.getPrice());
     }
 
     public Optional<OrderCancelledEvent> cancelOrder(String orderId) {
@@ -53,55 +116,162 @@ public class OrderBook {
         if (order == null) return Optional.empty();
 
         if (order.getType() == OrderType.LIMIT) {
-            NavigableMap<Price, PriceLevel> book = getBookBySide(order.getSide());
-            Price price = order.getPrice();
-            PriceLevel level = book.get(price);
-
-            if (level != null) {
-                level.removeOrder(order);
-                if (level.isEmpty()) {
-                    book.remove(price);
-                    checkTopOfBookAfterRemoval(order.getSide(), price);
+            removeFromLevel(order);
+        }
+
+        OrderCancelledEvent event = new OrderCancelledEvent(order.getClientOrderId(), order.getClientId(), order.getInstrumentId());
+        orderPool.release(order);
+        return Optional.of(event);
+    }
+
+    /**
+     * Removes a resting order which has been fully filled by the matcher.
+     */
+    public void removeFilledOrder(Order order) {
+        orders.remove(order);
+        removeFromLevel(order);
+        orderPool.release(order);
+    }
+
+    private void removeFromLevel(Order order) {
+        BookSide book = getBookBySide(order.getSide());
+        long price = order.getPrice();
+        PriceLevel level = book.get(price);
+
+        if (level != null) {
+            level.removeOrder(order);
+            if (level.isEmpty()) {
+                book.remove(level);
+                checkTopOfBookAfterRemoval(order.getSide(), price);
+            }
+        }
+    }
+
+    /**
+     * @return whether the book records the levels it changes, see {@link #publishDepth}
+     */
+    public boolean publishesDepth() {
+        return depth != DepthTracker.NONE;
+    }
+
+    /**
+     * Writes one {@link DepthUpdateEvent} to the sink for every price level whose quantity changed since the last
+     * call, with the quantity the level has now. Levels back at the quantity they had are left out.
+     */
+    public void publishDepth(EventSink events) {
+        flushDepth(events);
+    }
+
+    /**
+     * Forgets the levels changed since the depth was last published, e.g. when replaying commands whose depth
+     * updates have been published before. The sequence still advances as if the updates were published, so the
+     * updates published after a replay never reuse a sequence. Replayed commands are discarded one by one while
+     * their updates may have been published per batch, a replay can therefore skip sequences but never fall behind.
+     */
+    public void discardDepth() {
+        flushDepth(null);
+    }
+
+    /**
+     * @return sequence of the last depth update published, plus one for every level changed since, which may still
+     * be published under the sequences up to it
+     */
+    public long getDepthSequence() {
+        return depthSequence + depth.size();
+    }
+
+    /**
+     * Continues the depth updates of a restored book from the sequence of its snapshot, without publishing the
+     * levels restored.
+     */
+    public void restoreDepth(long depthSequence) {
+        depth.clear();
+        this.depthSequence = depthSequence;
+    }
+
+    /**
+     * Copies the best levels of both sides. Must be called by the thread executing the commands of the book.
+     *
+     * @param levels most levels copied per side
+     */
+    public DepthSnapshot depthSnapshot(int levels) {
+        if (levels <= 0) {
+            throw new IllegalArgumentException("Number of levels must be greater than zero: " + levels);
+        }
+        return new DepthSnapshot(instrumentId(), priceScale, depthSequence, depthOf(bids, levels), depthOf(asks, levels));
+    }
+
+    // Publishes to the sink, or only counts the updates without it
+    private void flushDepth(EventSink events) {
+        for (int i = 0; i < depth.size(); i++) {
+            OrderSide side = depth.side(i);
+            long price = depth.price(i);
+            PriceLevel level = getBookBySide(side).get(price);
+            long quantity = level == null ? 0 : level.getTotalQuantity();
+            if (quantity != depth.quantityBefore(i)) {
+                depthSequence++;
+                if (events != null) {
+                    events.add(new DepthUpdateEvent(instrumentId(), side, price, priceScale, quantity, depthSequence));
                 }
             }
         }
+        depth.clear();
+    }
+
+    private static List<DepthSnapshot.Level> depthOf(BookSide side, int levels) {
+        List<DepthSnapshot.Level> depth = new ArrayList<>(Math.min(levels, side.size()));
+        side.forEachBestLevel(levels, level -> depth.add(new DepthSnapshot.Level(level.getPrice(), level.getTotalQuantity())));
+        return depth;
+    }
+
+    private String instrumentId() {
+        return instrument == null ? null : instrument.getSecurityId();
+    }
+
+    public Price getBestBidPrice() {
+        long price = bestBid;
+        return price == Price.NO_PRICE ? null : new Price(price, priceScale);
+    }
 
-        return Optional.of(new OrderCancelledEvent(order.getClientOrderId(), order.getClientId(), order.getInstrumentId()));
+    public Price getBestAskPrice() {
+        long price = bestAsk;
+        return price == Price.NO_PRICE ? null : new Price(price, priceScale);
     }
 
     public Optional<Price> getMarketPrice() {
-        if (bestBidPrice != null && bestAskPrice != null) {
-            long midValue = (bestBidPrice.getValue() + bestAskPrice.getValue()) / 2;
-            return Optional.of(new Price(midValue, bestBidPrice.getScale()));
+        long bid = bestBid;
+        long ask = bestAsk;
+        if (bid != Price.NO_PRICE && ask != Price.NO_PRICE) {
+            return Optional.of(new Price((bid + ask) / 2, priceScale));
         }
         return Optional.empty();
     }
 
-    private void updateTopOfBook(OrderSide side, Price price) {
+    private void updateTopOfBook(OrderSide side, long price) {
         if (side == OrderSide.BUY) {
-            if (bestBidPrice == null || price.compareTo(bestBidPrice) > 0) {
-                bestBidPrice = price;
+            if (bestBid == Price.NO_PRICE || price > bestBid) {
+                bestBid = price;
             }
         } else {
-            if (bestAskPrice == null || price.compareTo(bestAskPrice) < 0) {
-                bestAskPrice = price;
+            if (bestAsk == Price.NO_PRICE || price < bestAsk) {
+                bestAsk = price;
             }
         }
     }
 
-    private void checkTopOfBookAfterRemoval(OrderSide side, Price removedPrice) {
+    private void checkTopOfBookAfterRemoval(OrderSide side, long removedPrice) {
         if (side == OrderSide.BUY) {
-            if (bestBidPrice != null && bestBidPrice.equals(removedPrice)) {
-                bestBidPrice = bids.isEmpty() ? null : bids.firstKey();
+            if (bestBid == removedPrice) {
+                bestBid = bids.isEmpty() ? Price.NO_PRICE : bids.best().getPrice();
             }
         } else {
-            if (bestAskPrice != null && bestAskPrice.equals(removedPrice)) {
-                bestAskPrice = asks.isEmpty() ? null : asks.firstKey();
+            if (bestAsk == removedPrice) {
+                bestAsk = asks.isEmpty() ? Price.NO_PRICE : asks.best().getPrice();
             }
         }
     }
 
-    public NavigableMap<Price, PriceLevel> getBookBySide(OrderSide side) {
+    public BookSide getBookBySide(OrderSide side) {
         return side == OrderSide.BUY ? bids : asks;
     }
 }
\ No newline at end of file
@@ -2,20 +2,48 @@ package com.interview.sample.books;
 
 import com.interview.sample.domain.instrument.Instrument;
 import com.interview.sample.matcher.AuctionStrategy;
-import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
-@AllArgsConstructor
 public class OrderBookFactory {
 
     private final AuctionStrategy matcher;
 
+    private final BookSideType sideType;
+
+    private final int ladderTicks;
+
+    private final int poolCapacity;
+
+    private final boolean depthUpdates;
+
+    public OrderBookFactory(AuctionStrategy matcher) {
+        this(matcher, BookSideType.TREE_MAP, TickLadderBookSide.DEFAULT_TICKS, 0, false);
+    }
+
+    @Autowired
+    public OrderBookFactory(AuctionStrategy matcher,
+                            @Value("${matching.book.side-type:TREE_MAP}") BookSideType sideType,
+                            @Value("${matching.book.ladder-ticks:4096}") int ladderTicks,
+                            @Value("${matching.book.pool-capacity:0}") int poolCapacity,
+                            @Value("${matching.book.depth-updates:false}") boolean depthUpdates) {
+        this.matcher = matcher;
+        this.sideType = sideType;
+        this.ladderTicks = ladderTicks;
+        this.poolCapacity = poolCapacity;
+        this.depthUpdates = depthUpdates;
+    }
+
     public OrderBook createOrderBook(Instrument instrument) {
         return OrderBook.builder()
                 .instrument(instrument)
                 .matcher(matcher)
+                .sideType(sideType)
+                .ladderTicks(ladderTicks)
+                .poolCapacity(poolCapacity)
+                .depthUpdates(depthUpdates)
                 .build();
     }
-}
\ No newline at end of file
+}
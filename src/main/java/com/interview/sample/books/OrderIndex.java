@@ -0,0 +1,183 @@
+package com.interview.sample.books;
+
+import com.interview.sample.domain.order.Order;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing index of the orders of one book by client order ID.
+ *
+ * <p>Each ID is reduced once per operation to a 64-bit key, which is what the linear probing compares.
+ * The ID itself is only compared when the keys are equal, so distinct IDs with colliding keys are still
+ * kept apart. Entries live in two flat arrays, nothing is allocated per order, and removal uses backward
+ * shifting instead of tombstones so lookups stay short under heavy place/cancel churn.
+ *
+ * <p>Not thread-safe, confined to the matching thread of the book.
+ */
+public class OrderIndex {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private Order[] orders;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    public OrderIndex() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public OrderIndex(int expectedOrders) {
+        allocate(tableSizeFor((int) Math.min(1 << 30, (long) Math.ceil(expectedOrders / LOAD_FACTOR))));
+    }
+
+    public Order get(String clientOrderId) {
+        int slot = find(clientOrderId);
+        return slot >= 0 ? orders[slot] : null;
+    }
+
+    /**
+     * Indexes the order by its client order ID.
+     *
+     * @return the order previously indexed under the same ID or {@code null}
+     */
+    public Order put(Order order) {
+        String clientOrderId = order.getClientOrderId();
+        long key = keyOf(clientOrderId);
+        int slot = slotOf(key);
+        for (; orders[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key && orders[slot].getClientOrderId().equals(clientOrderId)) {
+                Order previous = orders[slot];
+                orders[slot] = order;
+                return previous;
+            }
+        }
+        keys[slot] = key;
+        orders[slot] = order;
+        if (++size > resizeThreshold) {
+            rehash(orders.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * @return the removed order or {@code null} if no order is indexed under the ID
+     */
+    public Order remove(String clientOrderId) {
+        int slot = find(clientOrderId);
+        if (slot < 0) {
+            return null;
+        }
+        Order removed = orders[slot];
+        shiftBack(slot);
+        size--;
+        return removed;
+    }
+
+    /**
+     * Removes the given order, but only if it is the order indexed under its client order ID.
+     *
+     * @return whether the order has been removed
+     */
+    public boolean remove(Order order) {
+        int slot = find(order.getClientOrderId());
+        if (slot < 0 || orders[slot] != order) {
+            return false;
+        }
+        shiftBack(slot);
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(orders, null);
+        size = 0;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the ID characters.
+     */
+    static long keyOf(String clientOrderId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < clientOrderId.length(); i++) {
+            hash ^= clientOrderId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private int find(String clientOrderId) {
+        long key = keyOf(clientOrderId);
+        for (int slot = slotOf(key); orders[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key && orders[slot].getClientOrderId().equals(clientOrderId)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int slotOf(long key) {
+        // Murmur3 finalizer, spreads the key bits over the low bits used for the slot
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+    // Closes the gap left by a removed entry by moving back the following entries of the probe sequence
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (orders[slot] == null) {
+                break;
+            }
+            int home = slotOf(keys[slot]);
+            // The entry can fill the gap only if its home slot is not cyclically between the gap and its slot
+            boolean movable = gap <= slot ? home <= gap || home > slot : home <= gap && home > slot;
+            if (movable) {
+                keys[gap] = keys[slot];
+                orders[gap] = orders[slot];
+                gap = slot;
+            }
+        }
+        orders[gap] = null;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Order[] oldOrders = orders;
+        allocate(capacity);
+        for (int i = 0; i < oldOrders.length; i++) {
+            if (oldOrders[i] != null) {
+                int slot = slotOf(oldKeys[i]);
+                while (orders[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                orders[slot] = oldOrders[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        orders = new Order[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Math.max(16, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+    }
+}
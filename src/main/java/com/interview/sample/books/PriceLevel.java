@@ -3,33 +3,115 @@ package com.interview.sample.books;
 import com.interview.sample.domain.order.Order;
 import lombok.Getter;
 
-import java.util.ArrayDeque;
-import java.util.Queue;
-
+/**
+ * Orders resting at one price in time priority. The FIFO queue is intrusive: the links are held by
+ * the orders themselves, so adding, removing the head and removing an order from the middle of the
+ * queue (cancel) are all O(1) regardless of the queue depth and never allocate.
+ *
+ * <p>{@code totalQuantity} is the remaining quantity of the queued orders. Fills of queued orders must be
+ * reported with {@link #fill(int)} to keep it current, every change is passed on to the owning
+ * {@link BookSide} so it can maintain its depth index.
+ */
 public class PriceLevel {
 
+    // Scaled to the price scale of the instrument of the book
+    @Getter
+    private long price;
+    private Order head;
+    private Order tail;
     @Getter
-    private final Queue<Order> orders = new ArrayDeque<>();
+    private int orderCount;
     @Getter
     private long totalQuantity;
+    private BookSide side;
+
+    public PriceLevel(long price) {
+        this.price = price;
+    }
+
+    // Reuses an empty level for another price, see LevelPool
+    void reset(long price) {
+        this.price = price;
+        this.head = null;
+        this.tail = null;
+        this.orderCount = 0;
+        this.totalQuantity = 0;
+        this.side = null;
+    }
+
+    // Called by the side the level is created for
+    void attach(BookSide side) {
+        this.side = side;
+    }
 
     public void addOrder(Order order) {
-        orders.add(order);
-        totalQuantity += order.getQuantity().getRemainingQuantity();
+        order.setPrev(tail);
+        order.setNext(null);
+        if (tail == null) {
+            head = order;
+        } else {
+            tail.setNext(order);
+        }
+        tail = order;
+        orderCount++;
+        changeQuantity(order.getQuantity().getRemainingQuantity());
     }
 
     public void removeOrder(Order order) {
-        if (orders.remove(order)) {
-            totalQuantity -= order.getQuantity().getRemainingQuantity();
+        if (order.getPrev() == null && head != order) {
+            return; // not queued at this level
         }
+        unlink(order);
+        changeQuantity(-order.getQuantity().getRemainingQuantity());
+    }
+
+    public Order poll() {
+        Order order = head;
+        if (order != null) {
+            unlink(order);
+            changeQuantity(-order.getQuantity().getRemainingQuantity());
+        }
+        return order;
+    }
+
+    /**
+     * Records that a queued order has been filled by the given quantity.
+     */
+    public void fill(int quantity) {
+        changeQuantity(-quantity);
     }
 
     public Order peek() {
-        return orders.peek();
+        return head;
     }
 
     public boolean isEmpty() {
-        return orders.isEmpty();
+        return head == null;
+    }
+
+    private void changeQuantity(long delta) {
+        totalQuantity += delta;
+        if (side != null) {
+            side.quantityChanged(this, delta);
+        }
+    }
+
+    private void unlink(Order order) {
+        Order prev = order.getPrev();
+        Order next = order.getNext();
+        if (prev == null) {
+            head = next;
+        } else {
+            prev.setNext(next);
+        }
+        if (next == null) {
+            tail = prev;
+        } else {
+            next.setPrev(prev);
+        }
+        order.setPrev(null);
+        order.setNext(null);
+        orderCount--;
     }
 
-}
\ No newline at end of file
+}
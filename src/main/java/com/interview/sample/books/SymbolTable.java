@@ -0,0 +1,39 @@
+package com.interview.sample.books;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interns identifiers to dense {@code int}s, {@code 0} for the first one, {@code 1} for the next and so on, so what
+ * is kept per identifier can be held in arrays indexed by it. An index is never reused. Lookups of known
+ * identifiers take no lock and allocate nothing.
+ */
+final class SymbolTable {
+
+    private final ConcurrentHashMap<String, Integer> indexes = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @return index of the identifier, the next free one if it is new
+     */
+    int intern(String symbol) {
+        Integer index = indexes.get(symbol);
+        if (index != null) {
+            return index;
+        }
+        // Called at most once per identifier, so every index handed out is used
+        return indexes.computeIfAbsent(symbol, key -> next.getAndIncrement());
+    }
+
+    /**
+     * @return index of the identifier or {@code -1} if it has not been interned
+     */
+    int indexOf(String symbol) {
+        Integer index = indexes.get(symbol);
+        return index == null ? -1 : index;
+    }
+
+    int size() {
+        return next.get();
+    }
+}
@@ -0,0 +1,343 @@
+package com.interview.sample.books;
+
+import com.interview.sample.domain.order.OrderSide;
+import com.interview.sample.domain.order.Price;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * {@link BookSide} that keeps price levels in an array indexed by tick, covering a window of
+ * {@code ticks} consecutive ticks around a reference price. A bitmap of occupied slots is used to find
+ * the next best level after the current one has been emptied.
+ *
+ * <p>Levels inside the window are accessed in O(1) without any allocation or price comparison.
+ * Prices outside the window, or prices that are not a multiple of the tick size, fall back to a sparse
+ * {@link TreeMap}. The window is re-anchored around the incoming price when it is empty or when the
+ * top of the book moves beyond it, so the active part of the book stays in the array as prices drift.
+ *
+ * <p>The quantity of the window levels is also kept in a Fenwick tree indexed by slot, so the quantity
+ * available up to a price is a prefix sum answered in O(log ticks) however many levels it spans.
+ */
+public class TickLadderBookSide implements BookSide {
+
+    public static final int DEFAULT_TICKS = 4096;
+
+    @Getter
+    private final OrderSide side;
+    private final long tickSize;
+    private final int ticks;
+
+    private final PriceLevel[] window;
+    private final long[] occupied;
+    // Fenwick tree of level quantities by slot, 1-based
+    private final long[] depth;
+    private long windowQuantity;
+    private final NavigableMap<Long, PriceLevel> sparse = new TreeMap<>();
+    private final LevelPool levelPool;
+    private final DepthTracker depthTracker;
+
+    // Tick stored in slot 0 of the window
+    private long baseTick;
+    private boolean anchored;
+    private int windowLevels;
+    private int bestSlot = -1;
+
+    public TickLadderBookSide(OrderSide side) {
+        this(side, 1, DEFAULT_TICKS, LevelPool.NONE);
+    }
+
+    public TickLadderBookSide(OrderSide side, long tickSize, int ticks) {
+        this(side, tickSize, ticks, LevelPool.NONE);
+    }
+
+    public TickLadderBookSide(OrderSide side, long tickSize, int ticks, LevelPool levelPool) {
+        this(side, tickSize, ticks, levelPool, DepthTracker.NONE);
+    }
+
+    TickLadderBookSide(OrderSide side, long tickSize, int ticks, LevelPool levelPool, DepthTracker depthTracker) {
+        if (tickSize <= 0) {
+            throw new IllegalArgumentException("Tick size must be greater than zero");
+        }
+        if (ticks <= 0 || ticks % Long.SIZE != 0) {
+            throw new IllegalArgumentException("Ladder size must be a positive multiple of " + Long.SIZE + ": " + ticks);
+        }
+        this.side = side;
+        this.tickSize = tickSize;
+        this.ticks = ticks;
+        this.window = new PriceLevel[ticks];
+        this.occupied = new long[ticks / Long.SIZE];
+        this.depth = new long[ticks + 1];
+        this.levelPool = levelPool;
+        this.depthTracker = depthTracker;
+    }
+
+    @Override
+    public PriceLevel get(long price) {
+        int slot = slotOf(price);
+        return slot >= 0 ? window[slot] : sparse.get(price);
+    }
+
+    @Override
+    public PriceLevel getOrCreate(long value) {
+        int slot = slotOf(value);
+        if (slot < 0 && shouldRecentre(value)) {
+            recentre(value / tickSize - ticks / 2);
+            slot = slotOf(value);
+        }
+
+        if (slot < 0) {
+            return sparse.computeIfAbsent(value, this::newLevel);
+        }
+        PriceLevel level = window[slot];
+        if (level == null) {
+            level = newLevel(value);
+            occupy(slot, level);
+        }
+        return level;
+    }
+
+    @Override
+    public void remove(PriceLevel level) {
+        long value = level.getPrice();
+        int slot = slotOf(value);
+        if (slot >= 0 && window[slot] == level) {
+            window[slot] = null;
+            occupied[slot >>> 6] &= ~(1L << slot);
+            addDepth(slot, -level.getTotalQuantity());
+            windowLevels--;
+            if (slot == bestSlot) {
+                bestSlot = side == OrderSide.BUY ? prevSetBit(slot - 1) : nextSetBit(slot + 1);
+            }
+            levelPool.release(level);
+        } else if (sparse.remove(value, level)) {
+            levelPool.release(level);
+        }
+    }
+
+    @Override
+    public PriceLevel best() {
+        PriceLevel windowBest = bestSlot >= 0 ? window[bestSlot] : null;
+        if (sparse.isEmpty()) {
+            return windowBest;
+        }
+
+        Long sparseBest = side == OrderSide.BUY ? sparse.lastKey() : sparse.firstKey();
+        if (windowBest == null || isBetter(sparseBest, windowBest.getPrice())) {
+            return sparse.get(sparseBest);
+        }
+        return windowBest;
+    }
+
+    @Override
+    public long availableQuantity(long limit, long needed) {
+        long available = windowQuantityUpTo(limit);
+        if (available >= needed || sparse.isEmpty()) {
+            return available;
+        }
+
+        NavigableMap<Long, PriceLevel> candidates = sparse;
+        if (limit != Price.NO_PRICE) {
+            candidates = side == OrderSide.BUY ? sparse.tailMap(limit, true) : sparse.headMap(limit, true);
+        }
+        for (PriceLevel level : (side == OrderSide.BUY ? candidates.descendingMap() : candidates).values()) {
+            available += level.getTotalQuantity();
+            if (available >= needed) {
+                break;
+            }
+        }
+        return available;
+    }
+
+    @Override
+    public void quantityChanged(PriceLevel level, long delta) {
+        depthTracker.changed(side, level.getPrice(), level.getTotalQuantity() - delta);
+        int slot = slotOf(level.getPrice());
+        if (slot >= 0 && window[slot] == level) {
+            addDepth(slot, delta);
+        }
+    }
+
+    @Override
+    public void forEachLevel(Consumer<PriceLevel> action) {
+        for (int slot = nextSetBit(0); slot >= 0; slot = nextSetBit(slot + 1)) {
+            action.accept(window[slot]);
+        }
+        sparse.values().forEach(action);
+    }
+
+    @Override
+    public void forEachBestLevel(int count, Consumer<PriceLevel> action) {
+        // Merges the window, walked away from the best slot, with the sparse levels in price priority
+        Iterator<PriceLevel> far = (side == OrderSide.BUY ? sparse.descendingMap() : sparse).values().iterator();
+        PriceLevel nextFar = far.hasNext() ? far.next() : null;
+        int slot = bestSlot;
+        for (int i = 0; i < count; i++) {
+            PriceLevel near = slot >= 0 ? window[slot] : null;
+            if (near == null && nextFar == null) {
+                return;
+            }
+            if (nextFar == null || (near != null && isBetter(near.getPrice(), nextFar.getPrice()))) {
+                action.accept(near);
+                slot = side == OrderSide.BUY ? prevSetBit(slot - 1) : nextSetBit(slot + 1);
+            } else {
+                action.accept(nextFar);
+                nextFar = far.hasNext() ? far.next() : null;
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return windowLevels == 0 && sparse.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return windowLevels + sparse.size();
+    }
+
+    private int slotOf(long value) {
+        if (!anchored || value % tickSize != 0) {
+            return -1;
+        }
+        long offset = value / tickSize - baseTick;
+        return offset >= 0 && offset < ticks ? (int) offset : -1;
+    }
+
+    private boolean shouldRecentre(long value) {
+        if (value % tickSize != 0) {
+            return false;
+        }
+        if (windowLevels == 0) {
+            return true;
+        }
+        // Top of the book moved past the window, the active part of the book follows it
+        long tick = value / tickSize;
+        return side == OrderSide.BUY ? tick >= baseTick + ticks : tick < baseTick;
+    }
+
+    private void recentre(long newBaseTick) {
+        List<PriceLevel> moved = new ArrayList<>(windowLevels);
+        for (int slot = nextSetBit(0); slot >= 0; slot = nextSetBit(slot + 1)) {
+            moved.add(window[slot]);
+            window[slot] = null;
+        }
+        Arrays.fill(occupied, 0L);
+        Arrays.fill(depth, 0L);
+        windowQuantity = 0;
+        windowLevels = 0;
+        bestSlot = -1;
+        baseTick = newBaseTick;
+        anchored = true;
+
+        long low = baseTick * tickSize;
+        long high = (baseTick + ticks - 1) * tickSize;
+        Iterator<PriceLevel> entering = sparse.subMap(low, true, high, true).values().iterator();
+        while (entering.hasNext()) {
+            PriceLevel level = entering.next();
+            if (level.getPrice() % tickSize == 0) {
+                moved.add(level);
+                entering.remove();
+            }
+        }
+
+        for (PriceLevel level : moved) {
+            int slot = slotOf(level.getPrice());
+            if (slot >= 0) {
+                occupy(slot, level);
+            } else {
+                sparse.put(level.getPrice(), level);
+            }
+        }
+    }
+
+    private PriceLevel newLevel(long price) {
+        PriceLevel level = levelPool.acquire(price);
+        level.attach(this);
+        return level;
+    }
+
+    private void occupy(int slot, PriceLevel level) {
+        window[slot] = level;
+        occupied[slot >>> 6] |= 1L << slot;
+        addDepth(slot, level.getTotalQuantity());
+        windowLevels++;
+        if (bestSlot < 0 || (side == OrderSide.BUY ? slot > bestSlot : slot < bestSlot)) {
+            bestSlot = slot;
+        }
+    }
+
+    // Quantity of the window levels at prices at least as good as the limit
+    private long windowQuantityUpTo(long limit) {
+        if (windowLevels == 0 || limit == Price.NO_PRICE) {
+            return windowQuantity;
+        }
+        // Asks are better at lower slots, bids at higher slots
+        if (side == OrderSide.SELL) {
+            long slot = Math.floorDiv(limit, tickSize) - baseTick;
+            return slot < 0 ? 0 : depthUpTo((int) Math.min(slot, ticks - 1));
+        }
+        long slot = Math.ceilDiv(limit, tickSize) - baseTick;
+        return slot >= ticks ? 0 : windowQuantity - (slot <= 0 ? 0 : depthUpTo((int) slot - 1));
+    }
+
+    private void addDepth(int slot, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        windowQuantity += delta;
+        for (int i = slot + 1; i <= ticks; i += i & -i) {
+            depth[i] += delta;
+        }
+    }
+
+    // Sum of the quantities of slots 0 to slot inclusive
+    private long depthUpTo(int slot) {
+        long sum = 0;
+        for (int i = slot + 1; i > 0; i -= i & -i) {
+            sum += depth[i];
+        }
+        return sum;
+    }
+
+    private boolean isBetter(long price, long than) {
+        return side == OrderSide.BUY ? price > than : price < than;
+    }
+
+    private int nextSetBit(int from) {
+        if (from >= ticks) {
+            return -1;
+        }
+        int word = from >>> 6;
+        long bits = occupied[word] & (-1L << from);
+        while (bits == 0) {
+            if (++word == occupied.length) {
+                return -1;
+            }
+            bits = occupied[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    private int prevSetBit(int from) {
+        if (from < 0) {
+            return -1;
+        }
+        int word = from >>> 6;
+        long bits = occupied[word] & (-1L >>> (63 - (from & 63)));
+        while (bits == 0) {
+            if (--word < 0) {
+                return -1;
+            }
+            bits = occupied[word];
+        }
+        return (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+    }
+}
@@ -0,0 +1,115 @@
+package com.interview.sample.books;
+
+import com.interview.sample.domain.order.OrderSide;
+import com.interview.sample.domain.order.Price;
+import lombok.Getter;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link BookSide} backed by a red-black tree keyed by price. Works for any price distribution,
+ * every access costs O(log levels).
+ */
+public class TreeMapBookSide implements BookSide {
+
+    @Getter
+    private final OrderSide side;
+    private final NavigableMap<Long, PriceLevel> levels;
+    private final LevelPool levelPool;
+    private final DepthTracker depthTracker;
+    private final Function<Long, PriceLevel> newLevel;
+
+    public TreeMapBookSide(OrderSide side) {
+        this(side, LevelPool.NONE);
+    }
+
+    public TreeMapBookSide(OrderSide side, LevelPool levelPool) {
+        this(side, levelPool, DepthTracker.NONE);
+    }
+
+    TreeMapBookSide(OrderSide side, LevelPool levelPool, DepthTracker depthTracker) {
+        this.side = side;
+        this.levelPool = levelPool;
+        this.depthTracker = depthTracker;
+        this.newLevel = this::newLevel;
+        // Bids are kept in descending and asks in ascending order, so the best level is always the first one
+        this.levels = side == OrderSide.BUY ? new TreeMap<>(Comparator.reverseOrder()) : new TreeMap<>();
+    }
+
+    @Override
+    public PriceLevel get(long price) {
+        return levels.get(price);
+    }
+
+    @Override
+    public PriceLevel getOrCreate(long price) {
+        return levels.computeIfAbsent(price, newLevel);
+    }
+
+    @Override
+    public void remove(PriceLevel level) {
+        if (levels.remove(level.getPrice(), level)) {
+            levelPool.release(level);
+        }
+    }
+
+    @Override
+    public PriceLevel best() {
+        Map.Entry<Long, PriceLevel> best = levels.firstEntry();
+        return best == null ? null : best.getValue();
+    }
+
+    @Override
+    public long availableQuantity(long limit, long needed) {
+        long available = 0;
+        for (PriceLevel level : (limit == Price.NO_PRICE ? levels : levels.headMap(limit, true)).values()) {
+            available += level.getTotalQuantity();
+            if (available >= needed) {
+                break;
+            }
+        }
+        return available;
+    }
+
+    @Override
+    public void quantityChanged(PriceLevel level, long delta) {
+        depthTracker.changed(side, level.getPrice(), level.getTotalQuantity() - delta);
+    }
+
+    @Override
+    public void forEachLevel(Consumer<PriceLevel> action) {
+        levels.values().forEach(action);
+    }
+
+    @Override
+    public void forEachBestLevel(int count, Consumer<PriceLevel> action) {
+        int left = count;
+        for (PriceLevel level : levels.values()) {
+            if (left-- <= 0) {
+                break;
+            }
+            action.accept(level);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return levels.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return levels.size();
+    }
+
+    private PriceLevel newLevel(Long price) {
+        PriceLevel level = levelPool.acquire(price);
+        level.attach(this);
+        return level;
+    }
+}
@@ -0,0 +1,20 @@
+package com.interview.sample.broker;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Subscriber taking the events of a batch in their binary encoding, the bytes the publisher encoded them into
+ * once, see {@link com.interview.sample.domain.event.codec.EventEncoder}. Journals and network publishers can
+ * write them out unchanged, {@link com.interview.sample.domain.event.codec.EventDecoder} reads them in place.
+ */
+@FunctionalInterface
+public interface BinaryEventConsumer {
+
+    /**
+     * @param frame  little-endian buffer holding the messages of the batch from index 0 on, shared with the other
+     *               subscribers and reused once the call returns, so it must only be read with absolute gets or
+     *               through a {@link ByteBuffer#duplicate()}
+     * @param length number of bytes of the batch
+     */
+    void accept(ByteBuffer frame, int length);
+}
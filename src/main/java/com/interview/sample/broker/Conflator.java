@@ -0,0 +1,126 @@
+package com.interview.sample.broker;
+
+import com.interview.sample.domain.event.Event;
+import com.interview.sample.domain.event.MarketDataEvent;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Delivery of a {@link SlowSubscriberPolicy#CONFLATE} subscription. The thread of the subscription keeps up with the
+ * partitions by only storing the latest {@link MarketDataEvent} per key, a thread of its own hands the stored
+ * events to the consumer, in the order their keys first changed since the last delivery. Holds one event per key
+ * however far the consumer is behind.
+ */
+@Log4j2
+final class Conflator {
+
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Consumer<Event> consumer;
+    private final Map<Object, MarketDataEvent> latest = new ConcurrentHashMap<>();
+    // Keys with an event in latest, each at most once
+    private final Queue<Object> pending = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile boolean draining;
+    private volatile boolean waiting;
+    // Single writer each, the thread of the subscription and the delivery thread
+    private volatile long conflated;
+    private volatile long delivered;
+
+    Conflator(Consumer<Event> consumer, String name) {
+        this.consumer = consumer;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Stores the event as the latest one of its key, other events are skipped. Called by the thread of the
+     * subscription only.
+     */
+    void offer(Event event) {
+        if (!(event instanceof MarketDataEvent marketData)) {
+            return;
+        }
+        Object key = marketData.getConflationKey();
+        if (latest.put(key, marketData) != null) {
+            // The previous event of the key has not been delivered and never will be
+            conflated++;
+        } else {
+            pending.add(key);
+            if (waiting) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    long getConflated() {
+        return conflated;
+    }
+
+    long getDelivered() {
+        return delivered;
+    }
+
+    /**
+     * Stops the delivery thread, after it delivered the stored events if {@code drain} is set.
+     */
+    void stop(boolean drain) {
+        draining = drain;
+        running = false;
+        LockSupport.unpark(thread);
+        if (Thread.currentThread() == thread) {
+            return;
+        }
+        try {
+            thread.join(TimeUnit.MINUTES.toMillis(1));
+            if (thread.isAlive()) {
+                thread.interrupt();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            if (!deliverNext()) {
+                waiting = true;
+                if (pending.isEmpty() && running) {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+                waiting = false;
+            }
+        }
+        while (draining && deliverNext() && !Thread.currentThread().isInterrupted()) {
+            // Delivers what was stored before the broker shut down
+        }
+    }
+
+    private boolean deliverNext() {
+        Object key = pending.poll();
+        if (key == null) {
+            return false;
+        }
+        // A newer event stored after the key was polled is delivered now rather than queued again
+        MarketDataEvent event = latest.remove(key);
+        try {
+            consumer.accept(event);
+        } catch (RuntimeException e) {
+            log.error("Error while processing event", e);
+        }
+        delivered++;
+        return true;
+    }
+}
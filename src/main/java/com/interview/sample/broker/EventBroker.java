@@ -1,73 +1,164 @@
 package com.interview.sample.broker;
 
 import com.interview.sample.domain.event.Event;
+import com.interview.sample.domain.event.EventBuffer;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
+/**
+ * Multicasts the published events to every {@link Subscription}.
+ *
+ * <p>The broker is partitioned by publishing thread: the first publish of a thread creates its
+ * {@link EventPartition}, a ring of {@code matching.broker.partition-size} event batches the thread is the only
+ * producer of, so publishing takes no lock and publishers never contend with each other. The matching workers are
+ * long-lived, each of them publishes to a partition of its own. Subscribers read every partition with a cursor of
+ * their own, events of one partition reach a subscriber in the order they were published, and since an instrument
+ * is executed by one worker at a time, so do the events of one instrument. A worker handing an instrument over to
+ * another one calls {@link #awaitDelivered()} first, so the events of the new worker never overtake its own.
+ *
+ * <p>Every subscription has a bounded buffer of at most a partition per publisher and a {@link SlowSubscriberPolicy}:
+ * a publisher the subscription fell that far behind waits for it, disconnects it, or, for market data, never gets
+ * there as the subscription conflates the events to the latest one per instrument. Memory use stays flat however
+ * far a subscriber lags, {@link #getSubscriberStats()} exposes the lag and losses of every subscription.
+ *
+ * <p>While a binary subscriber is registered, publishing encodes every batch once into the binary layout of the
+ * {@link com.interview.sample.domain.event.codec.EventEncoder}, in memory of the partition, binary subscribers
+ * receive those bytes without any copy. Without one, batches are not encoded at all.
+ */
 @Log4j2
 @Component
 public class EventBroker {
 
-    private final BlockingQueue<Event> eventQueue = new LinkedBlockingQueue<>();
-    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
-    private final AtomicReference<Consumer<Event>> eventConsumer = new AtomicReference<>();
+    private final int partitionSize;
+    // Partition of each publishing thread
+    private final ThreadLocal<EventPartition> partition = ThreadLocal.withInitial(this::addPartition);
+    // Guarded by this
+    private final List<EventPartition> partitions = new ArrayList<>();
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
 
-    // Publish an event to the queue
-    public void publish(Event event) {
-        try {
-            eventQueue.put(event);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("Failed to publish event", e);
-            throw new IllegalStateException("Failed to publish event", e);
+    public EventBroker(@Value("${matching.broker.partition-size:16384}") int partitionSize) {
+        if (partitionSize <= 0 || Integer.bitCount(partitionSize) != 1) {
+            throw new IllegalArgumentException("Partition size must be a positive power of two: " + partitionSize);
         }
+        this.partitionSize = partitionSize;
     }
 
-    // Subscribe to process events
-    public void subscribe(Consumer<Event> consumer) {
-        eventConsumer.set(consumer);
-        executorService.submit(this::processEvents); // Start processing events
+    // Publish an event to the partition of the calling thread
+    public void publish(Event event) {
+        partition.get().publish(new Event[]{event});
     }
 
-    // Process events in FIFO order
-    private void processEvents() {
-        while (!Thread.currentThread().isInterrupted()) {
-            try {
-                Event event = eventQueue.take(); // Retrieve and remove the head of the queue
-                Consumer<Event> consumer = eventConsumer.get();
-                if (consumer != null) {
-                    consumer.accept(event); // Pass the event to the consumer
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.warn("Event processing interrupted", e);
-                break; // Exit the loop if interrupted
-            } catch (Exception e) {
-                log.error("Error while processing event", e);
-            }
+    // Publish all buffered events in one handoff, the buffer can be cleared afterwards
+    public void publishAll(EventBuffer events) {
+        if (!events.isEmpty()) {
+            partition.get().publish(events.toArray());
         }
     }
 
-    // Clear the event queue (optional, for cleanup)
+    /**
+     * Waits until every subscriber has received the events published by the calling thread so far.
+     */
+    public void awaitDelivered() {
+        partition.get().awaitDelivered();
+    }
+
+    /**
+     * Subscribes to the events published from now on, next to the existing subscribers, with the
+     * {@link SlowSubscriberPolicy#BLOCK} policy and a buffer of a whole partition.
+     *
+     * @return subscription to close once no more events are wanted
+     */
+    public Subscription subscribe(Consumer<Event> consumer) {
+        return subscribe("subscriber-" + subscribers.getAndIncrement(), consumer, SlowSubscriberPolicy.BLOCK, partitionSize);
+    }
+
+    /**
+     * Subscribes to the events published from now on, next to the existing subscribers. The consumer is called by
+     * a thread of the subscription only.
+     *
+     * @param bufferSize number of batches the subscription may fall behind a publisher before the policy applies,
+     *                   at most {@code matching.broker.partition-size}
+     * @return subscription to close once no more events are wanted
+     */
+    public synchronized Subscription subscribe(String name, Consumer<Event> consumer, SlowSubscriberPolicy policy,
+                                               int bufferSize) {
+        return start(new Subscription(this, name, consumer, policy, bufferSize));
+    }
+
+    private Subscription start(Subscription subscription) {
+        partitions.forEach(subscription::follow);
+        subscriptions.add(subscription);
+        subscription.start();
+        return subscription;
+    }
+
+    /**
+     * Subscribes to the binary encoding of the events published from now on, see {@link BinaryEventConsumer}. The
+     * subscription blocks the publishers once it is the buffer size behind, as it reads their memory in place.
+     *
+     * @param bufferSize number of batches the subscription may fall behind a publisher, at most
+     *                   {@code matching.broker.partition-size}
+     * @return subscription to close once no more events are wanted
+     */
+    public synchronized Subscription subscribeBinary(String name, BinaryEventConsumer consumer, int bufferSize) {
+        return start(new Subscription(this, name, consumer, bufferSize));
+    }
+
+    /**
+     * @return lag, delivered, dropped and conflated counts of every subscription not closed yet, disconnected ones
+     * included
+     */
+    public synchronized List<SubscriberStats> getSubscriberStats() {
+        return subscriptions.stream()
+                .map(subscription -> new SubscriberStats(subscription.getName(), subscription.getPolicy(),
+                        subscription.getLag(), subscription.getDelivered(), subscription.getDropped(),
+                        subscription.getConflated(), subscription.isDisconnected()))
+                .toList();
+    }
+
+    synchronized void unsubscribe(Subscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    private synchronized EventPartition addPartition() {
+        EventPartition added = new EventPartition(partitionSize);
+        subscriptions.forEach(subscription -> subscription.follow(added));
+        partitions.add(added);
+        log.info("Added event partition {} for thread {}", partitions.size() - 1, Thread.currentThread().getName());
+        return added;
+    }
+
+    // Close every subscription, events not delivered yet are dropped
     public void clear() {
-        eventQueue.clear();
-        eventConsumer.set(null);
+        stopAll(false);
     }
 
-    // Shutdown the event broker gracefully
+    // Shutdown the event broker gracefully, delivering the events published so far
     public void shutdown() {
-        executorService.shutdown();
-        try {
-            if (!executorService.awaitTermination(1, TimeUnit.MINUTES)) {
-                executorService.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            executorService.shutdownNow();
+        stopAll(true);
+    }
+
+    private void stopAll(boolean drain) {
+        List<Subscription> stopped;
+        synchronized (this) {
+            stopped = new ArrayList<>(subscriptions);
+            subscriptions.clear();
         }
+        stopped.forEach(subscription -> subscription.stop(drain));
+    }
+
+    /**
+     * Backlog and losses of one subscription, see {@link #getSubscriberStats()}. Lag and dropped are counted in
+     * batches, delivered and conflated in events.
+     */
+    public record SubscriberStats(String name, SlowSubscriberPolicy policy, long lag, long delivered, long dropped,
+                                  long conflated, boolean disconnected) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,201 @@
+package com.interview.sample.broker;
+
+import com.interview.sample.domain.event.Event;
+import com.interview.sample.domain.event.codec.EventEncoder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Event batches published by one thread, in the order it published them. A pre-allocated ring of batches with a
+ * single producer and any number of readers, each following the ring with a {@link Cursor} of its own, so every
+ * subscriber reads every batch without it being copied or handed over through a lock.
+ *
+ * <p>The producer stores a batch in the slot of the next sequence and then publishes the sequence. A cursor may
+ * fall at most its buffer size behind, at most the ring size, before the producer applies the
+ * {@link SlowSubscriberPolicy} of its subscription: it either waits for the cursor to move on or disconnects the
+ * subscription and drops its cursor. Slots keep their batch until it is overwritten, as any subscriber may still
+ * read it.
+ *
+ * <p>While a binary subscriber follows the partition, the producer also encodes every batch once, with the
+ * {@link EventEncoder}, into a direct buffer kept for its slot, which binary subscribers read as they are. Without
+ * one nothing is encoded. Slot buffers are allocated on the first lap and only grow again when a batch outgrows them,
+ * so encoding allocates nothing once the ring has been around. A binary cursor added while a batch is being
+ * published may start at that batch unencoded, it skips the batch, as it was published before the subscription.
+ */
+class EventPartition {
+
+    private static final long PARK_NANOS = 1_000;
+    private static final int INITIAL_FRAME_SIZE = 256;
+
+    private final AtomicReferenceArray<Event[]> slots;
+    // Binary encoding of the batch in each slot, written along with it
+    private final ByteBuffer[] frames;
+    // -1 for a batch published without binary cursors
+    private final int[] frameLengths;
+    private final EventEncoder encoder = new EventEncoder();
+    private final int size;
+    private final int mask;
+    // Sequences below it are published, written by the producer only
+    private final AtomicLong published = new AtomicLong();
+    private final List<Cursor> cursors = new CopyOnWriteArrayList<>();
+    private final AtomicInteger binaryCursors = new AtomicInteger();
+
+    EventPartition(int size) {
+        this.slots = new AtomicReferenceArray<>(size);
+        this.frames = new ByteBuffer[size];
+        this.frameLengths = new int[size];
+        this.size = size;
+        this.mask = size - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Publishes the batch to every cursor. Must only be called by the producer thread of the partition.
+     */
+    void publish(Event[] batch) {
+        long sequence = published.get();
+        for (Cursor cursor : cursors) {
+            if (sequence - cursor.sequence.get() >= cursor.bufferSize) {
+                makeRoom(cursor, sequence);
+            } else if (cursor.subscription.isDisconnected()) {
+                // Disconnected by the producer of another partition
+                cursor.close();
+            }
+        }
+        int index = (int) sequence & mask;
+        if (binaryCursors.get() > 0) {
+            encode(index, batch);
+        } else {
+            frameLengths[index] = -1;
+        }
+        // Release store, a reader seeing the batch also sees its frame and the cursors closed before
+        slots.setRelease(index, batch);
+        // Volatile write, ordered before the check whether a subscriber went to sleep
+        published.set(sequence + 1);
+        for (Cursor cursor : cursors) {
+            cursor.subscription.wake();
+        }
+    }
+
+    /**
+     * Waits until every cursor has read the batches published so far. Must only be called by the producer thread
+     * of the partition.
+     */
+    void awaitDelivered() {
+        long target = published.get();
+        for (Cursor cursor : cursors) {
+            while (cursor.sequence.get() < target && !cursor.closed) {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Adds a cursor for the subscription, starting at the next batch to be published.
+     */
+    Cursor follow(Subscription subscription, int bufferSize) {
+        if (subscription.isBinary()) {
+            // Counted before the start is read, every batch after the start is encoded
+            binaryCursors.incrementAndGet();
+        }
+        Cursor cursor = new Cursor(subscription, Math.min(bufferSize, size), published.get());
+        cursors.add(cursor);
+        return cursor;
+    }
+
+    private void encode(int index, Event[] batch) {
+        int length = 0;
+        for (Event event : batch) {
+            length += EventEncoder.lengthOf(event);
+        }
+        ByteBuffer frame = frames[index];
+        if (frame == null || frame.capacity() < length) {
+            int capacity = Math.max(INITIAL_FRAME_SIZE, Integer.highestOneBit(Math.max(1, length - 1)) << 1);
+            frame = ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+            frames[index] = frame;
+        }
+        encoder.wrap(frame, 0);
+        for (Event event : batch) {
+            encoder.encode(event);
+        }
+        frameLengths[index] = length;
+    }
+
+    private void makeRoom(Cursor cursor, long sequence) {
+        if (cursor.subscription.getPolicy() == SlowSubscriberPolicy.DISCONNECT) {
+            cursor.close();
+            cursor.subscription.disconnect(sequence - cursor.sequence.get());
+            return;
+        }
+        while (sequence - cursor.sequence.get() >= cursor.bufferSize && !cursor.closed) {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+
+    /**
+     * Read position of one subscription in the partition.
+     */
+    final class Cursor {
+
+        private final Subscription subscription;
+        private final int bufferSize;
+        // Next sequence to read, written by the thread of the subscription only
+        private final AtomicLong sequence;
+        private volatile boolean closed;
+
+        private Cursor(Subscription subscription, int bufferSize, long sequence) {
+            this.subscription = subscription;
+            this.bufferSize = bufferSize;
+            this.sequence = new AtomicLong(sequence);
+        }
+
+        /**
+         * Hands the published batches from the cursor on, up to the limit, to the subscription.
+         *
+         * @return number of batches read
+         */
+        int poll(int limit) {
+            long start = sequence.get();
+            long end = Math.min(published.get(), start + limit);
+            for (long next = start; next < end; next++) {
+                int index = (int) next & mask;
+                Event[] batch = slots.getAcquire(index);
+                if (closed) {
+                    // The producer may have overwritten the slot already
+                    return (int) (next - start);
+                }
+                int frameLength = frameLengths[index];
+                if (frameLength >= 0 || !subscription.isBinary()) {
+                    subscription.deliver(batch, frames[index], frameLength);
+                }
+                // Frees the slot for the producer
+                sequence.set(next + 1);
+            }
+            return (int) (end - start);
+        }
+
+        /**
+         * @return number of batches published and not read yet
+         */
+        long lag() {
+            return closed ? 0 : published.get() - sequence.get();
+        }
+
+        void close() {
+            closed = true;
+            if (cursors.remove(this) && subscription.isBinary()) {
+                binaryCursors.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.interview.sample.broker;
+
+import com.interview.sample.domain.event.MarketDataEvent;
+
+/**
+ * What happens once a {@link Subscription} is as many batches behind a publisher as its buffer holds. Chosen per
+ * subscription, so a lagging subscriber never grows the heap and only holds back the publishers if it asked to.
+ */
+public enum SlowSubscriberPolicy {
+
+    /**
+     * The publisher waits for the subscriber, nothing is lost. For trade and execution streams which every
+     * consumer must see in full.
+     */
+    BLOCK,
+
+    /**
+     * The subscriber is disconnected and its unread batches are dropped, the publisher goes on right away.
+     * For streams where a gap is worse than no data and the consumer resubscribes.
+     */
+    DISCONNECT,
+
+    /**
+     * The subscriber only receives {@link MarketDataEvent}s, conflated to the latest one per key while the consumer
+     * is busy, so it sees the latest state of every instrument and the buffer holds one event per key.
+     */
+    CONFLATE
+}
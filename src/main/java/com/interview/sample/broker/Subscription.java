@@ -0,0 +1,248 @@
+package com.interview.sample.broker;
+
+import com.interview.sample.domain.event.Event;
+import lombok.extern.log4j.Log4j2;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Subscriber of the {@link EventBroker}. Every subscription has a thread of its own which follows all partitions
+ * of the broker with a cursor per partition, so a slow subscriber never holds back the reads of another one.
+ * Events of one partition reach the consumer in the order they were published.
+ *
+ * <p>A cursor falls at most the buffer size of the subscription behind its partition, what happens then is up to
+ * the {@link SlowSubscriberPolicy} of the subscription. A binary subscription takes the encoded batches rather
+ * than the event objects, and always blocks the publishers, as it reads the bytes in place.
+ */
+@Log4j2
+public final class Subscription implements AutoCloseable {
+
+    // Batches read from one partition before moving on to the next one
+    private static final int BATCHES_PER_POLL = 64;
+    private static final int SPINS = 100;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final EventBroker broker;
+    private final String name;
+    // Exactly one of them is set
+    private final Consumer<Event> consumer;
+    private final BinaryEventConsumer binaryConsumer;
+    private final SlowSubscriberPolicy policy;
+    private final int bufferSize;
+    private final List<EventPartition.Cursor> cursors = new CopyOnWriteArrayList<>();
+    private final Thread thread;
+    // Set for conflating subscriptions only
+    private final Conflator conflator;
+    private volatile boolean running = true;
+    private volatile boolean draining;
+    private volatile boolean disconnected;
+    // Set while the thread is about to park, producers then wake it up
+    private volatile boolean waiting;
+    // Written by the thread of the subscription only
+    private volatile long delivered;
+    private final AtomicLong dropped = new AtomicLong();
+
+    Subscription(EventBroker broker, String name, Consumer<Event> consumer, SlowSubscriberPolicy policy, int bufferSize) {
+        this(broker, name, consumer, null, policy, bufferSize);
+    }
+
+    Subscription(EventBroker broker, String name, BinaryEventConsumer binaryConsumer, int bufferSize) {
+        this(broker, name, null, binaryConsumer, SlowSubscriberPolicy.BLOCK, bufferSize);
+    }
+
+    private Subscription(EventBroker broker, String name, Consumer<Event> consumer, BinaryEventConsumer binaryConsumer,
+                         SlowSubscriberPolicy policy, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be greater than zero: " + bufferSize);
+        }
+        this.broker = broker;
+        this.name = name;
+        this.consumer = consumer;
+        this.binaryConsumer = binaryConsumer;
+        this.policy = policy;
+        this.bufferSize = bufferSize;
+        this.thread = new Thread(this::run, "event-subscriber-" + name);
+        this.thread.setDaemon(true);
+        this.conflator = policy == SlowSubscriberPolicy.CONFLATE
+                ? new Conflator(consumer, "event-conflator-" + name) : null;
+    }
+
+    /**
+     * Stops the subscription right away, events not delivered yet are dropped.
+     */
+    @Override
+    public void close() {
+        broker.unsubscribe(this);
+        stop(false);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public SlowSubscriberPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return number of batches published to the partitions and not read by the subscription yet
+     */
+    public long getLag() {
+        long lag = 0;
+        for (EventPartition.Cursor cursor : cursors) {
+            lag += cursor.lag();
+        }
+        return lag;
+    }
+
+    /**
+     * @return number of events handed to the consumer so far
+     */
+    public long getDelivered() {
+        return conflator != null ? conflator.getDelivered() : delivered;
+    }
+
+    /**
+     * @return number of batches left unread because the subscription was disconnected
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return number of events superseded by a newer event of their key before they were delivered
+     */
+    public long getConflated() {
+        return conflator != null ? conflator.getConflated() : 0;
+    }
+
+    public boolean isDisconnected() {
+        return disconnected;
+    }
+
+    boolean isBinary() {
+        return binaryConsumer != null;
+    }
+
+    void start() {
+        if (conflator != null) {
+            conflator.start();
+        }
+        thread.start();
+    }
+
+    void follow(EventPartition partition) {
+        if (!disconnected) {
+            cursors.add(partition.follow(this, bufferSize));
+        }
+    }
+
+    void wake() {
+        if (waiting) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Disconnects the subscription, called by the producer of a partition the subscription fell too far behind.
+     *
+     * @param unread number of batches of the partition the subscription did not read
+     */
+    void disconnect(long unread) {
+        dropped.addAndGet(unread);
+        if (!disconnected) {
+            disconnected = true;
+            log.warn("Disconnected event subscriber {}, {} batches behind", name, unread);
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Hands a batch read from a partition to the consumer. Called by the thread of the subscription only.
+     */
+    void deliver(Event[] batch, ByteBuffer frame, int frameLength) {
+        if (binaryConsumer != null) {
+            try {
+                binaryConsumer.accept(frame, frameLength);
+            } catch (RuntimeException e) {
+                log.error("Error while processing events", e);
+            }
+            delivered += batch.length;
+            return;
+        }
+        for (Event event : batch) {
+            if (conflator != null) {
+                conflator.offer(event);
+                continue;
+            }
+            try {
+                consumer.accept(event);
+            } catch (RuntimeException e) {
+                log.error("Error while processing event", e);
+            }
+        }
+        if (conflator == null) {
+            delivered += batch.length;
+        }
+    }
+
+    /**
+     * Stops the thread of the subscription, after it delivered the events published so far if {@code drain} is set.
+     */
+    void stop(boolean drain) {
+        draining = drain;
+        running = false;
+        LockSupport.unpark(thread);
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join(TimeUnit.MINUTES.toMillis(1));
+                if (thread.isAlive()) {
+                    thread.interrupt();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (conflator != null) {
+            conflator.stop(drain);
+        }
+    }
+
+    private void run() {
+        int idle = 0;
+        while (running && !disconnected && !Thread.currentThread().isInterrupted()) {
+            if (poll() > 0) {
+                idle = 0;
+            } else if (++idle < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                waiting = true;
+                // Rechecked once waiting is visible, a batch published before has not woken the thread
+                if (poll() == 0 && running && !disconnected) {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+                waiting = false;
+            }
+        }
+        if (draining) {
+            while (poll() > 0 && !Thread.currentThread().isInterrupted()) {
+                // Delivers what was published before the broker shut down
+            }
+        }
+        cursors.forEach(EventPartition.Cursor::close);
+    }
+
+    private int poll() {
+        int batches = 0;
+        for (EventPartition.Cursor cursor : cursors) {
+            batches += cursor.poll(BATCHES_PER_POLL);
+        }
+        return batches;
+    }
+}
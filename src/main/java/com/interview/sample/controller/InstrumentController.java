@@ -1,5 +1,6 @@
 package com.interview.sample.controller;
 
+import com.interview.sample.books.DepthSnapshot;
 import com.interview.sample.controller.command.InstrumentCreatedCommand;
 import com.interview.sample.controller.validation.InstrumentCreatedCommandValidator;
 import com.interview.sample.service.CommandExecutor;
@@ -23,4 +24,13 @@ public class InstrumentController {
         commandExecutor.execute(command);
         return ResponseEntity.accepted().body("Instrument creation submitted for security: " + command.securityId());
     }
+
+    @GetMapping("/{securityId}/depth")
+    public ResponseEntity<DepthSnapshot> getDepth(@PathVariable String securityId,
+                                                  @RequestParam(defaultValue = "10") int levels) {
+        if (levels <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.of(commandExecutor.depthSnapshot(securityId, levels));
+    }
 }
\ No newline at end of file
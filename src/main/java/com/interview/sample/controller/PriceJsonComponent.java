@@ -0,0 +1,48 @@
+package com.interview.sample.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.interview.sample.domain.order.Price;
+import com.interview.sample.domain.order.PriceParser;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes {@link Price}s as plain JSON numbers. Number and string tokens are parsed from the characters
+ * of the token by the {@link PriceParser}, without the {@code BigDecimal} Jackson would create for them.
+ */
+@JsonComponent
+public class PriceJsonComponent {
+
+    public static class Deserializer extends JsonDeserializer<Price> {
+
+        @Override
+        public Price deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT
+                    && token != JsonToken.VALUE_STRING) {
+                return (Price) context.handleUnexpectedToken(Price.class, parser);
+            }
+            try {
+                return PriceParser.parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            } catch (NumberFormatException e) {
+                throw InvalidFormatException.from(parser, e.getMessage(), parser.getText(), Price.class);
+            }
+        }
+    }
+
+    public static class Serializer extends JsonSerializer<Price> {
+
+        @Override
+        public void serialize(Price price, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeNumber(price.toString());
+        }
+    }
+}
@@ -1,5 +1,15 @@
 package com.interview.sample.controller.command;
 
-public record InstrumentCreatedCommand(String securityId, String symbol) implements Command {
+import com.interview.sample.domain.order.Price;
 
-}
\ No newline at end of file
+/**
+ * @param priceScale decimals of the prices of the instrument, {@code null} for
+ *                   {@link com.interview.sample.domain.instrument.Instrument#DEFAULT_PRICE_SCALE}
+ * @param tickSize   price increment of the instrument, {@code null} for one unit of the last decimal
+ */
+public record InstrumentCreatedCommand(String securityId, String symbol, Integer priceScale, Price tickSize) implements Command {
+
+    public InstrumentCreatedCommand(String securityId, String symbol) {
+        this(securityId, symbol, null, null);
+    }
+}
@@ -2,9 +2,12 @@ package com.interview.sample.controller.command;
 
 import com.interview.sample.domain.order.OrderSide;
 import com.interview.sample.domain.order.OrderType;
+import com.interview.sample.domain.order.Price;
 import com.interview.sample.domain.order.TimeInForce;
 
-import java.math.BigDecimal;
-
-public record OrderPlacedCommand(String securityId, String clientId, String clientOrderId, OrderSide side, BigDecimal price, long quantity, OrderType orderType, TimeInForce timeInForce) implements Command {
+/**
+ * @param price limit price at the scale it was sent with, brought to the scale of the instrument when the order is
+ *              placed
+ */
+public record OrderPlacedCommand(String securityId, String clientId, String clientOrderId, OrderSide side, Price price, long quantity, OrderType orderType, TimeInForce timeInForce) implements Command {
 }
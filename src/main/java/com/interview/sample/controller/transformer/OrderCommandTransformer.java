@@ -1,6 +1,7 @@
 package com.interview.sample.controller.transformer;
 
 import com.interview.sample.controller.command.OrderPlacedCommand;
+import com.interview.sample.domain.instrument.Instrument;
 import com.interview.sample.domain.order.*;
 import org.springframework.stereotype.Component;
 
@@ -8,20 +9,32 @@ import org.springframework.stereotype.Component;
 public class OrderCommandTransformer {
 
     public Order transform(OrderPlacedCommand command) {
-        Price price = Price.from(command.price(), 2);
-        OrderQuantity quantity = OrderQuantity.builder()
-                .originalQuantity((int) command.quantity())
-                .remainingQuantity((int) command.quantity())
-                .build();
+        long price = command.price() == null ? Price.NO_PRICE : command.price().valueAt(Instrument.DEFAULT_PRICE_SCALE);
+        return acquire(command, command.securityId(), price, OrderPool.NONE);
+    }
+
+    /**
+     * Takes the order from the pool of the target book, so pooled books recycle their orders, with its price at the
+     * scale of the instrument. The price is rescaled with integer arithmetic only, and not at all when the command
+     * already carries the scale of the instrument. The order shares the security ID instance of the instrument
+     * rather than keeping the one of the command.
+     *
+     * @throws IllegalArgumentException if the price is finer than the scale of the instrument or not on a tick
+     */
+    public Order transform(OrderPlacedCommand command, Instrument instrument, OrderPool orderPool) {
+        long price = command.price() == null ? Price.NO_PRICE : instrument.toScaledPrice(command.price());
+        return acquire(command, instrument.getSecurityId(), price, orderPool);
+    }
 
-        return new Order(
-                command.securityId(),
+    private static Order acquire(OrderPlacedCommand command, String securityId, long price, OrderPool orderPool) {
+        return orderPool.acquire(
+                securityId,
                 command.clientId(),
                 command.clientOrderId(),
                 command.side(),
                 command.orderType(),
                 price,
-                quantity,
+                (int) command.quantity(),
                 command.timeInForce());
     }
-}
\ No newline at end of file
+}
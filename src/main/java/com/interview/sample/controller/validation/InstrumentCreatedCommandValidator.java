@@ -2,6 +2,7 @@ package com.interview.sample.controller.validation;
 
 
 import com.interview.sample.controller.command.InstrumentCreatedCommand;
+import com.interview.sample.domain.instrument.Instrument;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -16,5 +17,12 @@ public class InstrumentCreatedCommandValidator {
         if (command.symbol() == null || command.symbol().isBlank()) {
             throw new IllegalArgumentException("Symbol must not be null or blank");
         }
+        int priceScale = command.priceScale() == null ? Instrument.DEFAULT_PRICE_SCALE : command.priceScale();
+        if (priceScale < 0 || priceScale > 18) {
+            throw new IllegalArgumentException("Price scale must be between 0 and 18");
+        }
+        if (command.tickSize() != null && command.tickSize().rescale(priceScale).getValue() <= 0) {
+            throw new IllegalArgumentException("Tick size must be greater than zero");
+        }
     }
 }
\ No newline at end of file
@@ -5,8 +5,6 @@ import com.interview.sample.controller.command.OrderPlacedCommand;
 import com.interview.sample.domain.order.OrderType;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
-
 @Component
 public class OrderPlacedCommandValidator {
 
@@ -20,7 +18,7 @@ public class OrderPlacedCommandValidator {
         if (command.clientOrderId() == null || command.clientOrderId().isBlank()) {
             throw new IllegalArgumentException("Client Order ID must not be null or blank");
         }
-        if (command.orderType() == OrderType.LIMIT && (command.price() == null || command.price().compareTo(BigDecimal.ZERO) <= 0)) {
+        if (command.orderType() == OrderType.LIMIT && (command.price() == null || command.price().getValue() <= 0)) {
             throw new IllegalArgumentException("Price must be greater than zero for LIMIT orders");
         }
         if (command.quantity() <= 0) {
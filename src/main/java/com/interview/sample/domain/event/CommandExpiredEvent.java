@@ -0,0 +1,22 @@
+package com.interview.sample.domain.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Order command rejected without being executed, because it waited longer than allowed in the queue of its
+ * matching worker.
+ */
+@AllArgsConstructor
+@Getter
+public class CommandExpiredEvent implements Event {
+    private final String clientOrderId;
+    private final String clientId;
+    private final String securityId;
+    private final long queuedNanos;
+
+    @Override
+    public EventType getType() {
+        return EventType.COMMAND_EXPIRED;
+    }
+}
@@ -0,0 +1,46 @@
+package com.interview.sample.domain.event;
+
+import com.interview.sample.domain.order.OrderSide;
+import com.interview.sample.domain.order.Price;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Quantity now resting at one price level of a book, 0 once the level is gone. Published once per level for every
+ * batch of commands which changed the level, however many orders were placed, matched or cancelled at it.
+ */
+@Data
+@AllArgsConstructor
+public class DepthUpdateEvent implements MarketDataEvent {
+    String instrumentId;
+    OrderSide side;
+    // Scaled by 10^priceScale
+    long price;
+    int priceScale;
+    long quantity;
+    // Numbers the depth updates of the book, see com.interview.sample.books.DepthSnapshot
+    long sequence;
+
+    /**
+     * @return the price of the level with its scale, a new {@link Price} on every call
+     */
+    public Price toPrice() {
+        return new Price(price, priceScale);
+    }
+
+    @Override
+    public EventType getType() {
+        return EventType.DEPTH_UPDATE;
+    }
+
+    /**
+     * @return the level the update is for, subscribers lagging behind receive the latest quantity of every level
+     */
+    @Override
+    public Object getConflationKey() {
+        return new Level(instrumentId, side, price);
+    }
+
+    private record Level(String instrumentId, OrderSide side, long price) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.interview.sample.domain.event;
+
+import java.util.Arrays;
+
+/**
+ * Reusable array-backed {@link EventSink}. A worker keeps one buffer, fills it while executing a command,
+ * hands the batch over and clears it, so nothing but the events themselves is allocated once the buffer
+ * has grown to the largest batch.
+ *
+ * <p>Not thread-safe, owned by one worker thread.
+ */
+public class EventBuffer implements EventSink {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Event[] events;
+    private int size;
+
+    public EventBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public EventBuffer(int capacity) {
+        this.events = new Event[Math.max(1, capacity)];
+    }
+
+    @Override
+    public void add(Event event) {
+        if (size == events.length) {
+            events = Arrays.copyOf(events, size << 1);
+        }
+        events[size++] = event;
+    }
+
+    public Event get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return events[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return copy of the buffered events, which stays valid after the buffer is cleared
+     */
+    public Event[] toArray() {
+        return Arrays.copyOf(events, size);
+    }
+
+    /**
+     * Empties the buffer, dropping the references to the events so they can be collected.
+     */
+    public void clear() {
+        Arrays.fill(events, 0, size, null);
+        size = 0;
+    }
+}
@@ -0,0 +1,10 @@
+package com.interview.sample.domain.event;
+
+/**
+ * Destination of the events produced while a command is executed, lets the caller decide where they go
+ * instead of having a collection allocated for every order.
+ */
+@FunctionalInterface
+public interface EventSink {
+    void add(Event event);
+}
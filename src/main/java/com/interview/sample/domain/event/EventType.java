@@ -1,8 +1,37 @@
 package com.interview.sample.domain.event;
 
 public enum EventType {
-    TRADE,
-    ORDER_CANCELLED,
-    ORDER_REJECTED,
-    ORDER_CANCEL_REJECTED
+    TRADE(1),
+    ORDER_CANCELLED(2),
+    ORDER_REJECTED(3),
+    ORDER_CANCEL_REJECTED(4),
+    COMMAND_EXPIRED(5),
+    DEPTH_UPDATE(6);
+
+    private static final EventType[] BY_TEMPLATE_ID = new EventType[7];
+
+    static {
+        for (EventType type : values()) {
+            BY_TEMPLATE_ID[type.templateId] = type;
+        }
+    }
+
+    // Identifies the type in the binary encoding, must never change once events have been written
+    private final int templateId;
+
+    EventType(int templateId) {
+        this.templateId = templateId;
+    }
+
+    public int getTemplateId() {
+        return templateId;
+    }
+
+    public static EventType ofTemplateId(int templateId) {
+        EventType type = templateId > 0 && templateId < BY_TEMPLATE_ID.length ? BY_TEMPLATE_ID[templateId] : null;
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown event template ID: " + templateId);
+        }
+        return type;
+    }
 }
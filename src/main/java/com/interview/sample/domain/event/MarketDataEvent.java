@@ -0,0 +1,17 @@
+package com.interview.sample.domain.event;
+
+/**
+ * Event describing the state of an instrument rather than a single execution, a newer event of the same key
+ * supersedes the older ones, so subscribers lagging behind may receive the latest one only.
+ */
+public interface MarketDataEvent extends Event {
+
+    String getInstrumentId();
+
+    /**
+     * @return key of the state the event describes, events of different types must not share keys
+     */
+    default Object getConflationKey() {
+        return getInstrumentId();
+    }
+}
@@ -6,14 +6,33 @@ import lombok.Data;
 
 @Data
 @AllArgsConstructor
-public class TradeEvent implements Event {
-    String buyOrderId;
-    String sellOrderId;
+public class TradeEvent implements MarketDataEvent {
+    // Engine assigned, see OrderIdGenerator
+    long buyOrderId;
+    long sellOrderId;
+    // Clients owning the orders, execution reports of the trade go to them
+    String buyClientId;
+    String sellClientId;
     String instrumentId;
-    Price price;
+    // Scaled by 10^priceScale
+    long price;
+    int priceScale;
     int quantity;
     long timeStamp;
 
+    public TradeEvent(long buyOrderId, long sellOrderId, String buyClientId, String sellClientId, String instrumentId,
+                      Price price, int quantity, long timeStamp) {
+        this(buyOrderId, sellOrderId, buyClientId, sellClientId, instrumentId, price.getValue(), price.getScale(),
+                quantity, timeStamp);
+    }
+
+    /**
+     * @return the price of the trade with its scale, a new {@link Price} on every call
+     */
+    public Price toPrice() {
+        return new Price(price, priceScale);
+    }
+
     @Override
     public EventType getType() {
         return EventType.TRADE;
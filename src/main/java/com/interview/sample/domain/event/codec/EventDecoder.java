@@ -0,0 +1,198 @@
+package com.interview.sample.domain.event.codec;
+
+import com.interview.sample.domain.event.CommandExpiredEvent;
+import com.interview.sample.domain.event.DepthUpdateEvent;
+import com.interview.sample.domain.event.Event;
+import com.interview.sample.domain.event.EventType;
+import com.interview.sample.domain.event.OrderCancelRejectedEvent;
+import com.interview.sample.domain.event.OrderCancelledEvent;
+import com.interview.sample.domain.event.OrderRejectedEvent;
+import com.interview.sample.domain.event.TradeEvent;
+import com.interview.sample.domain.order.OrderSide;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static com.interview.sample.domain.event.codec.EventEncoder.*;
+
+/**
+ * Flyweight reading a message written by the {@link EventEncoder} in place, without copying or allocating
+ * anything. Wrap it at the offset of a message, read the fields of its type and move on with {@link #next()}.
+ *
+ * <p>Every type carries three identifiers, read by index. Trades: buy client ID, sell client ID, instrument ID, their
+ * order IDs are numbers in the block. Depth updates: two empty ones, then the instrument ID.
+ * Cancellations: client order ID, client ID, instrument ID. Rejections: client order ID, client ID, reason. Expired
+ * commands: client order ID, client ID, security ID. Absent identifiers are written empty.
+ *
+ * <p>Not thread-safe, a reader keeps a decoder of its own.
+ */
+public class EventDecoder {
+
+    public static final int CLIENT_ORDER_ID = 0;
+    public static final int CLIENT_ID = 1;
+    public static final int BUY_CLIENT_ID = 0;
+    public static final int SELL_CLIENT_ID = 1;
+    public static final int INSTRUMENT_ID = 2;
+    public static final int REASON = 2;
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    /**
+     * Points the decoder at the message starting at the offset of the buffer, which must be little-endian.
+     */
+    public EventDecoder wrap(ByteBuffer buffer, int offset) {
+        if (buffer.order() != ByteOrder.LITTLE_ENDIAN) {
+            throw new IllegalArgumentException("Event buffers must be little-endian");
+        }
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * Moves on to the message following the current one.
+     *
+     * @return offset of the next message
+     */
+    public int next() {
+        offset += length();
+        return offset;
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * @return length of the message, header included
+     */
+    public int length() {
+        return buffer.getInt(offset + LENGTH_OFFSET);
+    }
+
+    public EventType type() {
+        return EventType.ofTemplateId(buffer.getShort(offset + TEMPLATE_ID_OFFSET));
+    }
+
+    public long price() {
+        return buffer.getLong(block() + PRICE_OFFSET);
+    }
+
+    public int scale() {
+        return buffer.get(block() + SCALE_OFFSET);
+    }
+
+    public int quantity() {
+        return buffer.getInt(block() + QUANTITY_OFFSET);
+    }
+
+    public long timestamp() {
+        return buffer.getLong(block() + TIMESTAMP_OFFSET);
+    }
+
+    public long buyOrderId() {
+        return buffer.getLong(block() + BUY_ORDER_ID_OFFSET);
+    }
+
+    public long sellOrderId() {
+        return buffer.getLong(block() + SELL_ORDER_ID_OFFSET);
+    }
+
+    public OrderSide side() {
+        return buffer.get(block() + SIDE_OFFSET) == 0 ? OrderSide.BUY : OrderSide.SELL;
+    }
+
+    /**
+     * @return quantity resting at the level of a depth update
+     */
+    public long levelQuantity() {
+        return buffer.getLong(block() + LEVEL_QUANTITY_OFFSET);
+    }
+
+    public long depthSequence() {
+        return buffer.getLong(block() + DEPTH_SEQUENCE_OFFSET);
+    }
+
+    public long queuedNanos() {
+        return buffer.getLong(block() + QUEUED_NANOS_OFFSET);
+    }
+
+    /**
+     * @return number of ASCII characters of the identifier
+     */
+    public int idLength(int field) {
+        return buffer.getShort(varOffset(field));
+    }
+
+    /**
+     * Copies the ASCII bytes of the identifier into the array.
+     *
+     * @return number of bytes copied
+     */
+    public int getId(int field, byte[] dst) {
+        int at = varOffset(field);
+        int length = buffer.getShort(at);
+        buffer.get(at + VAR_LENGTH_SIZE, dst, 0, length);
+        return length;
+    }
+
+    /**
+     * @return whether the identifier is the given one, without decoding it
+     */
+    public boolean idEquals(int field, CharSequence value) {
+        int at = varOffset(field);
+        int length = buffer.getShort(at);
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(at + VAR_LENGTH_SIZE + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the identifier into a new string, for consumers that are not allocation-sensitive.
+     */
+    public String idAsString(int field) {
+        byte[] bytes = new byte[idLength(field)];
+        getId(field, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Decodes the message into a new event object, for consumers that are not allocation-sensitive.
+     */
+    public Event toEvent() {
+        return switch (type()) {
+            case TRADE -> new TradeEvent(buyOrderId(), sellOrderId(), idAsString(BUY_CLIENT_ID),
+                    idAsString(SELL_CLIENT_ID), idAsString(INSTRUMENT_ID), price(), scale(), quantity(), timestamp());
+            case ORDER_CANCELLED -> new OrderCancelledEvent(idAsString(CLIENT_ORDER_ID), idAsString(CLIENT_ID),
+                    idAsString(INSTRUMENT_ID));
+            case ORDER_REJECTED -> new OrderRejectedEvent(idAsString(CLIENT_ORDER_ID), idAsString(CLIENT_ID),
+                    idAsString(REASON));
+            case ORDER_CANCEL_REJECTED -> new OrderCancelRejectedEvent(idAsString(CLIENT_ORDER_ID), idAsString(CLIENT_ID),
+                    idAsString(REASON));
+            case COMMAND_EXPIRED -> new CommandExpiredEvent(idAsString(CLIENT_ORDER_ID), idAsString(CLIENT_ID),
+                    idAsString(INSTRUMENT_ID), queuedNanos());
+            case DEPTH_UPDATE -> new DepthUpdateEvent(idAsString(INSTRUMENT_ID), side(), price(), scale(),
+                    levelQuantity(), depthSequence());
+        };
+    }
+
+    private int block() {
+        return offset + HEADER_LENGTH;
+    }
+
+    private int varOffset(int field) {
+        int at = block() + buffer.getShort(offset + BLOCK_LENGTH_OFFSET);
+        for (int i = 0; i < field; i++) {
+            at += VAR_LENGTH_SIZE + buffer.getShort(at);
+        }
+        return at;
+    }
+}
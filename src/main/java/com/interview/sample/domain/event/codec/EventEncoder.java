@@ -0,0 +1,215 @@
+package com.interview.sample.domain.event.codec;
+
+import com.interview.sample.domain.event.CommandExpiredEvent;
+import com.interview.sample.domain.event.DepthUpdateEvent;
+import com.interview.sample.domain.event.Event;
+import com.interview.sample.domain.event.EventType;
+import com.interview.sample.domain.event.OrderCancelRejectedEvent;
+import com.interview.sample.domain.event.OrderCancelledEvent;
+import com.interview.sample.domain.event.OrderRejectedEvent;
+import com.interview.sample.domain.event.TradeEvent;
+import com.interview.sample.domain.order.OrderSide;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Flyweight writing events in their fixed binary layout, in the style of SBE, straight into a {@link ByteBuffer}.
+ * Wraps a buffer at an offset and appends one message after the other, without allocating anything.
+ *
+ * <p>Message layout, little-endian: a header, the fixed-size block of the event type, then its identifiers as
+ * variable-length data in a fixed order, see {@link EventDecoder} for the fields.
+ * <pre>
+ *   header   0  int    message length, header included
+ *            4  short  template ID, see {@link EventType#getTemplateId()}
+ *            6  short  block length
+ *   TRADE    0  long   price (scaled)          COMMAND_EXPIRED  0  long  queued nanos
+ *            8  int    quantity
+ *           12  byte   price scale
+ *           16  long   timestamp
+ *           24  long   buy order ID
+ *           32  long   sell order ID
+ *   DEPTH_UPDATE
+ *            0  long   price (scaled)
+ *            8  byte   side, 0 buy, 1 sell
+ *           12  byte   price scale
+ *           16  long   level quantity
+ *           24  long   depth sequence
+ *   var data, per field: short length, ASCII bytes
+ * </pre>
+ *
+ * <p>Not thread-safe, a producer keeps an encoder of its own.
+ */
+public class EventEncoder {
+
+    static final int HEADER_LENGTH = 8;
+    static final int LENGTH_OFFSET = 0;
+    static final int TEMPLATE_ID_OFFSET = 4;
+    static final int BLOCK_LENGTH_OFFSET = 6;
+
+    static final int TRADE_BLOCK_LENGTH = 40;
+    static final int PRICE_OFFSET = 0;
+    static final int QUANTITY_OFFSET = 8;
+    static final int SCALE_OFFSET = 12;
+    static final int TIMESTAMP_OFFSET = 16;
+    static final int BUY_ORDER_ID_OFFSET = 24;
+    static final int SELL_ORDER_ID_OFFSET = 32;
+
+    // Price and scale at the offsets of the trade block
+    static final int DEPTH_UPDATE_BLOCK_LENGTH = 32;
+    static final int SIDE_OFFSET = 8;
+    static final int LEVEL_QUANTITY_OFFSET = 16;
+    static final int DEPTH_SEQUENCE_OFFSET = 24;
+
+    static final int COMMAND_EXPIRED_BLOCK_LENGTH = 8;
+    static final int QUEUED_NANOS_OFFSET = 0;
+
+    static final int VAR_LENGTH_SIZE = 2;
+    static final int MAX_VAR_LENGTH = Short.MAX_VALUE;
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    /**
+     * Starts writing at the offset of the buffer, which must be little-endian.
+     */
+    public EventEncoder wrap(ByteBuffer buffer, int offset) {
+        if (buffer.order() != ByteOrder.LITTLE_ENDIAN) {
+            throw new IllegalArgumentException("Event buffers must be little-endian");
+        }
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * @return offset the next message is written at
+     */
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * @return number of bytes the event takes encoded
+     */
+    public static int lengthOf(Event event) {
+        return switch (event) {
+            case TradeEvent e -> HEADER_LENGTH + TRADE_BLOCK_LENGTH
+                    + varLength(e.getBuyClientId()) + varLength(e.getSellClientId()) + varLength(e.getInstrumentId());
+            case DepthUpdateEvent e -> HEADER_LENGTH + DEPTH_UPDATE_BLOCK_LENGTH
+                    + 2 * VAR_LENGTH_SIZE + varLength(e.getInstrumentId());
+            case OrderCancelledEvent e -> HEADER_LENGTH
+                    + varLength(e.getClientOrderId()) + varLength(e.getClientId()) + varLength(e.getInstrumentId());
+            case OrderRejectedEvent e -> HEADER_LENGTH
+                    + varLength(e.getClientOrderId()) + varLength(e.getClientId()) + varLength(e.getReason());
+            case OrderCancelRejectedEvent e -> HEADER_LENGTH
+                    + varLength(e.getClientOrderId()) + varLength(e.getClientId()) + varLength(e.getReason());
+            case CommandExpiredEvent e -> HEADER_LENGTH + COMMAND_EXPIRED_BLOCK_LENGTH
+                    + varLength(e.getClientOrderId()) + varLength(e.getClientId()) + varLength(e.getSecurityId());
+            default -> throw new IllegalArgumentException("No binary layout for event: " + event.getClass());
+        };
+    }
+
+    /**
+     * Appends the event, the buffer must have room for {@link #lengthOf} bytes.
+     */
+    public void encode(Event event) {
+        switch (event) {
+            case TradeEvent e -> encodeTrade(e.getBuyOrderId(), e.getSellOrderId(), e.getBuyClientId(),
+                    e.getSellClientId(), e.getInstrumentId(),
+                    e.getPrice(), e.getPriceScale(), e.getQuantity(), e.getTimeStamp());
+            case DepthUpdateEvent e -> encodeDepthUpdate(e.getInstrumentId(), e.getSide(), e.getPrice(),
+                    e.getPriceScale(), e.getQuantity(), e.getSequence());
+            case OrderCancelledEvent e -> encodeIds(EventType.ORDER_CANCELLED,
+                    e.getClientOrderId(), e.getClientId(), e.getInstrumentId());
+            case OrderRejectedEvent e -> encodeIds(EventType.ORDER_REJECTED,
+                    e.getClientOrderId(), e.getClientId(), e.getReason());
+            case OrderCancelRejectedEvent e -> encodeIds(EventType.ORDER_CANCEL_REJECTED,
+                    e.getClientOrderId(), e.getClientId(), e.getReason());
+            case CommandExpiredEvent e -> encodeCommandExpired(e.getClientOrderId(), e.getClientId(),
+                    e.getSecurityId(), e.getQueuedNanos());
+            default -> throw new IllegalArgumentException("No binary layout for event: " + event.getClass());
+        }
+    }
+
+    public void encodeTrade(long buyOrderId, long sellOrderId, CharSequence buyClientId, CharSequence sellClientId,
+                            CharSequence instrumentId, long price, int scale, int quantity, long timestamp) {
+        int start = offset;
+        offset += HEADER_LENGTH;
+        buffer.putLong(offset + PRICE_OFFSET, price);
+        buffer.putInt(offset + QUANTITY_OFFSET, quantity);
+        buffer.put(offset + SCALE_OFFSET, (byte) scale);
+        buffer.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+        buffer.putLong(offset + BUY_ORDER_ID_OFFSET, buyOrderId);
+        buffer.putLong(offset + SELL_ORDER_ID_OFFSET, sellOrderId);
+        offset += TRADE_BLOCK_LENGTH;
+        putVar(buyClientId);
+        putVar(sellClientId);
+        putVar(instrumentId);
+        putHeader(start, EventType.TRADE, TRADE_BLOCK_LENGTH);
+    }
+
+    public void encodeDepthUpdate(CharSequence instrumentId, OrderSide side, long price, int scale, long quantity,
+                                  long sequence) {
+        int start = offset;
+        offset += HEADER_LENGTH;
+        buffer.putLong(offset + PRICE_OFFSET, price);
+        buffer.put(offset + SIDE_OFFSET, (byte) (side == OrderSide.BUY ? 0 : 1));
+        buffer.put(offset + SCALE_OFFSET, (byte) scale);
+        buffer.putLong(offset + LEVEL_QUANTITY_OFFSET, quantity);
+        buffer.putLong(offset + DEPTH_SEQUENCE_OFFSET, sequence);
+        offset += DEPTH_UPDATE_BLOCK_LENGTH;
+        // Laid out like a trade, the instrument is the third identifier
+        putVar(null);
+        putVar(null);
+        putVar(instrumentId);
+        putHeader(start, EventType.DEPTH_UPDATE, DEPTH_UPDATE_BLOCK_LENGTH);
+    }
+
+    public void encodeCommandExpired(CharSequence clientOrderId, CharSequence clientId, CharSequence securityId,
+                                     long queuedNanos) {
+        int start = offset;
+        offset += HEADER_LENGTH;
+        buffer.putLong(offset + QUEUED_NANOS_OFFSET, queuedNanos);
+        offset += COMMAND_EXPIRED_BLOCK_LENGTH;
+        putVar(clientOrderId);
+        putVar(clientId);
+        putVar(securityId);
+        putHeader(start, EventType.COMMAND_EXPIRED, COMMAND_EXPIRED_BLOCK_LENGTH);
+    }
+
+    /**
+     * Appends an event of a type made of three identifiers only, cancellations and rejections.
+     */
+    public void encodeIds(EventType type, CharSequence clientOrderId, CharSequence clientId, CharSequence third) {
+        int start = offset;
+        offset += HEADER_LENGTH;
+        putVar(clientOrderId);
+        putVar(clientId);
+        putVar(third);
+        putHeader(start, type, 0);
+    }
+
+    private void putHeader(int start, EventType type, int blockLength) {
+        buffer.putInt(start + LENGTH_OFFSET, offset - start);
+        buffer.putShort(start + TEMPLATE_ID_OFFSET, (short) type.getTemplateId());
+        buffer.putShort(start + BLOCK_LENGTH_OFFSET, (short) blockLength);
+    }
+
+    private void putVar(CharSequence value) {
+        int length = value == null ? 0 : value.length();
+        if (length > MAX_VAR_LENGTH) {
+            throw new IllegalArgumentException("Identifier too long to encode: " + length + " characters");
+        }
+        buffer.putShort(offset, (short) length);
+        offset += VAR_LENGTH_SIZE;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            buffer.put(offset++, c < 0x80 ? (byte) c : (byte) '?');
+        }
+    }
+
+    private static int varLength(CharSequence value) {
+        return VAR_LENGTH_SIZE + (value == null ? 0 : value.length());
+    }
+}
@@ -1,14 +1,71 @@
 package com.interview.sample.domain.instrument;
 
 import com.interview.sample.domain.order.Price;
+import com.interview.sample.domain.order.PriceParser;
 import lombok.Data;
 
+/**
+ * Instrument traded in an order book. Its prices are scaled {@code long}s with {@code priceScale} decimals and must
+ * be multiples of {@code tickSize}, itself in units of the last decimal.
+ */
 @Data
 public class Instrument {
+
+    public static final int DEFAULT_PRICE_SCALE = 2;
+    public static final long DEFAULT_TICK_SIZE = 1;
+
     private final String securityId;
     private final String symbol;
+    private final int priceScale;
+    private final long tickSize;
     private Price marketPrice;
 
+    public Instrument(String securityId, String symbol) {
+        this(securityId, symbol, DEFAULT_PRICE_SCALE, DEFAULT_TICK_SIZE);
+    }
+
+    public Instrument(String securityId, String symbol, int priceScale, long tickSize) {
+        if (priceScale < 0 || priceScale > 18) {
+            throw new IllegalArgumentException("Price scale must be between 0 and 18: " + priceScale);
+        }
+        if (tickSize <= 0) {
+            throw new IllegalArgumentException("Tick size must be greater than zero: " + tickSize);
+        }
+        this.securityId = securityId;
+        this.symbol = symbol;
+        this.priceScale = priceScale;
+        this.tickSize = tickSize;
+    }
+
+    /**
+     * @return the value of the price at the scale of the instrument
+     * @throws IllegalArgumentException if the price is finer than the scale or not on a tick
+     */
+    public long toScaledPrice(Price price) {
+        long value = price.valueAt(priceScale);
+        checkTick(value);
+        return value;
+    }
+
+    /**
+     * Parses price text straight at the scale of the instrument, without allocating.
+     *
+     * @return the scaled price
+     * @throws IllegalArgumentException if the text is not a price, is finer than the scale or not on a tick
+     */
+    public long parsePrice(CharSequence text, int offset, int length) {
+        long value = PriceParser.parse(text, offset, length, priceScale);
+        checkTick(value);
+        return value;
+    }
+
+    private void checkTick(long value) {
+        if (value % tickSize != 0) {
+            throw new IllegalArgumentException("Price " + new Price(value, priceScale) + " is not a multiple of the tick size "
+                    + new Price(tickSize, priceScale) + " of " + securityId);
+        }
+    }
+
     public void updateMarketPrice(Price bestBuy, Price bestSell) {
         if (bestBuy != null && bestSell != null) {
             long midValue = (bestBuy.getValue() + bestSell.getValue()) / 2;
@@ -17,4 +74,4 @@ public class Instrument {
     }
     public Price getMarketPrice() { return marketPrice; }
 
-}
\ No newline at end of file
+}
@@ -1,34 +1,61 @@
 package com.interview.sample.domain.order;
 
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
-
-import java.util.UUID;
+import lombok.Setter;
+import lombok.ToString;
 
 @Data
 @EqualsAndHashCode(of = "clientOrderId")
 public class Order {
-    private final String clientId;
-    private final String clientOrderId;
-    private final String orderId;
-    private final String instrumentId;
-    private final OrderSide side;
-    private final OrderType type;
-    private final Price price;
+    // Identity fields are only reassigned when a pooled order is reused, see OrderPool
+    @Setter(AccessLevel.NONE)
+    private String clientId;
+    @Setter(AccessLevel.NONE)
+    private String clientOrderId;
+    // Engine assigned by the worker accepting the order, see OrderIdGenerator, 0 until then
+    @ToString.Exclude
+    private long orderId;
+    @Setter(AccessLevel.NONE)
+    private String instrumentId;
+    @Setter(AccessLevel.NONE)
+    private OrderSide side;
+    @Setter(AccessLevel.NONE)
+    private OrderType type;
+    // Scaled to the price scale of the instrument, Price.NO_PRICE for market orders
+    @Setter(AccessLevel.NONE)
+    private long price;
     private OrderQuantity quantity;
     private OrderStatus status;
     TimeInForce timeInForce;
 
-    public Order(String instrumentId, String clientId, String clientOrderId, OrderSide side, OrderType type, Price price, OrderQuantity quantity, TimeInForce timeInForce) {
-        this.orderId = UUID.randomUUID().toString();
+    // Links of the intrusive FIFO queue of the price level the order rests at
+    @ToString.Exclude
+    private Order prev;
+    @ToString.Exclude
+    private Order next;
+
+    public Order(String instrumentId, String clientId, String clientOrderId, OrderSide side, OrderType type, long price, OrderQuantity quantity, TimeInForce timeInForce) {
+        init(instrumentId, clientId, clientOrderId, side, type, price, timeInForce);
+        this.quantity = quantity;
+    }
+
+    void init(String instrumentId, String clientId, String clientOrderId, OrderSide side, OrderType type, long price, TimeInForce timeInForce) {
+        this.orderId = 0;
         this.instrumentId = instrumentId;
         this.clientOrderId = clientOrderId;
         this.clientId = clientId;
         this.side = side;
         this.type = type;
         this.price = price;
-        this.quantity = quantity;
         this.status = OrderStatus.NEW;
         this.timeInForce = timeInForce;
     }
-}
\ No newline at end of file
+
+    void clear() {
+        init(null, null, null, null, null, Price.NO_PRICE, null);
+        this.prev = null;
+        this.next = null;
+    }
+}
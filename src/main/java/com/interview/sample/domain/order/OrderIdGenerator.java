@@ -0,0 +1,88 @@
+package com.interview.sample.domain.order;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Generates the engine assigned order IDs: 64-bit values, unique and increasing within a shard, handed out without
+ * any coordination between shards.
+ *
+ * <p>Layout: sign bit clear, {@value #SHARD_BITS} bits shard, {@value #TIME_BITS} bits milliseconds since
+ * {@link #EPOCH_MILLIS}, {@value #COUNTER_BITS} bits counter. Every matching worker owns a generator numbered after
+ * the worker. A shard starts counting at the current time, so the IDs stay unique across restarts as long as the
+ * clock does not go back between two runs. A shard running out of counter values within one millisecond waits for
+ * the clock rather than running ahead of it.
+ *
+ * <p>Orders placed by journaled commands take their ID from the global journal sequence of the command instead, see
+ * {@link #ofJournalSequence}, so replaying the journal gives them the same IDs again. These IDs use the last shard,
+ * which is never given to a generator.
+ *
+ * <p>Not thread-safe, confined to the worker owning it.
+ */
+public final class OrderIdGenerator {
+
+    static final int COUNTER_BITS = 10;
+    static final int TIME_BITS = 41;
+    static final int SHARD_BITS = 12;
+    // 2024-01-01T00:00:00Z
+    static final long EPOCH_MILLIS = 1_704_067_200_000L;
+    // Shard of the IDs taken from the journal
+    static final int JOURNAL_SHARD = (1 << SHARD_BITS) - 1;
+
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+    private static final int SHARD_SHIFT = COUNTER_BITS + TIME_BITS;
+    private static final long JOURNAL_SEQUENCE_MASK = (1L << SHARD_SHIFT) - 1;
+
+    private final long shard;
+    private final LongSupplier clock;
+    // Time and counter of the last ID
+    private long sequence;
+
+    /**
+     * @param shard number of the shard, from 0 to {@code 2^SHARD_BITS - 2}
+     */
+    public OrderIdGenerator(int shard) {
+        this(shard, System::currentTimeMillis);
+    }
+
+    OrderIdGenerator(int shard, LongSupplier clock) {
+        if (shard < 0 || shard >= JOURNAL_SHARD) {
+            throw new IllegalArgumentException("Shard must be between 0 and " + (JOURNAL_SHARD - 1) + ": " + shard);
+        }
+        this.shard = (long) shard << SHARD_SHIFT;
+        this.clock = clock;
+        this.sequence = millis() << COUNTER_BITS;
+    }
+
+    /**
+     * @return ID of the order placed by the journaled command with the given global sequence
+     */
+    public static long ofJournalSequence(long journalSequence) {
+        if (journalSequence <= 0 || journalSequence > JOURNAL_SEQUENCE_MASK) {
+            throw new IllegalArgumentException("Journal sequence out of the range of order IDs: " + journalSequence);
+        }
+        return ((long) JOURNAL_SHARD << SHARD_SHIFT) | journalSequence;
+    }
+
+    public static int shardOf(long orderId) {
+        return (int) (orderId >>> SHARD_SHIFT);
+    }
+
+    /**
+     * @return a new ID of the shard
+     */
+    public long nextId() {
+        long next = ++sequence;
+        if ((next & COUNTER_MASK) == 0) {
+            // The counter of the millisecond is used up
+            long millis = next >>> COUNTER_BITS;
+            while (millis() < millis) {
+                Thread.onSpinWait();
+            }
+        }
+        return shard | next;
+    }
+
+    private long millis() {
+        return clock.getAsLong() - EPOCH_MILLIS;
+    }
+}
@@ -0,0 +1,62 @@
+package com.interview.sample.domain.order;
+
+/**
+ * Free list of {@link Order}s, each one together with its {@link OrderQuantity}, recycled by an order
+ * book once the orders leave it. Steady-state order flow then does not allocate orders at all.
+ *
+ * <p>The free list is intrusive, it reuses the queue link of the pooled orders, and holds at most
+ * {@code capacity} orders. A released order must not be referenced by the caller any more.
+ *
+ * <p>Not thread-safe, every book owns its own pool confined to the matching thread of the book.
+ */
+public class OrderPool {
+
+    /**
+     * Pool that never keeps released orders, every acquired order is a new one.
+     */
+    public static final OrderPool NONE = new OrderPool(0);
+
+    private final int capacity;
+    private Order free;
+    private int freeCount;
+
+    public OrderPool(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public Order acquire(String instrumentId, String clientId, String clientOrderId, OrderSide side, OrderType type,
+                         long price, int quantity, TimeInForce timeInForce) {
+        Order order = free;
+        if (order == null) {
+            return new Order(instrumentId, clientId, clientOrderId, side, type, price,
+                    OrderQuantity.builder().originalQuantity(quantity).remainingQuantity(quantity).build(),
+                    timeInForce);
+        }
+
+        free = order.getNext();
+        freeCount--;
+        order.setNext(null);
+        order.init(instrumentId, clientId, clientOrderId, side, type, price, timeInForce);
+        order.getQuantity().setOriginalQuantity(quantity);
+        order.getQuantity().setRemainingQuantity(quantity);
+        return order;
+    }
+
+    public void release(Order order) {
+        if (freeCount >= capacity) {
+            return;
+        }
+        order.clear();
+        order.setNext(free);
+        free = order;
+        freeCount++;
+    }
+
+    public boolean isPooling() {
+        return capacity > 0;
+    }
+
+    public int getFreeCount() {
+        return freeCount;
+    }
+}
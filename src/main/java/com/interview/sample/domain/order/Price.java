@@ -4,7 +4,6 @@ import lombok.Getter;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.Objects;
 
 
 /**
@@ -17,9 +16,19 @@ import java.util.Objects;
  * of decimal places (e.g., scale 4 means values are stored in ten-thousandths).
  *
  * <p>All operations (add, subtract, compare) require matching scales for safety and determinism.
+ *
+ * <p>Order books, orders and trades keep their prices as the bare scaled {@code long}, at the scale of their
+ * instrument, so matching compares primitives. {@code Price} carries a scale along with the value where prices
+ * enter and leave the engine.
  */
 @Getter
 public class Price implements Comparable<Price> {
+
+    /**
+     * Scaled value standing for no price, e.g. the limit of a market order or the best bid of an empty book.
+     */
+    public static final long NO_PRICE = Long.MIN_VALUE;
+
     private final long value;
     private final int scale;
 
@@ -34,6 +43,41 @@ public class Price implements Comparable<Price> {
         return new Price(scaledValue, scale);
     }
 
+    /**
+     * @return the same price at the given scale, this one if it already has it
+     * @throws IllegalArgumentException if the price has non-zero decimals beyond the scale, or does not fit a
+     *                                  {@code long} at the scale
+     */
+    public Price rescale(int scale) {
+        return scale == this.scale ? this : new Price(valueAt(scale), scale);
+    }
+
+    /**
+     * Same as {@link #rescale} without creating the price, for callers keeping the bare scaled value.
+     *
+     * @return the value of the price scaled to the given scale
+     */
+    public long valueAt(int scale) {
+        if (scale == this.scale) {
+            return value;
+        }
+        if (scale < 0 || scale > PriceParser.MAX_SCALE) {
+            throw new IllegalArgumentException("Scale out of range: " + scale);
+        }
+        if (scale > this.scale) {
+            long factor = PriceParser.powerOfTen(scale - this.scale);
+            if (value > Long.MAX_VALUE / factor || value < Long.MIN_VALUE / factor) {
+                throw new IllegalArgumentException("Price " + this + " does not fit a long at scale " + scale);
+            }
+            return value * factor;
+        }
+        long divisor = PriceParser.powerOfTen(this.scale - scale);
+        if (value % divisor != 0) {
+            throw new IllegalArgumentException("Price " + this + " has more than " + scale + " decimals");
+        }
+        return value / divisor;
+    }
+
     public BigDecimal toBigDecimal() {
         return BigDecimal.valueOf(value, scale);
     }
@@ -73,7 +117,7 @@ public class Price implements Comparable<Price> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(value, scale);
+        return 31 * Long.hashCode(value) + scale;
     }
 
     @Override
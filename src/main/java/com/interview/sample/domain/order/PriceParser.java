@@ -0,0 +1,183 @@
+package com.interview.sample.domain.order;
+
+/**
+ * Reads decimal price text straight into a scaled {@code long}, without going through {@code BigDecimal}. Accepts
+ * an optional sign, digits with an optional fraction and an optional exponent, the notations JSON numbers use.
+ *
+ * <p>{@link #parse(CharSequence, int, int, int)} reads the text at the scale of an instrument and allocates
+ * nothing. When the scale is not known yet, {@link #parse(CharSequence)} keeps the scale of the text,
+ * {@code "100.25"} is {@code 10025} at scale 2, to be brought to the scale of the instrument with
+ * {@link Price#rescale} afterwards.
+ */
+public final class PriceParser {
+
+    static final int MAX_SCALE = 18;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_SCALE; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private PriceParser() {
+    }
+
+    /**
+     * @return the price at the scale of the text, at least 0
+     * @throws NumberFormatException if the text is not a decimal number or does not fit a scaled {@code long}
+     */
+    public static Price parse(CharSequence text) {
+        int scale = Math.max(0, scaleOf(text, 0, text.length()));
+        return new Price(parse(text, 0, text.length(), scale), scale);
+    }
+
+    /**
+     * Same as {@link #parse(CharSequence)} over a character array, the form JSON parsers hand their tokens out in.
+     */
+    public static Price parse(char[] chars, int offset, int length) {
+        CharSequence text = java.nio.CharBuffer.wrap(chars);
+        int scale = Math.max(0, scaleOf(text, offset, length));
+        return new Price(parse(text, offset, length, scale), scale);
+    }
+
+    /**
+     * @return the value of the text scaled by 10^{@code scale}
+     * @throws NumberFormatException if the text is not a decimal number, has non-zero decimals beyond the scale or
+     *                               does not fit a {@code long} once scaled
+     */
+    public static long parse(CharSequence text, int offset, int length, int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Scale out of range: " + scale);
+        }
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        long value = 0;
+        // Decimals of the text read so far, beyond the scale only zeros are accepted
+        int decimals = 0;
+        boolean fraction = false;
+        boolean digits = false;
+        int exponentAt = end;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+                if (fraction) {
+                    decimals++;
+                }
+                value = append(value, c - '0', text, offset, length);
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else if ((c == 'e' || c == 'E') && digits) {
+                exponentAt = i;
+                break;
+            } else {
+                throw invalid(text, offset, length);
+            }
+        }
+        if (!digits) {
+            throw invalid(text, offset, length);
+        }
+        int textScale = decimals - (exponentAt < end ? exponent(text, exponentAt + 1, end, offset, length) : 0);
+        if (textScale < scale) {
+            value = multiply(value, scale - textScale, text, offset, length);
+        } else if (textScale > scale) {
+            int excess = textScale - scale;
+            if (excess > MAX_SCALE) {
+                if (value != 0) {
+                    throw tooPrecise(text, offset, length, scale);
+                }
+            } else {
+                long divisor = POWERS_OF_TEN[excess];
+                if (value % divisor != 0) {
+                    throw tooPrecise(text, offset, length, scale);
+                }
+                value /= divisor;
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    static long powerOfTen(int exponent) {
+        return POWERS_OF_TEN[exponent];
+    }
+
+    // Decimals the text carries up to MAX_SCALE, negative for a positive exponent beyond them. Finer text is
+    // read at MAX_SCALE and rejected there unless the excess decimals are zeros
+    private static int scaleOf(CharSequence text, int offset, int length) {
+        int end = offset + length;
+        int decimals = 0;
+        boolean fraction = false;
+        for (int i = offset; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                fraction = true;
+            } else if (c == 'e' || c == 'E') {
+                if (i + 1 < end) {
+                    decimals -= exponent(text, i + 1, end, offset, length);
+                }
+                break;
+            } else if (fraction && c >= '0' && c <= '9') {
+                decimals++;
+            }
+        }
+        return Math.min(decimals, MAX_SCALE);
+    }
+
+    private static int exponent(CharSequence text, int i, int end, int offset, int length) {
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        if (i == end) {
+            throw invalid(text, offset, length);
+        }
+        int exponent = 0;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9' || exponent > 1000) {
+                throw invalid(text, offset, length);
+            }
+            exponent = exponent * 10 + (c - '0');
+        }
+        return negative ? -exponent : exponent;
+    }
+
+    private static long append(long value, int digit, CharSequence text, int offset, int length) {
+        if (value > (Long.MAX_VALUE - digit) / 10) {
+            throw outOfRange(text, offset, length);
+        }
+        return value * 10 + digit;
+    }
+
+    private static long multiply(long value, int decimals, CharSequence text, int offset, int length) {
+        if (value == 0) {
+            return 0;
+        }
+        if (decimals > MAX_SCALE || value > Long.MAX_VALUE / POWERS_OF_TEN[decimals]) {
+            throw outOfRange(text, offset, length);
+        }
+        return value * POWERS_OF_TEN[decimals];
+    }
+
+    private static NumberFormatException invalid(CharSequence text, int offset, int length) {
+        return new NumberFormatException("Not a decimal price: " + text.subSequence(offset, offset + length));
+    }
+
+    private static NumberFormatException outOfRange(CharSequence text, int offset, int length) {
+        return new NumberFormatException("Price out of range: " + text.subSequence(offset, offset + length));
+    }
+
+    private static NumberFormatException tooPrecise(CharSequence text, int offset, int length, int scale) {
+        return new NumberFormatException("Price " + text.subSequence(offset, offset + length) + " has more than "
+                + scale + " decimals");
+    }
+}
@@ -0,0 +1,180 @@
+package com.interview.sample.gateway;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Thread of the {@link OrderEntryGateway} serving a share of the sessions with a selector of its own: reads their
+ * messages, hands the complete ones to the gateway and writes their execution reports. The first loop also accepts
+ * the connections.
+ */
+@Log4j2
+final class EventLoop implements Runnable {
+
+    private final OrderEntryGateway gateway;
+    private final int bufferSize;
+    private final Selector selector;
+    private final Thread thread;
+    // Handed over by other threads, taken by the loop when woken up
+    private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+    private final Queue<Session> pendingWrites = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    EventLoop(OrderEntryGateway gateway, String name, int bufferSize) {
+        this.gateway = gateway;
+        this.bufferSize = bufferSize;
+        try {
+            this.selector = Selector.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open the selector of " + name, e);
+        }
+        this.thread = new Thread(this, name);
+        // Does not hold the JVM up, closing the gateway stops it
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void listen(ServerSocketChannel server) throws IOException {
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Hands a new connection over to the loop. Safe to call from any thread.
+     */
+    void register(SocketChannel channel) {
+        accepted.add(channel);
+        selector.wakeup();
+    }
+
+    /**
+     * Has the loop write the outbound buffer of the session, or close it once it is closing. Safe to call from any
+     * thread.
+     */
+    void requestWrite(Session session) {
+        pendingWrites.add(session);
+        selector.wakeup();
+    }
+
+    void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Session session) {
+                gateway.closed(session);
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.warn("Failed to close the selector of {}", thread.getName(), e);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                registerAccepted();
+                writePending();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        gateway.accept((ServerSocketChannel) key.channel());
+                        continue;
+                    }
+                    Session session = (Session) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            read(session);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            session.write();
+                        }
+                    } catch (IOException e) {
+                        log.info("Closing {}: {}", session, e.getMessage());
+                        gateway.closed(session);
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            log.error("Event loop {} stopped", thread.getName(), e);
+        }
+    }
+
+    private void registerAccepted() throws IOException {
+        SocketChannel channel;
+        while ((channel = accepted.poll()) != null) {
+            Session session = new Session(channel, this, bufferSize);
+            session.setKey(channel.register(selector, SelectionKey.OP_READ, session));
+            gateway.opened(session);
+        }
+    }
+
+    private void writePending() {
+        Session session;
+        while ((session = pendingWrites.poll()) != null) {
+            if (!session.getChannel().isOpen()) {
+                continue;
+            }
+            if (session.isClosing()) {
+                log.warn("Closing {}, it does not keep up with its execution reports", session);
+                gateway.closed(session);
+                continue;
+            }
+            try {
+                session.write();
+            } catch (IOException e) {
+                log.info("Closing {}: {}", session, e.getMessage());
+                gateway.closed(session);
+            }
+        }
+    }
+
+    private void read(Session session) throws IOException {
+        ByteBuffer inbound = session.getInbound();
+        if (session.getChannel().read(inbound) < 0) {
+            throw new IOException("end of stream");
+        }
+        int limit = inbound.position();
+        int offset = 0;
+        while (limit - offset >= OrderEntryCodec.HEADER_LENGTH) {
+            int length = OrderEntryCodec.messageLength(inbound, offset);
+            if (length < OrderEntryCodec.HEADER_LENGTH || length > inbound.capacity()) {
+                throw new IOException("invalid message length " + length);
+            }
+            if (limit - offset < length) {
+                break;
+            }
+            gateway.received(session, inbound, offset);
+            offset += length;
+        }
+        // Moves the incomplete message to the start of the buffer
+        inbound.limit(limit).position(offset);
+        inbound.compact();
+    }
+}
@@ -0,0 +1,230 @@
+package com.interview.sample.gateway;
+
+import com.interview.sample.controller.command.Command;
+import com.interview.sample.controller.command.InstrumentCreatedCommand;
+import com.interview.sample.controller.command.OrderCancelledCommand;
+import com.interview.sample.controller.command.OrderPlacedCommand;
+import com.interview.sample.domain.order.OrderSide;
+import com.interview.sample.domain.order.OrderType;
+import com.interview.sample.domain.order.Price;
+import com.interview.sample.domain.order.TimeInForce;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary layout of the order-entry messages clients send to the {@link OrderEntryGateway}, one command each. The
+ * header is the one of the execution reports, see {@link com.interview.sample.domain.event.codec.EventEncoder}.
+ *
+ * <p>Message layout, little-endian:
+ * <pre>
+ *   header      0  int    message length, header included
+ *               4  short  template ID: 1 new order, 2 cancel, 3 create instrument
+ *               6  short  block length
+ *   NEW_ORDER   0  long   price (scaled)
+ *               8  long   quantity
+ *              16  byte   price scale, -1 for no price
+ *              17  byte   side          (enum ordinal, -1 for none)
+ *              18  byte   order type    (enum ordinal, -1 for none)
+ *              19  byte   time in force (enum ordinal, -1 for none)
+ *   CREATE_     0  long   tick size (scaled)
+ *   INSTRUMENT  8  byte   price scale, -1 for the default
+ *               9  byte   tick size scale, -1 for the default tick
+ *              (block length 0 for the defaults)
+ *   var data, per field: short length (-1 for none), ASCII bytes
+ *       new order:         security ID, client ID, client order ID
+ *       cancel:            client ID, client order ID, security ID
+ *       create instrument: security ID, symbol
+ * </pre>
+ */
+public final class OrderEntryCodec {
+
+    public static final int HEADER_LENGTH = 8;
+
+    static final short NEW_ORDER = 1;
+    static final short CANCEL = 2;
+    static final short CREATE_INSTRUMENT = 3;
+
+    private static final int LENGTH = 0;
+    private static final int TEMPLATE_ID = 4;
+    private static final int BLOCK_LENGTH = 6;
+
+    private static final int NEW_ORDER_BLOCK_LENGTH = 24;
+    private static final int PRICE = 0;
+    private static final int QUANTITY = 8;
+    private static final int SCALE = 16;
+    private static final int SIDE = 17;
+    private static final int ORDER_TYPE = 18;
+    private static final int TIME_IN_FORCE = 19;
+
+    private static final int CREATE_INSTRUMENT_BLOCK_LENGTH = 16;
+    private static final int TICK_SIZE = 0;
+    private static final int PRICE_SCALE = 8;
+    private static final int TICK_SIZE_SCALE = 9;
+
+    private static final OrderSide[] SIDES = OrderSide.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+    private static final TimeInForce[] TIMES_IN_FORCE = TimeInForce.values();
+
+    private OrderEntryCodec() {
+    }
+
+    /**
+     * @return number of bytes the message of the command takes
+     */
+    public static int lengthOf(Command command) {
+        return HEADER_LENGTH + switch (command) {
+            case OrderPlacedCommand cmd -> NEW_ORDER_BLOCK_LENGTH
+                    + varLength(cmd.securityId()) + varLength(cmd.clientId()) + varLength(cmd.clientOrderId());
+            case OrderCancelledCommand cmd -> varLength(cmd.clientId()) + varLength(cmd.clientOrderId())
+                    + varLength(cmd.securityId());
+            case InstrumentCreatedCommand cmd -> CREATE_INSTRUMENT_BLOCK_LENGTH
+                    + varLength(cmd.securityId()) + varLength(cmd.symbol());
+            default -> throw new IllegalArgumentException("No order-entry message for command: " + command.getClass());
+        };
+    }
+
+    /**
+     * Writes the message of the command at the offset of the little-endian buffer, which must have room for
+     * {@link #lengthOf} bytes.
+     *
+     * @return offset following the message
+     */
+    public static int encode(ByteBuffer buffer, int offset, Command command) {
+        int at = offset + HEADER_LENGTH;
+        short templateId;
+        int blockLength = 0;
+        switch (command) {
+            case OrderPlacedCommand cmd -> {
+                templateId = NEW_ORDER;
+                blockLength = NEW_ORDER_BLOCK_LENGTH;
+                Price price = cmd.price();
+                buffer.putLong(at + PRICE, price == null ? 0 : price.getValue());
+                buffer.putLong(at + QUANTITY, cmd.quantity());
+                buffer.put(at + SCALE, price == null ? -1 : scale(price));
+                buffer.put(at + SIDE, ordinal(cmd.side()));
+                buffer.put(at + ORDER_TYPE, ordinal(cmd.orderType()));
+                buffer.put(at + TIME_IN_FORCE, ordinal(cmd.timeInForce()));
+                at += NEW_ORDER_BLOCK_LENGTH;
+                at = putVar(buffer, at, cmd.securityId());
+                at = putVar(buffer, at, cmd.clientId());
+                at = putVar(buffer, at, cmd.clientOrderId());
+            }
+            case OrderCancelledCommand cmd -> {
+                templateId = CANCEL;
+                at = putVar(buffer, at, cmd.clientId());
+                at = putVar(buffer, at, cmd.clientOrderId());
+                at = putVar(buffer, at, cmd.securityId());
+            }
+            case InstrumentCreatedCommand cmd -> {
+                templateId = CREATE_INSTRUMENT;
+                blockLength = CREATE_INSTRUMENT_BLOCK_LENGTH;
+                buffer.putLong(at + TICK_SIZE, cmd.tickSize() == null ? 0 : cmd.tickSize().getValue());
+                buffer.put(at + PRICE_SCALE, cmd.priceScale() == null ? -1 : cmd.priceScale().byteValue());
+                buffer.put(at + TICK_SIZE_SCALE, cmd.tickSize() == null ? -1 : scale(cmd.tickSize()));
+                at += CREATE_INSTRUMENT_BLOCK_LENGTH;
+                at = putVar(buffer, at, cmd.securityId());
+                at = putVar(buffer, at, cmd.symbol());
+            }
+            default -> throw new IllegalArgumentException("No order-entry message for command: " + command.getClass());
+        }
+        buffer.putInt(offset + LENGTH, at - offset);
+        buffer.putShort(offset + TEMPLATE_ID, templateId);
+        buffer.putShort(offset + BLOCK_LENGTH, (short) blockLength);
+        return at;
+    }
+
+    /**
+     * @return length of the message at the offset, header included
+     */
+    public static int messageLength(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + LENGTH);
+    }
+
+    /**
+     * Reads the message at the offset into a new command.
+     *
+     * @throws IllegalArgumentException if the message is not a known one
+     */
+    public static Command decode(ByteBuffer buffer, int offset) {
+        int[] at = {offset + HEADER_LENGTH + buffer.getShort(offset + BLOCK_LENGTH)};
+        return switch (buffer.getShort(offset + TEMPLATE_ID)) {
+            case NEW_ORDER -> {
+                int block = offset + HEADER_LENGTH;
+                byte scale = buffer.get(block + SCALE);
+                yield new OrderPlacedCommand(getVar(buffer, at), getVar(buffer, at), getVar(buffer, at),
+                        valueOf(SIDES, buffer.get(block + SIDE)),
+                        scale < 0 ? null : new Price(buffer.getLong(block + PRICE), scale),
+                        buffer.getLong(block + QUANTITY),
+                        valueOf(ORDER_TYPES, buffer.get(block + ORDER_TYPE)),
+                        valueOf(TIMES_IN_FORCE, buffer.get(block + TIME_IN_FORCE)));
+            }
+            case CANCEL -> new OrderCancelledCommand(getVar(buffer, at), getVar(buffer, at), getVar(buffer, at));
+            case CREATE_INSTRUMENT -> {
+                int block = offset + HEADER_LENGTH;
+                if (buffer.getShort(offset + BLOCK_LENGTH) < CREATE_INSTRUMENT_BLOCK_LENGTH) {
+                    yield new InstrumentCreatedCommand(getVar(buffer, at), getVar(buffer, at));
+                }
+                byte priceScale = buffer.get(block + PRICE_SCALE);
+                byte tickSizeScale = buffer.get(block + TICK_SIZE_SCALE);
+                yield new InstrumentCreatedCommand(getVar(buffer, at), getVar(buffer, at),
+                        priceScale < 0 ? null : (int) priceScale,
+                        tickSizeScale < 0 ? null : new Price(buffer.getLong(block + TICK_SIZE), tickSizeScale));
+            }
+            default -> throw new IllegalArgumentException("Unknown order-entry template ID: "
+                    + buffer.getShort(offset + TEMPLATE_ID));
+        };
+    }
+
+    private static byte scale(Price price) {
+        if (price.getScale() < 0 || price.getScale() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Price scale out of range: " + price);
+        }
+        return (byte) price.getScale();
+    }
+
+    private static int varLength(String value) {
+        return Short.BYTES + (value == null ? 0 : value.length());
+    }
+
+    private static int putVar(ByteBuffer buffer, int at, String value) {
+        if (value == null) {
+            buffer.putShort(at, (short) -1);
+            return at + Short.BYTES;
+        }
+        if (value.length() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Identifier too long to encode: " + value.length() + " characters");
+        }
+        buffer.putShort(at, (short) value.length());
+        at += Short.BYTES;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            buffer.put(at++, c < 0x80 ? (byte) c : (byte) '?');
+        }
+        return at;
+    }
+
+    // Reads the identifier at at[0] and moves at[0] past it
+    private static String getVar(ByteBuffer buffer, int[] at) {
+        int length = buffer.getShort(at[0]);
+        at[0] += Short.BYTES;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(at[0], bytes);
+        at[0] += length;
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static byte ordinal(Enum<?> value) {
+        return value == null ? -1 : (byte) value.ordinal();
+    }
+
+    private static <E extends Enum<E>> E valueOf(E[] values, byte ordinal) {
+        if (ordinal >= values.length) {
+            throw new IllegalArgumentException("Unknown " + values[0].getDeclaringClass().getSimpleName() + ": " + ordinal);
+        }
+        return ordinal < 0 ? null : values[ordinal];
+    }
+}
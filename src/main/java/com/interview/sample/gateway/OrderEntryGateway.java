@@ -0,0 +1,259 @@
+package com.interview.sample.gateway;
+
+import com.interview.sample.broker.EventBroker;
+import com.interview.sample.broker.Subscription;
+import com.interview.sample.controller.command.Command;
+import com.interview.sample.controller.command.InstrumentCreatedCommand;
+import com.interview.sample.controller.command.OrderCancelledCommand;
+import com.interview.sample.controller.command.OrderPlacedCommand;
+import com.interview.sample.controller.validation.InstrumentCreatedCommandValidator;
+import com.interview.sample.controller.validation.OrderCancelledCommandValidator;
+import com.interview.sample.controller.validation.OrderPlacedCommandValidator;
+import com.interview.sample.domain.event.Event;
+import com.interview.sample.domain.event.EventType;
+import com.interview.sample.domain.event.OrderCancelRejectedEvent;
+import com.interview.sample.domain.event.OrderRejectedEvent;
+import com.interview.sample.domain.event.codec.EventDecoder;
+import com.interview.sample.domain.event.codec.EventEncoder;
+import com.interview.sample.service.CommandExecutor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Order entry over TCP next to the REST controllers, which remain for administration. Listens on
+ * {@code matching.gateway.port}, disabled when negative, and serves the connections with
+ * {@code matching.gateway.event-loops} threads, each one running a selector over its share of the sessions.
+ *
+ * <p>Clients send the length-prefixed binary messages of the {@link OrderEntryCodec}. The event loops decode them,
+ * validate them like the controllers do and hand them to the {@link CommandExecutor} directly. Commands turned
+ * away, invalid or rejected by the executor, are answered with an {@code ORDER_REJECTED} or
+ * {@code ORDER_CANCEL_REJECTED} report right away.
+ *
+ * <p>Execution reports are the events of the engine in the binary layout of the {@link EventEncoder}, copied
+ * unchanged from a binary subscription to the {@link EventBroker}. A client ID belongs to the first session sending a
+ * command for it, until that session closes; commands of other sessions for the client are rejected. Events carrying
+ * a client ID go to the session the client belongs to. Trades go to the sessions of their buy and their sell client, once to a
+ * session holding both, and to no other session. Each session buffers up to {@code matching.gateway.buffer-size} bytes either way.
+ */
+@Log4j2
+@Component
+public class OrderEntryGateway {
+
+    private final CommandExecutor commandExecutor;
+    private final EventBroker eventBroker;
+    private final OrderPlacedCommandValidator orderPlacedCommandValidator;
+    private final OrderCancelledCommandValidator orderCancelledCommandValidator;
+    private final InstrumentCreatedCommandValidator instrumentCreatedCommandValidator;
+    private final int port;
+    private final int eventLoopCount;
+    private final int bufferSize;
+
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    // Session every client that sent a command belongs to, the first one wins
+    private final ConcurrentMap<String, Session> clientSessions = new ConcurrentHashMap<>();
+    // Event subscriber only
+    private final EventDecoder decoder = new EventDecoder();
+
+    private ServerSocketChannel server;
+    private EventLoop[] eventLoops;
+    private int nextEventLoop;
+    private Subscription subscription;
+
+    public OrderEntryGateway(CommandExecutor commandExecutor,
+                             EventBroker eventBroker,
+                             OrderPlacedCommandValidator orderPlacedCommandValidator,
+                             OrderCancelledCommandValidator orderCancelledCommandValidator,
+                             InstrumentCreatedCommandValidator instrumentCreatedCommandValidator,
+                             @Value("${matching.gateway.port:-1}") int port,
+                             @Value("${matching.gateway.event-loops:1}") int eventLoopCount,
+                             @Value("${matching.gateway.buffer-size:262144}") int bufferSize) {
+        if (eventLoopCount <= 0) {
+            throw new IllegalArgumentException("Event loop count must be greater than zero: " + eventLoopCount);
+        }
+        this.commandExecutor = commandExecutor;
+        this.eventBroker = eventBroker;
+        this.orderPlacedCommandValidator = orderPlacedCommandValidator;
+        this.orderCancelledCommandValidator = orderCancelledCommandValidator;
+        this.instrumentCreatedCommandValidator = instrumentCreatedCommandValidator;
+        this.port = port;
+        this.eventLoopCount = eventLoopCount;
+        this.bufferSize = bufferSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (port < 0) {
+            return;
+        }
+        eventLoops = new EventLoop[eventLoopCount];
+        for (int i = 0; i < eventLoopCount; i++) {
+            eventLoops[i] = new EventLoop(this, "order-entry-loop-" + i, bufferSize);
+        }
+        try {
+            server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(port));
+            server.configureBlocking(false);
+            eventLoops[0].listen(server);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to listen on port " + port, e);
+        }
+        subscription = eventBroker.subscribeBinary("order-entry-gateway", this::route, 1024);
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.start();
+        }
+        log.info("Order-entry gateway listening on port {} with {} event loops", getPort(), eventLoopCount);
+    }
+
+    /**
+     * @return port the gateway listens on, -1 if disabled
+     */
+    public int getPort() {
+        return server == null ? -1 : server.socket().getLocalPort();
+    }
+
+    /**
+     * @return number of sessions currently connected
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (server == null) {
+            return;
+        }
+        subscription.close();
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.close();
+        }
+        try {
+            server.close();
+        } catch (IOException e) {
+            log.warn("Failed to close the order-entry gateway", e);
+        }
+        server = null;
+    }
+
+    // First event loop only
+    void accept(ServerSocketChannel server) throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            eventLoops[nextEventLoop].register(channel);
+            nextEventLoop = (nextEventLoop + 1) % eventLoops.length;
+        }
+    }
+
+    void opened(Session session) {
+        sessions.add(session);
+        log.info("Opened {}", session);
+    }
+
+    void closed(Session session) {
+        session.close();
+        if (sessions.remove(session)) {
+            for (String clientId : session.getClients()) {
+                clientSessions.remove(clientId, session);
+            }
+            log.info("Closed {}", session);
+        }
+    }
+
+    /**
+     * Executes the message at the offset of the session's inbound buffer. Event loop of the session only.
+     *
+     * @throws IOException if the message cannot be decoded, the session is then closed
+     */
+    void received(Session session, ByteBuffer inbound, int offset) throws IOException {
+        Command command;
+        try {
+            command = OrderEntryCodec.decode(inbound, offset);
+        } catch (RuntimeException e) {
+            throw new IOException("invalid message: " + e.getMessage(), e);
+        }
+        try {
+            switch (command) {
+                case OrderPlacedCommand cmd -> {
+                    orderPlacedCommandValidator.validate(cmd);
+                    bindClient(session, cmd.clientId());
+                }
+                case OrderCancelledCommand cmd -> {
+                    orderCancelledCommandValidator.validate(cmd);
+                    bindClient(session, cmd.clientId());
+                }
+                case InstrumentCreatedCommand cmd -> instrumentCreatedCommandValidator.validate(cmd);
+                default -> throw new IllegalArgumentException("Unsupported command: " + command.getClass());
+            }
+            commandExecutor.execute(command);
+        } catch (IllegalArgumentException | RejectedExecutionException e) {
+            reject(session, command, e.getMessage());
+        }
+    }
+
+    // Before the command is executed, so that its events find the session
+    private void bindClient(Session session, String clientId) {
+        if (session.getClients().contains(clientId)) {
+            return;
+        }
+        Session owner = clientSessions.putIfAbsent(clientId, session);
+        if (owner != null) {
+            log.warn("Rejected client {} on {}, it belongs to {}", clientId, session, owner);
+            throw new IllegalArgumentException("Client belongs to another session: " + clientId);
+        }
+        session.getClients().add(clientId);
+    }
+
+    private void reject(Session session, Command command, String reason) {
+        Event report = switch (command) {
+            case OrderPlacedCommand cmd -> new OrderRejectedEvent(cmd.clientOrderId(), cmd.clientId(), reason);
+            case OrderCancelledCommand cmd -> new OrderCancelRejectedEvent(cmd.clientOrderId(), cmd.clientId(), reason);
+            default -> new OrderRejectedEvent(null, null, reason);
+        };
+        int length = EventEncoder.lengthOf(report);
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        new EventEncoder().wrap(buffer, 0).encode(report);
+        session.offer(buffer, 0, length);
+    }
+
+    // Event subscriber thread only
+    private void route(ByteBuffer frame, int length) {
+        int offset = 0;
+        while (offset < length) {
+            decoder.wrap(frame, offset);
+            int messageLength = decoder.length();
+            if (decoder.type() == EventType.TRADE) {
+                Session buyer = clientSessions.get(decoder.idAsString(EventDecoder.BUY_CLIENT_ID));
+                Session seller = clientSessions.get(decoder.idAsString(EventDecoder.SELL_CLIENT_ID));
+                if (buyer != null) {
+                    buyer.offer(frame, offset, messageLength);
+                }
+                if (seller != null && seller != buyer) {
+                    seller.offer(frame, offset, messageLength);
+                }
+            } else {
+                Session session = clientSessions.get(decoder.idAsString(EventDecoder.CLIENT_ID));
+                if (session != null) {
+                    session.offer(frame, offset, messageLength);
+                }
+            }
+            offset += messageLength;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.interview.sample.gateway;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Connection of a client to the {@link OrderEntryGateway}, served by one {@link EventLoop}.
+ *
+ * <p>Messages are read into the inbound buffer by the event loop only. Execution reports are appended to the
+ * outbound buffer by the event loop and the event subscriber under the lock of the session, and written to the
+ * socket by the event loop. A session whose outbound buffer is full is closed rather than holding up the others.
+ */
+final class Session {
+
+    private final SocketChannel channel;
+    private final EventLoop loop;
+    private final ByteBuffer inbound;
+    // Guarded by this
+    private final ByteBuffer outbound;
+    // Clients that sent commands through the session, event loop only
+    private final Set<String> clients = new HashSet<>();
+    private SelectionKey key;
+    private volatile boolean closing;
+
+    Session(SocketChannel channel, EventLoop loop, int bufferSize) {
+        this.channel = channel;
+        this.loop = loop;
+        this.inbound = ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+        this.outbound = ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    ByteBuffer getInbound() {
+        return inbound;
+    }
+
+    Set<String> getClients() {
+        return clients;
+    }
+
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    boolean isClosing() {
+        return closing;
+    }
+
+    /**
+     * Appends a message to the outbound buffer, to be written by the event loop. Safe to call from any thread.
+     *
+     * @return false if the session is closing or its outbound buffer is full, it is then closed
+     */
+    boolean offer(ByteBuffer src, int offset, int length) {
+        boolean accepted;
+        boolean wasEmpty;
+        synchronized (this) {
+            if (closing) {
+                return false;
+            }
+            accepted = outbound.remaining() >= length;
+            wasEmpty = outbound.position() == 0;
+            if (accepted) {
+                outbound.put(outbound.position(), src, offset, length);
+                outbound.position(outbound.position() + length);
+            } else {
+                closing = true;
+            }
+        }
+        if (wasEmpty || !accepted) {
+            // Only the first message since the last write wakes the loop up, or the loop closes the session
+            loop.requestWrite(this);
+        }
+        return accepted;
+    }
+
+    /**
+     * Writes what the socket takes of the outbound buffer. Event loop only.
+     */
+    synchronized void write() throws IOException {
+        outbound.flip();
+        try {
+            channel.write(outbound);
+        } finally {
+            outbound.compact();
+        }
+        int ops = key.interestOps();
+        key.interestOps(outbound.position() > 0 ? ops | SelectionKey.OP_WRITE : ops & ~SelectionKey.OP_WRITE);
+    }
+
+    void close() {
+        closing = true;
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing left to do with the connection
+        }
+    }
+
+    @Override
+    public String toString() {
+        try {
+            return "session " + channel.getRemoteAddress();
+        } catch (IOException e) {
+            return "session " + channel;
+        }
+    }
+}
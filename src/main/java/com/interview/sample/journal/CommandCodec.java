@@ -0,0 +1,214 @@
+package com.interview.sample.journal;
+
+import com.interview.sample.controller.command.Command;
+import com.interview.sample.controller.command.InstrumentCreatedCommand;
+import com.interview.sample.controller.command.OrderCancelledCommand;
+import com.interview.sample.controller.command.OrderPlacedCommand;
+import com.interview.sample.domain.order.OrderSide;
+import com.interview.sample.domain.order.OrderType;
+import com.interview.sample.domain.order.Price;
+import com.interview.sample.domain.order.TimeInForce;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary layout of the journal records, one command each.
+ *
+ * <p>Record layout, little-endian, records start at multiples of 8:
+ * <pre>
+ *   0  int   record length, 0 while not written, -1 marks the end of a segment
+ *   4  byte  command type: 1 instrument created, 2 order placed, 3 order cancelled
+ *   5  byte  side       (order placed, enum ordinal, -1 for none), price scale (instrument created, -1 for default)
+ *   6  byte  order type (order placed, enum ordinal, -1 for none), tick size scale (instrument created, -1 for none)
+ *   7  byte  time in force (order placed, enum ordinal, -1 for none)
+ *   8  long  global sequence
+ *  16  long  instrument sequence
+ *  24  long  quantity (order placed), tick size scaled (instrument created)
+ *  32  strings, short length in chars (-1 for null) and the UTF-16 chars each, so any string replays exactly:
+ *        instrument created: security ID, symbol
+ *        order placed:       price scaled (long), price scale (byte, -1 for no price), then at 41
+ *                            security ID, client ID, client order ID
+ *        order cancelled:    client ID, client order ID, security ID
+ * </pre>
+ */
+final class CommandCodec {
+
+    static final int ALIGNMENT = 8;
+    static final int END_OF_SEGMENT = -1;
+
+    private static final int LENGTH = 0;
+    private static final int TYPE = 4;
+    private static final int SIDE = 5;
+    private static final int ORDER_TYPE = 6;
+    private static final int TIME_IN_FORCE = 7;
+    private static final int SEQUENCE = 8;
+    private static final int INSTRUMENT_SEQUENCE = 16;
+    private static final int QUANTITY = 24;
+    private static final int STRINGS = 32;
+    private static final int PRICE = 32;
+    private static final int PRICE_SCALE = 40;
+    private static final int ORDER_PLACED_STRINGS = 41;
+    // Shared with the side and order type bytes, which instrument creations do not use
+    private static final int INSTRUMENT_PRICE_SCALE = SIDE;
+    private static final int TICK_SIZE_SCALE = ORDER_TYPE;
+    private static final int TICK_SIZE = QUANTITY;
+
+    private static final byte INSTRUMENT_CREATED = 1;
+    private static final byte ORDER_PLACED = 2;
+    private static final byte ORDER_CANCELLED = 3;
+
+    private static final OrderSide[] SIDES = OrderSide.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+    private static final TimeInForce[] TIMES_IN_FORCE = TimeInForce.values();
+
+    private CommandCodec() {
+    }
+
+    /**
+     * @return number of bytes the record of the command takes, padding included
+     */
+    static int lengthOf(Command command) {
+        int length = switch (command) {
+            case InstrumentCreatedCommand cmd -> STRINGS + stringLength(cmd.securityId()) + stringLength(cmd.symbol());
+            case OrderPlacedCommand cmd -> ORDER_PLACED_STRINGS + stringLength(cmd.securityId())
+                    + stringLength(cmd.clientId()) + stringLength(cmd.clientOrderId());
+            case OrderCancelledCommand cmd -> STRINGS + stringLength(cmd.clientId()) + stringLength(cmd.clientOrderId())
+                    + stringLength(cmd.securityId());
+            default -> throw new IllegalArgumentException("Command cannot be journaled: " + command.getClass());
+        };
+        return alignedLength(length);
+    }
+
+    /**
+     * Writes the record of the command at the offset, its length last, behind a release fence, so a reader seeing the
+     * length sees the whole record.
+     */
+    static void encode(ByteBuffer buffer, int offset, Command command, long sequence, long instrumentSequence) {
+        buffer.putLong(offset + SEQUENCE, sequence);
+        buffer.putLong(offset + INSTRUMENT_SEQUENCE, instrumentSequence);
+        int at = offset + STRINGS;
+        switch (command) {
+            case InstrumentCreatedCommand cmd -> {
+                buffer.put(offset + TYPE, INSTRUMENT_CREATED);
+                buffer.put(offset + INSTRUMENT_PRICE_SCALE, cmd.priceScale() == null ? -1 : cmd.priceScale().byteValue());
+                buffer.put(offset + TICK_SIZE_SCALE, cmd.tickSize() == null ? -1 : (byte) cmd.tickSize().getScale());
+                buffer.putLong(offset + TICK_SIZE, cmd.tickSize() == null ? 0 : cmd.tickSize().getValue());
+                at = putString(buffer, at, cmd.securityId());
+                at = putString(buffer, at, cmd.symbol());
+            }
+            case OrderPlacedCommand cmd -> {
+                buffer.put(offset + TYPE, ORDER_PLACED);
+                buffer.put(offset + SIDE, ordinal(cmd.side()));
+                buffer.put(offset + ORDER_TYPE, ordinal(cmd.orderType()));
+                buffer.put(offset + TIME_IN_FORCE, ordinal(cmd.timeInForce()));
+                buffer.putLong(offset + QUANTITY, cmd.quantity());
+                buffer.putLong(offset + PRICE, cmd.price() == null ? 0 : cmd.price().getValue());
+                buffer.put(offset + PRICE_SCALE, cmd.price() == null ? -1 : (byte) cmd.price().getScale());
+                at = offset + ORDER_PLACED_STRINGS;
+                at = putString(buffer, at, cmd.securityId());
+                at = putString(buffer, at, cmd.clientId());
+                at = putString(buffer, at, cmd.clientOrderId());
+            }
+            case OrderCancelledCommand cmd -> {
+                buffer.put(offset + TYPE, ORDER_CANCELLED);
+                at = putString(buffer, at, cmd.clientId());
+                at = putString(buffer, at, cmd.clientOrderId());
+                at = putString(buffer, at, cmd.securityId());
+            }
+            default -> throw new IllegalArgumentException("Command cannot be journaled: " + command.getClass());
+        }
+        VarHandle.releaseFence();
+        buffer.putInt(offset + LENGTH, at - offset);
+    }
+
+    /**
+     * @return length of the record at the offset, 0 if none has been written there, {@link #END_OF_SEGMENT} at the end
+     * of a segment
+     */
+    static int recordLength(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + LENGTH);
+    }
+
+    static int alignedLength(int length) {
+        return (length + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    static long sequence(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + SEQUENCE);
+    }
+
+    static long instrumentSequence(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + INSTRUMENT_SEQUENCE);
+    }
+
+    static Command decode(ByteBuffer buffer, int offset) {
+        int[] at = {offset + STRINGS};
+        return switch (buffer.get(offset + TYPE)) {
+            case INSTRUMENT_CREATED -> {
+                byte priceScale = buffer.get(offset + INSTRUMENT_PRICE_SCALE);
+                byte tickSizeScale = buffer.get(offset + TICK_SIZE_SCALE);
+                yield new InstrumentCreatedCommand(getString(buffer, at), getString(buffer, at),
+                        priceScale < 0 ? null : (int) priceScale,
+                        tickSizeScale < 0 ? null : new Price(buffer.getLong(offset + TICK_SIZE), tickSizeScale));
+            }
+            case ORDER_PLACED -> {
+                at[0] = offset + ORDER_PLACED_STRINGS;
+                byte priceScale = buffer.get(offset + PRICE_SCALE);
+                yield new OrderPlacedCommand(getString(buffer, at), getString(buffer, at), getString(buffer, at),
+                        valueOf(SIDES, buffer.get(offset + SIDE)),
+                        priceScale < 0 ? null : new Price(buffer.getLong(offset + PRICE), priceScale),
+                        buffer.getLong(offset + QUANTITY),
+                        valueOf(ORDER_TYPES, buffer.get(offset + ORDER_TYPE)),
+                        valueOf(TIMES_IN_FORCE, buffer.get(offset + TIME_IN_FORCE)));
+            }
+            case ORDER_CANCELLED -> new OrderCancelledCommand(getString(buffer, at), getString(buffer, at), getString(buffer, at));
+            default -> throw new IllegalStateException("Unknown journal record type " + buffer.get(offset + TYPE)
+                    + " at offset " + offset);
+        };
+    }
+
+    private static int stringLength(String value) {
+        return Short.BYTES + (value == null ? 0 : value.length() * Character.BYTES);
+    }
+
+    private static int putString(ByteBuffer buffer, int at, String value) {
+        if (value == null) {
+            buffer.putShort(at, (short) -1);
+            return at + Short.BYTES;
+        }
+        if (value.length() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("String too long to journal: " + value.length() + " characters");
+        }
+        buffer.putShort(at, (short) value.length());
+        at += Short.BYTES;
+        for (int i = 0; i < value.length(); i++) {
+            buffer.putChar(at, value.charAt(i));
+            at += Character.BYTES;
+        }
+        return at;
+    }
+
+    // Reads the string at at[0] and moves at[0] past it
+    private static String getString(ByteBuffer buffer, int[] at) {
+        int length = buffer.getShort(at[0]);
+        at[0] += Short.BYTES;
+        if (length < 0) {
+            return null;
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = buffer.getChar(at[0]);
+            at[0] += Character.BYTES;
+        }
+        return new String(chars);
+    }
+
+    private static byte ordinal(Enum<?> value) {
+        return value == null ? -1 : (byte) value.ordinal();
+    }
+
+    private static <E extends Enum<E>> E valueOf(E[] values, byte ordinal) {
+        return ordinal < 0 ? null : values[ordinal];
+    }
+}
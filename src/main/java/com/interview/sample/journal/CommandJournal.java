@@ -0,0 +1,415 @@
+package com.interview.sample.journal;
+
+import com.interview.sample.controller.command.Command;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of the commands executed by the matching workers, kept in memory-mapped segment files of
+ * {@code matching.journal.segment-size} bytes in {@code matching.journal.dir}. Every record carries a global
+ * sequence, in the order of the records in the journal, and the sequence of the command within its instrument,
+ * see {@link CommandCodec} for the layout. Disabled unless a directory is configured.
+ *
+ * <p>Appending takes no lock: a single atomic add on the current segment claims both the global sequence and the
+ * offset of the record, which keeps the global sequence in file order, and the record is then copied into the mapped
+ * segment by the appending thread, concurrently with the others. The thread whose claim no longer fits the segment
+ * rolls the journal over to the next one, while the threads claiming after it wait for the roll. Appending never
+ * calls into the OS: a flusher thread forces the completely written range of each segment to disk every
+ * {@code matching.journal.flush-interval-ms}, so one msync covers all the commands appended in between. Commands
+ * appended since the last flush may be lost on a crash of the machine. On a crash of the process, the records
+ * written behind one left incomplete are lost as well.
+ *
+ * <p>{@link #replay} reads the journal back in order, up to the first record not completely written. Opening the
+ * journal truncates it there, so later appends never end up behind records of an earlier run.
+ */
+@Log4j2
+@Component
+public class CommandJournal {
+
+    private static final String SEGMENT_PREFIX = "commands-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    // A claim counts one record in the high half and its length in the low half of the claimed position
+    private static final int RECORDS_SHIFT = 32;
+    private static final long OFFSET_MASK = (1L << RECORDS_SHIFT) - 1;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long flushIntervalMillis;
+
+    // Written under the lock of this
+    private volatile Segment segment;
+    // Set once a roll over failed, appending fails from then on
+    private volatile IOException rollFailure;
+    // Guarded by this, segments rolled over and not completely forced yet
+    private final List<Segment> unforced = new ArrayList<>();
+    private final Object flushLock = new Object();
+
+    private ScheduledExecutorService flusher;
+
+    public CommandJournal(@Value("${matching.journal.dir:}") String directory,
+                          @Value("${matching.journal.segment-size:67108864}") int segmentSize,
+                          @Value("${matching.journal.flush-interval-ms:10}") long flushIntervalMillis) {
+        if (segmentSize <= 0 || segmentSize % CommandCodec.ALIGNMENT != 0) {
+            throw new IllegalArgumentException("Segment size must be a positive multiple of "
+                    + CommandCodec.ALIGNMENT + ": " + segmentSize);
+        }
+        if (flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Flush interval must be greater than zero: " + flushIntervalMillis);
+        }
+        this.directory = directory.isBlank() ? null : Path.of(directory);
+        this.segmentSize = segmentSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    @PostConstruct
+    public void open() {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            segment = openTail();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open the command journal in " + directory, e);
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "matching-journal-flusher");
+            // Does not hold the JVM up, closing the journal forces what is left
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Opened command journal in {} at segment {}, offset {}, sequence {}", directory, segment.index,
+                segment.claimed.get(), segment.base);
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Appends the command to the journal. Safe to call from any number of threads.
+     *
+     * @param instrumentSequence sequence of the command within its instrument
+     * @return global sequence of the command
+     */
+    public long append(Command command, long instrumentSequence) {
+        int length = CommandCodec.lengthOf(command);
+        if (length > segmentSize) {
+            throw new IllegalArgumentException("Command too large for a journal segment: " + length + " bytes");
+        }
+        while (true) {
+            Segment current = segment;
+            long claim = current.claimed.getAndAdd((1L << RECORDS_SHIFT) | length);
+            long offset = claim & OFFSET_MASK;
+            long records = claim >>> RECORDS_SHIFT;
+            if (offset + length <= segmentSize) {
+                long sequence = current.base + records + 1;
+                CommandCodec.encode(current.buffer, (int) offset, command, sequence, instrumentSequence);
+                return sequence;
+            }
+            if (offset <= segmentSize) {
+                // The first claim not fitting the segment, every claim before it does
+                roll(current, (int) offset, records);
+            } else {
+                awaitRoll(current);
+            }
+        }
+    }
+
+    /**
+     * @return global sequence of the last command appended or replayed, 0 if there is none
+     */
+    public long getSequence() {
+        while (true) {
+            Segment current = segment;
+            if (current == null) {
+                return 0;
+            }
+            long claimed = current.claimed.get();
+            if ((claimed & OFFSET_MASK) <= segmentSize) {
+                return current.base + (claimed >>> RECORDS_SHIFT);
+            }
+            awaitRoll(current);
+        }
+    }
+
+    /**
+     * Continues the global sequence after the given one if the journal ends before it, as it does when a crash of
+     * the machine lost records a snapshot already covers. Must be called before the first append.
+     */
+    public synchronized void continueAfter(long sequence) {
+        Segment current = segment;
+        if (current == null || current.base >= sequence) {
+            return;
+        }
+        long claimed = current.claimed.get();
+        if (claimed >>> RECORDS_SHIFT != 0) {
+            throw new IllegalStateException("Commands have been appended to the journal already");
+        }
+        log.warn("Command journal ends at sequence {}, continuing after sequence {}", current.base, sequence);
+        segment = new Segment(current.buffer, current.index, sequence, (int) (claimed & OFFSET_MASK));
+    }
+
+    /**
+     * Hands every command of the journal to the handler, in journal order.
+     *
+     * @return number of commands replayed
+     */
+    public long replay(ReplayHandler handler) {
+        return replay(1, handler);
+    }
+
+    /**
+     * Hands the commands of the journal from the given global sequence on to the handler, in journal order. The
+     * commands before it are skipped without being decoded.
+     *
+     * @return number of commands replayed
+     */
+    public long replay(long fromSequence, ReplayHandler handler) {
+        if (directory == null) {
+            return 0;
+        }
+        try {
+            long replayed = 0;
+            for (Path path : segments()) {
+                MappedByteBuffer buffer = map(indexOf(path));
+                int offset = 0;
+                while (offset < segmentSize) {
+                    int length = CommandCodec.recordLength(buffer, offset);
+                    if (length == CommandCodec.END_OF_SEGMENT) {
+                        break;
+                    }
+                    if (length == 0) {
+                        // Nothing written past the first incomplete record
+                        return replayed;
+                    }
+                    long sequence = CommandCodec.sequence(buffer, offset);
+                    if (sequence >= fromSequence) {
+                        handler.replay(sequence, CommandCodec.instrumentSequence(buffer, offset),
+                                CommandCodec.decode(buffer, offset));
+                        replayed++;
+                    }
+                    offset += CommandCodec.alignedLength(length);
+                }
+            }
+            return replayed;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay the command journal in " + directory, e);
+        }
+    }
+
+    /**
+     * Forces the records completely written since the last call to disk.
+     */
+    public void flush() {
+        List<Segment> segments;
+        Segment current;
+        synchronized (this) {
+            segments = new ArrayList<>(unforced);
+            current = segment;
+        }
+        // Keeps the forced tails of the segments to one flushing thread at a time
+        synchronized (flushLock) {
+            flush(segments, current);
+        }
+    }
+
+    private void flush(List<Segment> segments, Segment current) {
+        try {
+            for (Segment rolled : segments) {
+                if (force(rolled)) {
+                    synchronized (this) {
+                        unforced.remove(rolled);
+                    }
+                }
+            }
+            if (current != null) {
+                force(current);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to flush the command journal", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flush();
+        }
+    }
+
+    // Forces the records of the segment completely written and not forced yet, true once the whole segment is
+    private boolean force(Segment forced) {
+        long claimed = Math.min(forced.claimed.get() & OFFSET_MASK, segmentSize);
+        int from = forced.forcedTail;
+        int to = from;
+        while (to < claimed) {
+            int length = CommandCodec.recordLength(forced.buffer, to);
+            if (length == CommandCodec.END_OF_SEGMENT) {
+                to = segmentSize;
+                break;
+            }
+            if (length == 0) {
+                // Still being written, forced by a later flush
+                break;
+            }
+            to += CommandCodec.alignedLength(length);
+        }
+        // Pairs with the release fence of the writer, the records up to there are complete
+        VarHandle.acquireFence();
+        if (to > from) {
+            forced.buffer.force(from, to - from);
+            forced.forcedTail = to;
+        }
+        return to == segmentSize;
+    }
+
+    private synchronized void roll(Segment full, int offset, long records) {
+        if (offset + Integer.BYTES <= segmentSize) {
+            full.buffer.putInt(offset, CommandCodec.END_OF_SEGMENT);
+        }
+        unforced.add(full);
+        try {
+            segment = new Segment(map(full.index + 1), full.index + 1, full.base + records, 0);
+        } catch (IOException e) {
+            rollFailure = e;
+            throw new UncheckedIOException("Failed to roll the command journal over to segment " + (full.index + 1), e);
+        }
+        log.info("Command journal rolled over to segment {} at sequence {}", full.index + 1, full.base + records);
+    }
+
+    // Waits for the thread whose claim did not fit the full segment to roll the journal over
+    private void awaitRoll(Segment full) {
+        while (segment == full) {
+            IOException failure = rollFailure;
+            if (failure != null) {
+                throw new UncheckedIOException("The command journal failed to roll over to segment "
+                        + (full.index + 1), failure);
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    // Segment to append to, after the last record completely written by the last run
+    private Segment openTail() throws IOException {
+        List<Path> segments = segments();
+        long sequence = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            int index = indexOf(segments.get(i));
+            MappedByteBuffer buffer = map(index);
+            int offset = 0;
+            while (offset < segmentSize) {
+                int length = CommandCodec.recordLength(buffer, offset);
+                if (length == CommandCodec.END_OF_SEGMENT || length == 0) {
+                    break;
+                }
+                sequence = CommandCodec.sequence(buffer, offset);
+                offset += CommandCodec.alignedLength(length);
+            }
+            if (offset < segmentSize && CommandCodec.recordLength(buffer, offset) == 0) {
+                truncate(buffer, offset, segments.subList(i + 1, segments.size()));
+                return new Segment(buffer, index, sequence, offset);
+            }
+        }
+        // Every segment has been rolled over, the successor of the last one was never created
+        int next = segments.isEmpty() ? 0 : indexOf(segments.get(segments.size() - 1)) + 1;
+        return new Segment(map(next), next, sequence, 0);
+    }
+
+    // Drops what a crash left behind the first incomplete record, replay never reads past it
+    private void truncate(MappedByteBuffer buffer, int offset, List<Path> later) throws IOException {
+        for (int at = offset; at < segmentSize; at += Long.BYTES) {
+            if (buffer.getLong(at) != 0) {
+                buffer.putLong(at, 0);
+            }
+        }
+        for (Path path : later) {
+            log.warn("Deleting command journal segment {} behind an incomplete record", path);
+            Files.delete(path);
+        }
+    }
+
+    private MappedByteBuffer map(int index) throws IOException {
+        Path path = directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static int indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Mapped segment file and the position claimed in it so far.
+     */
+    private static final class Segment {
+
+        private final MappedByteBuffer buffer;
+        private final int index;
+        // Global sequence of the last record before the segment
+        private final long base;
+        // Records claimed in the high half, offset of the next claim in the low half
+        private final AtomicLong claimed;
+        // Start of the range not forced yet, guarded by the flush lock
+        private int forcedTail;
+
+        private Segment(MappedByteBuffer buffer, int index, long base, int tail) {
+            this.buffer = buffer;
+            this.index = index;
+            this.base = base;
+            this.claimed = new AtomicLong(tail);
+            this.forcedTail = tail;
+        }
+    }
+
+    /**
+     * Receives the commands of the journal on replay.
+     */
+    @FunctionalInterface
+    public interface ReplayHandler {
+        void replay(long sequence, long instrumentSequence, Command command);
+    }
+}
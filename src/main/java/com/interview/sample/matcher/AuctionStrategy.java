@@ -2,11 +2,22 @@ package com.interview.sample.matcher;
 
 import com.interview.sample.books.OrderBook;
 import com.interview.sample.domain.event.Event;
-import com.interview.sample.domain.event.TradeEvent;
+import com.interview.sample.domain.event.EventSink;
 import com.interview.sample.domain.order.Order;
 
+import java.util.LinkedList;
 import java.util.List;
 
 public interface AuctionStrategy {
-    List<Event> match(OrderBook book, Order order);
-}
\ No newline at end of file
+
+    /**
+     * Matches the order against the book, writing the resulting events to the sink.
+     */
+    void match(OrderBook book, Order order, EventSink events);
+
+    default List<Event> match(OrderBook book, Order order) {
+        List<Event> events = new LinkedList<>();
+        match(book, order, events::add);
+        return events;
+    }
+}
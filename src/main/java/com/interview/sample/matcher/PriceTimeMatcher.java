@@ -1,41 +1,36 @@
 package com.interview.sample.matcher;
 
+import com.interview.sample.books.BookSide;
 import com.interview.sample.books.OrderBook;
 import com.interview.sample.books.PriceLevel;
-import com.interview.sample.domain.event.Event;
+import com.interview.sample.domain.event.EventSink;
 import com.interview.sample.domain.event.OrderCancelledEvent;
 import com.interview.sample.domain.event.OrderRejectedEvent;
 import com.interview.sample.domain.event.TradeEvent;
 import com.interview.sample.domain.order.*;
 import org.springframework.stereotype.Component;
 
-import java.util.*;
-
 @Component
 public class PriceTimeMatcher implements AuctionStrategy {
     @Override
-    public List<Event> match(OrderBook book, Order aggressorOrder) {
-        List<Event> events = new LinkedList<>();
-
+    public void match(OrderBook book, Order aggressorOrder, EventSink events) {
         // Specific validation should be added here in scope of separate service
         if (!isValidTimeInForce(aggressorOrder)) {
             aggressorOrder.setStatus(OrderStatus.REJECTED);
             events.add(new OrderRejectedEvent(
-                    aggressorOrder.getOrderId(),
+                    aggressorOrder.getClientOrderId(),
                     aggressorOrder.getClientId(),
                     "Invalid TimeInForce for OrderType"
             ));
-            return events;
+            return;
         }
 
-        if (aggressorOrder.getSide() == OrderSide.BUY) {
-            matchAgainst(book.getBookBySide(OrderSide.SELL), aggressorOrder, events);
-        } else {
-            matchAgainst(book.getBookBySide(OrderSide.BUY), aggressorOrder, events);
+        BookSide opposingBook = book.getBookBySide(aggressorOrder.getSide() == OrderSide.BUY ? OrderSide.SELL : OrderSide.BUY);
+        if (isFillable(opposingBook, aggressorOrder)) {
+            matchAgainst(book, opposingBook, aggressorOrder, events);
         }
 
         updateOrderStatus(aggressorOrder, events);
-        return events;
     }
 
     private boolean isValidTimeInForce(Order order) {
@@ -44,57 +39,57 @@ public class PriceTimeMatcher implements AuctionStrategy {
                 (order.getType() == OrderType.MARKET && order.getTimeInForce() == TimeInForce.FILL_OR_KILL);
     }
 
-    private void matchAgainst(NavigableMap<Price, PriceLevel> opposingBook,
-                              Order aggressorOrder, List<Event> events) {
+    // All-or-nothing orders only trade if the opposing side holds their whole quantity within their limit,
+    // checked on the level quantities before any resting order is touched
+    private boolean isFillable(BookSide opposingBook, Order order) {
+        if (order.getTimeInForce() != TimeInForce.ALL_OR_NONE && order.getTimeInForce() != TimeInForce.FILL_OR_KILL) {
+            return true;
+        }
+        int quantity = order.getQuantity().getRemainingQuantity();
+        long limit = order.getType() == OrderType.LIMIT ? order.getPrice() : Price.NO_PRICE;
+        return opposingBook.availableQuantity(limit, quantity) >= quantity;
+    }
+
+    private void matchAgainst(OrderBook book, BookSide opposingBook,
+                              Order aggressorOrder, EventSink events) {
         OrderQuantity quantity = aggressorOrder.getQuantity();
 
         while (!quantity.isFullyFilled() && !opposingBook.isEmpty()) {
-            Map.Entry<Price, PriceLevel> bestLevel = opposingBook.firstEntry();
-            Price bestPrice = bestLevel.getKey();
+            PriceLevel level = opposingBook.best();
+            long bestPrice = level.getPrice();
 
             if (aggressorOrder.getType() == OrderType.LIMIT) {
                 boolean priceConditionMet = aggressorOrder.getSide() == OrderSide.BUY
-                        ? aggressorOrder.getPrice().compareTo(bestPrice) >= 0
-                        : aggressorOrder.getPrice().compareTo(bestPrice) <= 0;
+                        ? aggressorOrder.getPrice() >= bestPrice
+                        : aggressorOrder.getPrice() <= bestPrice;
                 if (!priceConditionMet) break;
             }
 
-            PriceLevel level = bestLevel.getValue();
             Order restingOrder = level.peek();
             OrderQuantity restingQuantity = restingOrder.getQuantity();
 
-            int tradeQty = calculateTradeQuantity(quantity, restingQuantity, aggressorOrder);
+            int tradeQty = Math.min(quantity.getRemainingQuantity(), restingQuantity.getRemainingQuantity());
             if (tradeQty <= 0) break;
 
-            executeTrade(aggressorOrder, restingOrder, bestPrice, tradeQty, events);
+            executeTrade(aggressorOrder, restingOrder, bestPrice, book.getPriceScale(), tradeQty, events);
             updateQuantities(quantity, restingQuantity, tradeQty);
-            cleanupFilledOrders(level, restingOrder, opposingBook, bestPrice);
-        }
-    }
-
-    private int calculateTradeQuantity(OrderQuantity aggressorQty,
-                                       OrderQuantity restingQty,
-                                       Order order) {
-        int maxPossible = Math.min(
-                aggressorQty.getRemainingQuantity(),
-                restingQty.getRemainingQuantity()
-        );
-
-        if (order.getTimeInForce() == TimeInForce.ALL_OR_NONE &&
-                maxPossible < aggressorQty.getRemainingQuantity()) {
-            return 0;
+            level.fill(tradeQty);
+            cleanupFilledOrder(book, restingOrder);
         }
-
-        return maxPossible;
     }
 
     private void executeTrade(Order aggressorOrder, Order restingOrder,
-                              Price tradePrice, int tradeQty, List<Event> events) {
+                              long tradePrice, int priceScale, int tradeQty, EventSink events) {
+        Order buyOrder = aggressorOrder.getSide() == OrderSide.BUY ? aggressorOrder : restingOrder;
+        Order sellOrder = aggressorOrder.getSide() == OrderSide.BUY ? restingOrder : aggressorOrder;
         events.add(new TradeEvent(
-                aggressorOrder.getOrderId(),
-                restingOrder.getOrderId(),
+                buyOrder.getOrderId(),
+                sellOrder.getOrderId(),
+                buyOrder.getClientId(),
+                sellOrder.getClientId(),
                 aggressorOrder.getInstrumentId(),
                 tradePrice,
+                priceScale,
                 tradeQty,
                 System.nanoTime()
         ));
@@ -111,18 +106,13 @@ public class PriceTimeMatcher implements AuctionStrategy {
         );
     }
 
-    private void cleanupFilledOrders(PriceLevel level, Order restingOrder,
-                                     NavigableMap<Price, PriceLevel> opposingBook,
-                                     Price bestPrice) {
+    private void cleanupFilledOrder(OrderBook book, Order restingOrder) {
         if (restingOrder.getQuantity().isFullyFilled()) {
-            level.getOrders().poll();
-            if (level.isEmpty()) {
-                opposingBook.remove(bestPrice);
-            }
+            book.removeFilledOrder(restingOrder);
         }
     }
 
-    private void updateOrderStatus(Order order, List<Event> events) {
+    private void updateOrderStatus(Order order, EventSink events) {
         OrderQuantity qty = order.getQuantity();
         if (qty.isFullyFilled()) {
             order.setStatus(OrderStatus.FILLED);
@@ -133,7 +123,7 @@ public class PriceTimeMatcher implements AuctionStrategy {
             // Cancel only MARKET orders or FILL_OR_KILL orders if not fully filled
             order.setStatus(OrderStatus.REJECTED);
             events.add(new OrderRejectedEvent(
-                    order.getOrderId(),
+                    order.getClientOrderId(),
                     order.getClientId(),
                     "Order could not be fully filled"
             ));
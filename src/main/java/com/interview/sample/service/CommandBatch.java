@@ -0,0 +1,134 @@
+package com.interview.sample.service;
+
+import com.interview.sample.audit.AuditWriter;
+import com.interview.sample.books.BookRepository;
+import com.interview.sample.books.OrderBook;
+import com.interview.sample.broker.EventBroker;
+import com.interview.sample.domain.event.Event;
+import com.interview.sample.domain.event.EventBuffer;
+import com.interview.sample.domain.event.EventSink;
+import com.interview.sample.domain.order.OrderIdGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Commands a worker executes in one go. Handlers write their events to the batch, which hands all of them to the
+ * {@link EventBroker} in one publish when the batch is flushed, and look books up through it by instrument index,
+ * so consecutive commands of one instrument only look its book up in the {@link BookRepository} once. Every event
+ * is recorded to the audit trail as it is added.
+ *
+ * <p>Books publishing their depth add one update per price level they changed to the events of the batch as it is
+ * flushed, so a level changed by several commands of the batch is published once.
+ *
+ * <p>Orders accepted by the handlers take their ID from the batch, see {@link #nextOrderId()}.
+ *
+ * <p>Not thread-safe, every worker owns one batch which it reuses.
+ */
+public class CommandBatch implements EventSink {
+
+    private final BookRepository bookRepository;
+    private final EventBroker eventBroker;
+    private final AuditWriter audit;
+    private final OrderIdGenerator orderIds;
+    private final EventBuffer events = new EventBuffer();
+
+    // Global journal sequence of the command being executed, 0 without the journal
+    private long journalSequence;
+
+    // Last book looked up, consecutive commands mostly target the same one
+    private int lastInstrument = -1;
+    private OrderBook lastBook;
+
+    // Books looked up since the last flush which publish their depth
+    private final List<OrderBook> depthBooks = new ArrayList<>();
+
+    /**
+     * Batch without audit trail, generating the IDs of orders placed by commands not journaled in shard 0.
+     */
+    public CommandBatch(BookRepository bookRepository, EventBroker eventBroker) {
+        this(bookRepository, eventBroker, AuditWriter.NONE, new OrderIdGenerator(0));
+    }
+
+    public CommandBatch(BookRepository bookRepository, EventBroker eventBroker, AuditWriter audit,
+                        OrderIdGenerator orderIds) {
+        this.bookRepository = bookRepository;
+        this.eventBroker = eventBroker;
+        this.audit = audit;
+        this.orderIds = orderIds;
+    }
+
+    /**
+     * Sets the global journal sequence of the command about to be executed, the order it places takes its ID from it.
+     */
+    public void setJournalSequence(long journalSequence) {
+        this.journalSequence = journalSequence;
+    }
+
+    /**
+     * @return ID of the order placed by the command being executed, derived from its journal sequence when it has
+     * one, so replaying the command assigns the same ID
+     */
+    public long nextOrderId() {
+        return journalSequence > 0 ? OrderIdGenerator.ofJournalSequence(journalSequence) : orderIds.nextId();
+    }
+
+    /**
+     * @param instrument index of the instrument, see {@link BookRepository#instrumentIndex}
+     * @return the book of the instrument or {@code null} if there is none
+     */
+    public OrderBook findBook(int instrument) {
+        if (instrument == lastInstrument) {
+            return lastBook;
+        }
+        OrderBook book = bookRepository.get(instrument);
+        // Missing books are not remembered, the instrument may still be created within the batch
+        if (book != null) {
+            if (book.publishesDepth() && !depthBooks.contains(book)) {
+                depthBooks.add(book);
+            }
+            lastInstrument = instrument;
+            lastBook = book;
+        }
+        return book;
+    }
+
+    @Override
+    public void add(Event event) {
+        audit.record(event);
+        events.add(event);
+    }
+
+    public EventBuffer getEvents() {
+        return events;
+    }
+
+    /**
+     * Publishes the events of the batch and forgets the books looked up, the batch can then be reused.
+     */
+    public void flush() {
+        try {
+            // Derived from the books, depth updates are published but not audited
+            for (int i = 0; i < depthBooks.size(); i++) {
+                depthBooks.get(i).publishDepth(events);
+            }
+            eventBroker.publishAll(events);
+        } finally {
+            discard();
+        }
+    }
+
+    /**
+     * Drops the events of the batch without publishing them and forgets the books looked up, used when replaying
+     * commands whose events have been published before.
+     */
+    public void discard() {
+        for (int i = 0; i < depthBooks.size(); i++) {
+            depthBooks.get(i).discardDepth();
+        }
+        depthBooks.clear();
+        events.clear();
+        lastInstrument = -1;
+        lastBook = null;
+    }
+}
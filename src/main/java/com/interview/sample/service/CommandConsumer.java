@@ -0,0 +1,20 @@
+package com.interview.sample.service;
+
+import com.interview.sample.controller.command.Command;
+
+/**
+ * Receives the commands a {@link CommandWorker} takes, on the worker thread.
+ */
+@FunctionalInterface
+interface CommandConsumer {
+
+    /**
+     * @param instrument  index of the instrument the command has been submitted for, see
+     *                    {@link com.interview.sample.books.BookRepository#instrumentIndex}
+     * @param queuedNanos time the command waited in the queue of the worker, from its submission until the worker
+     *                    took it
+     * @param endOfBatch  whether the command is the last one the worker took in one go, the consumer flushes
+     *                    whatever it batched up when it is set
+     */
+    void accept(Command command, int instrument, long queuedNanos, boolean endOfBatch);
+}
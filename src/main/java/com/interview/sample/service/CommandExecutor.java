@@ -1,11 +1,22 @@
 package com.interview.sample.service;
 
+import com.interview.sample.audit.AuditLog;
+import com.interview.sample.books.BookRepository;
+import com.interview.sample.books.DepthSnapshot;
+import com.interview.sample.books.OrderBook;
+import com.interview.sample.broker.EventBroker;
 import com.interview.sample.controller.command.Command;
 import com.interview.sample.controller.command.InstrumentCreatedCommand;
 import com.interview.sample.controller.command.OrderCancelledCommand;
 import com.interview.sample.controller.command.OrderPlacedCommand;
+import com.interview.sample.domain.event.CommandExpiredEvent;
+import com.interview.sample.domain.order.OrderIdGenerator;
+import com.interview.sample.journal.CommandJournal;
+import com.interview.sample.snapshot.BookSnapshot;
+import com.interview.sample.snapshot.SnapshotStore;
 import jakarta.annotation.PostConstruct;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PreDestroy;
@@ -13,43 +24,165 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.*;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
 
 
 /**
  * The CommandExecutor class is responsible for executing commands in a thread-safe and ordered manner.
  * It ensures that commands related to the same instrument and OrderBook are executed sequentially
- * using a single thread, while limiting the total number of threads to a maximum of {@code MAX_THREADS}.
+ * using a single thread, while limiting the total number of threads to the ones of the {@link WorkerTopology}.
 
  * <p>Implementation Details:
  * <ul>
- *     <li>The {@code workers} list contains a fixed number of single-threaded executors.</li>
- *     <li>The {@code instrumentWorkers} map assigns each instrument to one of the available threads.</li>
- *     <li>The {@code counter} ensures a round-robin assignment of threads to instruments.</li>
+ *     <li>The {@code workers} list contains a fixed number of single-threaded {@link CommandWorker}s, either
+ *     executor services or pre-allocated ring buffers, see {@link WorkerType}.</li>
+ *     <li>Hot instruments get a dedicated busy-spinning ring buffer worker each, appended to {@code workers}.</li>
+ *     <li>The {@code routes} array assigns each instrument to one of the available threads. It is indexed by the
+ *     dense index the {@link BookRepository} interns the instrument to, resolved once per command in
+ *     {@link #execute}. Workers get the index along with the command and look the route and the book up by it.</li>
+ *     <li>The {@code counter} ensures a round-robin assignment of threads to instruments without a configured
+ *     worker.</li>
  * </ul>
  *
+ * <p>Rebalancing: when {@code matching.executor.rebalance-interval-ms} is set, the service time of every
+ * instrument is sampled at that interval and an {@link InstrumentRebalancer} may move one instrument from the
+ * busiest to the idlest shared worker. Hot instruments and instruments with a configured worker never move.
+ * A move redirects new commands of the instrument to the new worker, waits until no producer is still submitting
+ * to the old one and then submits a handover marker to the old worker. Commands reaching the new worker before
+ * the old one executed the marker are parked, and executed once it has, so the commands of a book keep their order
+ * and the book is never touched by two threads.
+ *
+ * <p>Batching: workers take all the commands pending for them in one go, up to
+ * {@code matching.executor.batch-size}. Every worker has a {@link CommandBatch} collecting the events of the
+ * commands it executes, which publishes them to the {@link EventBroker} in one handoff at the end of the batch.
+ *
+ * <p>Lanes: every worker queues the commands in the lane of their type, see {@link CommandLanes}, and takes
+ * them from the highest lane holding any, so cancels overtake the new orders queued before them. The handover
+ * marker of a migration is submitted to every lane of the old worker and only hands the instrument over once the
+ * old worker executed it in all of them. {@link #getLaneWaits()} gives the time commands spent queued per lane.
+ *
+ * <p>Load shedding: with {@code matching.executor.max-queue-depth} set, {@link #execute} throws a
+ * {@link QueueFullException} rather than queueing a command behind that many others of its lane. Commands waiting
+ * in the queue longer than allowed by the {@link CommandExpiry} are rejected with a {@link CommandExpiredEvent} when
+ * the worker takes them, without touching the book.
+ *
+ * <p>Journal: with the {@link CommandJournal} enabled, every command is appended to it with the next sequence of
+ * its instrument right before it is executed, expired commands are not. On startup the journal is replayed through
+ * the same handlers before any worker starts, rebuilding the books, and the events of the replayed commands are
+ * dropped as they have been published before. Orders placed by journaled commands take their ID from the journal
+ * sequence of the command, so the replayed orders keep the IDs they were published with.
+ *
+ * <p>Snapshots: with the {@link SnapshotStore} and the journal enabled, a copy of every book is taken every
+ * {@code matching.snapshot.interval-ms}. Each book is copied by the worker executing its commands, between two
+ * commands, so only the instrument being copied pauses, and the copies are written in parallel. On startup the
+ * books of the latest snapshot are restored and only the journal after it is replayed.
+ *
  * <p>Thread Safety:
  * <ul>
- *     <li>Commands for the same instrument are executed sequentially using the same thread.</li>
+ *     <li>Commands for the same instrument are executed sequentially using the same thread, in the order they
+ *     were submitted within each lane.</li>
  *     <li>Commands for different instruments may be executed concurrently on different threads.</li>
  * </ul>
  */
 @SuppressWarnings("unchecked")
+@Log4j2
 @Component
-@RequiredArgsConstructor
 public class CommandExecutor {
-    private static final int MAX_THREADS = 10;
 
     private final InstrumentCreatedCommandHandler instrumentCreatedCommandHandler;
     private final OrderCancelledCommandHandler orderCancelledCommandHandler;
     private final OrderPlacedCommandHandler orderPlacedCommandHandler;
 
+    private final BookRepository bookRepository;
+    private final EventBroker eventBroker;
+    private final CommandJournal journal;
+    private final SnapshotStore snapshotStore;
+    private final AuditLog auditLog;
+
+    private final WorkerType workerType;
+    private final int ringSize;
+    private final int batchSize;
+    private final WaitStrategy waitStrategy;
+    private final WorkerTopology topology;
+    private final CommandLanes lanes;
+    // Lane of the placements, and whether cancels are queued in a lane above it
+    private final int placementLane;
+    private final boolean cancelsOvertakePlacements;
+    private final int maxQueueDepth;
+    private final CommandExpiry expiry;
+    private final long rebalanceIntervalMillis;
+    private final double rebalanceThreshold;
+    private final long depthSnapshotTimeoutMillis;
 
     private final Map<Class<? extends Command>, CommandHandler<?>> handlers = new HashMap<>();
-    private final List<ExecutorService> workers = new ArrayList<>(MAX_THREADS);
-    private final ConcurrentMap<String, ExecutorService> instrumentWorkers = new ConcurrentHashMap<>();
+    // Shared workers first, followed by the workers of the hot instruments
+    private final List<CommandWorker> workers = new ArrayList<>();
+    private final Map<String, Integer> hotWorkers = new HashMap<>();
+    // Last journal sequence of every restored or replayed instrument, read-only once the workers started
+    private final Map<String, Long> replayedSequences = new HashMap<>();
+    // Routes by instrument index, replaced by a larger copy under the lock of the executor when an index falls beyond
+    private volatile AtomicReferenceArray<InstrumentRoute> routes = new AtomicReferenceArray<>(64);
+    // Same routes in the order they were assigned, to go through all of them
+    private final List<InstrumentRoute> assignedRoutes = new CopyOnWriteArrayList<>();
     private final AtomicInteger counter = new AtomicInteger();
+    private final AtomicLong migrations = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private ScheduledExecutorService rebalancer;
+    private ScheduledExecutorService snapshotter;
+
+    public CommandExecutor(InstrumentCreatedCommandHandler instrumentCreatedCommandHandler,
+                           OrderCancelledCommandHandler orderCancelledCommandHandler,
+                           OrderPlacedCommandHandler orderPlacedCommandHandler,
+                           BookRepository bookRepository,
+                           EventBroker eventBroker,
+                           CommandJournal journal,
+                           SnapshotStore snapshotStore,
+                           AuditLog auditLog,
+                           @Value("${matching.executor.worker-type:EXECUTOR_SERVICE}") WorkerType workerType,
+                           @Value("${matching.executor.ring-size:1024}") int ringSize,
+                           @Value("${matching.executor.batch-size:256}") int batchSize,
+                           @Value("${matching.executor.wait-strategy:PARK}") WaitStrategy waitStrategy,
+                           WorkerTopology topology,
+                           CommandLanes lanes,
+                           @Value("${matching.executor.max-queue-depth:0}") int maxQueueDepth,
+                           CommandExpiry expiry,
+                           @Value("${matching.executor.rebalance-interval-ms:0}") long rebalanceIntervalMillis,
+                           @Value("${matching.executor.rebalance-threshold:1.5}") double rebalanceThreshold,
+                           @Value("${matching.executor.depth-snapshot-timeout-ms:1000}") long depthSnapshotTimeoutMillis) {
+        this.instrumentCreatedCommandHandler = instrumentCreatedCommandHandler;
+        this.orderCancelledCommandHandler = orderCancelledCommandHandler;
+        this.orderPlacedCommandHandler = orderPlacedCommandHandler;
+        this.bookRepository = bookRepository;
+        this.eventBroker = eventBroker;
+        this.journal = journal;
+        this.snapshotStore = snapshotStore;
+        this.auditLog = auditLog;
+        this.workerType = workerType;
+        this.ringSize = ringSize;
+        this.batchSize = batchSize;
+        this.waitStrategy = waitStrategy;
+        this.topology = topology;
+        this.lanes = lanes;
+        this.placementLane = lanes.laneOf(OrderPlacedCommand.class);
+        this.cancelsOvertakePlacements = lanes.laneOf(OrderCancelledCommand.class) < placementLane;
+        this.maxQueueDepth = maxQueueDepth;
+        this.expiry = expiry;
+        this.rebalanceIntervalMillis = rebalanceIntervalMillis;
+        this.rebalanceThreshold = rebalanceThreshold;
+        this.depthSnapshotTimeoutMillis = depthSnapshotTimeoutMillis;
+    }
 
     @PostConstruct
     public void init() {
@@ -57,27 +190,421 @@ public class CommandExecutor {
         handlers.put(OrderCancelledCommand.class, orderCancelledCommandHandler);
         handlers.put(OrderPlacedCommand.class, orderPlacedCommandHandler);
 
-        for (int i = 0; i < MAX_THREADS; i++) {
-            workers.add(Executors.newSingleThreadExecutor());
+        SnapshotStore.Restored restored = snapshotStore.restore();
+        if (restored != null) {
+            replayedSequences.putAll(restored.sequences());
+        }
+        if (journal.isEnabled()) {
+            replayJournal(restored == null ? 1 : restored.journalSequence() + 1);
+            if (restored != null) {
+                // The journal may have lost the end the snapshot covers, its sequences are never handed out again
+                journal.continueAfter(restored.journalSequence());
+            }
+        }
+
+        for (int i = 0; i < topology.getWorkers(); i++) {
+            addWorker(workerType, "matching-worker-" + i, waitStrategy, topology.cpuOfWorker(i));
+        }
+        List<String> hotInstruments = topology.getHotInstruments();
+        for (int i = 0; i < hotInstruments.size(); i++) {
+            String instrumentId = hotInstruments.get(i);
+            hotWorkers.put(instrumentId, workers.size());
+            addWorker(WorkerType.RING_BUFFER, "matching-hot-" + instrumentId, WaitStrategy.BUSY_SPIN, topology.cpuOfHotInstrument(i));
+        }
+        // Recovered instruments are snapshotted again even if they get no new command
+        for (String instrumentId : replayedSequences.keySet()) {
+            routeOf(bookRepository.instrumentIndex(instrumentId), instrumentId);
+        }
+
+        if (rebalanceIntervalMillis > 0) {
+            InstrumentRebalancer planner = new InstrumentRebalancer(topology.getWorkers(), rebalanceThreshold);
+            rebalancer = Executors.newSingleThreadScheduledExecutor(task -> new Thread(task, "matching-rebalancer"));
+            rebalancer.scheduleWithFixedDelay(() -> rebalance(planner),
+                    rebalanceIntervalMillis, rebalanceIntervalMillis, TimeUnit.MILLISECONDS);
         }
+
+        if (snapshotStore.isEnabled() && snapshotStore.getIntervalMillis() > 0) {
+            if (journal.isEnabled()) {
+                snapshotter = Executors.newSingleThreadScheduledExecutor(task -> new Thread(task, "matching-snapshotter"));
+                snapshotter.scheduleWithFixedDelay(this::snapshot,
+                        snapshotStore.getIntervalMillis(), snapshotStore.getIntervalMillis(), TimeUnit.MILLISECONDS);
+            } else {
+                log.warn("Snapshots are not taken without the command journal, they cover a position in it");
+            }
+        }
+    }
+
+    // Runs before the workers exist, the books are only touched by this thread
+    private void replayJournal(long fromSequence) {
+        CommandBatch batch = new CommandBatch(bookRepository, eventBroker);
+        long start = System.nanoTime();
+        long replayed = journal.replay(fromSequence, (sequence, instrumentSequence, command) -> {
+            String instrumentId = extractInstrumentId(command);
+            long previous = replayedSequences.getOrDefault(instrumentId, 0L);
+            if (instrumentSequence <= previous) {
+                // Executed before the book was copied into the snapshot
+                return;
+            }
+            if (instrumentSequence != previous + 1) {
+                log.warn("Journal sequence {} of instrument {} follows {}, commands are missing",
+                        instrumentSequence, instrumentId, previous);
+            }
+            replayedSequences.put(instrumentId, instrumentSequence);
+            batch.setJournalSequence(sequence);
+            try {
+                handle(command, bookRepository.instrumentIndex(instrumentId), batch);
+            } catch (RuntimeException e) {
+                log.error("Failed to replay command {} of the journal: {}", sequence, command, e);
+            } finally {
+                batch.discard();
+            }
+        });
+        long nanos = System.nanoTime() - start;
+        log.info("Replayed {} commands of {} instruments from the journal in {} ms, {} commands/s", replayed,
+                replayedSequences.size(), TimeUnit.NANOSECONDS.toMillis(nanos),
+                nanos == 0 ? 0 : replayed * TimeUnit.SECONDS.toNanos(1) / nanos);
+    }
+
+    private void addWorker(WorkerType type, String name, WaitStrategy waitStrategy, int cpu) {
+        int workerId = workers.size();
+        CommandBatch batch = new CommandBatch(bookRepository, eventBroker, auditLog.writer(name),
+                new OrderIdGenerator(workerId));
+        workers.add(type.create(name,
+                (command, instrument, queuedNanos, endOfBatch) ->
+                        dispatch(command, instrument, queuedNanos, workerId, batch, endOfBatch),
+                lanes, ringSize, batchSize, maxQueueDepth, waitStrategy, cpu));
     }
 
+    /**
+     * @throws QueueFullException if the lane of the command already holds {@code matching.executor.max-queue-depth}
+     *                            commands on the worker of its instrument
+     */
     public <T extends Command> void execute(T command) {
         String instrumentId = extractInstrumentId(command);
+        // The only lookup of the instrument ID, the route, the worker and the handler go by the index from here on
+        int instrument = bookRepository.instrumentIndex(instrumentId);
 
-        ExecutorService worker = instrumentWorkers.computeIfAbsent(instrumentId,
-                id -> workers.get(counter.getAndIncrement() % MAX_THREADS));
+        InstrumentRoute route = routeOf(instrument, instrumentId);
 
-        worker.execute(() -> {
-            CommandHandler<T> handler = (CommandHandler<T>) handlers.get(command.getClass());
-            if (handler != null) {
-                handler.handle(command);
-            } else {
-                throw new IllegalStateException("No handler for: " + command.getClass());
+        boolean offered = false;
+        try {
+            offered = route.offer(command, laneOf(command, route));
+        } finally {
+            if (!offered && cancelsOvertakePlacements && command instanceof OrderPlacedCommand cmd) {
+                route.placementDequeued(cmd.clientOrderId());
             }
+        }
+        if (!offered) {
+            throw new QueueFullException("Too many commands queued for instrument: " + instrumentId);
+        }
+    }
+
+    // A cancel overtakes the placements of other orders only. While the placement of its own order is still queued
+    // it goes to the lane of the placement, behind it, otherwise it would not find the order and the order would rest
+    private int laneOf(Command command, InstrumentRoute route) {
+        if (cancelsOvertakePlacements) {
+            if (command instanceof OrderPlacedCommand cmd) {
+                route.placementQueued(cmd.clientOrderId());
+            } else if (command instanceof OrderCancelledCommand cmd && route.isPlacementQueued(cmd.clientOrderId())) {
+                return placementLane;
+            }
+        }
+        return lanes.laneOf(command);
+    }
+
+    /**
+     * Copies every book on the worker executing its commands and writes the copies to the {@link SnapshotStore}.
+     * Returns once the snapshot is written.
+     */
+    public void takeSnapshot() {
+        // Every command journaled up to here is executed before its worker takes the capture submitted below
+        long journalSequence = journal.getSequence();
+        List<BookCapture<BookSnapshot>> captures = new ArrayList<>(assignedRoutes.size());
+        for (InstrumentRoute route : assignedRoutes) {
+            BookCapture<BookSnapshot> capture = new BookCapture<>(route,
+                    book -> BookSnapshot.of(book, route.getJournalSequence()));
+            route.getWorker().submit(capture, route.getInstrument(), 0);
+            captures.add(capture);
+        }
+        List<BookSnapshot> books = new ArrayList<>(captures.size());
+        for (BookCapture<BookSnapshot> capture : captures) {
+            BookSnapshot book = capture.copy().join();
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        // The commands up to the sequence are executed, so appended completely, and made durable before the
+        // snapshot covering them
+        journal.flush();
+        snapshotStore.write(journalSequence, books);
+    }
+
+    /**
+     * Copies the best levels of the book of the instrument on the worker executing its commands, for subscribers
+     * joining the depth updates late. Returns once the copy is taken.
+     *
+     * @param levels most levels copied per side
+     * @return the depth of the book, empty if there is no book for the instrument
+     * @throws RejectedExecutionException if the worker of the instrument has not copied the book within
+     *                                    {@code matching.executor.depth-snapshot-timeout-ms}
+     */
+    public Optional<DepthSnapshot> depthSnapshot(String securityId, int levels) {
+        if (levels <= 0) {
+            throw new IllegalArgumentException("Number of levels must be greater than zero: " + levels);
+        }
+        if (bookRepository.find(securityId).isEmpty()) {
+            return Optional.empty();
+        }
+        InstrumentRoute route = routeOf(bookRepository.instrumentIndex(securityId), securityId);
+        BookCapture<DepthSnapshot> capture = new BookCapture<>(route, book -> book.depthSnapshot(levels));
+        route.getWorker().submit(capture, route.getInstrument(), 0);
+        try {
+            return Optional.ofNullable(
+                    capture.copy().orTimeout(depthSnapshotTimeoutMillis, TimeUnit.MILLISECONDS).join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                // The worker is busy, the caller backs off rather than holding its thread
+                throw new RejectedExecutionException("Timed out copying the depth of instrument: " + securityId);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of instruments moved between workers so far
+     */
+    public long getMigrations() {
+        return migrations.get();
+    }
+
+    /**
+     * @return number of commands rejected so far because they waited in the queue for too long
+     */
+    public long getExpiredCommands() {
+        return expired.get();
+    }
+
+    /**
+     * @return commands executed and time spent executing them per instrument, with the worker each one is
+     * currently assigned to
+     */
+    public List<InstrumentLoad> getInstrumentLoads() {
+        return assignedRoutes.stream()
+                .map(route -> new InstrumentLoad(route.getSecurityId(), route.getWorkerId(),
+                        route.getCommands(), route.getServiceNanos()))
+                .toList();
+    }
+
+    /**
+     * @return queue-wait time of the commands taken by all workers so far, per lane
+     */
+    public List<LaneWait> getLaneWaits() {
+        List<LaneWait> waits = new ArrayList<>();
+        for (int lane = 0; lane < lanes.count(); lane++) {
+            long commands = 0;
+            long waitNanos = 0;
+            long maxWaitNanos = 0;
+            for (CommandWorker worker : workers) {
+                LaneStats stats = worker.getLaneStats(lane);
+                commands += stats.getCommands();
+                waitNanos += stats.getWaitNanos();
+                maxWaitNanos = Math.max(maxWaitNanos, stats.getMaxWaitNanos());
+            }
+            waits.add(new LaneWait(lanes.nameOf(lane), commands, waitNanos, maxWaitNanos));
+        }
+        return waits;
+    }
+
+    private InstrumentRoute routeOf(int instrument, String instrumentId) {
+        AtomicReferenceArray<InstrumentRoute> routes = this.routes;
+        InstrumentRoute route = instrument < routes.length() ? routes.get(instrument) : null;
+        return route != null ? route : assignRoute(instrument, instrumentId);
+    }
+
+    // Only the first command of an instrument gets here
+    private synchronized InstrumentRoute assignRoute(int instrument, String instrumentId) {
+        AtomicReferenceArray<InstrumentRoute> routes = this.routes;
+        if (instrument < routes.length() && routes.get(instrument) != null) {
+            return routes.get(instrument);
+        }
+        if (instrument >= routes.length()) {
+            AtomicReferenceArray<InstrumentRoute> grown =
+                    new AtomicReferenceArray<>(Math.max(instrument + 1, routes.length() * 2));
+            for (int i = 0; i < routes.length(); i++) {
+                grown.set(i, routes.get(i));
+            }
+            this.routes = grown;
+            routes = grown;
+        }
+        InstrumentRoute route = newRoute(instrument, instrumentId);
+        routes.set(instrument, route);
+        assignedRoutes.add(route);
+        return route;
+    }
+
+    private InstrumentRoute newRoute(int instrument, String instrumentId) {
+        Integer hotWorker = hotWorkers.get(instrumentId);
+        if (hotWorker != null) {
+            return newRoute(instrument, instrumentId, hotWorker, false);
+        }
+        int configured = topology.workerOf(instrumentId);
+        if (configured >= 0) {
+            return newRoute(instrument, instrumentId, configured, false);
+        }
+        int workerId = Math.floorMod(counter.getAndIncrement(), topology.getWorkers());
+        return newRoute(instrument, instrumentId, workerId, rebalanceIntervalMillis > 0);
+    }
+
+    private InstrumentRoute newRoute(int instrument, String instrumentId, int workerId, boolean movable) {
+        InstrumentRoute route = new InstrumentRoute(instrument, instrumentId, workerId, workers.get(workerId), movable);
+        // Published to the worker along with the route
+        route.setJournalSequence(replayedSequences.getOrDefault(instrumentId, 0L));
+        return route;
+    }
+
+    private void snapshot() {
+        try {
+            takeSnapshot();
+        } catch (RuntimeException e) {
+            log.error("Failed to take a snapshot", e);
+        }
+    }
+
+    private void rebalance(InstrumentRebalancer planner) {
+        try {
+            InstrumentRebalancer.Move move = planner.plan(assignedRoutes);
+            if (move == null) {
+                return;
+            }
+            InstrumentRoute route = move.route();
+            log.info("Moving instrument {} from worker {} to worker {}, {} ns of service time in the last interval",
+                    route.getSecurityId(), move.fromWorker(), move.toWorker(), route.getRecentNanos());
+            route.redirect(move.toWorker(), workers.get(move.toWorker()));
+            CommandWorker from = workers.get(move.fromWorker());
+            Handover handover = new Handover(route, lanes.count());
+            for (int lane = 0; lane < lanes.count(); lane++) {
+                from.submit(handover, route.getInstrument(), lane);
+            }
+            migrations.incrementAndGet();
+        } catch (RuntimeException e) {
+            log.error("Failed to rebalance instruments", e);
+        }
+    }
+
+    // Runs on the worker thread of the instrument
+    private void dispatch(Command command, int instrument, long queuedNanos, int workerId, CommandBatch batch,
+                          boolean endOfBatch) {
+        try {
+            switch (command) {
+                case Handover handover -> {
+                    if (--handover.lanesLeft > 0) {
+                        // Commands for the instrument may still be queued in other lanes
+                        return;
+                    }
+                    // Every command the old worker got for the instrument has been executed, and its events
+                    // are delivered before the new worker, publishing to another partition, can publish any
+                    batch.flush();
+                    eventBroker.awaitDelivered();
+                    InstrumentRoute route = handover.route();
+                    route.handOver();
+                    route.getWorker().submit(new Resume(route), instrument, 0);
+                }
+                case Resume resume -> {
+                    InstrumentRoute route = resume.route();
+                    executeParked(route, workerId, batch);
+                    // Only now the instrument may move again, the next worker parks into the same queue
+                    route.completeMigration();
+                }
+                case BookCapture<?> capture -> capture(capture, workerId, batch);
+                default -> {
+                    // Assigned before the command was submitted
+                    InstrumentRoute route = routes.get(instrument);
+                    if (cancelsOvertakePlacements && command instanceof OrderPlacedCommand cmd) {
+                        // Executed or parked from here on, a later cancel is taken after it in any lane
+                        route.placementDequeued(cmd.clientOrderId());
+                    }
+                    if (expiry.isExpired(command, queuedNanos)) {
+                        expire(command, queuedNanos, batch);
+                        return;
+                    }
+                    if (route.getOwner() != workerId) {
+                        // The old worker has not handed the instrument over yet
+                        route.getParked().add(command);
+                        return;
+                    }
+                    if (route.getWorkerId() == workerId) {
+                        // The old worker may still be executing its last commands, the parked ones belong to the new
+                        executeParked(route, workerId, batch);
+                    }
+                    executeMeasured(route, command, batch);
+                }
+            }
+        } finally {
+            if (endOfBatch) {
+                batch.flush();
+            }
+        }
+    }
+
+    private void expire(Command command, long queuedNanos, CommandBatch batch) {
+        expired.incrementAndGet();
+        batch.add(switch (command) {
+            case OrderPlacedCommand cmd -> new CommandExpiredEvent(cmd.clientOrderId(), cmd.clientId(), cmd.securityId(), queuedNanos);
+            case OrderCancelledCommand cmd -> new CommandExpiredEvent(cmd.clientOrderId(), cmd.clientId(), cmd.securityId(), queuedNanos);
+            default -> throw new IllegalStateException("Command cannot expire: " + command.getClass());
         });
     }
 
+    private <T> void capture(BookCapture<T> capture, int workerId, CommandBatch batch) {
+        InstrumentRoute route = capture.route();
+        if (route.getOwner() == workerId) {
+            try {
+                OrderBook book = batch.findBook(route.getInstrument());
+                capture.copy().complete(book == null ? null : capture.copier().apply(book));
+            } catch (RuntimeException e) {
+                capture.copy().completeExceptionally(e);
+            }
+        } else if (route.getWorkerId() == workerId) {
+            // The old worker has not handed the instrument over yet
+            route.getParked().add(capture);
+        } else {
+            // The instrument has been handed over since the capture was submitted
+            route.getWorker().submit(capture, route.getInstrument(), 0);
+        }
+    }
+
+    private void executeParked(InstrumentRoute route, int workerId, CommandBatch batch) {
+        Command parked;
+        while ((parked = route.getParked().poll()) != null) {
+            if (parked instanceof BookCapture<?> capture) {
+                capture(capture, workerId, batch);
+            } else {
+                executeMeasured(route, parked, batch);
+            }
+        }
+    }
+
+    private void executeMeasured(InstrumentRoute route, Command command, CommandBatch batch) {
+        if (journal.isEnabled()) {
+            batch.setJournalSequence(journal.append(command, route.nextJournalSequence()));
+        }
+        long start = System.nanoTime();
+        try {
+            handle(command, route.getInstrument(), batch);
+        } finally {
+            route.recordExecution(System.nanoTime() - start);
+        }
+    }
+
+    private <T extends Command> void handle(T command, int instrument, CommandBatch batch) {
+        CommandHandler<T> handler = (CommandHandler<T>) handlers.get(command.getClass());
+        if (handler != null) {
+            handler.handle(command, instrument, batch);
+        } else {
+            throw new IllegalStateException("No handler for: " + command.getClass());
+        }
+    }
+
     private String extractInstrumentId(Command command) {
         return switch (command) {
             case InstrumentCreatedCommand cmd -> cmd.securityId();
@@ -89,15 +616,72 @@ public class CommandExecutor {
 
     @PreDestroy
     public void shutdown() {
-        workers.forEach(executor -> {
-            executor.shutdown();
+        if (snapshotter != null) {
+            // A snapshot in progress needs the workers to copy the books
+            snapshotter.shutdown();
             try {
-                if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
-                    executor.shutdownNow();
-                }
+                snapshotter.awaitTermination(1, TimeUnit.MINUTES);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
-        });
+        }
+        if (rebalancer != null) {
+            rebalancer.shutdown();
+            awaitMigrations();
+        }
+        workers.forEach(CommandWorker::shutdown);
+    }
+
+    // A migration in progress needs both of its workers running to hand the instrument over
+    private void awaitMigrations() {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        try {
+            rebalancer.awaitTermination(1, TimeUnit.MINUTES);
+            while (assignedRoutes.stream().anyMatch(InstrumentRoute::isMigrating) && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Load of one instrument, see {@link #getInstrumentLoads()}.
+     */
+    public record InstrumentLoad(String securityId, int worker, long commands, long serviceNanos) {
+    }
+
+    /**
+     * Queue-wait time of the commands of one lane, see {@link #getLaneWaits()}.
+     */
+    public record LaneWait(String lane, long commands, long waitNanos, long maxWaitNanos) {
+    }
+
+    // Executed by the old worker of a migrated instrument in every lane, after its last command for the instrument
+    private static final class Handover implements Command {
+        private final InstrumentRoute route;
+        // Lanes which have not reached the marker yet, touched by the old worker only
+        private int lanesLeft;
+
+        private Handover(InstrumentRoute route, int lanes) {
+            this.route = route;
+            this.lanesLeft = lanes;
+        }
+
+        private InstrumentRoute route() {
+            return route;
+        }
+    }
+
+    // Executed by the new worker of a migrated instrument once the old one handed it over
+    private record Resume(InstrumentRoute route) implements Command {
+    }
+
+    // Executed by the owner of the instrument, copies its book
+    private record BookCapture<T>(InstrumentRoute route, Function<OrderBook, T> copier,
+                                  CompletableFuture<T> copy) implements Command {
+        private BookCapture(InstrumentRoute route, Function<OrderBook, T> copier) {
+            this(route, copier, new CompletableFuture<>());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,52 @@
+package com.interview.sample.service;
+
+import com.interview.sample.controller.command.Command;
+import com.interview.sample.controller.command.InstrumentCreatedCommand;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Longest time the commands of a type may wait in the queue of their worker, given as {@code Type=millis} entries
+ * of command type names. A worker taking an older command rejects it with a
+ * {@link com.interview.sample.domain.event.CommandExpiredEvent} and never executes it: when the workers fall
+ * behind, rejecting an order is better than matching it seconds late. Commands of the types without an entry never
+ * expire, instrument creations cannot be given one.
+ */
+@Component
+public class CommandExpiry {
+
+    private final Map<Class<?>, Long> maxAgeNanos = new HashMap<>();
+
+    public CommandExpiry(@Value("${matching.executor.max-queue-age-ms:}") String[] maxAges) {
+        for (String entry : maxAges) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Maximum queue age must be given as Type=millis: " + entry);
+            }
+            Class<? extends Command> type = CommandLanes.commandType(entry.substring(0, separator).trim());
+            if (type == InstrumentCreatedCommand.class) {
+                throw new IllegalArgumentException("Instrument creations cannot expire: " + entry);
+            }
+            long millis = Long.parseLong(entry.substring(separator + 1).trim());
+            if (millis <= 0) {
+                throw new IllegalArgumentException("Maximum queue age must be greater than zero: " + entry);
+            }
+            maxAgeNanos.put(type, TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+    }
+
+    /**
+     * @param queuedNanos time the command waited in the queue of its worker
+     */
+    public boolean isExpired(Command command, long queuedNanos) {
+        Long maxAge = maxAgeNanos.get(command.getClass());
+        return maxAge != null && queuedNanos > maxAge;
+    }
+}
@@ -3,5 +3,13 @@ package com.interview.sample.service;
 import com.interview.sample.controller.command.Command;
 
 public interface CommandHandler<T extends Command> {
-    void handle(T command);
-}
\ No newline at end of file
+
+    /**
+     * Executes the command as part of the batch of its worker. Events are added to the batch, which publishes
+     * them when it is flushed at the end of the batch.
+     *
+     * @param instrument index of the instrument of the command, resolved once when the command was submitted, see
+     *                   {@link com.interview.sample.books.BookRepository#instrumentIndex}
+     */
+    void handle(T command, int instrument, CommandBatch batch);
+}
@@ -0,0 +1,117 @@
+package com.interview.sample.service;
+
+import com.interview.sample.controller.command.Command;
+import com.interview.sample.controller.command.InstrumentCreatedCommand;
+import com.interview.sample.controller.command.OrderCancelledCommand;
+import com.interview.sample.controller.command.OrderPlacedCommand;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Priority lanes of the workers of the {@link CommandExecutor}. Every worker keeps a queue per lane and takes its
+ * commands from the highest lane holding any, so the commands of a higher lane overtake the queued commands of
+ * the lower lanes, those of the same instrument included. A cancel placed behind a burst of new orders is then
+ * executed before them.
+ *
+ * <p>Lanes are given highest first as {@code Type[+Type...]=bound} entries of command type names. Commands of the
+ * types not listed go to an implicit last lane. The bound is the number of commands a lane may take in a row while
+ * a lower lane holds commands, after which the lower lane is served once, so lower lanes are never starved.
+ * Without any entry, the default, every worker has a single FIFO lane.
+ *
+ * <p>A cancel never overtakes the placement of its own order, the {@link CommandExecutor} queues it in the lane of
+ * the placement while that one is still queued.
+ */
+@Component
+public class CommandLanes {
+
+    static final String DEFAULT_LANE = "default";
+
+    private static final List<Class<? extends Command>> COMMAND_TYPES =
+            List.of(InstrumentCreatedCommand.class, OrderCancelledCommand.class, OrderPlacedCommand.class);
+    // Lanes are selected with a bit per lane
+    private static final int MAX_LANES = Integer.SIZE - 1;
+
+    private final Map<Class<?>, Integer> laneOfType = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final int[] bounds;
+
+    public CommandLanes(@Value("${matching.executor.lanes:}") String[] lanes) {
+        List<Integer> bounds = new ArrayList<>();
+        for (String entry : lanes) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Lane must be given as Type[+Type...]=bound: " + entry);
+            }
+            int bound = Integer.parseInt(entry.substring(separator + 1).trim());
+            if (bound <= 0) {
+                throw new IllegalArgumentException("Lane bound must be greater than zero: " + entry);
+            }
+            for (String type : entry.substring(0, separator).split("\\+")) {
+                Class<? extends Command> commandType = commandType(type.trim());
+                if (laneOfType.putIfAbsent(commandType, names.size()) != null) {
+                    throw new IllegalArgumentException("Command type assigned to more than one lane: " + type.trim());
+                }
+            }
+            names.add(entry.substring(0, separator).trim());
+            bounds.add(bound);
+        }
+        if (names.size() >= MAX_LANES) {
+            throw new IllegalArgumentException("At most " + (MAX_LANES - 1) + " lanes can be configured: " + names);
+        }
+        names.add(DEFAULT_LANE);
+        // Nothing is below the last lane, it is never bounded
+        bounds.add(Integer.MAX_VALUE);
+        this.bounds = bounds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return number of lanes, including the last one
+     */
+    public int count() {
+        return bounds.length;
+    }
+
+    /**
+     * @return lane of the command, the last lane for types without a lane of their own
+     */
+    public int laneOf(Command command) {
+        return laneOf(command.getClass());
+    }
+
+    /**
+     * @return lane of the commands of the type, the last lane for types without a lane of their own
+     */
+    public int laneOf(Class<? extends Command> commandType) {
+        Integer lane = laneOfType.get(commandType);
+        return lane == null ? bounds.length - 1 : lane;
+    }
+
+    /**
+     * @return number of commands the lane may take in a row while a lower lane holds commands
+     */
+    public int boundOf(int lane) {
+        return bounds[lane];
+    }
+
+    public String nameOf(int lane) {
+        return names.get(lane);
+    }
+
+    /**
+     * @return command type of the given simple name
+     */
+    static Class<? extends Command> commandType(String name) {
+        return COMMAND_TYPES.stream()
+                .filter(type -> type.getSimpleName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown command type: " + name));
+    }
+}
@@ -0,0 +1,40 @@
+package com.interview.sample.service;
+
+import com.interview.sample.controller.command.Command;
+
+/**
+ * Single thread executing the commands handed to it one at a time. Commands of one lane are executed in the
+ * order they were submitted, commands of a higher lane may overtake the ones queued in lower lanes, see
+ * {@link CommandLanes}. Every instrument is assigned to exactly one worker, which makes the worker thread the
+ * only one to touch the book of the instrument.
+ */
+interface CommandWorker {
+
+    /**
+     * Hands the command over to the worker thread. Safe to call from any number of threads.
+     *
+     * @param instrument index of the instrument of the command, handed to the consumer along with it
+     * @param lane       lane of the command, see {@link CommandLanes#laneOf}
+     * @throws java.util.concurrent.RejectedExecutionException if the worker has been shut down
+     */
+    void submit(Command command, int instrument, int lane);
+
+    /**
+     * Hands the command over to the worker thread unless the lane already holds the maximum queue depth of the
+     * worker. Without a maximum, same as {@link #submit}. Safe to call from any number of threads.
+     *
+     * @return {@code false} if the lane is full and the command has not been queued
+     * @throws java.util.concurrent.RejectedExecutionException if the worker has been shut down
+     */
+    boolean offer(Command command, int instrument, int lane);
+
+    /**
+     * @return queue-wait time of the commands the worker took from the lane so far
+     */
+    LaneStats getLaneStats(int lane);
+
+    /**
+     * Stops the worker once the commands submitted so far have been executed.
+     */
+    void shutdown();
+}
@@ -0,0 +1,51 @@
+package com.interview.sample.service;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Pins worker threads to CPUs on Linux. The JDK has no affinity API, so the native thread ID is read from
+ * {@code /proc/thread-self} and handed to {@code taskset}. Pinning is best effort: where it is not supported
+ * the failure is logged and the thread keeps running unpinned.
+ */
+@Log4j2
+final class CpuAffinity {
+
+    /**
+     * No affinity, the thread may run on any CPU.
+     */
+    static final int ANY = -1;
+
+    private CpuAffinity() {
+    }
+
+    /**
+     * Pins the calling thread to the given CPU, does nothing for {@link #ANY}.
+     */
+    static void pinCurrentThread(int cpu) {
+        if (cpu == ANY) {
+            return;
+        }
+        String thread = Thread.currentThread().getName();
+        try {
+            // Links to <pid>/task/<tid> of the calling thread
+            String tid = Files.readSymbolicLink(Path.of("/proc/thread-self")).getFileName().toString();
+            Process taskset = new ProcessBuilder("taskset", "-p", "-c", String.valueOf(cpu), tid)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (taskset.waitFor() != 0) {
+                log.warn("Failed to pin thread {} to CPU {}, taskset exited with {}", thread, cpu, taskset.exitValue());
+            } else {
+                log.info("Pinned thread {} to CPU {}", thread, cpu);
+            }
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("Failed to pin thread {} to CPU {}", thread, cpu, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.interview.sample.service;
+
+import com.interview.sample.controller.command.Command;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link CommandWorker} backed by a single-threaded {@link ExecutorService}. Commands are queued in their lane and
+ * a drain task is only scheduled when none is pending, so a burst of commands costs one task and one wakeup of the
+ * executor thread per batch rather than per command. A drain task takes one batch from the lane picked by its
+ * {@link LaneSelector}. With a maximum queue depth, the commands queued in every lane are counted so that
+ * {@link #offer} can turn new ones away.
+ */
+@Log4j2
+class ExecutorServiceWorker implements CommandWorker {
+
+    private final ExecutorService executor;
+    private final CommandConsumer consumer;
+    private final int batchSize;
+    private final Queue<Queued>[] pending;
+    // Commands queued per lane, only counted with a maximum queue depth
+    private final int maxQueueDepth;
+    private final AtomicInteger[] depth;
+    private final LaneStats[] stats;
+    // Touched by the executor thread only
+    private final LaneSelector selector;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Runnable drain = this::drain;
+
+    @SuppressWarnings("unchecked")
+    ExecutorServiceWorker(String name, CommandConsumer consumer, CommandLanes lanes, int batchSize, int maxQueueDepth, int cpu) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than zero: " + batchSize);
+        }
+        this.executor = Executors.newSingleThreadExecutor(task -> new Thread(() -> {
+            CpuAffinity.pinCurrentThread(cpu);
+            task.run();
+        }, name));
+        this.consumer = consumer;
+        this.batchSize = batchSize;
+        this.pending = new Queue[lanes.count()];
+        this.stats = new LaneStats[lanes.count()];
+        this.maxQueueDepth = maxQueueDepth;
+        this.depth = maxQueueDepth > 0 ? new AtomicInteger[lanes.count()] : null;
+        for (int lane = 0; lane < lanes.count(); lane++) {
+            pending[lane] = new ConcurrentLinkedQueue<>();
+            stats[lane] = new LaneStats();
+            if (depth != null) {
+                depth[lane] = new AtomicInteger();
+            }
+        }
+        this.selector = new LaneSelector(lanes);
+    }
+
+    @Override
+    public void submit(Command command, int instrument, int lane) {
+        if (depth != null) {
+            depth[lane].incrementAndGet();
+        }
+        enqueue(command, instrument, lane);
+    }
+
+    @Override
+    public boolean offer(Command command, int instrument, int lane) {
+        if (depth != null && depth[lane].incrementAndGet() > maxQueueDepth) {
+            depth[lane].decrementAndGet();
+            return false;
+        }
+        enqueue(command, instrument, lane);
+        return true;
+    }
+
+    @Override
+    public LaneStats getLaneStats(int lane) {
+        return stats[lane];
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(Command command, int instrument, int lane) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Worker has been shut down");
+        }
+        pending[lane].offer(new Queued(command, instrument, System.nanoTime()));
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            drainBatch();
+            scheduled.set(false);
+            // Commands queued after the last poll but before the flag was cleared did not schedule a drain
+            if (pendingLanes() == 0 || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(drain);
+                return;
+            } catch (RejectedExecutionException e) {
+                // Shutting down, the commands submitted so far are drained by this task
+            }
+        }
+    }
+
+    private void drainBatch() {
+        int lane = selector.select(pendingLanes());
+        if (lane < 0) {
+            return;
+        }
+        Queue<Queued> queue = pending[lane];
+        int limit = selector.limit(lane, batchSize);
+        long now = System.nanoTime();
+        int taken = 1;
+        Queued queued = queue.poll();
+        while (queued != null) {
+            if (depth != null) {
+                depth[lane].decrementAndGet();
+            }
+            long queuedNanos = now - queued.enqueuedNanos();
+            stats[lane].record(queuedNanos);
+            // Looks one command ahead to tell the consumer which one ends the batch
+            Queued next = taken < limit ? queue.poll() : null;
+            try {
+                consumer.accept(queued.command(), queued.instrument(), queuedNanos, next == null);
+            } catch (RuntimeException e) {
+                log.error("Failed to execute command {}", queued.command(), e);
+            }
+            if (next != null) {
+                taken++;
+            }
+            queued = next;
+        }
+        selector.taken(lane, taken);
+    }
+
+    private int pendingLanes() {
+        int lanes = 0;
+        for (int lane = 0; lane < pending.length; lane++) {
+            if (!pending[lane].isEmpty()) {
+                lanes |= 1 << lane;
+            }
+        }
+        return lanes;
+    }
+
+    private record Queued(Command command, int instrument, long enqueuedNanos) {
+    }
+}
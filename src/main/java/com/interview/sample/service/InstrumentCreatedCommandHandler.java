@@ -20,19 +20,22 @@ public class InstrumentCreatedCommandHandler implements CommandHandler<Instrumen
     private final OrderBookFactory orderBookFactory;
 
     @Override
-    public void handle(InstrumentCreatedCommand command) {
+    public void handle(InstrumentCreatedCommand command, int instrument, CommandBatch batch) {
         log.debug("Handling InstrumentCreatedCommand: " + command);
 
         //Initial validation has to be done in OrderEntryGateway microservice and in entry point of the matching-engine microservice
         // Specific validation would be better to be done in separate responsibility service, but for simplicity we do it here
-        if (bookRepository.find(command.securityId()).isPresent()) {
+        if (batch.findBook(instrument) != null) {
             log.warn("Order book already exists for instrument: " + command.securityId());
             return;
         }
 
         //Create instrument and order book
-        Instrument instrument = new Instrument(command.securityId(), command.symbol());
-        OrderBook orderBook = orderBookFactory.createOrderBook(instrument);
+        int priceScale = command.priceScale() == null ? Instrument.DEFAULT_PRICE_SCALE : command.priceScale();
+        long tickSize = command.tickSize() == null ? Instrument.DEFAULT_TICK_SIZE
+                : command.tickSize().rescale(priceScale).getValue();
+        OrderBook orderBook = orderBookFactory.createOrderBook(
+                new Instrument(command.securityId(), command.symbol(), priceScale, tickSize));
         bookRepository.add(orderBook);
 
         log.debug("Order book has been created for instrument: " + command.securityId());
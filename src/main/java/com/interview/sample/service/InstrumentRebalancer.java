@@ -0,0 +1,80 @@
+package com.interview.sample.service;
+
+import java.util.Collection;
+
+/**
+ * Decides which instrument to move between the shared workers of the {@link CommandExecutor}, based on the
+ * service time the instruments took since the previous round.
+ *
+ * <p>A round moves at most one instrument, from the busiest to the idlest worker, and only if the busiest one
+ * spent at least {@code threshold} times as long executing commands. The instrument moved is the one whose
+ * load is closest to half the gap between the two workers, and always smaller than the gap, so that every move
+ * lowers the load of the busiest worker without making the idlest one the new busiest.
+ *
+ * <p>Not thread-safe, called by the rebalancing thread only.
+ */
+class InstrumentRebalancer {
+
+    /**
+     * Instrument to move and the worker to move it to.
+     */
+    record Move(InstrumentRoute route, int fromWorker, int toWorker) {
+    }
+
+    private final int workers;
+    private final double threshold;
+
+    InstrumentRebalancer(int workers, double threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Rebalance threshold must be at least 1: " + threshold);
+        }
+        this.workers = workers;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Samples the load of the routes and plans the next move.
+     *
+     * @return the move or {@code null} if the workers are balanced enough
+     */
+    Move plan(Collection<InstrumentRoute> routes) {
+        long[] load = new long[workers];
+        for (InstrumentRoute route : routes) {
+            long nanos = route.sampleServiceNanos();
+            if (route.getWorkerId() < workers) {
+                load[route.getWorkerId()] += nanos;
+            }
+        }
+
+        int busiest = 0;
+        int idlest = 0;
+        for (int worker = 1; worker < workers; worker++) {
+            if (load[worker] > load[busiest]) {
+                busiest = worker;
+            }
+            if (load[worker] < load[idlest]) {
+                idlest = worker;
+            }
+        }
+        if (load[busiest] == 0 || load[busiest] < threshold * load[idlest]) {
+            return null;
+        }
+
+        long gap = load[busiest] - load[idlest];
+        InstrumentRoute candidate = null;
+        long candidateBalance = -1;
+        for (InstrumentRoute route : routes) {
+            long nanos = route.getRecentNanos();
+            if (route.getWorkerId() != busiest || !route.isMovable() || route.isMigrating() || nanos <= 0 || nanos >= gap) {
+                continue;
+            }
+            // Highest for an instrument carrying half the gap
+            long balance = Math.min(nanos, gap - nanos);
+            if (balance > candidateBalance) {
+                candidate = route;
+                candidateBalance = balance;
+            }
+        }
+        return candidate == null ? null : new Move(candidate, busiest, idlest);
+    }
+}
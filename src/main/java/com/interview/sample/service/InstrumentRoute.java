@@ -0,0 +1,195 @@
+package com.interview.sample.service;
+
+import com.interview.sample.controller.command.Command;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker assignment and load of one instrument in the {@link CommandExecutor}.
+ *
+ * <p>Producers submit to {@code worker}, the worker executing the commands of the instrument is {@code owner}.
+ * The two only differ while the instrument is migrated to another worker: {@code worker} is switched first, the
+ * old worker then executes the commands it still holds and hands the instrument over, see
+ * {@link CommandExecutor}. Commands reaching the new worker before the handover are parked in the meantime.
+ *
+ * <p>The load counters are written by the owning worker thread only and read by the rebalancer, the journal
+ * sequence is touched by the owning worker thread only.
+ */
+class InstrumentRoute {
+
+    // Index of the instrument in the BookRepository, what the route is looked up and its commands are tagged by
+    private final int instrument;
+    private final String securityId;
+    // Only movable routes count their in-flight submissions, nothing else waits for them
+    private final boolean movable;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int workerId;
+    private volatile CommandWorker worker;
+    private volatile int owner;
+    private volatile boolean migrating;
+    // Commands and captures which reached the new worker before the handover, touched by the new worker only
+    private final ArrayDeque<Command> parked = new ArrayDeque<>();
+    // Client order IDs of the placements submitted and not taken off their queue yet, with their number. Only
+    // counted while cancels have a lane above the placements, so that a cancel can stay behind its own placement
+    private final Map<String, Integer> queuedPlacements = new ConcurrentHashMap<>();
+
+    private volatile long commands;
+    private volatile long serviceNanos;
+    // Service time at the previous rebalancing round, touched by the rebalancer only
+    private long sampledNanos;
+    private long recentNanos;
+    // Sequence of the last command of the instrument written to the journal
+    private long journalSequence;
+
+    InstrumentRoute(int instrument, String securityId, int workerId, CommandWorker worker, boolean movable) {
+        this.instrument = instrument;
+        this.securityId = securityId;
+        this.workerId = workerId;
+        this.worker = worker;
+        this.owner = workerId;
+        this.movable = movable;
+    }
+
+    /**
+     * Offers the command to the worker of the instrument, see {@link CommandWorker#offer}.
+     */
+    boolean offer(Command command, int lane) {
+        if (!movable) {
+            return worker.offer(command, instrument, lane);
+        }
+        inFlight.incrementAndGet();
+        try {
+            return worker.offer(command, instrument, lane);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Redirects new commands to the given worker and waits until no producer can still be submitting to the
+     * previous one. Called by the rebalancer.
+     */
+    void redirect(int workerId, CommandWorker worker) {
+        this.migrating = true;
+        this.workerId = workerId;
+        this.worker = worker;
+        while (inFlight.get() != 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Passes the instrument on to the worker it has been redirected to. Called by the previous worker once it
+     * executed all the commands it got for the instrument.
+     */
+    void handOver() {
+        owner = workerId;
+    }
+
+    /**
+     * Ends the migration. Called by the new worker, which then executes the parked commands.
+     */
+    void completeMigration() {
+        migrating = false;
+    }
+
+    /**
+     * Counts a placement of the order as queued. Called by the producer before the placement is submitted.
+     */
+    void placementQueued(String clientOrderId) {
+        queuedPlacements.merge(clientOrderId, 1, Integer::sum);
+    }
+
+    /**
+     * Counts a placement of the order as no longer queued, once a worker took it or it could not be submitted.
+     */
+    void placementDequeued(String clientOrderId) {
+        queuedPlacements.computeIfPresent(clientOrderId, (id, count) -> count == 1 ? null : count - 1);
+    }
+
+    boolean isPlacementQueued(String clientOrderId) {
+        return queuedPlacements.containsKey(clientOrderId);
+    }
+
+    void recordExecution(long nanos) {
+        // Single writer, the owning worker
+        commands++;
+        serviceNanos += nanos;
+    }
+
+    /**
+     * @return sequence of the next command of the instrument in the journal
+     */
+    long nextJournalSequence() {
+        return ++journalSequence;
+    }
+
+    long getJournalSequence() {
+        return journalSequence;
+    }
+
+    /**
+     * Continues the journal sequence of the instrument after the given one, replayed on startup.
+     */
+    void setJournalSequence(long journalSequence) {
+        this.journalSequence = journalSequence;
+    }
+
+    /**
+     * @return service time since the previous call
+     */
+    long sampleServiceNanos() {
+        long total = serviceNanos;
+        recentNanos = total - sampledNanos;
+        sampledNanos = total;
+        return recentNanos;
+    }
+
+    int getInstrument() {
+        return instrument;
+    }
+
+    String getSecurityId() {
+        return securityId;
+    }
+
+    boolean isMovable() {
+        return movable;
+    }
+
+    boolean isMigrating() {
+        return migrating;
+    }
+
+    int getWorkerId() {
+        return workerId;
+    }
+
+    CommandWorker getWorker() {
+        return worker;
+    }
+
+    int getOwner() {
+        return owner;
+    }
+
+    ArrayDeque<Command> getParked() {
+        return parked;
+    }
+
+    long getCommands() {
+        return commands;
+    }
+
+    long getServiceNanos() {
+        return serviceNanos;
+    }
+
+    long getRecentNanos() {
+        return recentNanos;
+    }
+}
@@ -0,0 +1,55 @@
+package com.interview.sample.service;
+
+/**
+ * Picks the lane a worker takes its next commands from, see {@link CommandLanes}: the highest lane holding
+ * commands, unless it already took its bound in a row while a lower lane is waiting.
+ *
+ * <p>Not thread-safe, every worker thread owns one.
+ */
+class LaneSelector {
+
+    private final CommandLanes lanes;
+    // Commands taken in a row by each lane while a lower lane held commands
+    private final int[] streak;
+
+    LaneSelector(CommandLanes lanes) {
+        this.lanes = lanes;
+        this.streak = new int[lanes.count()];
+    }
+
+    /**
+     * @param pending lanes holding commands, bit {@code n} standing for lane {@code n}
+     * @return lane to take commands from or {@code -1} if none holds any
+     */
+    int select(int pending) {
+        for (int lane = 0; lane < streak.length; lane++) {
+            if ((pending & (1 << lane)) == 0) {
+                continue;
+            }
+            if (pending >>> (lane + 1) == 0) {
+                // Nothing is waiting below, the lane does not starve anyone
+                streak[lane] = 0;
+                return lane;
+            }
+            if (streak[lane] < lanes.boundOf(lane)) {
+                return lane;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return number of commands the selected lane may take in one go
+     */
+    int limit(int lane, int batchSize) {
+        return Math.min(batchSize, lanes.boundOf(lane) - streak[lane]);
+    }
+
+    void taken(int lane, int commands) {
+        streak[lane] += commands;
+        // A lower lane has been served, the lanes above it start a new streak
+        for (int higher = 0; higher < lane; higher++) {
+            streak[higher] = 0;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.interview.sample.service;
+
+/**
+ * Time the commands of one lane of a worker spent queued, from their submission until the worker took them.
+ *
+ * <p>Written by the worker thread only and read by any thread.
+ */
+class LaneStats {
+
+    private volatile long commands;
+    private volatile long waitNanos;
+    private volatile long maxWaitNanos;
+
+    void record(long nanos) {
+        // Single writer, the worker thread
+        commands++;
+        waitNanos += nanos;
+        if (nanos > maxWaitNanos) {
+            maxWaitNanos = nanos;
+        }
+    }
+
+    long getCommands() {
+        return commands;
+    }
+
+    long getWaitNanos() {
+        return waitNanos;
+    }
+
+    long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+}
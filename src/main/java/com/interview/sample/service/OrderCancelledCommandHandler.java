@@ -1,50 +1,43 @@
 package com.interview.sample.service;
 
-import com.interview.sample.books.BookRepository;
 import com.interview.sample.books.OrderBook;
-import com.interview.sample.broker.EventBroker;
 import com.interview.sample.controller.command.OrderCancelledCommand;
 import com.interview.sample.domain.event.OrderCancelRejectedEvent;
 import com.interview.sample.domain.event.OrderCancelledEvent;
-import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Component;
 
 
 import java.util.Optional;
 
-@AllArgsConstructor
 @Log4j2
 @Component
 public class OrderCancelledCommandHandler implements CommandHandler<OrderCancelledCommand> {
 
-    private final BookRepository bookRepository;
-
-    private final EventBroker eventBroker;
-
     @Override
-    public void handle(OrderCancelledCommand command) {
+    public void handle(OrderCancelledCommand command, int instrument, CommandBatch batch) {
         //Any additional business validation rules can be done here
 
-        Optional<OrderBook> orderBook = bookRepository.find(command.securityId());
-        if (orderBook.isEmpty()) {
+        OrderBook orderBook = batch.findBook(instrument);
+        if (orderBook == null) {
             String errorMessage = "Order book not found for security: " + command.securityId();
 
             OrderCancelRejectedEvent rejectedEvent = new OrderCancelRejectedEvent(
                     command.clientOrderId(),
                     command.clientId(),
                     errorMessage);
-            eventBroker.publish(rejectedEvent);
+            batch.add(rejectedEvent);
             log.error(errorMessage);
             return;
         }
 
-        Optional<OrderCancelledEvent> orderCancelledEvent = orderBook.get().cancelOrder(command.clientOrderId());
-        orderCancelledEvent.ifPresent(
-                event -> {
-                    eventBroker.publish(event);
-                    log.info("Order cancelled event sent out: {}", event);
-                }
-        );
+        Optional<OrderCancelledEvent> orderCancelledEvent = orderBook.cancelOrder(command.clientOrderId());
+        if (orderCancelledEvent.isPresent()) {
+            batch.add(orderCancelledEvent.get());
+        } else {
+            // Filled, cancelled or never placed, the client learns that the cancel had no effect
+            batch.add(new OrderCancelRejectedEvent(command.clientOrderId(), command.clientId(),
+                    "Order not found: " + command.clientOrderId()));
+        }
     }
 }
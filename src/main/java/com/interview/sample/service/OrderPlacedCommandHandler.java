@@ -1,54 +1,48 @@
 package com.interview.sample.service;
 
-import com.interview.sample.books.BookRepository;
 import com.interview.sample.books.OrderBook;
-import com.interview.sample.broker.EventBroker;
 import com.interview.sample.controller.command.OrderPlacedCommand;
 import com.interview.sample.controller.transformer.OrderCommandTransformer;
-import com.interview.sample.domain.event.Event;
 import com.interview.sample.domain.event.OrderRejectedEvent;
+import com.interview.sample.domain.order.Order;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Component;
 
-
-import java.util.List;
-import java.util.Optional;
-
 @AllArgsConstructor
 @Log4j2
 @Component
 public class OrderPlacedCommandHandler implements CommandHandler<OrderPlacedCommand> {
 
-    private final BookRepository bookRepository;
-
     private final OrderCommandTransformer orderCommandTransformer;
 
-    private final EventBroker eventBroker;
-
     @Override
-    public void handle(OrderPlacedCommand command) {
+    public void handle(OrderPlacedCommand command, int instrument, CommandBatch batch) {
         //Any additional business validation rules can be done here
 
-        Optional<OrderBook> orderBook = bookRepository.find(command.securityId());
-        if (orderBook.isEmpty()) {
+        OrderBook book = batch.findBook(instrument);
+        if (book == null) {
             String errorMessage = "Order book not found for security: " + command.securityId();
 
             OrderRejectedEvent orderRejectedEvent = new OrderRejectedEvent(
                     command.clientOrderId(),
                     command.clientId(),
                     errorMessage);
-            eventBroker.publish(orderRejectedEvent);
+            batch.add(orderRejectedEvent);
             log.error(errorMessage);
             return;
         }
 
-        List<Event> events = orderBook.get().placeOrder(orderCommandTransformer.transform(command));
-        events.forEach(event -> {
-            eventBroker.publish(event);
-            log.info("Order placed event sent out: {}", event);
-        });
-
-
+        Order order;
+        try {
+            order = orderCommandTransformer.transform(command, book.getInstrument(), book.getOrderPool());
+        } catch (IllegalArgumentException e) {
+            // Price finer than the scale of the instrument, off its ticks or too large at its scale
+            batch.add(new OrderRejectedEvent(command.clientOrderId(), command.clientId(), e.getMessage()));
+            return;
+        }
+        order.setOrderId(batch.nextOrderId());
+        // The events are recorded to the audit trail by the batch
+        book.placeOrder(order, batch);
     }
 }
@@ -0,0 +1,15 @@
+package com.interview.sample.service;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Thrown to the producer of a command when the lane of its worker already holds
+ * {@code matching.executor.max-queue-depth} commands, so that an overloaded worker rejects new commands right away
+ * instead of queueing them without bound.
+ */
+public class QueueFullException extends RejectedExecutionException {
+
+    public QueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,259 @@
+package com.interview.sample.service;
+
+import com.interview.sample.controller.command.Command;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link CommandWorker} in the style of the LMAX disruptor: producers write commands into a pre-allocated ring
+ * of slots which the worker thread polls, so a handoff allocates nothing and never takes a lock.
+ *
+ * <p>Producers claim a sequence with a CAS on the claim counter, wait for its slot to be released by the
+ * worker if the ring is full, store the command and then publish the slot by writing the round of the
+ * sequence into the availability array. The worker executes the sequences strictly in order, a slow producer
+ * holding a claimed but unpublished sequence stalls the ring until it has published. Whenever it finds a command,
+ * the worker takes every published one behind it in the same batch, up to the batch size.
+ *
+ * <p>Every lane has a ring of its own, the worker picks the ring to take the next batch from with its
+ * {@link LaneSelector}. {@link #offer} does not wait for a full ring, it turns the command away once the ring holds
+ * the maximum queue depth or is full.
+ */
+@Log4j2
+class RingBufferWorker implements CommandWorker {
+
+    private final Ring[] rings;
+    private final LaneStats[] stats;
+    // Touched by the worker thread only
+    private final LaneSelector selector;
+
+    private final CommandConsumer consumer;
+    private final int batchSize;
+    private final int maxQueueDepth;
+    private final WaitStrategy waitStrategy;
+    private final int cpu;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    RingBufferWorker(String name, CommandConsumer consumer, CommandLanes lanes, int size, int batchSize,
+                     int maxQueueDepth, WaitStrategy waitStrategy, int cpu) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring size must be a positive power of two: " + size);
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than zero: " + batchSize);
+        }
+        this.rings = new Ring[lanes.count()];
+        this.stats = new LaneStats[lanes.count()];
+        for (int lane = 0; lane < lanes.count(); lane++) {
+            rings[lane] = new Ring(size);
+            stats[lane] = new LaneStats();
+        }
+        this.selector = new LaneSelector(lanes);
+        this.consumer = consumer;
+        this.batchSize = batchSize;
+        // The ring never holds more than its size anyway
+        this.maxQueueDepth = maxQueueDepth > 0 ? Math.min(maxQueueDepth, size) : 0;
+        this.waitStrategy = waitStrategy;
+        this.cpu = cpu;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void submit(Command command, int instrument, int lane) {
+        if (!running) {
+            throw new RejectedExecutionException("Worker " + thread.getName() + " has been shut down");
+        }
+        rings[lane].publish(command, instrument, waitStrategy);
+    }
+
+    @Override
+    public boolean offer(Command command, int instrument, int lane) {
+        if (maxQueueDepth == 0) {
+            submit(command, instrument, lane);
+            return true;
+        }
+        if (!running) {
+            throw new RejectedExecutionException("Worker " + thread.getName() + " has been shut down");
+        }
+        return rings[lane].tryPublish(command, instrument, maxQueueDepth);
+    }
+
+    @Override
+    public LaneStats getLaneStats(int lane) {
+        return stats[lane];
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        try {
+            thread.join(TimeUnit.MINUTES.toMillis(1));
+            if (thread.isAlive()) {
+                thread.interrupt();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        CpuAffinity.pinCurrentThread(cpu);
+        while (!Thread.currentThread().isInterrupted()) {
+            int lane = selector.select(pendingLanes());
+            if (lane < 0) {
+                // Commands claimed before the shutdown are still executed
+                if (!running && drained()) {
+                    return;
+                }
+                waitStrategy.idle();
+                continue;
+            }
+            selector.taken(lane, rings[lane].take(consumer, selector.limit(lane, batchSize), stats[lane]));
+        }
+    }
+
+    private int pendingLanes() {
+        int lanes = 0;
+        for (int lane = 0; lane < rings.length; lane++) {
+            if (rings[lane].hasNext()) {
+                lanes |= 1 << lane;
+            }
+        }
+        return lanes;
+    }
+
+    private boolean drained() {
+        for (Ring ring : rings) {
+            if (!ring.isDrained()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ring of command slots of one lane.
+     */
+    private static final class Ring {
+
+        private final Command[] slots;
+        // Instrument of the command in each slot, published along with it
+        private final int[] instruments;
+        // Submission time of the command in each slot, published along with it
+        private final long[] enqueuedNanos;
+        // Round (sequence / ring size) last published into each slot
+        private final AtomicIntegerArray published;
+        private final int mask;
+        private final int roundShift;
+
+        // Next sequence to be claimed by a producer
+        private final AtomicLong claimed = new AtomicLong();
+        // Last sequence taken by the worker, producers must not wrap around past it
+        private final AtomicLong released = new AtomicLong(-1);
+        // Next sequence to be taken, touched by the worker thread only
+        private long next;
+
+        private Ring(int size) {
+            this.slots = new Command[size];
+            this.instruments = new int[size];
+            this.enqueuedNanos = new long[size];
+            this.published = new AtomicIntegerArray(size);
+            for (int i = 0; i < size; i++) {
+                published.set(i, -1);
+            }
+            this.mask = size - 1;
+            this.roundShift = Integer.numberOfTrailingZeros(size);
+        }
+
+        private void publish(Command command, int instrument, WaitStrategy waitStrategy) {
+            store(claim(waitStrategy), command, instrument);
+        }
+
+        /**
+         * Publishes the command unless {@code maxDepth} commands are queued already.
+         */
+        private boolean tryPublish(Command command, int instrument, int maxDepth) {
+            long sequence;
+            do {
+                sequence = claimed.get();
+                if (sequence - released.get() > maxDepth) {
+                    return false;
+                }
+            } while (!claimed.compareAndSet(sequence, sequence + 1));
+            store(sequence, command, instrument);
+            return true;
+        }
+
+        private void store(long sequence, Command command, int instrument) {
+            int index = (int) sequence & mask;
+            slots[index] = command;
+            instruments[index] = instrument;
+            enqueuedNanos[index] = System.nanoTime();
+            published.setRelease(index, roundOf(sequence));
+        }
+
+        private long claim(WaitStrategy waitStrategy) {
+            while (true) {
+                long sequence = claimed.get();
+                if (sequence - slots.length > released.get()) {
+                    // Ring is full, the slot still holds a command the worker has not taken yet
+                    waitStrategy.idle();
+                } else if (claimed.compareAndSet(sequence, sequence + 1)) {
+                    return sequence;
+                }
+            }
+        }
+
+        private boolean hasNext() {
+            return isPublished(next);
+        }
+
+        private boolean isDrained() {
+            return claimed.get() == next;
+        }
+
+        /**
+         * Takes the published commands from the next sequence on, up to the limit, and hands them to the consumer.
+         *
+         * @return number of commands taken
+         */
+        private int take(CommandConsumer consumer, int limit, LaneStats stats) {
+            long end = next + 1;
+            while (end - next < limit && isPublished(end)) {
+                end++;
+            }
+            int taken = (int) (end - next);
+            long now = System.nanoTime();
+            for (; next < end; next++) {
+                int index = (int) next & mask;
+                Command command = slots[index];
+                int instrument = instruments[index];
+                long queuedNanos = now - enqueuedNanos[index];
+                slots[index] = null;
+                stats.record(queuedNanos);
+                // The slot is read completely, a producer waiting for it may overwrite it from here on
+                released.setRelease(next);
+                try {
+                    consumer.accept(command, instrument, queuedNanos, next == end - 1);
+                } catch (RuntimeException e) {
+                    log.error("Failed to execute command {}", command, e);
+                }
+            }
+            return taken;
+        }
+
+        private boolean isPublished(long sequence) {
+            return published.getAcquire((int) sequence & mask) == roundOf(sequence);
+        }
+
+        private int roundOf(long sequence) {
+            return (int) (sequence >>> roundShift);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.interview.sample.service;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a {@link RingBufferWorker} waits for the next command, and how a producer waits for a free slot when
+ * the ring is full. Trades latency of the handoff against the CPU burnt while there is nothing to do.
+ */
+public enum WaitStrategy {
+
+    /**
+     * Spins on the CPU, lowest latency. Needs a core per worker, otherwise the workers starve each other.
+     */
+    BUSY_SPIN,
+
+    /**
+     * Yields the CPU to other runnable threads between checks.
+     */
+    YIELD,
+
+    /**
+     * Parks the thread for the shortest time the OS allows between checks, lowest CPU usage.
+     */
+    PARK;
+
+    private static final long PARK_NANOS = 1_000;
+
+    void idle() {
+        switch (this) {
+            case BUSY_SPIN -> Thread.onSpinWait();
+            case YIELD -> Thread.yield();
+            case PARK -> LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+}
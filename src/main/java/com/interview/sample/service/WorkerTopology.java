@@ -0,0 +1,87 @@
+package com.interview.sample.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Layout of the threads of the {@link CommandExecutor}:
+ * <ul>
+ *     <li>{@code workers} shared workers, which take the instruments without a worker of their own. An instrument
+ *     is placed on the worker given for it in {@code instrumentWorkers} ({@code securityId=index} entries), other
+ *     instruments are spread round-robin in the order they first appear.</li>
+ *     <li>A dedicated worker for every hot instrument, which busy-spins on a ring buffer and serves no other
+ *     instrument. Hot instruments take precedence over {@code instrumentWorkers}.</li>
+ *     <li>Optional CPUs the shared and the hot workers are pinned to, in worker order. Workers beyond the listed
+ *     CPUs are not pinned.</li>
+ * </ul>
+ */
+@Component
+public class WorkerTopology {
+
+    private final int workers;
+    private final int[] workerCpus;
+    private final Map<String, Integer> instrumentWorkers = new HashMap<>();
+    private final List<String> hotInstruments;
+    private final int[] hotCpus;
+
+    public WorkerTopology(@Value("${matching.executor.workers:10}") int workers,
+                          @Value("${matching.executor.worker-cpus:}") int[] workerCpus,
+                          @Value("${matching.executor.instrument-workers:}") String[] instrumentWorkers,
+                          @Value("${matching.executor.hot-instruments:}") String[] hotInstruments,
+                          @Value("${matching.executor.hot-cpus:}") int[] hotCpus) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Number of workers must be greater than zero: " + workers);
+        }
+        this.workers = workers;
+        this.workerCpus = workerCpus.clone();
+        this.hotInstruments = Arrays.stream(hotInstruments).map(String::trim).filter(id -> !id.isEmpty()).distinct().toList();
+        this.hotCpus = hotCpus.clone();
+
+        for (String entry : instrumentWorkers) {
+            int separator = entry.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Instrument worker must be given as securityId=index: " + entry);
+            }
+            int worker = Integer.parseInt(entry.substring(separator + 1).trim());
+            if (worker < 0 || worker >= workers) {
+                throw new IllegalArgumentException("Worker index out of range 0.." + (workers - 1) + ": " + entry);
+            }
+            this.instrumentWorkers.put(entry.substring(0, separator).trim(), worker);
+        }
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * @return index of the shared worker configured for the instrument or {@code -1} if it has none
+     */
+    public int workerOf(String securityId) {
+        Integer worker = instrumentWorkers.get(securityId);
+        return worker == null ? -1 : worker;
+    }
+
+    public List<String> getHotInstruments() {
+        return hotInstruments;
+    }
+
+    /**
+     * @return CPU the shared worker is pinned to or {@link CpuAffinity#ANY}
+     */
+    public int cpuOfWorker(int worker) {
+        return worker < workerCpus.length ? workerCpus[worker] : CpuAffinity.ANY;
+    }
+
+    /**
+     * @return CPU the worker of the n-th hot instrument is pinned to or {@link CpuAffinity#ANY}
+     */
+    public int cpuOfHotInstrument(int index) {
+        return index < hotCpus.length ? hotCpus[index] : CpuAffinity.ANY;
+    }
+}
@@ -0,0 +1,32 @@
+package com.interview.sample.service;
+
+/**
+ * Mechanism the {@link CommandExecutor} uses to hand commands over to its worker threads.
+ */
+public enum WorkerType {
+
+    /**
+     * Single-threaded executor per worker. Allocates a queue node and a holder of the submission time per command,
+     * and a task and a wakeup of the worker through a lock and condition per batch.
+     */
+    EXECUTOR_SERVICE,
+
+    /**
+     * Thread per worker polling a pre-allocated ring of command slots per lane, producers claim slots lock-free.
+     * Nothing is allocated per command and the handoff never takes a lock.
+     */
+    RING_BUFFER;
+
+    /**
+     * @param maxQueueDepth most commands queued per lane before {@link CommandWorker#offer} turns new ones away,
+     *                      {@code 0} for no maximum
+     * @param cpu           CPU the worker thread pins itself to or {@link CpuAffinity#ANY}
+     */
+    CommandWorker create(String name, CommandConsumer consumer, CommandLanes lanes, int ringSize, int batchSize,
+                         int maxQueueDepth, WaitStrategy waitStrategy, int cpu) {
+        return switch (this) {
+            case EXECUTOR_SERVICE -> new ExecutorServiceWorker(name, consumer, lanes, batchSize, maxQueueDepth, cpu);
+            case RING_BUFFER -> new RingBufferWorker(name, consumer, lanes, ringSize, batchSize, maxQueueDepth, waitStrategy, cpu);
+        };
+    }
+}
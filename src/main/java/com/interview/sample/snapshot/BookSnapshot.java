@@ -0,0 +1,109 @@
+package com.interview.sample.snapshot;
+
+import com.interview.sample.books.OrderBook;
+import com.interview.sample.books.OrderBookFactory;
+import com.interview.sample.books.PriceLevel;
+import com.interview.sample.domain.instrument.Instrument;
+import com.interview.sample.domain.order.Order;
+import com.interview.sample.domain.order.OrderSide;
+import com.interview.sample.domain.order.OrderStatus;
+import com.interview.sample.domain.order.OrderType;
+import com.interview.sample.domain.order.Price;
+import com.interview.sample.domain.order.TimeInForce;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Point-in-time copy of an {@link OrderBook}: the price levels of both sides with their resting orders in time
+ * priority, and the journal sequence of the last command of the instrument applied to the book.
+ *
+ * @param priceScale    decimals of the prices of the instrument
+ * @param tickSize      tick size of the instrument, in units of its last decimal
+ * @param sequence      instrument sequence of the last command applied, 0 if none has been journaled
+ * @param depthSequence sequence the depth updates of the book continue from, see {@link OrderBook#getDepthSequence()}
+ */
+public record BookSnapshot(String securityId, String symbol, int priceScale, long tickSize, long sequence,
+                           long depthSequence, List<Level> bids, List<Level> asks) {
+
+    /**
+     * Copies the book. Must be called by the thread executing the commands of the book.
+     */
+    public static BookSnapshot of(OrderBook book, long sequence) {
+        Instrument instrument = book.getInstrument();
+        return new BookSnapshot(instrument.getSecurityId(), instrument.getSymbol(), instrument.getPriceScale(),
+                instrument.getTickSize(), sequence, book.getDepthSequence(),
+                levels(book, OrderSide.BUY), levels(book, OrderSide.SELL));
+    }
+
+    /**
+     * Creates a new book holding the resting orders of the snapshot.
+     */
+    public OrderBook restore(OrderBookFactory orderBookFactory) {
+        OrderBook book = orderBookFactory.createOrderBook(new Instrument(securityId, symbol, priceScale, tickSize));
+        restore(book, OrderSide.BUY, bids);
+        restore(book, OrderSide.SELL, asks);
+        // Restored levels are not published as changes, subscribers of the depth take a snapshot of the book
+        book.restoreDepth(depthSequence);
+        return book;
+    }
+
+    /**
+     * @return number of resting orders in the snapshot
+     */
+    public int orderCount() {
+        int count = 0;
+        for (Level level : bids) {
+            count += level.orders().size();
+        }
+        for (Level level : asks) {
+            count += level.orders().size();
+        }
+        return count;
+    }
+
+    private static List<Level> levels(OrderBook book, OrderSide side) {
+        List<Level> levels = new ArrayList<>(book.getBookBySide(side).size());
+        book.getBookBySide(side).forEachLevel(level -> levels.add(Level.of(level, book.getPriceScale())));
+        return levels;
+    }
+
+    private void restore(OrderBook book, OrderSide side, List<Level> levels) {
+        for (Level level : levels) {
+            long price = new Price(level.price(), level.scale()).valueAt(priceScale);
+            for (RestingOrder resting : level.orders()) {
+                Order order = book.getOrderPool().acquire(securityId, resting.clientId(), resting.clientOrderId(), side,
+                        OrderType.LIMIT, price, resting.originalQuantity(), resting.timeInForce());
+                order.getQuantity().setRemainingQuantity(resting.remainingQuantity());
+                order.setStatus(resting.status());
+                order.setOrderId(resting.orderId());
+                book.restore(order);
+            }
+        }
+    }
+
+    /**
+     * Resting orders at one price, in time priority.
+     */
+    public record Level(long price, int scale, List<RestingOrder> orders) {
+
+        static Level of(PriceLevel level, int scale) {
+            List<RestingOrder> orders = new ArrayList<>(level.getOrderCount());
+            for (Order order = level.peek(); order != null; order = order.getNext()) {
+                orders.add(new RestingOrder(order.getClientId(), order.getClientOrderId(), order.getOrderId(),
+                        order.getTimeInForce(), order.getStatus(), order.getQuantity().getOriginalQuantity(),
+                        order.getQuantity().getRemainingQuantity()));
+            }
+            return new Level(level.getPrice(), scale, orders);
+        }
+    }
+
+    /**
+     * One resting limit order, its side and price are the ones of its level.
+     *
+     * @param orderId engine assigned ID of the order
+     */
+    public record RestingOrder(String clientId, String clientOrderId, long orderId, TimeInForce timeInForce,
+                               OrderStatus status, int originalQuantity, int remainingQuantity) {
+    }
+}
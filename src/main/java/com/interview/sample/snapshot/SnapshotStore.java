@@ -0,0 +1,288 @@
+package com.interview.sample.snapshot;
+
+import com.interview.sample.books.BookRepository;
+import com.interview.sample.books.OrderBookFactory;
+import com.interview.sample.domain.order.OrderStatus;
+import com.interview.sample.domain.order.TimeInForce;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+
+/**
+ * Writes {@link BookSnapshot}s to {@code matching.snapshot.dir} and restores the books of the latest one. Disabled
+ * unless a directory is configured.
+ *
+ * <p>A snapshot is a directory named after the global journal sequence it covers, holding one file per book.
+ * Instruments are independent, so the books are written and read in parallel on a fork-join pool of
+ * {@code matching.snapshot.parallelism} threads. A snapshot is written to a temporary directory first and renamed
+ * once all of its books are, so an incomplete one is never restored. The latest {@code matching.snapshot.retain}
+ * snapshots are kept.
+ */
+@Log4j2
+@Component
+public class SnapshotStore {
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String BOOK_SUFFIX = ".book";
+    private static final int MAGIC = 0x4D45424B;
+
+    private final BookRepository bookRepository;
+    private final OrderBookFactory orderBookFactory;
+    private final Path directory;
+    private final long intervalMillis;
+    private final int retain;
+    private final ForkJoinPool pool;
+
+    public SnapshotStore(BookRepository bookRepository,
+                         OrderBookFactory orderBookFactory,
+                         @Value("${matching.snapshot.dir:}") String directory,
+                         @Value("${matching.snapshot.interval-ms:60000}") long intervalMillis,
+                         @Value("${matching.snapshot.parallelism:0}") int parallelism,
+                         @Value("${matching.snapshot.retain:2}") int retain) {
+        if (retain < 1) {
+            throw new IllegalArgumentException("At least one snapshot must be retained: " + retain);
+        }
+        this.bookRepository = bookRepository;
+        this.orderBookFactory = orderBookFactory;
+        this.directory = directory.isBlank() ? null : Path.of(directory);
+        this.intervalMillis = intervalMillis;
+        this.retain = retain;
+        this.pool = this.directory == null ? null
+                : new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * @return interval between two snapshots taken by the {@code CommandExecutor}, 0 for none
+     */
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Writes the books as the snapshot covering the journal up to the given global sequence.
+     */
+    public void write(long journalSequence, List<BookSnapshot> books) {
+        long start = System.nanoTime();
+        Path target = directory.resolve(String.format("%s%020d", SNAPSHOT_PREFIX, journalSequence));
+        Path temp = directory.resolve(target.getFileName() + TEMP_SUFFIX);
+        if (Files.exists(target)) {
+            // Nothing has been journaled since
+            return;
+        }
+        try {
+            Files.createDirectories(temp);
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(books.size());
+            for (int i = 0; i < books.size(); i++) {
+                Path file = temp.resolve(String.format("%06d%s", i, BOOK_SUFFIX));
+                BookSnapshot book = books.get(i);
+                tasks.add(pool.submit(() -> writeBook(file, book)));
+            }
+            tasks.forEach(ForkJoinTask::join);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            deleteOldSnapshots();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write snapshot " + target, e);
+        }
+        log.info("Wrote snapshot {} of {} books in {} ms", target.getFileName(), books.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Adds the books of the latest snapshot to the {@link BookRepository}.
+     *
+     * @return the restored snapshot, or {@code null} if there is none
+     */
+    public Restored restore() {
+        if (directory == null) {
+            return null;
+        }
+        try {
+            Files.createDirectories(directory);
+            List<Path> snapshots = snapshots();
+            if (snapshots.isEmpty()) {
+                return null;
+            }
+            long start = System.nanoTime();
+            Path latest = snapshots.get(snapshots.size() - 1);
+            List<Path> files;
+            try (Stream<Path> list = Files.list(latest)) {
+                files = list.filter(path -> path.getFileName().toString().endsWith(BOOK_SUFFIX)).toList();
+            }
+            List<ForkJoinTask<BookSnapshot>> tasks = new ArrayList<>(files.size());
+            for (Path file : files) {
+                tasks.add(pool.submit(() -> {
+                    BookSnapshot book = readBook(file);
+                    bookRepository.add(book.restore(orderBookFactory));
+                    return book;
+                }));
+            }
+            Map<String, Long> sequences = new HashMap<>();
+            int orders = 0;
+            for (ForkJoinTask<BookSnapshot> task : tasks) {
+                BookSnapshot book = task.join();
+                sequences.put(book.securityId(), book.sequence());
+                orders += book.orderCount();
+            }
+            long journalSequence = sequenceOf(latest);
+            log.info("Restored {} books with {} resting orders from snapshot {} in {} ms", files.size(), orders,
+                    latest.getFileName(), (System.nanoTime() - start) / 1_000_000);
+            return new Restored(journalSequence, sequences);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to restore the latest snapshot in " + directory, e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private static void writeBook(Path file, BookSnapshot book) {
+        try (FileOutputStream stream = new FileOutputStream(file.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(MAGIC);
+            writeString(out, book.securityId());
+            writeString(out, book.symbol());
+            out.writeInt(book.priceScale());
+            out.writeLong(book.tickSize());
+            out.writeLong(book.sequence());
+            out.writeLong(book.depthSequence());
+            writeLevels(out, book.bids());
+            writeLevels(out, book.asks());
+            out.flush();
+            // On disk before the snapshot is renamed complete
+            stream.getChannel().force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the snapshot of " + book.securityId(), e);
+        }
+    }
+
+    private static void writeLevels(DataOutputStream out, List<BookSnapshot.Level> levels) throws IOException {
+        out.writeInt(levels.size());
+        for (BookSnapshot.Level level : levels) {
+            out.writeLong(level.price());
+            out.writeInt(level.scale());
+            out.writeInt(level.orders().size());
+            for (BookSnapshot.RestingOrder order : level.orders()) {
+                writeString(out, order.clientId());
+                writeString(out, order.clientOrderId());
+                out.writeLong(order.orderId());
+                out.writeByte(order.timeInForce() == null ? -1 : order.timeInForce().ordinal());
+                out.writeByte(order.status().ordinal());
+                out.writeInt(order.originalQuantity());
+                out.writeInt(order.remainingQuantity());
+            }
+        }
+    }
+
+    private static BookSnapshot readBook(Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int magic = in.readInt();
+            if (magic != MAGIC) {
+                throw new IllegalStateException("Not a book snapshot: " + file);
+            }
+            String securityId = readString(in);
+            String symbol = readString(in);
+            return new BookSnapshot(securityId, symbol, in.readInt(), in.readLong(), in.readLong(), in.readLong(),
+                    readLevels(in), readLevels(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the book snapshot " + file, e);
+        }
+    }
+
+    private static List<BookSnapshot.Level> readLevels(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<BookSnapshot.Level> levels = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long price = in.readLong();
+            int scale = in.readInt();
+            int orderCount = in.readInt();
+            List<BookSnapshot.RestingOrder> orders = new ArrayList<>(orderCount);
+            for (int j = 0; j < orderCount; j++) {
+                String clientId = readString(in);
+                String clientOrderId = readString(in);
+                long orderId = in.readLong();
+                byte timeInForce = in.readByte();
+                OrderStatus status = OrderStatus.values()[in.readByte()];
+                orders.add(new BookSnapshot.RestingOrder(clientId, clientOrderId, orderId,
+                        timeInForce < 0 ? null : TimeInForce.values()[timeInForce], status, in.readInt(), in.readInt()));
+            }
+            levels.add(new BookSnapshot.Level(price, scale, orders));
+        }
+        return levels;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // Complete snapshots, oldest first
+    private List<Path> snapshots() throws IOException {
+        try (Stream<Path> list = Files.list(directory)) {
+            return list.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SNAPSHOT_PREFIX) && !name.endsWith(TEMP_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void deleteOldSnapshots() throws IOException {
+        List<Path> snapshots = snapshots();
+        for (int i = 0; i < snapshots.size() - retain; i++) {
+            try (Stream<Path> files = Files.walk(snapshots.get(i))) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    private static long sequenceOf(Path snapshot) {
+        return Long.parseLong(snapshot.getFileName().toString().substring(SNAPSHOT_PREFIX.length()));
+    }
+
+    /**
+     * Snapshot restored on startup.
+     *
+     * @param journalSequence global journal sequence up to which all commands are applied to the restored books
+     * @param sequences       instrument sequence of the last command applied to each restored book
+     */
+    public record Restored(long journalSequence, Map<String, Long> sequences) {
+    }
+}
@@ -0,0 +1,100 @@
+package com.interview.sample.audit;
+
+import com.interview.sample.domain.event.OrderCancelledEvent;
+import com.interview.sample.domain.event.OrderRejectedEvent;
+import com.interview.sample.domain.event.TradeEvent;
+import com.interview.sample.domain.order.Price;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testWritesEveryRecordEvenWhenTheRingIsFull() throws IOException {
+        // Arrange
+        AuditLog auditLog = new AuditLog(directory.toString(), 4, 1);
+        auditLog.open();
+        AuditWriter writer = auditLog.writer("matching-worker-0");
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            writer.record(new OrderCancelledEvent("order" + i, "client", "AAPL"));
+        }
+        auditLog.close();
+
+        // Assert
+        List<String> lines = AuditLogReader.read(logFile());
+        assertEquals(100, lines.size());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(lines.get(i).endsWith("writer=0 ORDER_CANCELLED clientOrderId=order" + i
+                    + " clientId=client instrumentId=AAPL"), lines.get(i));
+        }
+    }
+
+    @Test
+    void testDecodesTradesAndTruncatesLongIdentifiers() throws IOException {
+        // Arrange
+        AuditLog auditLog = new AuditLog(directory.toString(), 16, 1);
+        auditLog.open();
+        auditLog.writer("matching-worker-0");
+        AuditWriter writer = auditLog.writer("matching-worker-1");
+        String reason = "x".repeat(100);
+
+        // Act
+        writer.record(new TradeEvent(Long.MAX_VALUE, 2L, "client1", "client2", "AAPL", new Price(10050, 2), 7, 123456789L));
+        writer.record(new OrderRejectedEvent("order1", "client", reason));
+        auditLog.close();
+
+        // Assert
+        List<String> lines = AuditLogReader.read(logFile());
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).endsWith("writer=1 TRADE buyOrderId=" + Long.MAX_VALUE + " sellOrderId=2 instrumentId=AAPL"
+                + " price=100.50 quantity=7 timestamp=123456789"), lines.get(0));
+        assertTrue(lines.get(1).endsWith("reason=" + "x".repeat(71) + "..."), lines.get(1));
+    }
+
+    @Test
+    void testRecoversRecordsLeftInTheRings() throws Exception {
+        // Arrange
+        AuditLog crashed = new AuditLog(directory.toString(), 16, 60_000);
+        crashed.open();
+        AuditWriter writer = crashed.writer("matching-worker-0");
+        writer.record(new OrderCancelledEvent("order1", "client", "AAPL"));
+        writer.record(new OrderCancelledEvent("order2", "client", "AAPL"));
+        // Log files are named after the millisecond they are opened in
+        Thread.sleep(2);
+
+        // Act, the rings are not drained before the next start
+        AuditLog restarted = new AuditLog(directory.toString(), 16, 1);
+        restarted.open();
+        restarted.close();
+
+        // Assert
+        List<String> lines;
+        try (Stream<Path> files = Files.list(directory)) {
+            lines = files.filter(path -> path.toString().endsWith(AuditLog.LOG_SUFFIX))
+                    .flatMap(path -> AuditLogReader.read(path).stream())
+                    .toList();
+        }
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("clientOrderId=order1"), lines.get(0));
+        assertTrue(lines.get(1).contains("clientOrderId=order2"), lines.get(1));
+    }
+
+    private Path logFile() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(AuditLog.LOG_SUFFIX)).findFirst().orElseThrow();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.interview.sample.benchmark;
+
+import com.interview.sample.books.BookRepository;
+import com.interview.sample.books.BookRepositoryImpl;
+import com.interview.sample.books.OrderBookFactory;
+import com.interview.sample.broker.EventBroker;
+import com.interview.sample.controller.command.InstrumentCreatedCommand;
+import com.interview.sample.controller.command.OrderCancelledCommand;
+import com.interview.sample.controller.command.OrderPlacedCommand;
+import com.interview.sample.controller.transformer.OrderCommandTransformer;
+import com.interview.sample.domain.order.OrderSide;
+import com.interview.sample.domain.order.OrderType;
+import com.interview.sample.domain.order.Price;
+import com.interview.sample.domain.order.TimeInForce;
+import com.interview.sample.journal.CommandJournal;
+import com.interview.sample.matcher.PriceTimeMatcher;
+import com.interview.sample.service.CommandBatch;
+import com.interview.sample.service.InstrumentCreatedCommandHandler;
+import com.interview.sample.service.OrderCancelledCommandHandler;
+import com.interview.sample.service.OrderPlacedCommandHandler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Replays a journal of {@value #COMMANDS} commands over {@value #INSTRUMENTS} instruments into empty books, the
+ * way the {@code CommandExecutor} rebuilds them on startup: resting orders placed around a mid price, about one in
+ * four cancelled and one in eight crossing the spread. The score is in commands replayed per second.
+ *
+ * <p>Run {@link #main} from the IDE, or {@code org.openjdk.jmh.Main JournalReplayBenchmark} with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalReplayBenchmark {
+
+    private static final int COMMANDS = 1_000_000;
+    private static final int INSTRUMENTS = 16;
+    private static final int MID = 10_000;
+
+    private Path directory;
+    private CommandJournal journal;
+
+    private BookRepository bookRepository;
+    private CommandBatch batch;
+    private InstrumentCreatedCommandHandler instrumentCreatedCommandHandler;
+    private OrderPlacedCommandHandler orderPlacedCommandHandler;
+    private OrderCancelledCommandHandler orderCancelledCommandHandler;
+
+    @Setup(Level.Trial)
+    public void writeJournal() throws IOException {
+        directory = Files.createTempDirectory("journal-replay");
+        journal = new CommandJournal(directory.toString(), 1 << 26, 10);
+        journal.open();
+        long[] instrumentSequences = new long[INSTRUMENTS];
+        for (int i = 0; i < INSTRUMENTS; i++) {
+            journal.append(new InstrumentCreatedCommand("BENCH" + i, "BENCH" + i), ++instrumentSequences[i]);
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = INSTRUMENTS; i < COMMANDS; i++) {
+            int instrument = random.nextInt(INSTRUMENTS);
+            String securityId = "BENCH" + instrument;
+            if (i % 4 == 0) {
+                // Cancels an order placed a few commands before, if it is still resting
+                journal.append(new OrderCancelledCommand("client", "order" + (i - random.nextInt(1, 64)), securityId),
+                        ++instrumentSequences[instrument]);
+                continue;
+            }
+            OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+            int ticks = i % 8 == 1 ? -1 : random.nextInt(1, 50);
+            long price = side == OrderSide.BUY ? MID - ticks : MID + ticks;
+            journal.append(new OrderPlacedCommand(securityId, "client", "order" + i, side, new Price(price, 2),
+                    random.nextInt(1, 100), OrderType.LIMIT, TimeInForce.ALL_OR_NONE), ++instrumentSequences[instrument]);
+        }
+        journal.flush();
+    }
+
+    @Setup(Level.Invocation)
+    public void resetBooks() {
+        bookRepository = new BookRepositoryImpl();
+        batch = new CommandBatch(bookRepository, new EventBroker(1024));
+        instrumentCreatedCommandHandler = new InstrumentCreatedCommandHandler(bookRepository,
+                new OrderBookFactory(new PriceTimeMatcher()));
+        orderPlacedCommandHandler = new OrderPlacedCommandHandler(new OrderCommandTransformer());
+        orderCancelledCommandHandler = new OrderCancelledCommandHandler();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMMANDS)
+    public long replay() {
+        return journal.replay((sequence, instrumentSequence, command) -> {
+            switch (command) {
+                case InstrumentCreatedCommand cmd ->
+                        instrumentCreatedCommandHandler.handle(cmd, bookRepository.instrumentIndex(cmd.securityId()), batch);
+                case OrderPlacedCommand cmd ->
+                        orderPlacedCommandHandler.handle(cmd, bookRepository.instrumentIndex(cmd.securityId()), batch);
+                case OrderCancelledCommand cmd ->
+                        orderCancelledCommandHandler.handle(cmd, bookRepository.instrumentIndex(cmd.securityId()), batch);
+                default -> throw new IllegalStateException("Unknown command " + command);
+            }
+            batch.discard();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteJournal() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JournalReplayBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,119 @@
+package com.interview.sample.benchmark;
+
+import com.interview.sample.books.BookSideType;
+import com.interview.sample.books.OrderBook;
+import com.interview.sample.domain.event.Event;
+import com.interview.sample.domain.event.EventBuffer;
+import com.interview.sample.domain.instrument.Instrument;
+import com.interview.sample.domain.order.*;
+import com.interview.sample.matcher.PriceTimeMatcher;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link BookSideType#TREE_MAP} and {@link BookSideType#TICK_LADDER} books on the activity
+ * pattern of a liquid instrument: resting orders spread over the top 50 ticks of both sides, passive
+ * orders placed and cancelled around the touch and market orders taking liquidity from the best level.
+ *
+ * <p>Run {@link #main} from the IDE, or {@code org.openjdk.jmh.Main OrderBookBenchmark} with the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBookBenchmark {
+
+    private static final int DEPTH_TICKS = 50;
+    private static final int ORDERS_PER_LEVEL = 4;
+    private static final long MID = 10_000;
+    private static final int QUANTITY = 10;
+    private static final int ID_POOL = 1 << 16;
+
+    @Param({"TREE_MAP", "TICK_LADDER"})
+    private BookSideType sideType;
+
+    private OrderBook book;
+    private final EventBuffer events = new EventBuffer();
+    private SplittableRandom random;
+    private long[] bidPrices;
+    private long[] askPrices;
+    private String[] clientOrderIds;
+    private int nextId;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        book = OrderBook.builder()
+                .instrument(new Instrument("BENCH", "BENCH"))
+                .matcher(new PriceTimeMatcher())
+                .sideType(sideType)
+                .build();
+        random = new SplittableRandom(42);
+        bidPrices = new long[DEPTH_TICKS];
+        askPrices = new long[DEPTH_TICKS];
+        for (int tick = 0; tick < DEPTH_TICKS; tick++) {
+            bidPrices[tick] = MID - 1 - tick;
+            askPrices[tick] = MID + 1 + tick;
+        }
+        clientOrderIds = new String[ID_POOL];
+        for (int i = 0; i < ID_POOL; i++) {
+            clientOrderIds[i] = "bench" + i;
+        }
+
+        for (int tick = 0; tick < DEPTH_TICKS; tick++) {
+            for (int i = 0; i < ORDERS_PER_LEVEL; i++) {
+                book.placeOrder(limit(OrderSide.BUY, bidPrices[tick]));
+                book.placeOrder(limit(OrderSide.SELL, askPrices[tick]));
+            }
+        }
+    }
+
+    @Benchmark
+    public Object placeAndCancelPassive() {
+        OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+        long price = (side == OrderSide.BUY ? bidPrices : askPrices)[random.nextInt(DEPTH_TICKS)];
+        Order order = limit(side, price);
+        book.placeOrder(order, events);
+        events.clear();
+        return book.cancelOrder(order.getClientOrderId());
+    }
+
+    @Benchmark
+    public Object takeAndReplenishTouch() {
+        OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+        // Replenish first so the touch never runs dry
+        book.placeOrder(limit(side == OrderSide.BUY ? OrderSide.SELL : OrderSide.BUY,
+                (side == OrderSide.BUY ? askPrices : bidPrices)[0]), events);
+        book.placeOrder(new Order("BENCH", "taker", nextClientOrderId(), side, OrderType.MARKET, Price.NO_PRICE,
+                quantity(), TimeInForce.FILL_OR_KILL), events);
+        Event last = events.get(events.size() - 1);
+        events.clear();
+        return last;
+    }
+
+    private Order limit(OrderSide side, long price) {
+        return new Order("BENCH", "maker", nextClientOrderId(), side, OrderType.LIMIT, price, quantity(), TimeInForce.ALL_OR_NONE);
+    }
+
+    private OrderQuantity quantity() {
+        return OrderQuantity.builder().originalQuantity(QUANTITY).remainingQuantity(QUANTITY).build();
+    }
+
+    private String nextClientOrderId() {
+        return clientOrderIds[nextId++ & (ID_POOL - 1)];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OrderBookBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,74 @@
+package com.interview.sample.books;
+
+import com.interview.sample.domain.instrument.Instrument;
+import com.interview.sample.matcher.PriceTimeMatcher;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookRepositoryImplTest {
+
+    private final OrderBookFactory orderBookFactory = new OrderBookFactory(new PriceTimeMatcher());
+
+    @Test
+    void testInstrumentIndexesAreDenseAndStable() {
+        // Arrange
+        BookRepositoryImpl repository = new BookRepositoryImpl();
+
+        // Act
+        int first = repository.instrumentIndex("AAPL");
+        int second = repository.instrumentIndex("MSFT");
+        int again = repository.instrumentIndex(new String("AAPL"));
+
+        // Assert
+        assertEquals(0, first);
+        assertEquals(1, second);
+        assertEquals(first, again);
+        assertNull(repository.get(first));
+        assertNull(repository.get(-1));
+    }
+
+    @Test
+    void testBooksAreFoundByIndexAndSecurityId() {
+        // Arrange
+        BookRepositoryImpl repository = new BookRepositoryImpl();
+        OrderBook book = orderBookFactory.createOrderBook(new Instrument("AAPL", "Apple"));
+        OrderBook duplicate = orderBookFactory.createOrderBook(new Instrument("AAPL", "Apple"));
+
+        // Act
+        boolean added = repository.add(book);
+        boolean addedTwice = repository.add(duplicate);
+
+        // Assert
+        assertTrue(added);
+        assertFalse(addedTwice);
+        assertSame(book, repository.get(repository.instrumentIndex("AAPL")));
+        assertSame(book, repository.find("AAPL").orElseThrow());
+        assertTrue(repository.find("MSFT").isEmpty());
+        assertTrue(repository.remove(duplicate).isEmpty());
+        assertSame(book, repository.remove(book).orElseThrow());
+        assertNull(repository.get(repository.instrumentIndex("AAPL")));
+    }
+
+    @Test
+    void testRepositoryGrowsBeyondItsInitialCapacity() {
+        // Arrange
+        BookRepositoryImpl repository = new BookRepositoryImpl();
+        OrderBook[] books = new OrderBook[200];
+
+        // Act
+        for (int i = 0; i < books.length; i++) {
+            books[i] = orderBookFactory.createOrderBook(new Instrument("I" + i, "Instrument " + i));
+            repository.add(books[i]);
+        }
+
+        // Assert
+        for (int i = 0; i < books.length; i++) {
+            assertSame(books[i], repository.get(i));
+            assertSame(books[i], repository.find("I" + i).orElseThrow());
+        }
+        repository.clear();
+        assertNull(repository.get(150));
+        assertEquals(150, repository.instrumentIndex("I150"));
+    }
+}
@@ -0,0 +1,145 @@
+package com.interview.sample.books;
+
+import com.interview.sample.domain.event.DepthUpdateEvent;
+import com.interview.sample.domain.event.EventBuffer;
+import com.interview.sample.domain.instrument.Instrument;
+import com.interview.sample.domain.order.*;
+import com.interview.sample.matcher.PriceTimeMatcher;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderBookDepthTest {
+
+    private final Instrument instrument = new Instrument("123", "AAPL");
+    private final EventBuffer events = new EventBuffer();
+
+    @Test
+    void testPublishesOneUpdatePerChangedLevel() {
+        // Arrange
+        OrderBook book = newBook(BookSideType.TREE_MAP);
+        book.placeOrder(limit("sell1", OrderSide.SELL, 101, 10), events);
+        book.placeOrder(limit("sell2", OrderSide.SELL, 101, 5), events);
+        book.placeOrder(limit("sell3", OrderSide.SELL, 102, 7), events);
+        book.placeOrder(limit("buy1", OrderSide.BUY, 99, 4), events);
+        book.placeOrder(limit("buy2", OrderSide.BUY, 98, 4), events);
+        book.cancelOrder("buy2");
+
+        // Act
+        book.publishDepth(events);
+
+        // Assert
+        assertEquals(List.of(
+                new DepthUpdateEvent("123", OrderSide.SELL, 101, 2, 15, 1),
+                new DepthUpdateEvent("123", OrderSide.SELL, 102, 2, 7, 2),
+                new DepthUpdateEvent("123", OrderSide.BUY, 99, 2, 4, 3)), List.of(events.toArray()));
+    }
+
+    @Test
+    void testMatchingPublishesTheQuantityLeftAtEveryLevelItSwept() {
+        // Arrange
+        OrderBook book = newBook(BookSideType.TICK_LADDER);
+        book.placeOrder(limit("sell1", OrderSide.SELL, 101, 10), events);
+        book.placeOrder(limit("sell2", OrderSide.SELL, 102, 10), events);
+        book.publishDepth(events);
+        events.clear();
+
+        // Act
+        book.placeOrder(limit("buy1", OrderSide.BUY, 102, 14), events);
+        events.clear();
+        book.publishDepth(events);
+
+        // Assert
+        assertEquals(List.of(
+                new DepthUpdateEvent("123", OrderSide.SELL, 101, 2, 0, 3),
+                new DepthUpdateEvent("123", OrderSide.SELL, 102, 2, 6, 4)), List.of(events.toArray()));
+        assertEquals(6, book.getBookBySide(OrderSide.SELL).best().getTotalQuantity());
+    }
+
+    @Test
+    void testSnapshotHoldsTheBestLevelsInPriceOrder() {
+        for (BookSideType sideType : BookSideType.values()) {
+            // Arrange
+            OrderBook book = newBook(sideType);
+            for (int i = 0; i < 5; i++) {
+                book.placeOrder(limit("buy" + i, OrderSide.BUY, 100 - i, 1 + i), events);
+                book.placeOrder(limit("sell" + i, OrderSide.SELL, 105 + i, 1 + i), events);
+            }
+            // Far away from the other bids, on a tick ladder it rests outside the window
+            book.placeOrder(limit("far", OrderSide.BUY, 1, 9), events);
+            book.publishDepth(events);
+
+            // Act
+            DepthSnapshot snapshot = book.depthSnapshot(3);
+            DepthSnapshot full = book.depthSnapshot(10);
+
+            // Assert
+            assertEquals("123", snapshot.instrumentId());
+            assertEquals(11, snapshot.sequence());
+            assertEquals(List.of(new DepthSnapshot.Level(100, 1), new DepthSnapshot.Level(99, 2), new DepthSnapshot.Level(98, 3)),
+                    snapshot.bids(), sideType.name());
+            assertEquals(List.of(new DepthSnapshot.Level(105, 1), new DepthSnapshot.Level(106, 2), new DepthSnapshot.Level(107, 3)),
+                    snapshot.asks(), sideType.name());
+            assertEquals(6, full.bids().size());
+            assertEquals(new DepthSnapshot.Level(1, 9), full.bids().get(5));
+            assertEquals(5, full.asks().size());
+        }
+    }
+
+    @Test
+    void testLevelsBackAtTheirQuantityAndDiscardedChangesAreNotPublished() {
+        // Arrange
+        OrderBook book = newBook(BookSideType.TREE_MAP);
+        book.placeOrder(limit("buy1", OrderSide.BUY, 100, 10), events);
+        book.discardDepth();
+        book.placeOrder(limit("buy2", OrderSide.BUY, 100, 5), events);
+        book.cancelOrder("buy2");
+
+        // Act
+        book.publishDepth(events);
+
+        // Assert: the discarded change still takes its sequence
+        assertTrue(events.isEmpty());
+        assertEquals(1, book.depthSnapshot(1).sequence());
+    }
+
+    @Test
+    void testRestoredBookContinuesTheSequenceOfItsSnapshot() {
+        // Arrange
+        OrderBook book = newBook(BookSideType.TREE_MAP);
+        book.placeOrder(limit("buy1", OrderSide.BUY, 100, 10), events);
+        book.publishDepth(events);
+        book.placeOrder(limit("buy2", OrderSide.BUY, 99, 5), events);
+        long snapshotSequence = book.getDepthSequence();
+        OrderBook restored = newBook(BookSideType.TREE_MAP);
+        restored.placeOrder(limit("buy1", OrderSide.BUY, 100, 10), events);
+        restored.placeOrder(limit("buy2", OrderSide.BUY, 99, 5), events);
+        events.clear();
+
+        // Act
+        restored.restoreDepth(snapshotSequence);
+        restored.cancelOrder("buy1");
+        restored.publishDepth(events);
+
+        // Assert: the level changed before the snapshot may still be published under sequence 2
+        assertEquals(2, snapshotSequence);
+        assertEquals(List.of(new DepthUpdateEvent("123", OrderSide.BUY, 100, 2, 0, 3)), List.of(events.toArray()));
+    }
+
+    private OrderBook newBook(BookSideType sideType) {
+        return OrderBook.builder()
+                .instrument(instrument)
+                .matcher(new PriceTimeMatcher())
+                .sideType(sideType)
+                .ladderTicks(64)
+                .depthUpdates(true)
+                .build();
+    }
+
+    private static Order limit(String orderId, OrderSide side, long price, int quantity) {
+        return new Order("123", "client1", orderId, side, OrderType.LIMIT, price,
+                OrderQuantity.builder().originalQuantity(quantity).remainingQuantity(quantity).build(), TimeInForce.ALL_OR_NONE);
+    }
+}
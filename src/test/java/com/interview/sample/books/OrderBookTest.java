@@ -5,6 +5,7 @@ import com.interview.sample.domain.event.OrderCancelledEvent;
 import com.interview.sample.domain.instrument.Instrument;
 import com.interview.sample.domain.order.*;
 import com.interview.sample.matcher.AuctionStrategy;
+import com.interview.sample.matcher.PriceTimeMatcher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -34,7 +35,7 @@ public class OrderBookTest {
     @Test
     void testPlaceLimitOrderUpdatesOrderBook() {
         // Arrange
-        Order order = new Order("123", "client1", "order1", OrderSide.BUY, OrderType.LIMIT, new Price(100, 2), OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
+        Order order = new Order("123", "client1", "order1", OrderSide.BUY, OrderType.LIMIT, 100, OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
 
         when(matcher.match(orderBook, order)).thenReturn(List.of());
 
@@ -44,13 +45,13 @@ public class OrderBookTest {
         // Assert
         assertTrue(events.isEmpty());
         assertEquals(order, orderBook.getBookBySide(OrderSide.BUY).get(order.getPrice()).peek());
-        assertEquals(order.getPrice(), orderBook.getBestBidPrice());
+        assertEquals(order.getPrice(), orderBook.getBestBid());
     }
 
     @Test
     void testCancelOrderRemovesOrderFromBook() {
         // Arrange
-        Order order = new Order("123", "client1", "order1", OrderSide.BUY, OrderType.LIMIT, new Price(100, 2), OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
+        Order order = new Order("123", "client1", "order1", OrderSide.BUY, OrderType.LIMIT, 100, OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
         orderBook.placeOrder(order);
 
         // Act
@@ -66,8 +67,8 @@ public class OrderBookTest {
     @Test
     void testGetMarketPriceReturnsMidPrice() {
         // Arrange
-        Order buyOrder = new Order("123", "client1", "buyOrder", OrderSide.BUY, OrderType.LIMIT, new Price(100, 2), OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
-        Order sellOrder = new Order("123", "client2", "sellOrder", OrderSide.SELL, OrderType.LIMIT, new Price(200, 2), OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
+        Order buyOrder = new Order("123", "client1", "buyOrder", OrderSide.BUY, OrderType.LIMIT, 100, OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
+        Order sellOrder = new Order("123", "client2", "sellOrder", OrderSide.SELL, OrderType.LIMIT, 200, OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
         orderBook.placeOrder(buyOrder);
         orderBook.placeOrder(sellOrder);
 
@@ -78,4 +79,51 @@ public class OrderBookTest {
         assertTrue(marketPrice.isPresent());
         assertEquals(new Price(150, 2), marketPrice.get());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testTickLadderBookTracksTopOfBook() {
+        // Arrange
+        OrderBook ladderBook = OrderBook.builder()
+                .instrument(instrument)
+                .matcher(matcher)
+                .sideType(BookSideType.TICK_LADDER)
+                .build();
+        Order bestBid = new Order("123", "client1", "bid1", OrderSide.BUY, OrderType.LIMIT, 101, OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
+        Order nextBid = new Order("123", "client1", "bid2", OrderSide.BUY, OrderType.LIMIT, 100, OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
+        when(matcher.match(eq(ladderBook), any())).thenReturn(List.of());
+        ladderBook.placeOrder(bestBid);
+        ladderBook.placeOrder(nextBid);
+
+        // Act
+        ladderBook.cancelOrder(bestBid.getClientOrderId());
+
+        // Assert
+        assertEquals(nextBid.getPrice(), ladderBook.getBestBid());
+        assertEquals(1, ladderBook.getBookBySide(OrderSide.BUY).size());
+        assertEquals(nextBid, ladderBook.getBookBySide(OrderSide.BUY).best().peek());
+    }
+
+    @Test
+    void testMarketableLimitOrderIsMatchedBeforeResting() {
+        // Arrange
+        OrderBook matchingBook = OrderBook.builder()
+                .instrument(instrument)
+                .matcher(new PriceTimeMatcher())
+                .build();
+        Order sellOrder = new Order("123", "client2", "sell1", OrderSide.SELL, OrderType.LIMIT, 100, OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
+        Order buyOrder = new Order("123", "client1", "buy1", OrderSide.BUY, OrderType.LIMIT, 101, OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
+        matchingBook.placeOrder(sellOrder);
+
+        // Act
+        List<Event> events = matchingBook.placeOrder(buyOrder);
+
+        // Assert
+        assertEquals(1, events.size());
+        assertEquals(OrderStatus.FILLED, buyOrder.getStatus());
+        assertTrue(matchingBook.getBookBySide(OrderSide.BUY).isEmpty());
+        assertTrue(matchingBook.getBookBySide(OrderSide.SELL).isEmpty());
+        assertNull(matchingBook.getBestBidPrice());
+        assertNull(matchingBook.getBestAskPrice());
+        assertTrue(matchingBook.cancelOrder(buyOrder.getClientOrderId()).isEmpty());
+    }
+}
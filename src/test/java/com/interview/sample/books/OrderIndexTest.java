@@ -0,0 +1,72 @@
+package com.interview.sample.books;
+
+import com.interview.sample.domain.order.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderIndexTest {
+
+    @Test
+    void testPutGetAndRemove() {
+        // Arrange
+        OrderIndex index = new OrderIndex();
+        Order order = order("order1");
+
+        // Act & Assert
+        assertNull(index.put(order));
+        assertSame(order, index.get("order1"));
+        assertNull(index.get("order2"));
+        assertSame(order, index.remove("order1"));
+        assertNull(index.get("order1"));
+        assertNull(index.remove("order1"));
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    void testPutReplacesOrderWithSameId() {
+        // Arrange
+        OrderIndex index = new OrderIndex();
+        Order first = order("order1");
+        Order second = order("order1");
+        index.put(first);
+
+        // Act
+        Order previous = index.put(second);
+
+        // Assert
+        assertSame(first, previous);
+        assertSame(second, index.get("order1"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void testMatchesHashMapUnderRandomChurn() {
+        // Arrange: small table, so probe sequences overlap, wrap around and the table has to grow
+        OrderIndex index = new OrderIndex(4);
+        Map<String, Order> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(7);
+
+        // Act & Assert
+        for (int i = 0; i < 200_000; i++) {
+            String id = "order" + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertSame(expected.remove(id), index.remove(id));
+            } else {
+                Order order = order(id);
+                assertSame(expected.put(id, order), index.put(order));
+            }
+            assertEquals(expected.size(), index.size());
+        }
+        expected.forEach((id, order) -> assertSame(order, index.get(id)));
+    }
+
+    private Order order(String clientOrderId) {
+        return new Order("123", "client1", clientOrderId, OrderSide.BUY, OrderType.LIMIT, 100,
+                OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
+    }
+}
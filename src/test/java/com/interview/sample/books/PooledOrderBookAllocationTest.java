@@ -0,0 +1,114 @@
+package com.interview.sample.books;
+
+import com.interview.sample.domain.event.Event;
+import com.interview.sample.domain.event.EventBuffer;
+import com.interview.sample.domain.event.TradeEvent;
+import com.interview.sample.domain.instrument.Instrument;
+import com.interview.sample.domain.order.*;
+import com.interview.sample.matcher.PriceTimeMatcher;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Order lifecycle of a pooled book must not allocate once the pools are warm: orders and their quantities
+ * come from the book pool, levels are created and emptied from the level pool, the order index does not
+ * allocate per entry, and the {@link PriceTimeMatcher} fills resting orders and aggressors without allocating.
+ * The trade events are the only objects a fill creates, they are handed to subscribers and cannot be recycled.
+ *
+ * <p>Tests mocking {@link OrderBook} or {@link Order} use the subclass mock maker for those mocks, the inline
+ * one instruments the mocked classes for the whole test JVM, which makes their real instances allocate.
+ */
+public class PooledOrderBookAllocationTest {
+
+    private static final int PRICES = 16;
+    private static final int ORDERS_PER_PRICE = 8;
+    private static final int WARMUP_ROUNDS = 2_000;
+    private static final int MEASURED_ROUNDS = 2_000;
+    // Allocations of the whole measured run beyond its trade events, e.g. by the allocation counter itself
+    private static final long MAX_OTHER_BYTES = 1024;
+
+    private final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final OrderBook orderBook = OrderBook.builder()
+            .instrument(new Instrument("123", "AAPL"))
+            .matcher(new PriceTimeMatcher())
+            .sideType(BookSideType.TICK_LADDER)
+            .poolCapacity(PRICES * ORDERS_PER_PRICE + 1)
+            .build();
+    private final long[] prices = new long[PRICES];
+    private final String[] restingIds = new String[PRICES * ORDERS_PER_PRICE];
+    private final String[] aggressorIds = new String[PRICES * ORDERS_PER_PRICE];
+    private final EventBuffer events = new EventBuffer();
+
+    @Test
+    void testSteadyStateOrderLifecycleAllocatesOnlyItsTradeEvents() {
+        // Arrange
+        assumeAllocationMeasurementSupported();
+        for (int i = 0; i < PRICES; i++) {
+            prices[i] = 10_000 - i;
+        }
+        for (int i = 0; i < restingIds.length; i++) {
+            restingIds[i] = "resting" + i;
+            aggressorIds[i] = "aggressor" + i;
+        }
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            restAndFillAll();
+        }
+        long tradeEventBytes = tradeEventBytes();
+
+        // Act
+        long trades = 0;
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            trades += restAndFillAll();
+        }
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+        // Assert: every resting order is filled by one aggressor in one trade
+        assertEquals((long) MEASURED_ROUNDS * restingIds.length, trades);
+        long otherBytes = allocated - trades * tradeEventBytes;
+        assertTrue(otherBytes <= MAX_OTHER_BYTES, allocated + " bytes allocated for " + trades + " trades of "
+                + tradeEventBytes + " bytes each");
+        assertEquals(restingIds.length + 1, orderBook.getOrderPool().getFreeCount());
+        assertNull(orderBook.getBestBidPrice());
+        assertNull(orderBook.getBestAskPrice());
+    }
+
+    // Rests buys on every price, then fills each of them with a sell crossing the whole side, returns the trades
+    private int restAndFillAll() {
+        OrderPool pool = orderBook.getOrderPool();
+        for (int i = 0; i < restingIds.length; i++) {
+            orderBook.placeOrder(pool.acquire("123", "client1", restingIds[i], OrderSide.BUY, OrderType.LIMIT,
+                    prices[i % PRICES], 10, TimeInForce.ALL_OR_NONE), events);
+        }
+        for (int i = 0; i < aggressorIds.length; i++) {
+            orderBook.placeOrder(pool.acquire("123", "client2", aggressorIds[i], OrderSide.SELL, OrderType.LIMIT,
+                    prices[PRICES - 1], 10, TimeInForce.ALL_OR_NONE), events);
+        }
+        int trades = events.size();
+        events.clear();
+        return trades;
+    }
+
+    // Size of one trade event, measured the same way as the lifecycle once it is compiled
+    private long tradeEventBytes() {
+        Event[] trades = new Event[restingIds.length * WARMUP_ROUNDS];
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < trades.length; i++) {
+            trades[i] = new TradeEvent(i, i, "client1", "client2", "123", prices[0], 2, 10, i);
+        }
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+        assertNotNull(trades[trades.length - 1]);
+        return (allocated + trades.length / 2) / trades.length;
+    }
+
+    private void assumeAllocationMeasurementSupported() {
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+}
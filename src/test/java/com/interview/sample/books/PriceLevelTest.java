@@ -0,0 +1,72 @@
+package com.interview.sample.books;
+
+import com.interview.sample.domain.order.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriceLevelTest {
+
+    private final PriceLevel level = new PriceLevel(100);
+
+    @Test
+    void testOrdersAreKeptInTimePriority() {
+        // Arrange
+        Order first = order("order1", 10);
+        Order second = order("order2", 20);
+        level.addOrder(first);
+        level.addOrder(second);
+
+        // Act & Assert
+        assertEquals(2, level.getOrderCount());
+        assertEquals(30, level.getTotalQuantity());
+        assertSame(first, level.poll());
+        assertSame(second, level.peek());
+        assertSame(second, level.poll());
+        assertTrue(level.isEmpty());
+        assertNull(level.poll());
+    }
+
+    @Test
+    void testRemoveOrderFromMiddleOfQueue() {
+        // Arrange
+        Order first = order("order1", 10);
+        Order middle = order("order2", 20);
+        Order last = order("order3", 30);
+        level.addOrder(first);
+        level.addOrder(middle);
+        level.addOrder(last);
+
+        // Act
+        level.removeOrder(middle);
+
+        // Assert
+        assertEquals(2, level.getOrderCount());
+        assertEquals(40, level.getTotalQuantity());
+        assertNull(middle.getPrev());
+        assertNull(middle.getNext());
+        assertSame(first, level.poll());
+        assertSame(last, level.poll());
+        assertTrue(level.isEmpty());
+    }
+
+    @Test
+    void testRemoveOrderNotQueuedAtLevelIsIgnored() {
+        // Arrange
+        Order queued = order("order1", 10);
+        level.addOrder(queued);
+
+        // Act
+        level.removeOrder(order("order2", 20));
+
+        // Assert
+        assertEquals(1, level.getOrderCount());
+        assertEquals(10, level.getTotalQuantity());
+        assertSame(queued, level.peek());
+    }
+
+    private Order order(String clientOrderId, int quantity) {
+        return new Order("123", "client1", clientOrderId, OrderSide.BUY, OrderType.LIMIT, 100,
+                OrderQuantity.builder().originalQuantity(quantity).remainingQuantity(quantity).build(), TimeInForce.ALL_OR_NONE);
+    }
+}
@@ -0,0 +1,155 @@
+package com.interview.sample.books;
+
+import com.interview.sample.domain.order.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TickLadderBookSideTest {
+
+    @Test
+    void testBestBidIsHighestPriceAndMovesDownOnRemoval() {
+        // Arrange
+        BookSide bids = new TickLadderBookSide(OrderSide.BUY, 1, 64);
+        PriceLevel level100 = bids.getOrCreate(100);
+        PriceLevel level101 = bids.getOrCreate(101);
+        PriceLevel level99 = bids.getOrCreate(99);
+
+        // Act & Assert
+        assertEquals(3, bids.size());
+        assertSame(level101, bids.best());
+        bids.remove(level101);
+        assertSame(level100, bids.best());
+        bids.remove(level100);
+        assertSame(level99, bids.best());
+        bids.remove(level99);
+        assertNull(bids.best());
+        assertTrue(bids.isEmpty());
+    }
+
+    @Test
+    void testBestAskIsLowestPriceAndMovesUpOnRemoval() {
+        // Arrange
+        BookSide asks = new TickLadderBookSide(OrderSide.SELL, 1, 128);
+        PriceLevel level105 = asks.getOrCreate(105);
+        PriceLevel level170 = asks.getOrCreate(170);
+
+        // Act & Assert
+        assertSame(level105, asks.best());
+        assertSame(level105, asks.getOrCreate(105));
+        asks.remove(level105);
+        assertSame(level170, asks.best());
+        assertNull(asks.get(105));
+    }
+
+    @Test
+    void testFarAwayPriceFallsBackToSparseLevels() {
+        // Arrange
+        BookSide bids = new TickLadderBookSide(OrderSide.BUY, 1, 64);
+        PriceLevel near = bids.getOrCreate(1000);
+        PriceLevel far = bids.getOrCreate(10);
+
+        // Act & Assert
+        assertEquals(2, bids.size());
+        assertSame(far, bids.get(10));
+        assertSame(near, bids.best());
+        bids.remove(near);
+        assertSame(far, bids.best());
+        bids.remove(far);
+        assertTrue(bids.isEmpty());
+    }
+
+    @Test
+    void testWindowFollowsTopOfBook() {
+        // Arrange
+        BookSide asks = new TickLadderBookSide(OrderSide.SELL, 1, 64);
+        PriceLevel old = asks.getOrCreate(1000);
+
+        // Act: the best ask moves far below the current window
+        PriceLevel top = asks.getOrCreate(500);
+        PriceLevel nextToTop = asks.getOrCreate(501);
+
+        // Assert
+        assertSame(top, asks.best());
+        assertSame(old, asks.get(1000));
+        asks.remove(top);
+        assertSame(nextToTop, asks.best());
+        asks.remove(nextToTop);
+        assertSame(old, asks.best());
+    }
+
+    @Test
+    void testOffTickPricesAreKept() {
+        // Arrange
+        BookSide asks = new TickLadderBookSide(OrderSide.SELL, 5, 64);
+        PriceLevel onTick = asks.getOrCreate(100);
+        PriceLevel offTick = asks.getOrCreate(97);
+
+        // Act & Assert
+        assertSame(offTick, asks.best());
+        assertSame(onTick, asks.get(100));
+        asks.remove(offTick);
+        assertSame(onTick, asks.best());
+    }
+
+    @Test
+    void testAvailableQuantityMatchesTreeMapSide() {
+        // Arrange: both sides see the same orders, partly outside the window and off tick
+        SplittableRandom random = new SplittableRandom(11);
+        for (OrderSide side : OrderSide.values()) {
+            BookSide ladder = new TickLadderBookSide(side, 5, 64);
+            BookSide tree = new TreeMapBookSide(side);
+            List<Order[]> resting = new ArrayList<>();
+
+            for (int step = 0; step < 5_000; step++) {
+                // Act
+                int action = random.nextInt(10);
+                if (action < 5 || resting.isEmpty()) {
+                    long price = 1_000 + random.nextInt(-60, 60) * (random.nextInt(10) == 0 ? 1 : 5) * (random.nextInt(20) == 0 ? 20 : 1);
+                    int quantity = 1 + random.nextInt(50);
+                    Order[] pair = {order(side, price, quantity), order(side, price, quantity)};
+                    ladder.getOrCreate(price).addOrder(pair[0]);
+                    tree.getOrCreate(price).addOrder(pair[1]);
+                    resting.add(pair);
+                } else {
+                    Order[] pair = resting.get(random.nextInt(resting.size()));
+                    int fill = random.nextInt(1 + pair[0].getQuantity().getRemainingQuantity());
+                    fill(ladder, pair[0], fill);
+                    fill(tree, pair[1], fill);
+                    if (action < 8 || pair[0].getQuantity().getRemainingQuantity() == 0) {
+                        remove(ladder, pair[0]);
+                        remove(tree, pair[1]);
+                        resting.remove(pair);
+                    }
+                }
+
+                // Assert
+                long limit = 1_000 + random.nextInt(-400, 400);
+                assertEquals(tree.availableQuantity(limit, Long.MAX_VALUE), ladder.availableQuantity(limit, Long.MAX_VALUE), "at step " + step);
+                assertEquals(tree.availableQuantity(Price.NO_PRICE, Long.MAX_VALUE), ladder.availableQuantity(Price.NO_PRICE, Long.MAX_VALUE), "at step " + step);
+            }
+        }
+    }
+
+    private Order order(OrderSide side, long price, int quantity) {
+        return new Order("123", "client1", "order", side, OrderType.LIMIT, price,
+                OrderQuantity.builder().originalQuantity(quantity).remainingQuantity(quantity).build(), TimeInForce.ALL_OR_NONE);
+    }
+
+    private void fill(BookSide bookSide, Order order, int quantity) {
+        order.getQuantity().setRemainingQuantity(order.getQuantity().getRemainingQuantity() - quantity);
+        bookSide.get(order.getPrice()).fill(quantity);
+    }
+
+    private void remove(BookSide bookSide, Order order) {
+        PriceLevel level = bookSide.get(order.getPrice());
+        level.removeOrder(order);
+        if (level.isEmpty()) {
+            bookSide.remove(level);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.interview.sample.broker;
+
+import com.interview.sample.domain.event.Event;
+import com.interview.sample.domain.event.EventBuffer;
+import com.interview.sample.domain.event.EventType;
+import com.interview.sample.domain.event.OrderCancelledEvent;
+import com.interview.sample.domain.event.TradeEvent;
+import com.interview.sample.domain.event.codec.EventDecoder;
+import com.interview.sample.domain.order.Price;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventBrokerTest {
+
+    private static final int PUBLISHERS = 4;
+    private static final int EVENTS_PER_PUBLISHER = 5_000;
+
+    // Small partitions, so publishers wrap and wait for the subscribers
+    private final EventBroker eventBroker = new EventBroker(64);
+
+    @AfterEach
+    void clean() {
+        eventBroker.clear();
+    }
+
+    @Test
+    void testEverySubscriberReceivesEventsOfEveryPublisherInOrder() throws InterruptedException {
+        // Arrange
+        List<Event> first = new ArrayList<>();
+        List<Event> second = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(2 * PUBLISHERS * EVENTS_PER_PUBLISHER);
+        eventBroker.subscribe(event -> {
+            first.add(event);
+            done.countDown();
+        });
+        eventBroker.subscribe(event -> {
+            second.add(event);
+            done.countDown();
+        });
+
+        // Act
+        List<Thread> publishers = new ArrayList<>();
+        for (int p = 0; p < PUBLISHERS; p++) {
+            String instrumentId = "instrument" + p;
+            Thread publisher = new Thread(() -> {
+                EventBuffer buffer = new EventBuffer();
+                for (int i = 0; i < EVENTS_PER_PUBLISHER; i++) {
+                    buffer.add(new OrderCancelledEvent(String.valueOf(i), "client1", instrumentId));
+                    if (i % 3 == 2) {
+                        eventBroker.publishAll(buffer);
+                        buffer.clear();
+                    }
+                }
+                eventBroker.publishAll(buffer);
+            });
+            publishers.add(publisher);
+            publisher.start();
+        }
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+
+        // Assert
+        assertTrue(done.await(1, TimeUnit.MINUTES), "events not delivered");
+        eventBroker.shutdown();
+        assertInstrumentOrder(first);
+        assertInstrumentOrder(second);
+    }
+
+    @Test
+    void testSlowSubscriberDoesNotHoldBackOthersWithinPartition() throws InterruptedException {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch fastDone = new CountDownLatch(10);
+        eventBroker.subscribe(event -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        eventBroker.subscribe(event -> fastDone.countDown());
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            eventBroker.publish(new OrderCancelledEvent(String.valueOf(i), "client1", "123"));
+        }
+
+        // Assert
+        assertTrue(fastDone.await(1, TimeUnit.MINUTES), "fast subscriber held back");
+        release.countDown();
+    }
+
+    @Test
+    void testAwaitDeliveredAndClosedSubscriptionGetsNoMoreEvents() throws InterruptedException {
+        // Arrange
+        List<Event> received = new CopyOnWriteArrayList<>();
+        Subscription subscription = eventBroker.subscribe(received::add);
+
+        // Act
+        eventBroker.publish(new OrderCancelledEvent("order1", "client1", "123"));
+        eventBroker.awaitDelivered();
+        subscription.close();
+        eventBroker.publish(new OrderCancelledEvent("order2", "client1", "123"));
+        eventBroker.awaitDelivered();
+
+        // Assert
+        assertEquals(1, received.size());
+        assertEquals("order1", ((OrderCancelledEvent) received.get(0)).getClientOrderId());
+    }
+
+    @Test
+    void testBlockingSubscriberHoldsBackPublisherAtItsBufferSize() throws InterruptedException {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        Subscription subscription = eventBroker.subscribe("trades", event -> await(release), SlowSubscriberPolicy.BLOCK, 4);
+        Thread publisher = new Thread(() -> {
+            for (int i = 0; i < 20; i++) {
+                eventBroker.publish(new OrderCancelledEvent(String.valueOf(i), "client1", "123"));
+            }
+        });
+
+        // Act
+        publisher.start();
+        publisher.join(200);
+
+        // Assert: the consumer holds on to the first batch, which stays unread like the three behind it
+        assertTrue(publisher.isAlive(), "publisher not held back");
+        assertEquals(4, subscription.getLag());
+        release.countDown();
+        publisher.join(TimeUnit.MINUTES.toMillis(1));
+        assertFalse(publisher.isAlive());
+    }
+
+    @Test
+    void testDisconnectsSubscriberFallingBehindItsBuffer() {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        Subscription subscription = eventBroker.subscribe("orders", event -> await(release), SlowSubscriberPolicy.DISCONNECT, 4);
+
+        // Act: never waits for the subscriber
+        for (int i = 0; i < 20; i++) {
+            eventBroker.publish(new OrderCancelledEvent(String.valueOf(i), "client1", "123"));
+        }
+        release.countDown();
+
+        // Assert
+        assertTrue(subscription.isDisconnected());
+        assertEquals(4, subscription.getDropped());
+        EventBroker.SubscriberStats stats = eventBroker.getSubscriberStats().get(0);
+        assertEquals("orders", stats.name());
+        assertTrue(stats.disconnected());
+        assertEquals(subscription.getDropped(), stats.dropped());
+    }
+
+    @Test
+    void testConflatingSubscriberReceivesLatestMarketDataPerInstrument() throws InterruptedException {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> received = new CopyOnWriteArrayList<>();
+        Subscription subscription = eventBroker.subscribe("market-data", event -> {
+            started.countDown();
+            await(release);
+            received.add(((TradeEvent) event).getBuyOrderId());
+        }, SlowSubscriberPolicy.CONFLATE, 4);
+
+        // Act: the consumer is stuck on the first trade while the others arrive
+        eventBroker.publish(trade(1, "MSFT"));
+        assertTrue(started.await(1, TimeUnit.MINUTES));
+        for (int i = 2; i <= 1_000; i++) {
+            eventBroker.publish(trade(i, i % 2 == 0 ? "AAPL" : "MSFT"));
+            eventBroker.publish(new OrderCancelledEvent(String.valueOf(i), "client1", "AAPL"));
+        }
+        eventBroker.awaitDelivered();
+        release.countDown();
+
+        // Assert: the first trade, then the latest one of each instrument in the order they changed
+        while (subscription.getDelivered() < 3) {
+            Thread.sleep(1);
+        }
+        assertEquals(List.of(1L, 1000L, 999L), received);
+        assertEquals(997, subscription.getConflated());
+    }
+
+    @Test
+    void testBinarySubscriberReadsBatchesAsEncodedAtPublication() {
+        // Arrange
+        List<String> received = new CopyOnWriteArrayList<>();
+        EventDecoder decoder = new EventDecoder();
+        eventBroker.subscribeBinary("journal", (frame, length) -> {
+            for (int offset = 0; offset < length; offset = decoder.next()) {
+                decoder.wrap(frame, offset);
+                received.add(decoder.type() + ":" + decoder.idAsString(EventDecoder.INSTRUMENT_ID));
+            }
+        }, 16);
+        EventBuffer buffer = new EventBuffer();
+        buffer.add(trade(1, "AAPL"));
+        buffer.add(new OrderCancelledEvent("order1", "client1", "MSFT"));
+
+        // Act
+        eventBroker.publishAll(buffer);
+        eventBroker.publish(trade(2, "IBM"));
+        eventBroker.awaitDelivered();
+
+        // Assert
+        assertEquals(List.of("TRADE:AAPL", "ORDER_CANCELLED:MSFT", "TRADE:IBM"), received);
+        assertEquals(3, eventBroker.getSubscriberStats().get(0).delivered());
+    }
+
+    @Test
+    void testEncodesBatchesOnlyWhileABinarySubscriberIsRegistered() {
+        // Arrange: an event without a binary layout fails to encode
+        List<Event> events = new CopyOnWriteArrayList<>();
+        eventBroker.subscribe(events::add);
+        Event unencodable = () -> EventType.TRADE;
+
+        // Act
+        eventBroker.publish(unencodable);
+        eventBroker.awaitDelivered();
+        Subscription binary = eventBroker.subscribeBinary("journal", (frame, length) -> {
+        }, 16);
+
+        // Assert
+        assertEquals(List.of(unencodable), events);
+        assertThrows(IllegalArgumentException.class, () -> eventBroker.publish(unencodable));
+        binary.close();
+        eventBroker.publish(unencodable);
+    }
+
+    @Test
+    void testRejectsPartitionSizeNotPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new EventBroker(100));
+        assertThrows(IllegalArgumentException.class, () -> new EventBroker(0));
+    }
+
+    private static void assertInstrumentOrder(List<Event> events) {
+        assertEquals(PUBLISHERS * EVENTS_PER_PUBLISHER, events.size());
+        int[] nextPerPublisher = new int[PUBLISHERS];
+        for (Event event : events) {
+            OrderCancelledEvent cancelled = (OrderCancelledEvent) event;
+            int publisher = Integer.parseInt(cancelled.getInstrumentId().substring("instrument".length()));
+            assertEquals(String.valueOf(nextPerPublisher[publisher]++), cancelled.getClientOrderId(),
+                    "order of " + cancelled.getInstrumentId());
+        }
+    }
+
+    private static TradeEvent trade(int id, String instrumentId) {
+        return new TradeEvent(id, id + 1L, "client1", "client2", instrumentId, new Price(id, 2), 1, id);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
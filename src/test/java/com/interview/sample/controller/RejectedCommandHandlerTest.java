@@ -0,0 +1,20 @@
+package com.interview.sample.controller;
+
+import com.interview.sample.service.QueueFullException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RejectedCommandHandlerTest {
+
+    @Test
+    void handleRejectedReturnsServiceUnavailable() {
+        ResponseEntity<String> response = new RejectedCommandHandler()
+                .handleRejected(new QueueFullException("Too many commands queued for instrument: 123"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("Too many commands queued for instrument: 123", response.getBody());
+    }
+}
@@ -0,0 +1,31 @@
+package com.interview.sample.domain.event;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventBufferTest {
+
+    @Test
+    void testBufferGrowsKeepsOrderAndIsReusableAfterClear() {
+        // Arrange
+        EventBuffer buffer = new EventBuffer(2);
+        Event first = new OrderRejectedEvent("order1", "client1", "reason");
+        Event second = new OrderRejectedEvent("order2", "client1", "reason");
+        Event third = new OrderCancelledEvent("order3", "client1", "123");
+
+        // Act
+        buffer.add(first);
+        buffer.add(second);
+        buffer.add(third);
+        Event[] batch = buffer.toArray();
+        buffer.clear();
+        buffer.add(second);
+
+        // Assert
+        assertArrayEquals(new Event[]{first, second, third}, batch);
+        assertEquals(1, buffer.size());
+        assertSame(second, buffer.get(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(1));
+    }
+}
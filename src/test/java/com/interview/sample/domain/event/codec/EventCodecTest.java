@@ -0,0 +1,99 @@
+package com.interview.sample.domain.event.codec;
+
+import com.interview.sample.domain.event.CommandExpiredEvent;
+import com.interview.sample.domain.event.DepthUpdateEvent;
+import com.interview.sample.domain.event.Event;
+import com.interview.sample.domain.event.EventType;
+import com.interview.sample.domain.event.OrderCancelRejectedEvent;
+import com.interview.sample.domain.event.OrderCancelledEvent;
+import com.interview.sample.domain.event.OrderRejectedEvent;
+import com.interview.sample.domain.event.TradeEvent;
+import com.interview.sample.domain.order.OrderSide;
+import com.interview.sample.domain.order.Price;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventCodecTest {
+
+    @Test
+    void testEncodesEveryEventTypeBackToBackAndDecodesInPlace() {
+        // Arrange
+        Event[] events = {
+                new TradeEvent(1L, 2L, "client1", "client2", "AAPL", new Price(12345, 2), 10, 42L),
+                new OrderCancelledEvent("order1", "client1", "AAPL"),
+                new OrderRejectedEvent("order2", "client2", "Invalid TimeInForce for OrderType"),
+                new OrderCancelRejectedEvent("order3", "client3", "Order not found"),
+                new CommandExpiredEvent("order4", "client4", "MSFT", 5_000_000L),
+                new DepthUpdateEvent("AAPL", OrderSide.SELL, 12350, 2, 3_000_000_000L, 7L)
+        };
+        int length = 0;
+        for (Event event : events) {
+            length += EventEncoder.lengthOf(event);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length).order(ByteOrder.LITTLE_ENDIAN);
+
+        // Act
+        EventEncoder encoder = new EventEncoder().wrap(buffer, 0);
+        for (Event event : events) {
+            encoder.encode(event);
+        }
+
+        // Assert
+        assertEquals(length, encoder.offset());
+        EventDecoder decoder = new EventDecoder().wrap(buffer, 0);
+        assertEquals(EventType.TRADE, decoder.type());
+        assertEquals(12345, decoder.price());
+        assertEquals(2, decoder.scale());
+        assertEquals(10, decoder.quantity());
+        assertEquals(42L, decoder.timestamp());
+        assertEquals(1L, decoder.buyOrderId());
+        assertEquals(2L, decoder.sellOrderId());
+        assertEquals("client1", decoder.idAsString(EventDecoder.BUY_CLIENT_ID));
+        assertEquals("client2", decoder.idAsString(EventDecoder.SELL_CLIENT_ID));
+        assertEquals("AAPL", decoder.idAsString(EventDecoder.INSTRUMENT_ID));
+        assertEquals(events[0], decoder.toEvent());
+
+        decoder.next();
+        OrderCancelledEvent cancelled = (OrderCancelledEvent) decoder.toEvent();
+        assertEquals("order1", cancelled.getClientOrderId());
+        assertEquals("client1", cancelled.getClientId());
+        assertEquals("AAPL", cancelled.getInstrumentId());
+
+        decoder.next();
+        assertEquals(EventType.ORDER_REJECTED, decoder.type());
+        assertEquals("Invalid TimeInForce for OrderType", decoder.idAsString(EventDecoder.REASON));
+
+        decoder.next();
+        byte[] id = new byte[16];
+        assertEquals(EventType.ORDER_CANCEL_REJECTED, decoder.type());
+        assertEquals(6, decoder.getId(EventDecoder.CLIENT_ORDER_ID, id));
+        assertEquals("order3", new String(id, 0, 6));
+
+        decoder.next();
+        CommandExpiredEvent expired = (CommandExpiredEvent) decoder.toEvent();
+        assertEquals("MSFT", expired.getSecurityId());
+        assertEquals(5_000_000L, expired.getQueuedNanos());
+
+        decoder.next();
+        assertEquals(EventType.DEPTH_UPDATE, decoder.type());
+        assertEquals(OrderSide.SELL, decoder.side());
+        assertEquals(12350, decoder.price());
+        assertEquals(2, decoder.scale());
+        assertEquals(3_000_000_000L, decoder.levelQuantity());
+        assertEquals(7L, decoder.depthSequence());
+        assertTrue(decoder.idEquals(EventDecoder.INSTRUMENT_ID, "AAPL"));
+        assertEquals(events[5], decoder.toEvent());
+        assertEquals(length, decoder.next());
+    }
+
+    @Test
+    void testRejectsBigEndianBuffersAndUnknownTemplates() {
+        assertThrows(IllegalArgumentException.class, () -> new EventEncoder().wrap(ByteBuffer.allocate(64), 0));
+        assertThrows(IllegalArgumentException.class, () -> new EventDecoder().wrap(ByteBuffer.allocate(64), 0));
+        assertThrows(IllegalArgumentException.class, () -> EventType.ofTemplateId(0));
+    }
+}
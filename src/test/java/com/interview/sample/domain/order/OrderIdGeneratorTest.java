@@ -0,0 +1,83 @@
+package com.interview.sample.domain.order;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderIdGeneratorTest {
+
+    @Test
+    void testIdsIncreaseWithinTheirShard() {
+        // Arrange
+        OrderIdGenerator generator = new OrderIdGenerator(1);
+        OrderIdGenerator other = new OrderIdGenerator(2);
+
+        // Act
+        long first = generator.nextId();
+        long second = generator.nextId();
+        long third = other.nextId();
+
+        // Assert
+        assertTrue(first > 0);
+        assertTrue(second > first);
+        assertEquals(1, OrderIdGenerator.shardOf(first));
+        assertEquals(1, OrderIdGenerator.shardOf(second));
+        assertEquals(2, OrderIdGenerator.shardOf(third));
+    }
+
+    @Test
+    void testJournalSequencesMapToIdsOfTheirOwnShard() {
+        // Act
+        long first = OrderIdGenerator.ofJournalSequence(1);
+        long second = OrderIdGenerator.ofJournalSequence(2);
+
+        // Assert
+        assertTrue(second > first);
+        assertEquals(OrderIdGenerator.JOURNAL_SHARD, OrderIdGenerator.shardOf(first));
+        assertEquals(first, OrderIdGenerator.ofJournalSequence(1));
+        assertThrows(IllegalArgumentException.class, () -> OrderIdGenerator.ofJournalSequence(0));
+        assertThrows(IllegalArgumentException.class, () -> new OrderIdGenerator(OrderIdGenerator.JOURNAL_SHARD));
+    }
+
+    @Test
+    void testShardWaitsForTheClockOnceTheCounterOfTheMillisecondIsUsedUp() {
+        // Arrange
+        long start = OrderIdGenerator.EPOCH_MILLIS + 1000;
+        AtomicLong clock = new AtomicLong(start);
+        AtomicLong reads = new AtomicLong();
+        OrderIdGenerator generator = new OrderIdGenerator(5, () -> {
+            // The clock moves on once the generator waits for it
+            return reads.incrementAndGet() > 1 ? clock.incrementAndGet() : clock.get();
+        });
+
+        // Act
+        long last = 0;
+        for (int i = 0; i < (1 << OrderIdGenerator.COUNTER_BITS); i++) {
+            last = generator.nextId();
+        }
+
+        // Assert
+        assertEquals(5, OrderIdGenerator.shardOf(last));
+        assertEquals(2, reads.get());
+        assertEquals(1001, (last >>> OrderIdGenerator.COUNTER_BITS) & ((1L << OrderIdGenerator.TIME_BITS) - 1));
+    }
+
+    @Test
+    void testRestartedShardStartsAfterTheIdsOfThePreviousRun() {
+        // Arrange
+        long now = OrderIdGenerator.EPOCH_MILLIS + 1000;
+        OrderIdGenerator previous = new OrderIdGenerator(3, () -> now);
+        long last = 0;
+        for (int i = 0; i < 100; i++) {
+            last = previous.nextId();
+        }
+
+        // Act
+        long restarted = new OrderIdGenerator(3, () -> now + 1).nextId();
+
+        // Assert
+        assertTrue(restarted > last);
+    }
+}
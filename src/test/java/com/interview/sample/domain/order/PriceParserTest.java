@@ -0,0 +1,69 @@
+package com.interview.sample.domain.order;
+
+import com.interview.sample.domain.instrument.Instrument;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriceParserTest {
+
+    @Test
+    void testParseKeepsTheScaleOfTheText() {
+        // Act
+        Price price = PriceParser.parse("100.25");
+        Price whole = PriceParser.parse("-42");
+        Price exponent = PriceParser.parse("1.5e2");
+
+        // Assert
+        assertEquals(new Price(10025, 2), price);
+        assertEquals(new Price(-42, 0), whole);
+        assertEquals(new Price(150, 0), exponent);
+    }
+
+    @Test
+    void testParseAtScaleReadsTheTextStraightIntoScaledLong() {
+        // Arrange
+        String text = "[100.5,2.5E-1,7]";
+
+        // Act
+        long price = PriceParser.parse(text, 1, 5, 4);
+        long exponent = PriceParser.parse(text, 7, 6, 2);
+        long trailingZeros = PriceParser.parse("3.1400", 0, 6, 2);
+
+        // Assert
+        assertEquals(1005000, price);
+        assertEquals(25, exponent);
+        assertEquals(314, trailingZeros);
+    }
+
+    @Test
+    void testParseRejectsTextFinerThanTheScaleOrOutOfRange() {
+        assertThrows(NumberFormatException.class, () -> PriceParser.parse("100.255", 0, 7, 2));
+        assertThrows(NumberFormatException.class, () -> PriceParser.parse("92233720368547758.08", 0, 20, 2));
+        assertThrows(NumberFormatException.class, () -> PriceParser.parse("1.2.3", 0, 5, 2));
+        assertThrows(NumberFormatException.class, () -> PriceParser.parse("e5", 0, 2, 2));
+        assertThrows(NumberFormatException.class, () -> PriceParser.parse("1e", 0, 2, 2));
+        assertThrows(NumberFormatException.class, () -> PriceParser.parse("1e-19"));
+        assertThrows(NumberFormatException.class, () -> PriceParser.parse("1e-19".toCharArray(), 0, 5));
+        assertEquals(1, PriceParser.parse("1.0e-18").getValue());
+        assertEquals(PriceParser.MAX_SCALE, PriceParser.parse("1.0e-18").getScale());
+    }
+
+    @Test
+    void testInstrumentRejectsPricesOffItsTick() {
+        // Arrange
+        Instrument instrument = new Instrument("123", "Test", 2, 5);
+
+        // Act
+        long onTick = instrument.toScaledPrice(new Price(1005, 1));
+
+        // Assert
+        assertEquals(10050, onTick);
+        assertEquals(10055, instrument.parsePrice("100.55", 0, 6));
+        assertThrows(IllegalArgumentException.class, () -> instrument.toScaledPrice(new Price(10051, 2)));
+        assertThrows(IllegalArgumentException.class, () -> instrument.toScaledPrice(new Price(100505, 3)));
+        assertThrows(IllegalArgumentException.class, () -> instrument.parsePrice("100.51", 0, 6));
+        // Does not fit a long at the scale of the instrument
+        assertThrows(IllegalArgumentException.class, () -> instrument.toScaledPrice(new Price(Long.MAX_VALUE / 10, 0)));
+    }
+}
@@ -0,0 +1,201 @@
+package com.interview.sample.gateway;
+
+import com.interview.sample.broker.EventBroker;
+import com.interview.sample.controller.command.Command;
+import com.interview.sample.controller.command.InstrumentCreatedCommand;
+import com.interview.sample.controller.command.OrderCancelledCommand;
+import com.interview.sample.controller.command.OrderPlacedCommand;
+import com.interview.sample.controller.validation.InstrumentCreatedCommandValidator;
+import com.interview.sample.controller.validation.OrderCancelledCommandValidator;
+import com.interview.sample.controller.validation.OrderPlacedCommandValidator;
+import com.interview.sample.domain.event.Event;
+import com.interview.sample.domain.event.OrderCancelRejectedEvent;
+import com.interview.sample.domain.event.OrderCancelledEvent;
+import com.interview.sample.domain.event.OrderRejectedEvent;
+import com.interview.sample.domain.event.TradeEvent;
+import com.interview.sample.domain.event.codec.EventDecoder;
+import com.interview.sample.domain.order.OrderSide;
+import com.interview.sample.domain.order.OrderType;
+import com.interview.sample.domain.order.Price;
+import com.interview.sample.domain.order.TimeInForce;
+import com.interview.sample.service.CommandExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OrderEntryGatewayTest {
+
+    @Mock
+    private CommandExecutor commandExecutor;
+
+    private final EventBroker eventBroker = new EventBroker(1024);
+    private OrderEntryGateway gateway;
+    private SocketChannel client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        gateway = new OrderEntryGateway(commandExecutor, eventBroker, new OrderPlacedCommandValidator(),
+                new OrderCancelledCommandValidator(), new InstrumentCreatedCommandValidator(), 0, 2, 4096);
+        gateway.start();
+        client = SocketChannel.open(new InetSocketAddress("localhost", gateway.getPort()));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        gateway.close();
+        eventBroker.shutdown();
+    }
+
+    @Test
+    void testExecutesCommandsAndReturnsTheirReports() throws IOException {
+        // Arrange
+        InstrumentCreatedCommand instrument = new InstrumentCreatedCommand("AAPL", "Apple");
+        OrderPlacedCommand order = new OrderPlacedCommand("AAPL", "client1", "order1", OrderSide.BUY,
+                new Price(10025, 2), 10, OrderType.LIMIT, TimeInForce.ALL_OR_NONE);
+
+        // Act
+        send(client, instrument, order);
+        verify(commandExecutor, timeout(5000)).execute(order);
+        eventBroker.publish(new OrderCancelledEvent("order1", "client1", "AAPL"));
+
+        // Assert
+        verify(commandExecutor).execute(instrument);
+        Event report = receive(client);
+        OrderCancelledEvent cancelled = assertInstanceOf(OrderCancelledEvent.class, report);
+        assertEquals("order1", cancelled.getClientOrderId());
+        assertEquals("client1", cancelled.getClientId());
+        assertEquals("AAPL", cancelled.getInstrumentId());
+    }
+
+    @Test
+    void testRejectsInvalidOrdersOnTheSession() throws IOException {
+        // Arrange
+        OrderPlacedCommand order = new OrderPlacedCommand("AAPL", "client1", "order1", OrderSide.SELL,
+                null, 0, OrderType.MARKET, TimeInForce.FILL_OR_KILL);
+
+        // Act
+        send(client, order);
+
+        // Assert
+        OrderRejectedEvent rejected = assertInstanceOf(OrderRejectedEvent.class, receive(client));
+        assertEquals("order1", rejected.getClientOrderId());
+        assertEquals("client1", rejected.getClientId());
+        assertEquals("Quantity must be greater than zero", rejected.getReason());
+        verify(commandExecutor, never()).execute(any());
+    }
+
+    @Test
+    void testRoutesTradesToTheSessionsOfTheirClientsOnly() throws IOException {
+        // Arrange
+        OrderPlacedCommand buy = new OrderPlacedCommand("AAPL", "client1", "order1", OrderSide.BUY,
+                new Price(10025, 2), 10, OrderType.LIMIT, TimeInForce.ALL_OR_NONE);
+        OrderPlacedCommand sell = new OrderPlacedCommand("AAPL", "client2", "order2", OrderSide.SELL,
+                new Price(10025, 2), 10, OrderType.LIMIT, TimeInForce.ALL_OR_NONE);
+        OrderPlacedCommand bystander = new OrderPlacedCommand("AAPL", "client3", "order3", OrderSide.BUY,
+                new Price(10000, 2), 10, OrderType.LIMIT, TimeInForce.ALL_OR_NONE);
+        try (SocketChannel seller = SocketChannel.open(new InetSocketAddress("localhost", gateway.getPort()));
+             SocketChannel other = SocketChannel.open(new InetSocketAddress("localhost", gateway.getPort()))) {
+            send(client, buy);
+            send(seller, sell);
+            send(other, bystander);
+            verify(commandExecutor, timeout(5000)).execute(buy);
+            verify(commandExecutor, timeout(5000)).execute(sell);
+            verify(commandExecutor, timeout(5000)).execute(bystander);
+
+            // Act
+            eventBroker.publish(new TradeEvent(1L, 2L, "client1", "client2", "AAPL", new Price(10025, 2), 10, 42L));
+            eventBroker.publish(new OrderCancelledEvent("order3", "client3", "AAPL"));
+
+            // Assert
+            assertEquals(1L, assertInstanceOf(TradeEvent.class, receive(client)).getBuyOrderId());
+            assertEquals(2L, assertInstanceOf(TradeEvent.class, receive(seller)).getSellOrderId());
+            // The cancel published after the trade is the first report of the other session
+            assertEquals("order3", assertInstanceOf(OrderCancelledEvent.class, receive(other)).getClientOrderId());
+        }
+    }
+
+    @Test
+    void testRejectsCommandsForAClientBelongingToAnotherSession() throws IOException {
+        // Arrange
+        OrderPlacedCommand order = new OrderPlacedCommand("AAPL", "client1", "order1", OrderSide.BUY,
+                new Price(10025, 2), 10, OrderType.LIMIT, TimeInForce.ALL_OR_NONE);
+        OrderCancelledCommand takeover = new OrderCancelledCommand("client1", "order1", "AAPL");
+        try (SocketChannel other = SocketChannel.open(new InetSocketAddress("localhost", gateway.getPort()))) {
+            send(client, order);
+            verify(commandExecutor, timeout(5000)).execute(order);
+
+            // Act
+            send(other, takeover);
+            OrderCancelRejectedEvent rejected = assertInstanceOf(OrderCancelRejectedEvent.class, receive(other));
+            eventBroker.publish(new OrderCancelledEvent("order1", "client1", "AAPL"));
+
+            // Assert
+            assertEquals("Client belongs to another session: client1", rejected.getReason());
+            verify(commandExecutor, never()).execute(takeover);
+            // The reports of the client still reach its own session
+            assertEquals("order1", assertInstanceOf(OrderCancelledEvent.class, receive(client)).getClientOrderId());
+        }
+    }
+
+    @Test
+    void testDecodesWhatItEncodes() {
+        // Arrange
+        ByteBuffer buffer = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+        OrderPlacedCommand market = new OrderPlacedCommand("AAPL", "client1", "order1", OrderSide.SELL,
+                null, 5, OrderType.MARKET, TimeInForce.FILL_OR_KILL);
+        OrderCancelledCommand cancel = new OrderCancelledCommand("client1", "order2", "AAPL");
+
+        // Act
+        int next = OrderEntryCodec.encode(buffer, 0, market);
+        int end = OrderEntryCodec.encode(buffer, next, cancel);
+
+        // Assert
+        assertEquals(OrderEntryCodec.lengthOf(market), next);
+        assertEquals(OrderEntryCodec.lengthOf(market) + OrderEntryCodec.lengthOf(cancel), end);
+        assertEquals(market, OrderEntryCodec.decode(buffer, 0));
+        assertEquals(cancel, OrderEntryCodec.decode(buffer, next));
+    }
+
+    private void send(SocketChannel channel, Command... commands) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        int offset = 0;
+        for (Command command : commands) {
+            offset = OrderEntryCodec.encode(buffer, offset, command);
+        }
+        buffer.limit(offset);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private Event receive(SocketChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, header);
+        int length = header.getInt(0);
+        ByteBuffer message = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        message.put(header.flip());
+        readFully(channel, message);
+        return new EventDecoder().wrap(message, 0).toEvent();
+    }
+
+    private void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                fail("Session closed by the gateway");
+            }
+        }
+    }
+}
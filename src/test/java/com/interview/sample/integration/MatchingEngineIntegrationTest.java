@@ -125,7 +125,7 @@ public class MatchingEngineIntegrationTest {
         Event event = capturedEvents.poll();
         assertTrue(event instanceof TradeEvent);
         TradeEvent tradeEvent = (TradeEvent) event;
-        assertEquals(new BigDecimal("100").setScale(2), tradeEvent.getPrice().toBigDecimal());
+        assertEquals(new BigDecimal("100").setScale(2), tradeEvent.toPrice().toBigDecimal());
         assertEquals(10, tradeEvent.getQuantity());
     }
 
@@ -258,7 +258,7 @@ public class MatchingEngineIntegrationTest {
     private void validateTradeEvent(Event event) {
         assertTrue(event instanceof TradeEvent);
         TradeEvent tradeEvent = (TradeEvent) event;
-        assertEquals(new BigDecimal("100").setScale(2), tradeEvent.getPrice().toBigDecimal());
+        assertEquals(new BigDecimal("100").setScale(2), tradeEvent.toPrice().toBigDecimal());
         assertEquals(10, tradeEvent.getQuantity());
     }
 }
\ No newline at end of file
@@ -0,0 +1,230 @@
+package com.interview.sample.journal;
+
+import com.interview.sample.controller.command.Command;
+import com.interview.sample.controller.command.InstrumentCreatedCommand;
+import com.interview.sample.controller.command.OrderCancelledCommand;
+import com.interview.sample.controller.command.OrderPlacedCommand;
+import com.interview.sample.domain.order.OrderSide;
+import com.interview.sample.domain.order.OrderType;
+import com.interview.sample.domain.order.Price;
+import com.interview.sample.domain.order.TimeInForce;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReplaysEveryCommandTypeWithItsSequences() {
+        // Arrange
+        Command[] commands = {
+                new InstrumentCreatedCommand("AAPL", "Apple"),
+                new OrderPlacedCommand("AAPL", "client1", "order1", OrderSide.BUY, new Price(10125, 2), 10,
+                        OrderType.LIMIT, TimeInForce.GOOD_TILL_CANCEL),
+                new OrderPlacedCommand("AAPL", "client2", "order2", OrderSide.SELL, null, 5, OrderType.MARKET, null),
+                new OrderCancelledCommand("client1", "order1", "AAPL")
+        };
+        CommandJournal journal = open(1 << 16);
+
+        // Act
+        for (int i = 0; i < commands.length; i++) {
+            assertEquals(i + 1, journal.append(commands[i], i + 1));
+        }
+        List<Command> replayed = new ArrayList<>();
+        List<Long> sequences = new ArrayList<>();
+        long count = journal.replay((sequence, instrumentSequence, command) -> {
+            replayed.add(command);
+            sequences.add(sequence);
+            assertEquals(sequence, instrumentSequence);
+        });
+        journal.close();
+
+        // Assert
+        assertEquals(commands.length, count);
+        assertEquals(List.of(commands), replayed);
+        assertEquals(List.of(1L, 2L, 3L, 4L), sequences);
+    }
+
+    @Test
+    void testContinuesTheSequenceAfterReopening() {
+        // Arrange
+        CommandJournal journal = open(1 << 16);
+        journal.append(new InstrumentCreatedCommand("AAPL", "Apple"), 1);
+        journal.append(new InstrumentCreatedCommand("MSFT", "Microsoft"), 1);
+        journal.close();
+
+        // Act
+        CommandJournal reopened = open(1 << 16);
+        long sequence = reopened.append(new OrderCancelledCommand("client1", "order1", "AAPL"), 2);
+        List<Command> replayed = new ArrayList<>();
+        reopened.replay((seq, instrumentSequence, command) -> replayed.add(command));
+        reopened.close();
+
+        // Assert
+        assertEquals(3, sequence);
+        assertEquals(3, reopened.getSequence());
+        assertEquals(3, replayed.size());
+        assertEquals(new OrderCancelledCommand("client1", "order1", "AAPL"), replayed.get(2));
+    }
+
+    @Test
+    void testRollsOverToNewSegmentsWhenFull() throws Exception {
+        // Arrange, a few records per segment
+        CommandJournal journal = open(256);
+        List<Command> commands = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            commands.add(new OrderCancelledCommand("client" + i, "order" + i, "AAPL"));
+        }
+
+        // Act
+        for (int i = 0; i < commands.size(); i++) {
+            journal.append(commands.get(i), i + 1);
+        }
+        journal.close();
+        CommandJournal reopened = open(256);
+        List<Command> replayed = new ArrayList<>();
+        reopened.replay((sequence, instrumentSequence, command) -> replayed.add(command));
+        long sequence = reopened.append(new InstrumentCreatedCommand("MSFT", "Microsoft"), 1);
+        reopened.close();
+
+        // Assert
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.count() > 1);
+        }
+        assertEquals(commands, replayed);
+        assertEquals(21, sequence);
+    }
+
+    @Test
+    void testConcurrentAppendsKeepTheGlobalSequenceInJournalOrder() throws Exception {
+        // Arrange, small segments so the threads roll the journal over while appending
+        CommandJournal journal = open(1024);
+        int threads = 4;
+        int appendsPerThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> appenders = new ArrayList<>();
+
+        // Act
+        for (int t = 0; t < threads; t++) {
+            String clientId = "client" + t;
+            appenders.add(executor.submit(() -> {
+                for (int i = 1; i <= appendsPerThread; i++) {
+                    journal.append(new OrderCancelledCommand(clientId, "order" + i, "AAPL"), i);
+                }
+            }));
+        }
+        for (Future<?> appender : appenders) {
+            appender.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        journal.close();
+        List<Long> sequences = new ArrayList<>();
+        Map<String, Long> lastPerClient = new HashMap<>();
+        CommandJournal reopened = open(1024);
+        reopened.replay((sequence, instrumentSequence, command) -> {
+            sequences.add(sequence);
+            Long last = lastPerClient.put(((OrderCancelledCommand) command).clientId(), instrumentSequence);
+            assertEquals(last == null ? 1 : last + 1, instrumentSequence);
+        });
+        reopened.close();
+
+        // Assert
+        assertEquals(LongStream.rangeClosed(1, threads * appendsPerThread).boxed().toList(), sequences);
+        assertEquals(threads * appendsPerThread, reopened.getSequence());
+    }
+
+    @Test
+    void testOpeningTruncatesTheRecordsBehindAnIncompleteOne() throws Exception {
+        // Arrange: the second of three records was never completed
+        CommandJournal journal = open(1 << 16);
+        journal.append(new InstrumentCreatedCommand("AAPL", "Apple"), 1);
+        int second = CommandCodec.lengthOf(new InstrumentCreatedCommand("AAPL", "Apple"));
+        journal.append(new InstrumentCreatedCommand("MSFT", "Microsoft"), 1);
+        journal.append(new InstrumentCreatedCommand("IBM", "IBM"), 1);
+        journal.close();
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES), second);
+        }
+
+        // Act
+        CommandJournal reopened = open(1 << 16);
+        long sequence = reopened.append(new OrderCancelledCommand("client1", "order1", "AAPL"), 2);
+        List<Command> replayed = new ArrayList<>();
+        reopened.replay((seq, instrumentSequence, command) -> replayed.add(command));
+        reopened.close();
+
+        // Assert
+        assertEquals(2, sequence);
+        assertEquals(List.of(new InstrumentCreatedCommand("AAPL", "Apple"),
+                new OrderCancelledCommand("client1", "order1", "AAPL")), replayed);
+    }
+
+    @Test
+    void testContinuesAfterASequenceBeyondItsEnd() {
+        // Arrange: a snapshot covers sequence 5, the journal kept only 2 commands
+        CommandJournal journal = open(1 << 16);
+        journal.append(new InstrumentCreatedCommand("AAPL", "Apple"), 1);
+        journal.append(new InstrumentCreatedCommand("MSFT", "Microsoft"), 1);
+        journal.close();
+
+        // Act
+        CommandJournal reopened = open(1 << 16);
+        reopened.continueAfter(5);
+        long sequence = reopened.append(new OrderCancelledCommand("client1", "order1", "AAPL"), 2);
+        reopened.continueAfter(3);
+        reopened.close();
+        List<Long> sequences = new ArrayList<>();
+        CommandJournal replayed = open(1 << 16);
+        replayed.replay((seq, instrumentSequence, command) -> sequences.add(seq));
+        replayed.close();
+
+        // Assert
+        assertEquals(6, sequence);
+        assertEquals(List.of(1L, 2L, 6L), sequences);
+        assertEquals(6, replayed.getSequence());
+    }
+
+    @Test
+    void testIsDisabledWithoutDirectory() {
+        // Arrange
+        CommandJournal journal = new CommandJournal("", 1 << 16, 10);
+
+        // Act
+        journal.open();
+
+        // Assert
+        assertFalse(journal.isEnabled());
+        assertEquals(0, journal.replay((sequence, instrumentSequence, command) -> fail()));
+        assertThrows(IllegalArgumentException.class, () -> new CommandJournal("", 100, 10));
+    }
+
+    private CommandJournal open(int segmentSize) {
+        CommandJournal journal = new CommandJournal(directory.toString(), segmentSize, 10);
+        journal.open();
+        return journal;
+    }
+}
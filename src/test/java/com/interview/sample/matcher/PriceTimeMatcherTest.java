@@ -1,8 +1,9 @@
 package com.interview.sample.matcher;
 
 
+import com.interview.sample.books.BookSide;
 import com.interview.sample.books.OrderBook;
-import com.interview.sample.books.PriceLevel;
+import com.interview.sample.books.TreeMapBookSide;
 import com.interview.sample.domain.event.Event;
 import com.interview.sample.domain.event.TradeEvent;
 import com.interview.sample.domain.order.*;
@@ -10,19 +11,17 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.MockMakers;
 import org.mockito.MockitoAnnotations;
 
 import java.util.List;
-import java.util.Map;
-import java.util.Queue;
-import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 public class PriceTimeMatcherTest {
 
-    @Mock
+    @Mock(mockMaker = MockMakers.SUBCLASS)
     private OrderBook orderBook;
 
     @InjectMocks
@@ -31,25 +30,21 @@ public class PriceTimeMatcherTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(orderBook.getPriceScale()).thenReturn(2);
     }
 
     @Test
     void testMatchGeneratesTradeEvent() {
         // Arrange
-        Order buyOrder = new Order("instrument1", "client1", "order1", OrderSide.BUY, OrderType.LIMIT, new Price(100, 2), OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
-        Order sellOrder = new Order("instrument1", "client2", "order2", OrderSide.SELL, OrderType.MARKET, new Price(100, 2), OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.FILL_OR_KILL);
-
-        PriceLevel buyLevel = mock(PriceLevel.class);
-        PriceLevel sellLevel = mock(PriceLevel.class);
-        when(sellLevel.peek()).thenReturn(sellOrder);
-        when(buyLevel.peek()).thenReturn(buyOrder);
-        when(buyLevel.peek()).thenReturn(buyOrder);
-        when(sellLevel.getOrders()).thenReturn(mock(Queue.class));
-        when(buyLevel.getOrders()).thenReturn(mock(Queue.class));
-        when(orderBook.getBookBySide(OrderSide.BUY)).thenReturn(new TreeMap<>(Map.of(buyOrder.getPrice(), buyLevel)));
-        when(orderBook.getBookBySide(OrderSide.SELL)).thenReturn(new TreeMap<>(Map.of(sellOrder.getPrice(), sellLevel)));
-        when(buyLevel.peek()).thenReturn(buyOrder);
-        when(sellLevel.peek()).thenReturn(sellOrder);
+        Order buyOrder = new Order("instrument1", "client1", "order1", OrderSide.BUY, OrderType.LIMIT, 100, OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
+        Order sellOrder = new Order("instrument1", "client2", "order2", OrderSide.SELL, OrderType.MARKET, 100, OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.FILL_OR_KILL);
+
+        BookSide bids = new TreeMapBookSide(OrderSide.BUY);
+        BookSide asks = new TreeMapBookSide(OrderSide.SELL);
+        bids.getOrCreate(buyOrder.getPrice()).addOrder(buyOrder);
+        asks.getOrCreate(sellOrder.getPrice()).addOrder(sellOrder);
+        when(orderBook.getBookBySide(OrderSide.BUY)).thenReturn(bids);
+        when(orderBook.getBookBySide(OrderSide.SELL)).thenReturn(asks);
 
         // Act
         List<Event> events = matcher.match(orderBook, buyOrder);
@@ -59,22 +54,44 @@ public class PriceTimeMatcherTest {
         assertTrue(events.get(0) instanceof TradeEvent);
         TradeEvent tradeEvent = (TradeEvent) events.get(0);
         assertEquals(10, tradeEvent.getQuantity());
-        assertEquals(new Price(100, 2), tradeEvent.getPrice());
+        assertEquals(new Price(100, 2), tradeEvent.toPrice());
     }
 
     @Test
-    void testNoMatchWhenPricesDoNotMatch() {
+    void testSellAggressorTradesOnTheSellSide() {
         // Arrange
-        Order buyOrder = new Order("instrument1", "client1", "order1", OrderSide.BUY, OrderType.LIMIT, new Price(100, 2), OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
-        Order sellOrder = new Order("instrument1", "client2", "order2", OrderSide.SELL, OrderType.MARKET, new Price(101, 2), OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.FILL_OR_KILL);
+        Order restingBuy = new Order("instrument1", "client1", "order1", OrderSide.BUY, OrderType.LIMIT, 100, OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
+        restingBuy.setOrderId(1L);
+        Order aggressorSell = new Order("instrument1", "client2", "order2", OrderSide.SELL, OrderType.LIMIT, 100, OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
+        aggressorSell.setOrderId(2L);
+
+        BookSide bids = new TreeMapBookSide(OrderSide.BUY);
+        bids.getOrCreate(restingBuy.getPrice()).addOrder(restingBuy);
+        when(orderBook.getBookBySide(OrderSide.BUY)).thenReturn(bids);
+
+        // Act
+        List<Event> events = matcher.match(orderBook, aggressorSell);
+
+        // Assert
+        TradeEvent tradeEvent = (TradeEvent) events.get(0);
+        assertEquals(1L, tradeEvent.getBuyOrderId());
+        assertEquals(2L, tradeEvent.getSellOrderId());
+        assertEquals("client1", tradeEvent.getBuyClientId());
+        assertEquals("client2", tradeEvent.getSellClientId());
+    }
 
-        PriceLevel buyLevel = mock(PriceLevel.class);
-        PriceLevel sellLevel = mock(PriceLevel.class);
+    @Test
+    void testNoMatchWhenPricesDoNotMatch() {
+        // Arrange
+        Order buyOrder = new Order("instrument1", "client1", "order1", OrderSide.BUY, OrderType.LIMIT, 100, OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
+        Order sellOrder = new Order("instrument1", "client2", "order2", OrderSide.SELL, OrderType.MARKET, 101, OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.FILL_OR_KILL);
 
-        when(orderBook.getBookBySide(OrderSide.BUY)).thenReturn(new TreeMap<>(Map.of(buyOrder.getPrice(), buyLevel)));
-        when(orderBook.getBookBySide(OrderSide.SELL)).thenReturn(new TreeMap<>(Map.of(sellOrder.getPrice(), sellLevel)));
-        when(buyLevel.peek()).thenReturn(buyOrder);
-        when(sellLevel.peek()).thenReturn(sellOrder);
+        BookSide bids = new TreeMapBookSide(OrderSide.BUY);
+        BookSide asks = new TreeMapBookSide(OrderSide.SELL);
+        bids.getOrCreate(buyOrder.getPrice()).addOrder(buyOrder);
+        asks.getOrCreate(sellOrder.getPrice()).addOrder(sellOrder);
+        when(orderBook.getBookBySide(OrderSide.BUY)).thenReturn(bids);
+        when(orderBook.getBookBySide(OrderSide.SELL)).thenReturn(asks);
 
         // Act
         List<Event> events = matcher.match(orderBook, buyOrder);
@@ -86,10 +103,10 @@ public class PriceTimeMatcherTest {
     @Test
     void testNoMatchWhenOrderBookIsEmpty() {
         // Arrange
-        Order buyOrder = new Order("instrument1", "client1", "order1", OrderSide.BUY, OrderType.LIMIT, new Price(100, 2), OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
+        Order buyOrder = new Order("instrument1", "client1", "order1", OrderSide.BUY, OrderType.LIMIT, 100, OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
 
-        when(orderBook.getBookBySide(OrderSide.BUY)).thenReturn(new TreeMap<>());
-        when(orderBook.getBookBySide(OrderSide.SELL)).thenReturn(new TreeMap<>());
+        when(orderBook.getBookBySide(OrderSide.BUY)).thenReturn(new TreeMapBookSide(OrderSide.BUY));
+        when(orderBook.getBookBySide(OrderSide.SELL)).thenReturn(new TreeMapBookSide(OrderSide.SELL));
 
         // Act
         List<Event> events = matcher.match(orderBook, buyOrder);
@@ -97,4 +114,58 @@ public class PriceTimeMatcherTest {
         // Assert
         assertTrue(events.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFillOrKillRejectedWithoutTradingWhenBookTooThin() {
+        // Arrange
+        Order sellOrder = new Order("instrument1", "client2", "order2", OrderSide.SELL, OrderType.LIMIT, 100, OrderQuantity.builder().originalQuantity(5).remainingQuantity(5).build(), TimeInForce.ALL_OR_NONE);
+        Order buyOrder = new Order("instrument1", "client1", "order1", OrderSide.BUY, OrderType.MARKET, Price.NO_PRICE, OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.FILL_OR_KILL);
+
+        BookSide asks = new TreeMapBookSide(OrderSide.SELL);
+        asks.getOrCreate(sellOrder.getPrice()).addOrder(sellOrder);
+        when(orderBook.getBookBySide(OrderSide.SELL)).thenReturn(asks);
+
+        // Act
+        List<Event> events = matcher.match(orderBook, buyOrder);
+
+        // Assert
+        assertEquals(1, events.size());
+        assertTrue(events.get(0) instanceof OrderRejectedEvent);
+        assertEquals(OrderStatus.REJECTED, buyOrder.getStatus());
+        assertEquals(5, sellOrder.getQuantity().getRemainingQuantity());
+        assertEquals(5, asks.best().getTotalQuantity());
+        verify(orderBook, never()).removeFilledOrder(any());
+    }
+
+    @Test
+    void testAllOrNoneSweepsSeveralSmallerRestingOrders() {
+        // Arrange
+        BookSide asks = new TreeMapBookSide(OrderSide.SELL);
+        for (int i = 0; i < 3; i++) {
+            Order sellOrder = new Order("instrument1", "client2", "sell" + i, OrderSide.SELL, OrderType.LIMIT, 100 + i, OrderQuantity.builder().originalQuantity(4).remainingQuantity(4).build(), TimeInForce.ALL_OR_NONE);
+            asks.getOrCreate(sellOrder.getPrice()).addOrder(sellOrder);
+        }
+        // The book mock does not remove filled orders, so the levels are emptied here
+        doAnswer(invocation -> {
+            Order filled = invocation.getArgument(0);
+            asks.get(filled.getPrice()).removeOrder(filled);
+            asks.remove(asks.get(filled.getPrice()));
+            return null;
+        }).when(orderBook).removeFilledOrder(any());
+        when(orderBook.getBookBySide(OrderSide.SELL)).thenReturn(asks);
+        Order tooFarBuy = new Order("instrument1", "client1", "order1", OrderSide.BUY, OrderType.LIMIT, 101, OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
+        Order buyOrder = new Order("instrument1", "client1", "order2", OrderSide.BUY, OrderType.LIMIT, 102, OrderQuantity.builder().originalQuantity(10).remainingQuantity(10).build(), TimeInForce.ALL_OR_NONE);
+
+        // Act
+        List<Event> tooFarEvents = matcher.match(orderBook, tooFarBuy);
+        List<Event> events = matcher.match(orderBook, buyOrder);
+
+        // Assert
+        assertTrue(tooFarEvents.isEmpty());
+        assertEquals(OrderStatus.NEW, tooFarBuy.getStatus());
+        assertEquals(3, events.size());
+        assertEquals(List.of(4, 4, 2), events.stream().map(event -> ((TradeEvent) event).getQuantity()).toList());
+        assertEquals(OrderStatus.FILLED, buyOrder.getStatus());
+        assertEquals(2, asks.availableQuantity(null, Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,127 @@
+package com.interview.sample.service;
+
+import com.interview.sample.audit.AuditLog;
+import com.interview.sample.books.BookRepository;
+import com.interview.sample.books.BookRepositoryImpl;
+import com.interview.sample.books.OrderBookFactory;
+import com.interview.sample.broker.EventBroker;
+import com.interview.sample.controller.command.InstrumentCreatedCommand;
+import com.interview.sample.controller.command.OrderCancelledCommand;
+import com.interview.sample.controller.command.OrderPlacedCommand;
+import com.interview.sample.controller.transformer.OrderCommandTransformer;
+import com.interview.sample.domain.event.Event;
+import com.interview.sample.domain.event.OrderCancelRejectedEvent;
+import com.interview.sample.domain.event.OrderCancelledEvent;
+import com.interview.sample.domain.order.OrderSide;
+import com.interview.sample.domain.order.OrderType;
+import com.interview.sample.domain.order.Price;
+import com.interview.sample.domain.order.TimeInForce;
+import com.interview.sample.journal.CommandJournal;
+import com.interview.sample.matcher.PriceTimeMatcher;
+import com.interview.sample.snapshot.SnapshotStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandExecutorTest {
+
+    private final BookRepository bookRepository = new BookRepositoryImpl();
+    private final EventBroker eventBroker = new EventBroker(1024);
+    private final CountDownLatch held = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private CommandExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        OrderBookFactory orderBookFactory = new OrderBookFactory(new PriceTimeMatcher());
+        // Creating the HOLD instrument holds the only worker until released
+        InstrumentCreatedCommandHandler instrumentCreatedCommandHandler = new InstrumentCreatedCommandHandler(bookRepository, orderBookFactory) {
+            @Override
+            public void handle(InstrumentCreatedCommand command, int instrument, CommandBatch batch) {
+                if (command.securityId().equals("HOLD")) {
+                    held.countDown();
+                    awaitQuietly(release);
+                }
+                super.handle(command, instrument, batch);
+            }
+        };
+        executor = new CommandExecutor(instrumentCreatedCommandHandler, new OrderCancelledCommandHandler(),
+                new OrderPlacedCommandHandler(new OrderCommandTransformer()), bookRepository, eventBroker,
+                new CommandJournal("", 1 << 16, 10), new SnapshotStore(bookRepository, orderBookFactory, "", 60000, 0, 2),
+                new AuditLog("", 64, 5), WorkerType.RING_BUFFER, 1024, 256, WaitStrategy.PARK,
+                new WorkerTopology(1, new int[0], new String[0], new String[0], new int[0]),
+                new CommandLanes(new String[]{"OrderCancelledCommand=64"}), 0, new CommandExpiry(new String[0]), 0, 1.5, 100);
+        executor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+        eventBroker.shutdown();
+    }
+
+    @Test
+    void testCancelStaysBehindTheQueuedPlacementOfItsOwnOrder() throws InterruptedException {
+        // Arrange: the worker is held while the orders and the cancels are queued
+        BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+        eventBroker.subscribe(events::add);
+        executor.execute(new InstrumentCreatedCommand("123", "AAPL"));
+        executor.execute(new InstrumentCreatedCommand("HOLD", "HOLD"));
+        assertTrue(held.await(1, TimeUnit.MINUTES));
+
+        // Act
+        executor.execute(order("order1"));
+        executor.execute(order("order2"));
+        executor.execute(new OrderCancelledCommand("client1", "order2", "123"));
+        executor.execute(new OrderCancelledCommand("client1", "order3", "123"));
+        release.countDown();
+
+        // Assert: the cancel of an unknown order overtakes the orders, the cancel of order2 waits for it
+        Event first = events.poll(1, TimeUnit.MINUTES);
+        Event second = events.poll(1, TimeUnit.MINUTES);
+        assertTrue(first instanceof OrderCancelRejectedEvent);
+        assertEquals("order3", ((OrderCancelRejectedEvent) first).getClientOrderId());
+        assertTrue(second instanceof OrderCancelledEvent);
+        assertEquals("order2", ((OrderCancelledEvent) second).getClientOrderId());
+        assertEquals(1, bookRepository.find("123").orElseThrow().getBookBySide(OrderSide.BUY).best().getOrderCount());
+    }
+
+    @Test
+    void testDepthSnapshotOfABusyWorkerTimesOut() throws InterruptedException {
+        // Arrange
+        executor.execute(new InstrumentCreatedCommand("123", "AAPL"));
+        executor.execute(new InstrumentCreatedCommand("HOLD", "HOLD"));
+        assertTrue(held.await(1, TimeUnit.MINUTES));
+
+        // Act
+        RejectedExecutionException e = assertThrows(RejectedExecutionException.class,
+                () -> executor.depthSnapshot("123", 5));
+
+        // Assert
+        assertEquals("Timed out copying the depth of instrument: 123", e.getMessage());
+        release.countDown();
+        assertTrue(executor.depthSnapshot("123", 5).isPresent());
+    }
+
+    private static OrderPlacedCommand order(String clientOrderId) {
+        return new OrderPlacedCommand("123", "client1", clientOrderId, OrderSide.BUY, new Price(10000, 2), 10,
+                OrderType.LIMIT, TimeInForce.ALL_OR_NONE);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.interview.sample.service;
+
+import com.interview.sample.controller.command.InstrumentCreatedCommand;
+import com.interview.sample.controller.command.OrderCancelledCommand;
+import com.interview.sample.controller.command.OrderPlacedCommand;
+import com.interview.sample.domain.order.OrderSide;
+import com.interview.sample.domain.order.OrderType;
+import com.interview.sample.domain.order.Price;
+import com.interview.sample.domain.order.TimeInForce;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandExpiryTest {
+
+    private static final OrderPlacedCommand ORDER = new OrderPlacedCommand("123", "client1", "order1", OrderSide.BUY,
+            new Price(10000, 2), 10, OrderType.LIMIT, TimeInForce.ALL_OR_NONE);
+    private static final OrderCancelledCommand CANCEL = new OrderCancelledCommand("client1", "order1", "123");
+
+    @Test
+    void testExpiresOnlyCommandsOlderThanTheirMaximumAge() {
+        // Arrange
+        CommandExpiry expiry = new CommandExpiry(new String[]{" OrderPlacedCommand = 50 "});
+        long maxAge = TimeUnit.MILLISECONDS.toNanos(50);
+
+        // Act & Assert
+        assertFalse(expiry.isExpired(ORDER, maxAge));
+        assertTrue(expiry.isExpired(ORDER, maxAge + 1));
+        assertFalse(expiry.isExpired(CANCEL, TimeUnit.MINUTES.toNanos(1)));
+    }
+
+    @Test
+    void testNothingExpiresWithoutConfiguration() {
+        CommandExpiry expiry = new CommandExpiry(new String[0]);
+
+        assertFalse(expiry.isExpired(ORDER, TimeUnit.MINUTES.toNanos(1)));
+    }
+
+    @Test
+    void testRejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new CommandExpiry(new String[]{"OrderPlacedCommand"}));
+        assertThrows(IllegalArgumentException.class, () -> new CommandExpiry(new String[]{"OrderPlacedCommand=0"}));
+        assertThrows(IllegalArgumentException.class, () -> new CommandExpiry(new String[]{"OrderAmendedCommand=10"}));
+        assertThrows(IllegalArgumentException.class, () -> new CommandExpiry(new String[]{
+                InstrumentCreatedCommand.class.getSimpleName() + "=10"}));
+    }
+}
@@ -0,0 +1,80 @@
+package com.interview.sample.service;
+
+import com.interview.sample.controller.command.InstrumentCreatedCommand;
+import com.interview.sample.controller.command.OrderCancelledCommand;
+import com.interview.sample.controller.command.OrderPlacedCommand;
+import com.interview.sample.domain.order.OrderSide;
+import com.interview.sample.domain.order.OrderType;
+import com.interview.sample.domain.order.Price;
+import com.interview.sample.domain.order.TimeInForce;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandLanesTest {
+
+    private static final OrderPlacedCommand ORDER = new OrderPlacedCommand("123", "client1", "order1", OrderSide.BUY,
+            new Price(10000, 2), 10, OrderType.LIMIT, TimeInForce.ALL_OR_NONE);
+    private static final OrderCancelledCommand CANCEL = new OrderCancelledCommand("client1", "order1", "123");
+    private static final InstrumentCreatedCommand INSTRUMENT = new InstrumentCreatedCommand("123", "AAPL");
+
+    @Test
+    void testParsesLanesHighestFirst() {
+        // Act
+        CommandLanes lanes = new CommandLanes(new String[]{"OrderCancelledCommand=8", " InstrumentCreatedCommand = 4 "});
+
+        // Assert
+        assertEquals(3, lanes.count());
+        assertEquals(0, lanes.laneOf(CANCEL));
+        assertEquals(1, lanes.laneOf(INSTRUMENT));
+        assertEquals(2, lanes.laneOf(ORDER));
+        assertEquals(8, lanes.boundOf(0));
+        assertEquals(4, lanes.boundOf(1));
+        assertEquals(Integer.MAX_VALUE, lanes.boundOf(2));
+        assertEquals("OrderCancelledCommand", lanes.nameOf(0));
+        assertEquals(CommandLanes.DEFAULT_LANE, lanes.nameOf(2));
+    }
+
+    @Test
+    void testSharesLaneBetweenTypesAndFallsBackToSingleLane() {
+        // Act
+        CommandLanes shared = new CommandLanes(new String[]{"OrderCancelledCommand+InstrumentCreatedCommand=16"});
+        CommandLanes single = new CommandLanes(new String[]{" "});
+
+        // Assert
+        assertEquals(0, shared.laneOf(CANCEL));
+        assertEquals(0, shared.laneOf(INSTRUMENT));
+        assertEquals(1, shared.laneOf(ORDER));
+        assertEquals(1, single.count());
+        assertEquals(0, single.laneOf(CANCEL));
+    }
+
+    @Test
+    void testRejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new CommandLanes(new String[]{"OrderCancelledCommand"}));
+        assertThrows(IllegalArgumentException.class, () -> new CommandLanes(new String[]{"OrderCancelledCommand=0"}));
+        assertThrows(IllegalArgumentException.class, () -> new CommandLanes(new String[]{"OrderAmendedCommand=8"}));
+        assertThrows(IllegalArgumentException.class, () -> new CommandLanes(new String[]{"OrderCancelledCommand=8", "OrderCancelledCommand=4"}));
+    }
+
+    @Test
+    void testSelectorServesLowerLaneOnceBoundIsReached() {
+        // Arrange
+        LaneSelector selector = new LaneSelector(new CommandLanes(new String[]{"OrderCancelledCommand=3"}));
+        int both = 0b11;
+
+        // Act & Assert
+        assertEquals(0, selector.select(both));
+        assertEquals(3, selector.limit(0, 256));
+        selector.taken(0, 2);
+        assertEquals(0, selector.select(both));
+        assertEquals(1, selector.limit(0, 256));
+        selector.taken(0, 1);
+        assertEquals(1, selector.select(both));
+        selector.taken(1, 5);
+        assertEquals(0, selector.select(both));
+        assertEquals(3, selector.limit(0, 256));
+        assertEquals(-1, selector.select(0));
+    }
+}
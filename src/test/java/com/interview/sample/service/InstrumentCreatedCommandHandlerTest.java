@@ -4,16 +4,16 @@ package com.interview.sample.service;
 import com.interview.sample.books.BookRepository;
 import com.interview.sample.books.OrderBook;
 import com.interview.sample.books.OrderBookFactory;
+import com.interview.sample.broker.EventBroker;
 import com.interview.sample.controller.command.InstrumentCreatedCommand;
 import com.interview.sample.domain.instrument.Instrument;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.MockMakers;
 import org.mockito.MockitoAnnotations;
 
-import java.util.Optional;
-
 import static org.mockito.Mockito.*;
 
 public class InstrumentCreatedCommandHandlerTest {
@@ -27,9 +27,15 @@ public class InstrumentCreatedCommandHandlerTest {
     @InjectMocks
     private InstrumentCreatedCommandHandler handler;
 
+    @Mock
+    private EventBroker eventBroker;
+
+    private CommandBatch batch;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        batch = new CommandBatch(bookRepository, eventBroker);
     }
 
     @Test
@@ -37,16 +43,16 @@ public class InstrumentCreatedCommandHandlerTest {
         // Arrange
         InstrumentCreatedCommand command = new InstrumentCreatedCommand("123", "AAPL");
         Instrument instrument = new Instrument("123", "AAPL");
-        OrderBook orderBook = mock(OrderBook.class);
+        OrderBook orderBook = mock(OrderBook.class, withSettings().mockMaker(MockMakers.SUBCLASS));
 
-        when(bookRepository.find("123")).thenReturn(Optional.empty());
+        when(bookRepository.get(0)).thenReturn(null);
         when(orderBookFactory.createOrderBook(instrument)).thenReturn(orderBook);
 
         // Act
-        handler.handle(command);
+        handler.handle(command, 0, batch);
 
         // Assert
-        verify(bookRepository, times(1)).find("123");
+        verify(bookRepository, times(1)).get(0);
         verify(orderBookFactory, times(1)).createOrderBook(instrument);
         verify(bookRepository, times(1)).add(orderBook);
     }
@@ -55,15 +61,15 @@ public class InstrumentCreatedCommandHandlerTest {
     void testHandleCommandDoesNotCreateDuplicateOrderBook() {
         // Arrange
         InstrumentCreatedCommand command = new InstrumentCreatedCommand("123", "AAPL");
-        OrderBook existingOrderBook = mock(OrderBook.class);
+        OrderBook existingOrderBook = mock(OrderBook.class, withSettings().mockMaker(MockMakers.SUBCLASS));
 
-        when(bookRepository.find("123")).thenReturn(Optional.of(existingOrderBook));
+        when(bookRepository.get(0)).thenReturn(existingOrderBook);
 
         // Act
-        handler.handle(command);
+        handler.handle(command, 0, batch);
 
         // Assert
-        verify(bookRepository, times(1)).find("123");
+        verify(bookRepository, times(1)).get(0);
         verifyNoInteractions(orderBookFactory);
         verify(bookRepository, never()).add(any());
     }
@@ -0,0 +1,67 @@
+package com.interview.sample.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentRebalancerTest {
+
+    private final InstrumentRebalancer rebalancer = new InstrumentRebalancer(2, 1.5);
+
+    @Test
+    void testMovesInstrumentClosestToHalfTheGapToIdlestWorker() {
+        // Arrange: worker 0 is busy with 1000 ns, worker 1 with 100 ns
+        InstrumentRoute small = route("small", 0, 100);
+        InstrumentRoute half = route("half", 0, 400);
+        InstrumentRoute large = route("large", 0, 500);
+        InstrumentRoute other = route("other", 1, 100);
+
+        // Act
+        InstrumentRebalancer.Move move = rebalancer.plan(List.of(small, half, large, other));
+
+        // Assert
+        assertNotNull(move);
+        assertSame(half, move.route());
+        assertEquals(0, move.fromWorker());
+        assertEquals(1, move.toWorker());
+    }
+
+    @Test
+    void testKeepsBalancedWorkersAndUsesLoadSincePreviousRound() {
+        // Arrange
+        InstrumentRoute first = route("first", 0, 1_000);
+        InstrumentRoute second = route("second", 1, 800);
+        assertNull(rebalancer.plan(List.of(first, second)));
+
+        // Act: only the second instrument has been busy since
+        second.recordExecution(1_000);
+        InstrumentRebalancer.Move move = rebalancer.plan(List.of(first, second));
+
+        // Assert: the only instrument of the busy worker carries the whole gap, moving it does not help
+        assertNull(move);
+    }
+
+    @Test
+    void testNeverMovesPinnedInstruments() {
+        // Arrange: the pinned instrument would balance the workers best
+        InstrumentRoute pinned = new InstrumentRoute(0, "pinned", 0, null, false);
+        pinned.recordExecution(700);
+        InstrumentRoute movable = route("movable", 0, 200);
+        InstrumentRoute idle = route("idle", 0, 100);
+
+        // Act
+        InstrumentRebalancer.Move move = rebalancer.plan(List.of(pinned, movable, idle));
+
+        // Assert
+        assertNotNull(move);
+        assertSame(movable, move.route());
+    }
+
+    private InstrumentRoute route(String securityId, int worker, long serviceNanos) {
+        InstrumentRoute route = new InstrumentRoute(0, securityId, worker, null, true);
+        route.recordExecution(serviceNanos);
+        return route;
+    }
+}
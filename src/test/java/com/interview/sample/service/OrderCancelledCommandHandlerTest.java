@@ -5,14 +5,19 @@ import com.interview.sample.books.BookRepository;
 import com.interview.sample.books.OrderBook;
 import com.interview.sample.broker.EventBroker;
 import com.interview.sample.controller.command.OrderCancelledCommand;
+import com.interview.sample.domain.event.Event;
+import com.interview.sample.domain.event.EventBuffer;
 import com.interview.sample.domain.event.OrderCancelRejectedEvent;
 import com.interview.sample.domain.event.OrderCancelledEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.MockMakers;
 import org.mockito.MockitoAnnotations;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -27,31 +32,35 @@ class OrderCancelledCommandHandlerTest {
     @Mock
     private EventBroker eventBroker;
 
-    @InjectMocks
-    private OrderCancelledCommandHandler handler;
+    private final OrderCancelledCommandHandler handler = new OrderCancelledCommandHandler();
+
+    private CommandBatch batch;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        batch = new CommandBatch(bookRepository, eventBroker);
     }
 
     @Test
     void testHandleValidCommand() {
         // Arrange
         OrderCancelledCommand command = new OrderCancelledCommand("client1", "order1",  "123");
-        OrderBook orderBook = mock(OrderBook.class);
+        OrderBook orderBook = mock(OrderBook.class, withSettings().mockMaker(MockMakers.SUBCLASS));
         OrderCancelledEvent cancelledEvent = new OrderCancelledEvent("order1", "client1", "123");
 
-        when(bookRepository.find("123")).thenReturn(Optional.of(orderBook));
+        when(bookRepository.get(0)).thenReturn(orderBook);
         when(orderBook.cancelOrder("order1")).thenReturn(Optional.of(cancelledEvent));
+        List<Event> published = capturePublishedBatches();
 
         // Act
-        handler.handle(command);
+        handler.handle(command, 0, batch);
+        batch.flush();
 
         // Assert
-        verify(bookRepository, times(1)).find("123");
+        verify(bookRepository, times(1)).get(0);
         verify(orderBook, times(1)).cancelOrder("order1");
-        verify(eventBroker, times(1)).publish(cancelledEvent);
+        assertEquals(List.of(cancelledEvent), published);
     }
 
     @Test
@@ -59,38 +68,53 @@ class OrderCancelledCommandHandlerTest {
         // Arrange
         OrderCancelledCommand command = new OrderCancelledCommand("client1", "order1",  "999");
 
-        when(bookRepository.find("999")).thenReturn(Optional.empty());
+        when(bookRepository.get(1)).thenReturn(null);
+        List<Event> published = capturePublishedBatches();
 
         // Act
-        handler.handle(command);
+        handler.handle(command, 1, batch);
+        batch.flush();
 
         // Assert
-        verify(bookRepository, times(1)).find("999");
-        verify(eventBroker, times(1)).publish(argThat(event -> {
-            assertTrue(event instanceof OrderCancelRejectedEvent);
-            OrderCancelRejectedEvent rejectedEvent = (OrderCancelRejectedEvent) event;
-            assertEquals("order1", rejectedEvent.getClientOrderId());
-            assertEquals("client1", rejectedEvent.getClientId());
-            assertEquals("Order book not found for security: 999", rejectedEvent.getReason());
-            return true;
-        }));
+        verify(bookRepository, times(1)).get(1);
+        assertEquals(1, published.size());
+        assertTrue(published.get(0) instanceof OrderCancelRejectedEvent);
+        OrderCancelRejectedEvent rejectedEvent = (OrderCancelRejectedEvent) published.get(0);
+        assertEquals("order1", rejectedEvent.getClientOrderId());
+        assertEquals("client1", rejectedEvent.getClientId());
+        assertEquals("Order book not found for security: 999", rejectedEvent.getReason());
     }
 
     @Test
-    void testHandleCommandWithNoCancelledEvent() {
+    void testHandleCommandForUnknownOrderIsRejected() {
         // Arrange
         OrderCancelledCommand command = new OrderCancelledCommand("client1", "order1",  "123");
-        OrderBook orderBook = mock(OrderBook.class);
+        OrderBook orderBook = mock(OrderBook.class, withSettings().mockMaker(MockMakers.SUBCLASS));
 
-        when(bookRepository.find("123")).thenReturn(Optional.of(orderBook));
+        when(bookRepository.get(0)).thenReturn(orderBook);
         when(orderBook.cancelOrder("order1")).thenReturn(Optional.empty());
+        List<Event> published = capturePublishedBatches();
 
         // Act
-        handler.handle(command);
+        handler.handle(command, 0, batch);
+        batch.flush();
 
         // Assert
-        verify(bookRepository, times(1)).find("123");
+        verify(bookRepository, times(1)).get(0);
         verify(orderBook, times(1)).cancelOrder("order1");
-        verify(eventBroker, never()).publish(any());
+        assertEquals(1, published.size());
+        OrderCancelRejectedEvent rejectedEvent = (OrderCancelRejectedEvent) published.get(0);
+        assertEquals("order1", rejectedEvent.getClientOrderId());
+        assertEquals("Order not found: order1", rejectedEvent.getReason());
+    }
+
+    // The batch reuses its buffer, so it is copied while it is being published
+    private List<Event> capturePublishedBatches() {
+        List<Event> published = new ArrayList<>();
+        doAnswer(invocation -> {
+            published.addAll(Arrays.asList(invocation.<EventBuffer>getArgument(0).toArray()));
+            return null;
+        }).when(eventBroker).publishAll(any(EventBuffer.class));
+        return published;
     }
 }
\ No newline at end of file
@@ -5,18 +5,22 @@ import com.interview.sample.broker.EventBroker;
 import com.interview.sample.controller.command.OrderPlacedCommand;
 import com.interview.sample.controller.transformer.OrderCommandTransformer;
 import com.interview.sample.domain.event.Event;
+import com.interview.sample.domain.event.EventBuffer;
+import com.interview.sample.domain.event.EventSink;
 import com.interview.sample.domain.event.OrderRejectedEvent;
 import com.interview.sample.domain.event.TradeEvent;
+import com.interview.sample.domain.instrument.Instrument;
 import com.interview.sample.domain.order.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.MockMakers;
 import org.mockito.MockitoAnnotations;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,73 +39,208 @@ public class OrderPlacedCommandHandlerTest {
     @InjectMocks
     private OrderPlacedCommandHandler handler;
 
+    private final Instrument instrument = new Instrument("123", "Test");
+
+    private CommandBatch batch;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        batch = new CommandBatch(bookRepository, eventBroker);
     }
 
     @Test
     void testHandleValidCommand() {
         // Arrange
-        OrderPlacedCommand command = new OrderPlacedCommand("123", "client1", "order1", OrderSide.BUY, BigDecimal.valueOf(100.00), 10,OrderType.LIMIT,TimeInForce.ALL_OR_NONE);
-        OrderBook orderBook = mock(OrderBook.class);
-        Order transformedOrder = mock(Order.class);
-        List<Event> events = List.of(new TradeEvent("order1", "order2", "123", new Price(100, 2), 10, System.nanoTime()));
-
-        when(bookRepository.find("123")).thenReturn(Optional.of(orderBook));
-        when(orderCommandTransformer.transform(command)).thenReturn(transformedOrder);
-        when(orderBook.placeOrder(transformedOrder)).thenReturn(events);
+        OrderPlacedCommand command = new OrderPlacedCommand("123", "client1", "order1", OrderSide.BUY, new Price(10000, 2), 10,OrderType.LIMIT,TimeInForce.ALL_OR_NONE);
+        OrderBook orderBook = mock(OrderBook.class, withSettings().mockMaker(MockMakers.SUBCLASS));
+        Order transformedOrder = mock(Order.class, withSettings().mockMaker(MockMakers.SUBCLASS));
+        List<Event> events = List.of(new TradeEvent(1L, 2L, "client1", "client2", "123", new Price(100, 2), 10, System.nanoTime()));
+
+        when(bookRepository.get(0)).thenReturn(orderBook);
+        when(orderBook.getInstrument()).thenReturn(instrument);
+        when(orderBook.getOrderPool()).thenReturn(OrderPool.NONE);
+        when(orderCommandTransformer.transform(command, instrument, OrderPool.NONE)).thenReturn(transformedOrder);
+        doAnswer(invocation -> {
+            events.forEach(invocation.<EventSink>getArgument(1)::add);
+            return null;
+        }).when(orderBook).placeOrder(eq(transformedOrder), any(EventSink.class));
+        List<Event> published = capturePublishedBatches();
 
         // Act
-        handler.handle(command);
+        handler.handle(command, 0, batch);
+        batch.flush();
 
         // Assert
-        verify(bookRepository, times(1)).find("123");
-        verify(orderCommandTransformer, times(1)).transform(command);
-        verify(orderBook, times(1)).placeOrder(transformedOrder);
-        verify(eventBroker, times(1)).publish(events.get(0));
+        verify(bookRepository, times(1)).get(0);
+        verify(orderCommandTransformer, times(1)).transform(command, instrument, OrderPool.NONE);
+        verify(orderBook, times(1)).placeOrder(eq(transformedOrder), any(EventSink.class));
+        verify(eventBroker, times(1)).publishAll(any(EventBuffer.class));
+        verify(eventBroker, never()).publish(any());
+        assertEquals(events, published);
     }
 
     @Test
     void testHandleCommandWithNonExistentOrderBook() {
         // Arrange
-        OrderPlacedCommand command = new OrderPlacedCommand("999", "client1", "order1", OrderSide.BUY, BigDecimal.valueOf(100.00), 10,OrderType.LIMIT,TimeInForce.ALL_OR_NONE);
+        OrderPlacedCommand command = new OrderPlacedCommand("999", "client1", "order1", OrderSide.BUY, new Price(10000, 2), 10,OrderType.LIMIT,TimeInForce.ALL_OR_NONE);
 
-        when(bookRepository.find("999")).thenReturn(Optional.empty());
+        when(bookRepository.get(1)).thenReturn(null);
+        List<Event> published = capturePublishedBatches();
 
         // Act
-        handler.handle(command);
+        handler.handle(command, 1, batch);
+        batch.flush();
 
         // Assert
-        verify(bookRepository, times(1)).find("999");
-        verify(eventBroker, times(1)).publish(argThat(event -> {
-            assertTrue(event instanceof OrderRejectedEvent);
-            OrderRejectedEvent rejectedEvent = (OrderRejectedEvent) event;
-            assertEquals("order1", rejectedEvent.getClientOrderId());
-            assertEquals("client1", rejectedEvent.getClientId());
-            assertEquals("Order book not found for security: 999", rejectedEvent.getReason());
-            return true;
-        }));
+        verify(bookRepository, times(1)).get(1);
+        assertEquals(1, published.size());
+        assertTrue(published.get(0) instanceof OrderRejectedEvent);
+        OrderRejectedEvent rejectedEvent = (OrderRejectedEvent) published.get(0);
+        assertEquals("order1", rejectedEvent.getClientOrderId());
+        assertEquals("client1", rejectedEvent.getClientId());
+        assertEquals("Order book not found for security: 999", rejectedEvent.getReason());
     }
 
     @Test
     void testHandleCommandWithEmptyEvents() {
         // Arrange
-        OrderPlacedCommand command = new OrderPlacedCommand("123", "client1", "order1", OrderSide.BUY, BigDecimal.valueOf(100.00), 10,OrderType.LIMIT,TimeInForce.ALL_OR_NONE);
-        OrderBook orderBook = mock(OrderBook.class);
-        Order transformedOrder = mock(Order.class);
+        OrderPlacedCommand command = new OrderPlacedCommand("123", "client1", "order1", OrderSide.BUY, new Price(10000, 2), 10,OrderType.LIMIT,TimeInForce.ALL_OR_NONE);
+        OrderBook orderBook = mock(OrderBook.class, withSettings().mockMaker(MockMakers.SUBCLASS));
+        Order transformedOrder = mock(Order.class, withSettings().mockMaker(MockMakers.SUBCLASS));
 
-        when(bookRepository.find("123")).thenReturn(Optional.of(orderBook));
-        when(orderCommandTransformer.transform(command)).thenReturn(transformedOrder);
-        when(orderBook.placeOrder(transformedOrder)).thenReturn(List.of());
+        when(bookRepository.get(0)).thenReturn(orderBook);
+        when(orderBook.getInstrument()).thenReturn(instrument);
+        when(orderBook.getOrderPool()).thenReturn(OrderPool.NONE);
+        when(orderCommandTransformer.transform(command, instrument, OrderPool.NONE)).thenReturn(transformedOrder);
+        List<Event> published = capturePublishedBatches();
 
         // Act
-        handler.handle(command);
+        handler.handle(command, 0, batch);
+        batch.flush();
 
         // Assert
-        verify(bookRepository, times(1)).find("123");
-        verify(orderCommandTransformer, times(1)).transform(command);
-        verify(orderBook, times(1)).placeOrder(transformedOrder);
+        verify(bookRepository, times(1)).get(0);
+        verify(orderCommandTransformer, times(1)).transform(command, instrument, OrderPool.NONE);
+        verify(orderBook, times(1)).placeOrder(eq(transformedOrder), any(EventSink.class));
         verify(eventBroker, never()).publish(any());
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    void testHandleCommandsOfOneBatchLooksBookUpOnceAndPublishesOnce() {
+        // Arrange
+        OrderPlacedCommand first = new OrderPlacedCommand("123", "client1", "order1", OrderSide.BUY, new Price(10000, 2), 10,OrderType.LIMIT,TimeInForce.ALL_OR_NONE);
+        OrderPlacedCommand second = new OrderPlacedCommand("123", "client1", "order2", OrderSide.BUY, new Price(10000, 2), 10,OrderType.LIMIT,TimeInForce.ALL_OR_NONE);
+        OrderBook orderBook = mock(OrderBook.class, withSettings().mockMaker(MockMakers.SUBCLASS));
+        Event firstEvent = new TradeEvent(1L, 3L, "client1", "client2", "123", new Price(100, 2), 10, System.nanoTime());
+        Event secondEvent = new TradeEvent(2L, 4L, "client1", "client2", "123", new Price(100, 2), 10, System.nanoTime());
+
+        when(bookRepository.get(0)).thenReturn(orderBook);
+        when(orderBook.getInstrument()).thenReturn(instrument);
+        when(orderBook.getOrderPool()).thenReturn(OrderPool.NONE);
+        Order firstOrder = mock(Order.class, withSettings().mockMaker(MockMakers.SUBCLASS));
+        Order secondOrder = mock(Order.class, withSettings().mockMaker(MockMakers.SUBCLASS));
+        when(orderCommandTransformer.transform(first, instrument, OrderPool.NONE)).thenReturn(firstOrder);
+        when(orderCommandTransformer.transform(second, instrument, OrderPool.NONE)).thenReturn(secondOrder);
+        doAnswer(invocation -> {
+            invocation.<EventSink>getArgument(1).add(firstEvent);
+            return null;
+        }).when(orderBook).placeOrder(eq(firstOrder), any(EventSink.class));
+        doAnswer(invocation -> {
+            invocation.<EventSink>getArgument(1).add(secondEvent);
+            return null;
+        }).when(orderBook).placeOrder(eq(secondOrder), any(EventSink.class));
+        List<Event> published = capturePublishedBatches();
+
+        // Act
+        handler.handle(first, 0, batch);
+        handler.handle(second, 0, batch);
+        batch.flush();
+
+        // Assert
+        verify(bookRepository, times(1)).get(0);
+        verify(eventBroker, times(1)).publishAll(any(EventBuffer.class));
+        assertEquals(List.of(firstEvent, secondEvent), published);
+    }
+
+    @Test
+    void testHandleCommandWithPriceOffTheTickRejectsIt() {
+        // Arrange
+        OrderPlacedCommand command = new OrderPlacedCommand("123", "client1", "order1", OrderSide.BUY, new Price(100005, 3), 10,OrderType.LIMIT,TimeInForce.ALL_OR_NONE);
+        OrderBook orderBook = mock(OrderBook.class, withSettings().mockMaker(MockMakers.SUBCLASS));
+
+        when(bookRepository.get(0)).thenReturn(orderBook);
+        when(orderBook.getInstrument()).thenReturn(instrument);
+        when(orderBook.getOrderPool()).thenReturn(OrderPool.NONE);
+        when(orderCommandTransformer.transform(command, instrument, OrderPool.NONE))
+                .thenThrow(new IllegalArgumentException("Price 100.005 has more than 2 decimals"));
+        List<Event> published = capturePublishedBatches();
+
+        // Act
+        handler.handle(command, 0, batch);
+        batch.flush();
+
+        // Assert
+        verify(orderBook, never()).placeOrder(any(), any(EventSink.class));
+        assertEquals(1, published.size());
+        OrderRejectedEvent rejectedEvent = assertInstanceOf(OrderRejectedEvent.class, published.get(0));
+        assertEquals("order1", rejectedEvent.getClientOrderId());
+        assertEquals("Price 100.005 has more than 2 decimals", rejectedEvent.getReason());
+    }
+
+    @Test
+    void testHandleCommandWithPriceOverflowingTheScaleRejectsIt() {
+        // Arrange
+        OrderPlacedCommand command = new OrderPlacedCommand("123", "client1", "order1", OrderSide.BUY, new Price(Long.MAX_VALUE / 10, 0), 10,OrderType.LIMIT,TimeInForce.ALL_OR_NONE);
+        OrderPlacedCommandHandler transformingHandler = new OrderPlacedCommandHandler(new OrderCommandTransformer());
+        OrderBook orderBook = mock(OrderBook.class, withSettings().mockMaker(MockMakers.SUBCLASS));
+
+        when(bookRepository.get(0)).thenReturn(orderBook);
+        when(orderBook.getInstrument()).thenReturn(instrument);
+        when(orderBook.getOrderPool()).thenReturn(OrderPool.NONE);
+        List<Event> published = capturePublishedBatches();
+
+        // Act
+        transformingHandler.handle(command, 0, batch);
+        batch.flush();
+
+        // Assert
+        verify(orderBook, never()).placeOrder(any(), any(EventSink.class));
+        assertEquals(1, published.size());
+        OrderRejectedEvent rejectedEvent = assertInstanceOf(OrderRejectedEvent.class, published.get(0));
+        assertEquals("order1", rejectedEvent.getClientOrderId());
+        assertEquals("Price 922337203685477580 does not fit a long at scale 2", rejectedEvent.getReason());
+    }
+
+    @Test
+    void testAcceptedOrderTakesItsIdFromTheJournalSequenceOfTheCommand() {
+        // Arrange
+        OrderPlacedCommand command = new OrderPlacedCommand("123", "client1", "order1", OrderSide.BUY, new Price(10000, 2), 10,OrderType.LIMIT,TimeInForce.ALL_OR_NONE);
+        OrderBook orderBook = mock(OrderBook.class, withSettings().mockMaker(MockMakers.SUBCLASS));
+        Order transformedOrder = mock(Order.class, withSettings().mockMaker(MockMakers.SUBCLASS));
+
+        when(bookRepository.get(0)).thenReturn(orderBook);
+        when(orderBook.getInstrument()).thenReturn(instrument);
+        when(orderBook.getOrderPool()).thenReturn(OrderPool.NONE);
+        when(orderCommandTransformer.transform(command, instrument, OrderPool.NONE)).thenReturn(transformedOrder);
+        batch.setJournalSequence(42);
+
+        // Act
+        handler.handle(command, 0, batch);
+
+        // Assert
+        verify(transformedOrder, times(1)).setOrderId(OrderIdGenerator.ofJournalSequence(42));
+        verify(orderBook, times(1)).placeOrder(eq(transformedOrder), any(EventSink.class));
+    }
+
+    // The batch reuses its buffer, so the batch is copied while it is being published
+    private List<Event> capturePublishedBatches() {
+        List<Event> published = new ArrayList<>();
+        doAnswer(invocation -> {
+            published.addAll(Arrays.asList(invocation.<EventBuffer>getArgument(0).toArray()));
+            return null;
+        }).when(eventBroker).publishAll(any(EventBuffer.class));
+        return published;
     }
 }
\ No newline at end of file
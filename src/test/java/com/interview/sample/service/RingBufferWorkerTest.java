@@ -0,0 +1,252 @@
+package com.interview.sample.service;
+
+import com.interview.sample.controller.command.Command;
+import com.interview.sample.controller.command.OrderCancelledCommand;
+import com.interview.sample.controller.command.OrderPlacedCommand;
+import com.interview.sample.domain.order.OrderSide;
+import com.interview.sample.domain.order.OrderType;
+import com.interview.sample.domain.order.Price;
+import com.interview.sample.domain.order.TimeInForce;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferWorkerTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int COMMANDS_PER_PRODUCER = 5_000;
+    private static final CommandLanes SINGLE_LANE = new CommandLanes(new String[0]);
+
+    @Test
+    void testExecutesCommandsOfEveryProducerInSubmissionOrder() throws InterruptedException {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            // Arrange: a ring much smaller than the number of commands, so producers wrap and wait for slots
+            List<Command> executed = new ArrayList<>();
+            CountDownLatch done = new CountDownLatch(PRODUCERS * COMMANDS_PER_PRODUCER);
+            RingBufferWorker worker = new RingBufferWorker("test-worker", (command, instrument, queuedNanos, endOfBatch) -> {
+                executed.add(command);
+                done.countDown();
+            }, SINGLE_LANE, 64, 16, 0, waitStrategy, CpuAffinity.ANY);
+
+            // Act
+            List<Thread> producers = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                String clientId = "client" + p;
+                Thread producer = new Thread(() -> {
+                    for (int i = 0; i < COMMANDS_PER_PRODUCER; i++) {
+                        worker.submit(new OrderCancelledCommand(clientId, String.valueOf(i), "123"), 0, 0);
+                    }
+                });
+                producers.add(producer);
+                producer.start();
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+
+            // Assert
+            assertTrue(done.await(1, TimeUnit.MINUTES), "commands not executed with " + waitStrategy);
+            worker.shutdown();
+            assertEquals(PRODUCERS * COMMANDS_PER_PRODUCER, executed.size());
+            int[] nextPerProducer = new int[PRODUCERS];
+            for (Command command : executed) {
+                OrderCancelledCommand cancel = (OrderCancelledCommand) command;
+                int producer = Integer.parseInt(cancel.clientId().substring("client".length()));
+                assertEquals(String.valueOf(nextPerProducer[producer]++), cancel.clientOrderId(), "order of " + cancel.clientId());
+            }
+        }
+    }
+
+    @Test
+    void testEveryCommandArrivesWithItsOwnInstrumentFromAFullRing() throws InterruptedException {
+        // Arrange: a tiny ring and a slow worker, so producers always wait for the slot being taken
+        List<String> mismatches = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(PRODUCERS * COMMANDS_PER_PRODUCER);
+        RingBufferWorker worker = new RingBufferWorker("test-worker", (command, instrument, queuedNanos, endOfBatch) -> {
+            String securityId = ((OrderCancelledCommand) command).securityId();
+            Thread.yield();
+            if (!securityId.equals(String.valueOf(instrument))) {
+                mismatches.add(securityId + " taken as instrument " + instrument);
+            }
+            done.countDown();
+        }, SINGLE_LANE, 4, 4, 0, WaitStrategy.YIELD, CpuAffinity.ANY);
+
+        // Act
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int instrument = p;
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < COMMANDS_PER_PRODUCER; i++) {
+                    worker.submit(new OrderCancelledCommand("client1", String.valueOf(i), String.valueOf(instrument)),
+                            instrument, 0);
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        // Assert
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+        worker.shutdown();
+        assertEquals(List.of(), mismatches);
+    }
+
+    @Test
+    void testFailingCommandDoesNotStopWorker() throws InterruptedException {
+        // Arrange
+        List<Command> executed = new CopyOnWriteArrayList<>();
+        RingBufferWorker worker = new RingBufferWorker("test-worker", (command, instrument, queuedNanos, endOfBatch) -> {
+            if (((OrderCancelledCommand) command).clientOrderId().equals("bad")) {
+                throw new IllegalStateException("boom");
+            }
+            executed.add(command);
+        }, SINGLE_LANE, 8, 8, 0, WaitStrategy.PARK, CpuAffinity.ANY);
+
+        // Act
+        worker.submit(new OrderCancelledCommand("client1", "bad", "123"), 0, 0);
+        worker.submit(new OrderCancelledCommand("client1", "good", "123"), 0, 0);
+        worker.shutdown();
+
+        // Assert
+        assertEquals(1, executed.size());
+        assertThrows(RejectedExecutionException.class, () -> worker.submit(new OrderCancelledCommand("client1", "late", "123"), 0, 0));
+    }
+
+    @Test
+    void testRejectsRingSizeWhichIsNotPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBufferWorker("test-worker", (command, instrument, queuedNanos, endOfBatch) -> { }, SINGLE_LANE, 100, 8, 0, WaitStrategy.PARK, CpuAffinity.ANY));
+    }
+
+    @Test
+    void testTakesPendingCommandsInBatchesUpToBatchSize() throws InterruptedException {
+        // Arrange: the first command holds the worker until the following ones are all published
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch published = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(11);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        int[] current = new int[1];
+        RingBufferWorker worker = new RingBufferWorker("test-worker", (command, instrument, queuedNanos, endOfBatch) -> {
+            if (((OrderCancelledCommand) command).clientOrderId().equals("0")) {
+                started.countDown();
+                awaitQuietly(published);
+            }
+            current[0]++;
+            if (endOfBatch) {
+                batchSizes.add(current[0]);
+                current[0] = 0;
+            }
+            done.countDown();
+        }, SINGLE_LANE, 64, 4, 0, WaitStrategy.PARK, CpuAffinity.ANY);
+
+        // Act
+        worker.submit(new OrderCancelledCommand("client1", "0", "123"), 0, 0);
+        assertTrue(started.await(1, TimeUnit.MINUTES));
+        for (int i = 1; i < 11; i++) {
+            worker.submit(new OrderCancelledCommand("client1", String.valueOf(i), "123"), 0, 0);
+        }
+        published.countDown();
+
+        // Assert
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+        worker.shutdown();
+        assertEquals(List.of(1, 4, 4, 2), batchSizes);
+    }
+
+    @Test
+    void testCancelsOvertakeQueuedOrdersUpToTheirBound() throws InterruptedException {
+        // Arrange: cancels take at most two commands in a row while orders are queued, one command per batch
+        CommandLanes lanes = new CommandLanes(new String[]{"OrderCancelledCommand=2"});
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch published = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(8);
+        List<String> executed = new CopyOnWriteArrayList<>();
+        RingBufferWorker worker = new RingBufferWorker("test-worker", (command, instrument, queuedNanos, endOfBatch) -> {
+            if (command instanceof OrderPlacedCommand order) {
+                if (order.clientOrderId().equals("P0")) {
+                    started.countDown();
+                    awaitQuietly(published);
+                }
+                executed.add(order.clientOrderId());
+            } else {
+                executed.add(((OrderCancelledCommand) command).clientOrderId());
+            }
+            done.countDown();
+        }, lanes, 64, 1, 0, WaitStrategy.PARK, CpuAffinity.ANY);
+
+        // Act
+        submitOrder(worker, lanes, "P0");
+        assertTrue(started.await(1, TimeUnit.MINUTES));
+        for (int i = 1; i < 4; i++) {
+            submitOrder(worker, lanes, "P" + i);
+        }
+        for (int i = 1; i < 5; i++) {
+            OrderCancelledCommand cancel = new OrderCancelledCommand("client1", "C" + i, "123");
+            worker.submit(cancel, 0, lanes.laneOf(cancel));
+        }
+        published.countDown();
+
+        // Assert
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+        worker.shutdown();
+        assertEquals(List.of("P0", "C1", "C2", "P1", "C3", "C4", "P2", "P3"), executed);
+        assertEquals(4, worker.getLaneStats(0).getCommands());
+        assertEquals(4, worker.getLaneStats(1).getCommands());
+        assertTrue(worker.getLaneStats(1).getMaxWaitNanos() > 0);
+    }
+
+    @Test
+    void testOfferTurnsCommandsAwayOnceMaxQueueDepthIsQueued() throws InterruptedException {
+        // Arrange: the first command holds the worker, the next two fill the lane
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+        RingBufferWorker worker = new RingBufferWorker("test-worker", (command, instrument, queuedNanos, endOfBatch) -> {
+            if (((OrderCancelledCommand) command).clientOrderId().equals("0")) {
+                started.countDown();
+                awaitQuietly(release);
+            }
+            done.countDown();
+        }, SINGLE_LANE, 64, 8, 2, WaitStrategy.PARK, CpuAffinity.ANY);
+        assertTrue(worker.offer(new OrderCancelledCommand("client1", "0", "123"), 0, 0));
+        assertTrue(started.await(1, TimeUnit.MINUTES));
+
+        // Act
+        boolean first = worker.offer(new OrderCancelledCommand("client1", "1", "123"), 0, 0);
+        boolean second = worker.offer(new OrderCancelledCommand("client1", "2", "123"), 0, 0);
+        boolean third = worker.offer(new OrderCancelledCommand("client1", "3", "123"), 0, 0);
+        // Markers of the executor are never turned away
+        worker.submit(new OrderCancelledCommand("client1", "4", "123"), 0, 0);
+        release.countDown();
+
+        // Assert
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(third);
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+        worker.shutdown();
+    }
+
+    private void submitOrder(RingBufferWorker worker, CommandLanes lanes, String clientOrderId) {
+        OrderPlacedCommand order = new OrderPlacedCommand("123", "client1", clientOrderId, OrderSide.BUY,
+                new Price(10000, 2), 10, OrderType.LIMIT, TimeInForce.ALL_OR_NONE);
+        worker.submit(order, 0, lanes.laneOf(order));
+    }
+
+    private void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
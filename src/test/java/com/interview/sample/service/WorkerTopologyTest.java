@@ -0,0 +1,35 @@
+package com.interview.sample.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkerTopologyTest {
+
+    @Test
+    void testParsesInstrumentWorkersAndCpus() {
+        // Act
+        WorkerTopology topology = new WorkerTopology(4, new int[]{2, 3}, new String[]{"AAPL=1", " MSFT = 3 "},
+                new String[]{"TSLA", " ", "NVDA", "TSLA"}, new int[]{6});
+
+        // Assert
+        assertEquals(4, topology.getWorkers());
+        assertEquals(1, topology.workerOf("AAPL"));
+        assertEquals(3, topology.workerOf("MSFT"));
+        assertEquals(-1, topology.workerOf("IBM"));
+        assertEquals(List.of("TSLA", "NVDA"), topology.getHotInstruments());
+        assertEquals(3, topology.cpuOfWorker(1));
+        assertEquals(CpuAffinity.ANY, topology.cpuOfWorker(2));
+        assertEquals(6, topology.cpuOfHotInstrument(0));
+        assertEquals(CpuAffinity.ANY, topology.cpuOfHotInstrument(1));
+    }
+
+    @Test
+    void testRejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new WorkerTopology(0, new int[0], new String[0], new String[0], new int[0]));
+        assertThrows(IllegalArgumentException.class, () -> new WorkerTopology(2, new int[0], new String[]{"AAPL=2"}, new String[0], new int[0]));
+        assertThrows(IllegalArgumentException.class, () -> new WorkerTopology(2, new int[0], new String[]{"AAPL"}, new String[0], new int[0]));
+    }
+}
@@ -0,0 +1,130 @@
+package com.interview.sample.snapshot;
+
+import com.interview.sample.books.BookRepository;
+import com.interview.sample.books.BookRepositoryImpl;
+import com.interview.sample.books.BookSideType;
+import com.interview.sample.books.OrderBook;
+import com.interview.sample.books.OrderBookFactory;
+import com.interview.sample.books.PriceLevel;
+import com.interview.sample.domain.instrument.Instrument;
+import com.interview.sample.domain.order.*;
+import com.interview.sample.matcher.PriceTimeMatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final OrderBookFactory orderBookFactory =
+            new OrderBookFactory(new PriceTimeMatcher(), BookSideType.TREE_MAP, 64, 0, true);
+    private final BookRepository bookRepository = new BookRepositoryImpl();
+    private SnapshotStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void testRestoresLevelsAndOrdersInTimePriority() {
+        // Arrange
+        OrderBook book = orderBookFactory.createOrderBook(new Instrument("AAPL", "Apple"));
+        Order order1 = limit("order1", OrderSide.BUY, 10000, 10);
+        order1.setOrderId(7);
+        book.placeOrder(order1);
+        book.placeOrder(limit("order2", OrderSide.BUY, 10000, 5));
+        book.placeOrder(limit("order3", OrderSide.BUY, 9900, 7));
+        book.placeOrder(limit("order4", OrderSide.SELL, 10100, 4));
+        // Partially fills order1
+        book.placeOrder(new Order("AAPL", "client", "market1", OrderSide.SELL, OrderType.MARKET, Price.NO_PRICE,
+                quantity(3), TimeInForce.FILL_OR_KILL));
+        store = store(2);
+
+        // Act
+        store.write(42, List.of(BookSnapshot.of(book, 5)));
+        SnapshotStore.Restored restored = store.restore();
+
+        // Assert
+        assertEquals(42, restored.journalSequence());
+        assertEquals(Map.of("AAPL", 5L), restored.sequences());
+        OrderBook copy = bookRepository.find("AAPL").orElseThrow();
+        // Three levels changed and not published yet
+        assertEquals(3, copy.getDepthSequence());
+        assertEquals("Apple", copy.getInstrument().getSymbol());
+        assertEquals(new Price(10000, 2), copy.getBestBidPrice());
+        assertEquals(new Price(10100, 2), copy.getBestAskPrice());
+        PriceLevel best = copy.getBookBySide(OrderSide.BUY).get(10000);
+        assertEquals(12, best.getTotalQuantity());
+        Order first = best.peek();
+        assertEquals("order1", first.getClientOrderId());
+        assertEquals(7, first.getOrderId());
+        assertEquals(10, first.getQuantity().getOriginalQuantity());
+        assertEquals(7, first.getQuantity().getRemainingQuantity());
+        assertEquals(book.getBookBySide(OrderSide.BUY).best().peek().getStatus(), first.getStatus());
+        assertEquals("order2", first.getNext().getClientOrderId());
+        assertEquals(7, copy.getBookBySide(OrderSide.BUY).get(9900).getTotalQuantity());
+        assertTrue(copy.cancelOrder("order4").isPresent());
+        assertTrue(copy.getBookBySide(OrderSide.SELL).isEmpty());
+    }
+
+    @Test
+    void testKeepsTheLatestCompleteSnapshots() throws Exception {
+        // Arrange
+        store = store(2);
+        for (long sequence = 1; sequence <= 3; sequence++) {
+            OrderBook book = orderBookFactory.createOrderBook(new Instrument("AAPL", "Apple"));
+            store.write(sequence, List.of(BookSnapshot.of(book, sequence)));
+        }
+        // Left behind by a crash while writing
+        Files.createDirectories(directory.resolve("snapshot-00000000000000000004.tmp"));
+
+        // Act
+        SnapshotStore.Restored restored = store.restore();
+
+        // Assert
+        assertEquals(3, restored.journalSequence());
+        assertEquals(Map.of("AAPL", 3L), restored.sequences());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(3, files.count());
+        }
+    }
+
+    @Test
+    void testRestoresNothingWithoutSnapshot() {
+        // Arrange
+        store = store(2);
+
+        // Act
+        SnapshotStore.Restored restored = store.restore();
+
+        // Assert
+        assertNull(restored);
+        assertNull(new SnapshotStore(bookRepository, orderBookFactory, "", 0, 0, 1).restore());
+    }
+
+    private SnapshotStore store(int retain) {
+        return new SnapshotStore(bookRepository, orderBookFactory, directory.toString(), 0, 2, retain);
+    }
+
+    private static Order limit(String clientOrderId, OrderSide side, long price, int quantity) {
+        return new Order("AAPL", "client", clientOrderId, side, OrderType.LIMIT, price, quantity(quantity),
+                TimeInForce.ALL_OR_NONE);
+    }
+
+    private static OrderQuantity quantity(int quantity) {
+        return OrderQuantity.builder().originalQuantity(quantity).remainingQuantity(quantity).build();
+    }
+}